@@ -0,0 +1,92 @@
+package com.taskmanager.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.CategoryRepository;
+import com.taskmanager.repository.StorageEngine;
+import com.taskmanager.repository.TaskRepository;
+
+// Deterministic datasets shared by the benchmarks. Due dates are spread a year either
+// side of the current time, so roughly half of the tasks are overdue.
+final class BenchmarkData {
+
+	static final int CATEGORY_COUNT = 32;
+	static final Status[] STATUSES = Status.values();
+	static final Priority[] PRIORITIES = Priority.values();
+
+	private static final long SEED = 42;
+	private static final int DUE_DATE_SPREAD_HOURS = 365 * 24;
+
+	final List<Category> categories;
+	final Task[] tasks;
+
+	private BenchmarkData(List<Category> categories, Task[] tasks) {
+		this.categories = categories;
+		this.tasks = tasks;
+	}
+
+	static BenchmarkData generate(int size) {
+		List<Category> categories = new ArrayList<>(CATEGORY_COUNT);
+		for (int i = 0; i < CATEGORY_COUNT; i++) {
+			categories.add(new Category("Category " + i, "Benchmark category " + i));
+		}
+		SplittableRandom random = new SplittableRandom(SEED);
+		LocalDateTime now = LocalDateTime.now();
+		Task[] tasks = new Task[size];
+		for (int i = 0; i < size; i++) {
+			LocalDateTime dueDate = now.plusHours(random.nextInt(-DUE_DATE_SPREAD_HOURS, DUE_DATE_SPREAD_HOURS));
+			tasks[i] = new Task(taskId(i), "Task " + i, "Benchmark task number " + i, dueDate,
+					PRIORITIES[random.nextInt(PRIORITIES.length)], categories.get(random.nextInt(CATEGORY_COUNT)),
+					STATUSES[random.nextInt(STATUSES.length)], now, now);
+		}
+		return new BenchmarkData(categories, tasks);
+	}
+
+	static String taskId(int i) {
+		return String.format("task-%08d", i);
+	}
+
+	// fresh copies of the ids, so lookups do not hit the very instances used as map keys
+	String[] taskIds() {
+		String[] taskIds = new String[tasks.length];
+		for (int i = 0; i < taskIds.length; i++) {
+			taskIds[i] = taskId(i);
+		}
+		return taskIds;
+	}
+
+	TaskRepository newTaskRepository() {
+		return newTaskRepository(StorageEngine.HEAP);
+	}
+
+	TaskRepository newTaskRepository(StorageEngine engine) {
+		TaskRepository taskRepository = new TaskRepository(engine);
+		// saveAll takes a collection; load in slices so 10M tasks never need a second copy
+		int slice = 100_000;
+		List<Task> batch = new ArrayList<>(slice);
+		for (Task task : tasks) {
+			batch.add(task);
+			if (batch.size() == slice) {
+				taskRepository.saveAll(batch);
+				batch.clear();
+			}
+		}
+		taskRepository.saveAll(batch);
+		return taskRepository;
+	}
+
+	CategoryRepository newCategoryRepository() {
+		CategoryRepository categoryRepository = new CategoryRepository();
+		for (Category category : categories) {
+			categoryRepository.save(category);
+		}
+		return categoryRepository;
+	}
+}
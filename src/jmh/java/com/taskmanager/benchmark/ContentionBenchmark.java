@@ -0,0 +1,129 @@
+package com.taskmanager.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.taskmanager.exception.DuplicateTaskException;
+import com.taskmanager.exception.InvalidDateException;
+import com.taskmanager.exception.TaskNotFoundException;
+import com.taskmanager.exception.TaskValidationException;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.service.ReportService;
+import com.taskmanager.service.TaskService;
+import com.taskmanager.util.DateValidator;
+import com.taskmanager.util.TaskValidator;
+
+// Readers and writers sharing one repository. Each @Group runs its methods at the same
+// time with the given thread counts, and JMH reports every method of a group separately.
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentionBenchmark {
+
+	@Param({ "1000", "1000000" })
+	public int size;
+
+	private BenchmarkData data;
+	private String[] taskIds;
+	private TaskRepository taskRepository;
+	private TaskService taskService;
+	private ReportService reportService;
+	private LocalDateTime dueDate;
+
+	@Setup
+	public void setUp() {
+		data = BenchmarkData.generate(size);
+		taskIds = data.taskIds();
+		taskRepository = data.newTaskRepository();
+		taskService = new TaskService(taskRepository, new TaskValidator(), new DateValidator());
+		reportService = new ReportService(taskRepository);
+		dueDate = LocalDateTime.now().plusYears(5);
+	}
+
+	@Benchmark
+	@Group("lookupsUnderUpdates")
+	@GroupThreads(3)
+	public Optional<Task> lookup() {
+		return taskRepository.findById(randomTaskId());
+	}
+
+	@Benchmark
+	@Group("lookupsUnderUpdates")
+	@GroupThreads(1)
+	public Task update() throws TaskNotFoundException {
+		return taskService.updateTaskStatus(randomTaskId(), randomStatus());
+	}
+
+	@Benchmark
+	@Group("queriesUnderUpdates")
+	@GroupThreads(2)
+	public List<Task> query() {
+		return taskService.getTasksByStatus(randomStatus());
+	}
+
+	@Benchmark
+	@Group("queriesUnderUpdates")
+	@GroupThreads(2)
+	public Task updateWhileQuerying() throws TaskNotFoundException {
+		return taskService.updateTaskStatus(randomTaskId(), randomStatus());
+	}
+
+	@Benchmark
+	@Group("reportsUnderUpdates")
+	@GroupThreads(1)
+	public String report() {
+		return reportService.generateReport();
+	}
+
+	@Benchmark
+	@Group("reportsUnderUpdates")
+	@GroupThreads(3)
+	public Task updateWhileReporting() throws TaskNotFoundException {
+		return taskService.updateTaskStatus(randomTaskId(), randomStatus());
+	}
+
+	// every thread creates (and removes) its own tasks, so they contend only on the
+	// fingerprint and secondary indexes, never on the same key
+	@Benchmark
+	@Group("concurrentCreates")
+	@GroupThreads(4)
+	public Task create() throws DuplicateTaskException, InvalidDateException, TaskValidationException,
+			TaskNotFoundException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Task task = taskService.createTask(new Task("Concurrent task " + random.nextLong(), "Created by the benchmark",
+				dueDate, Priority.HIGH, data.categories.get(random.nextInt(data.categories.size()))));
+		taskService.deleteTask(task.getTaskId());
+		return task;
+	}
+
+	private String randomTaskId() {
+		return taskIds[ThreadLocalRandom.current().nextInt(size)];
+	}
+
+	private static Status randomStatus() {
+		return BenchmarkData.STATUSES[ThreadLocalRandom.current().nextInt(BenchmarkData.STATUSES.length)];
+	}
+}
@@ -0,0 +1,38 @@
+package com.taskmanager.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.taskmanager.exception.InvalidDateException;
+import com.taskmanager.util.DateValidator;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateParserBenchmark {
+
+	// one input per supported shape; dd-MM-yyyy was the last pattern the old loop tried
+	@Param({ "2030-05-10 08:15", "2030-05-10", "2030/05/10 08:15", "2030/05/10", "10/05/2030 08:15", "10/05/2030",
+			"10-05-2030 08:15", "10-05-2030" })
+	public String input;
+
+	@Benchmark
+	public LocalDateTime convertToDate() throws InvalidDateException {
+		return DateValidator.convertToDate(input);
+	}
+
+}
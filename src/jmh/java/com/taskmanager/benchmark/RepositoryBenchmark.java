@@ -0,0 +1,85 @@
+package com.taskmanager.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.StorageEngine;
+import com.taskmanager.repository.TaskRepository;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	public int size;
+
+	@Param({ "HEAP", "COMPACT", "OFF_HEAP", "LSM" })
+	public StorageEngine engine;
+
+	private Task[] tasks;
+	private String[] taskIds;
+	private TaskRepository taskRepository;
+
+	@Setup
+	public void setUp() {
+		BenchmarkData data = BenchmarkData.generate(size);
+		tasks = data.tasks;
+		taskIds = data.taskIds();
+		taskRepository = data.newTaskRepository(engine);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		taskRepository.close();
+	}
+
+	// an update of an existing task: one indexed field changes, the map size stays put
+	@Benchmark
+	public Task save() {
+		int i = ThreadLocalRandom.current().nextInt(size);
+		Task task = tasks[i];
+		tasks[i] = taskRepository.save(
+				task.withPriority(BenchmarkData.PRIORITIES[(task.getPriority().ordinal() + 1) % BenchmarkData.PRIORITIES.length]));
+		return tasks[i];
+	}
+
+	@Benchmark
+	public Optional<Task> findById() {
+		return taskRepository.findById(taskIds[ThreadLocalRandom.current().nextInt(size)]);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public List<Task> findAll() {
+		return taskRepository.findAll();
+	}
+
+	// the copy-free counterpart of findAll
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void forEach(Blackhole blackhole) {
+		taskRepository.forEach(blackhole::consume);
+	}
+}
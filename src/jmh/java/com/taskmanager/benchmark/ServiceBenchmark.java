@@ -0,0 +1,136 @@
+package com.taskmanager.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.taskmanager.exception.DuplicateTaskException;
+import com.taskmanager.exception.InvalidDateException;
+import com.taskmanager.exception.TaskNotFoundException;
+import com.taskmanager.exception.TaskValidationException;
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskOrder;
+import com.taskmanager.repository.TaskQuery;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.service.ReportService;
+import com.taskmanager.service.TaskService;
+import com.taskmanager.util.DateValidator;
+import com.taskmanager.util.TaskValidator;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	public int size;
+
+	private final AtomicLong created = new AtomicLong();
+	private BenchmarkData data;
+	private TaskService taskService;
+	private ReportService reportService;
+	private LocalDateTime dueDate;
+
+	@Setup
+	public void setUp() {
+		data = BenchmarkData.generate(size);
+		TaskRepository taskRepository = data.newTaskRepository();
+		taskService = new TaskService(taskRepository, new TaskValidator(), new DateValidator());
+		reportService = new ReportService(taskRepository);
+		dueDate = LocalDateTime.now().plusYears(5);
+		// builds the full-text index outside the measurement
+		taskService.searchTasks("task", 1);
+	}
+
+	// validation, duplicate check and insert of a new task; deleting it again keeps the
+	// dataset at its nominal size for the whole run
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Task createTask() throws DuplicateTaskException, InvalidDateException, TaskValidationException,
+			TaskNotFoundException {
+		long n = created.incrementAndGet();
+		Task task = taskService.createTask(
+				new Task("New task " + n, "Created by the benchmark", dueDate, Priority.MEDIUM, randomCategory()));
+		taskService.deleteTask(task.getTaskId());
+		return task;
+	}
+
+	// the rejected path: the fingerprint matches a stored task
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Object createDuplicateTask() throws InvalidDateException, TaskValidationException {
+		Task stored = data.tasks[ThreadLocalRandom.current().nextInt(size)];
+		try {
+			return taskService.createTask(new Task(stored.getTitle(), stored.getDescription(), dueDate,
+					stored.getPriority(), stored.getCategory()));
+		} catch (DuplicateTaskException e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public List<Task> getTasksByStatus() {
+		return taskService.getTasksByStatus(
+				BenchmarkData.STATUSES[ThreadLocalRandom.current().nextInt(BenchmarkData.STATUSES.length)]);
+	}
+
+	@Benchmark
+	public List<Task> getTasksByCategory() {
+		return taskService.getTasksByCategory(randomCategory().getCategoryId());
+	}
+
+	@Benchmark
+	public List<Task> getTasksByPriority() {
+		return taskService.getTasksByPriority(
+				BenchmarkData.PRIORITIES[ThreadLocalRandom.current().nextInt(BenchmarkData.PRIORITIES.length)]);
+	}
+
+	@Benchmark
+	public List<Task> getOverdueTasks() {
+		return taskService.getOverdueTasks();
+	}
+
+	// status + priority + category, earliest due first: the planner drives it from the smallest index
+	@Benchmark
+	public List<Task> compoundQuery() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return taskService.findTasks(TaskQuery.builder()
+				.status(BenchmarkData.STATUSES[random.nextInt(BenchmarkData.STATUSES.length)])
+				.priority(BenchmarkData.PRIORITIES[random.nextInt(BenchmarkData.PRIORITIES.length)])
+				.category(randomCategory().getCategoryId()).orderBy(TaskOrder.DUE_DATE).limit(20).build());
+	}
+
+	// one rare term intersected with one every task holds, ranked
+	@Benchmark
+	public List<Task> searchTasks() {
+		return taskService.searchTasks("benchmark " + ThreadLocalRandom.current().nextInt(size), 20);
+	}
+
+	@Benchmark
+	public String generateReport() {
+		return reportService.generateReport();
+	}
+
+	private Category randomCategory() {
+		return data.categories.get(ThreadLocalRandom.current().nextInt(data.categories.size()));
+	}
+}
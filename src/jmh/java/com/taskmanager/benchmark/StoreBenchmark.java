@@ -0,0 +1,103 @@
+package com.taskmanager.benchmark;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.StorageConfig;
+import com.taskmanager.repository.TaskStore;
+
+// The TaskStore operations on their own, without the repository's indexes and logging, so
+// storage backends can be compared on the same dataset. backend takes an engine name or the
+// class name of any other TaskStore (-p backend=com.example.MyTaskStore).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StoreBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int size;
+
+	@Param({ "HEAP", "COMPACT", "OFF_HEAP", "LSM" })
+	public String backend;
+
+	private Task[] tasks;
+	private String[] taskIds;
+	private TaskStore store;
+	private final AtomicLong inserted = new AtomicLong();
+	private LocalDateTime now;
+
+	@Setup
+	public void setUp() throws IOException {
+		BenchmarkData data = BenchmarkData.generate(size);
+		tasks = data.tasks;
+		taskIds = data.taskIds();
+		store = new StorageConfig(backend, null).openTaskStore();
+		for (Task task : tasks) {
+			store.put(task);
+		}
+		store.commit();
+		now = LocalDateTime.now();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		store.close();
+	}
+
+	@Benchmark
+	public Task get() {
+		return store.get(taskIds[ThreadLocalRandom.current().nextInt(size)]);
+	}
+
+	// an update in place: the id is stored already
+	@Benchmark
+	public void put() {
+		store.put(tasks[ThreadLocalRandom.current().nextInt(size)]);
+		store.commit();
+	}
+
+	// a new id every time, removed again so the store keeps its size
+	@Benchmark
+	public void insertAndRemove() {
+		Task task = new Task("task-new-" + inserted.incrementAndGet(), "Inserted", "Benchmark insert", null, null,
+				null, null, null, null);
+		store.put(task);
+		store.commit();
+		store.remove(task.getTaskId());
+		store.commit();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void scan(Blackhole blackhole) {
+		store.forEach(blackhole::consume);
+	}
+
+	// the tasks due in the coming week, about 1% of the dataset
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public long dueNextWeek() {
+		return store.streamDueBetween(now, now.plusWeeks(1)).count();
+	}
+}
@@ -1,19 +1,43 @@
 package com.taskmanager;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Scanner;
-
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.taskmanager.bulk.ImportResult;
+import com.taskmanager.bulk.TaskExporter;
+import com.taskmanager.bulk.TaskImporter;
+import com.taskmanager.changefeed.ChangeFeed;
+import com.taskmanager.event.DomainEventBus;
 import com.taskmanager.exception.InvalidDateException;
 import com.taskmanager.exception.TaskNotFoundException;
 import com.taskmanager.model.Category;
 import com.taskmanager.model.Priority;
 import com.taskmanager.model.Status;
 import com.taskmanager.model.Task;
+import com.taskmanager.notification.NotificationConfig;
+import com.taskmanager.notification.NotificationPipeline;
+import com.taskmanager.persistence.PersistenceConfig;
+import com.taskmanager.persistence.SnapshotScheduler;
+import com.taskmanager.persistence.WriteAheadLog;
+import com.taskmanager.reminder.ReminderScheduler;
 import com.taskmanager.repository.CategoryRepository;
+import com.taskmanager.repository.Page;
+import com.taskmanager.repository.StorageConfig;
+import com.taskmanager.repository.TaskOrder;
 import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.TaskStore;
+import com.taskmanager.service.CategoryDeleteMode;
 import com.taskmanager.service.CategoryService;
 import com.taskmanager.service.NotificationService;
 import com.taskmanager.service.ReportService;
@@ -23,25 +47,123 @@ import com.taskmanager.util.TaskValidator;
 
 public class App {
 
+	private static final int PAGE_SIZE = 20;
+	private static final Duration REMINDER_LEAD_TIME = Duration.ofHours(1);
+
 	private final Scanner scanner;
 	private final TaskService taskService;
 	private final CategoryService categoryService;
 	private final NotificationService notificationService;
 	private final ReportService reportService;
+	private final TaskImporter taskImporter;
+	private final TaskExporter taskExporter;
 
 	public App() {
 		this.scanner = new Scanner(System.in);
 
-		TaskRepository taskRepository = new TaskRepository();
-		CategoryRepository categoryRepository = new CategoryRepository();
+		TaskRepository taskRepository;
+		CategoryRepository categoryRepository;
+		PersistenceConfig persistenceConfig = PersistenceConfig.fromSystemProperties();
+		StorageConfig storageConfig = StorageConfig.fromSystemProperties();
+		TaskStore taskStore;
+		try {
+			taskStore = storageConfig.openTaskStore();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open " + storageConfig.getBackend() + " task store", e);
+		}
+		if (persistenceConfig == null) {
+			taskRepository = new TaskRepository(taskStore);
+			categoryRepository = new CategoryRepository();
+			TaskRepository closing = taskRepository;
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> closeRepository(closing)));
+		} else {
+			try {
+				WriteAheadLog categoryLog = new WriteAheadLog(persistenceConfig.getCategoryLogDirectory(),
+						persistenceConfig);
+				WriteAheadLog taskLog = new WriteAheadLog(persistenceConfig.getTaskLogDirectory(), persistenceConfig);
+				categoryRepository = new CategoryRepository(categoryLog, persistenceConfig.getCategorySnapshotFile());
+				taskRepository = new TaskRepository(taskLog, persistenceConfig.getTaskSnapshotFile(), taskStore);
+
+				SnapshotScheduler snapshotScheduler = new SnapshotScheduler();
+				snapshotScheduler.register(categoryRepository, persistenceConfig.getCategorySnapshotFile(), categoryLog);
+				snapshotScheduler.register(taskRepository, persistenceConfig.getTaskSnapshotFile(), taskLog);
+				snapshotScheduler.start(persistenceConfig.getSnapshotIntervalSeconds());
+				ChangeFeed changeFeed = Boolean.getBoolean(PersistenceConfig.CHANGE_FEED_PROPERTY)
+						? ChangeFeed.attach(taskRepository, persistenceConfig.getChangeFeedDirectory()) : null;
+				TaskRepository closing = taskRepository;
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					closeSnapshots(snapshotScheduler);
+					closeChangeFeed(changeFeed);
+					closeLogs(taskLog, categoryLog);
+					closeRepository(closing);
+				}));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not load task data from " + persistenceConfig.getDataDirectory(), e);
+			}
+		}
 		TaskValidator taskValidator = new TaskValidator();
 		DateValidator dateValidator = new DateValidator();
 
-		taskService = new TaskService(taskRepository, taskValidator, dateValidator);
-		categoryService = new CategoryService(categoryRepository);
+		DomainEventBus eventBus = new DomainEventBus();
+		taskService = new TaskService(taskRepository, taskValidator, dateValidator, eventBus);
+		categoryService = new CategoryService(categoryRepository, taskRepository, eventBus);
 		reportService = new ReportService(taskRepository);
-		notificationService = new NotificationService(taskService);
+		NotificationPipeline notificationPipeline;
+		try {
+			notificationPipeline = NotificationConfig.fromSystemProperties().openPipeline();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open notification file", e);
+		}
+		ReminderScheduler reminderScheduler = ReminderScheduler.attach(taskRepository, REMINDER_LEAD_TIME);
+		notificationService = new NotificationService(taskService, reminderScheduler, notificationPipeline);
+		reminderScheduler.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			reminderScheduler.close();
+			eventBus.close();
+			notificationPipeline.close();
+		}));
+		taskImporter = new TaskImporter(taskRepository, categoryRepository, taskValidator, eventBus);
+		taskExporter = new TaskExporter(taskRepository);
+
+	}
+
+	// a last snapshot on the way out keeps the next startup from replaying this session's log
+	private static void closeSnapshots(SnapshotScheduler snapshotScheduler) {
+		snapshotScheduler.close();
+		try {
+			snapshotScheduler.snapshotNow();
+		} catch (IOException e) {
+			System.out.println("Error writing snapshot: " + e.getMessage());
+		}
+	}
+
+	private static void closeChangeFeed(ChangeFeed changeFeed) {
+		if (changeFeed == null) {
+			return;
+		}
+		try {
+			changeFeed.close();
+		} catch (IOException e) {
+			System.out.println("Error closing change feed: " + e.getMessage());
+		}
+	}
 
+	private static void closeLogs(WriteAheadLog... logs) {
+		for (WriteAheadLog log : logs) {
+			try {
+				log.close();
+			} catch (IOException e) {
+				System.out.println("Error closing " + log.getDirectory() + ": " + e.getMessage());
+			}
+		}
+	}
+
+	private static void closeRepository(TaskRepository taskRepository) {
+		try {
+			taskRepository.close();
+		} catch (IOException e) {
+			System.out.println("Error closing task store: " + e.getMessage());
+		}
 	}
 
 	public static void main(String[] args) {
@@ -95,6 +217,18 @@ public class App {
 				case 12:
 					showAllTasks();
 					break;
+				case 14:
+					importTasks();
+					break;
+				case 15:
+					exportTasks();
+					break;
+				case 16:
+					searchTasks();
+					break;
+				case 17:
+					deleteCategory();
+					break;
 				case 13:
 					generateReports();
 				case 0:
@@ -129,6 +263,10 @@ public class App {
 		System.out.println("11. View All Categories");
 		System.out.println("12. View All Tasks");
 		System.out.println("13. Generate Report");
+		System.out.println("14. Import Tasks (CSV / JSON Lines)");
+		System.out.println("15. Export Tasks (CSV / JSON Lines)");
+		System.out.println("16. Search Tasks");
+		System.out.println("17. Delete Category");
 		System.out.println("0. Exit");
 		System.out.print("Enter choice: ");
 	}
@@ -139,17 +277,51 @@ public class App {
 			return;
 		}
 
-		for (Task task : tasks) {
-			System.out.println("\nID: " + task.getTaskId());
-			System.out.println("Title: " + task.getTitle());
-			System.out
-					.println("Due Date: " + task.getDueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-			System.out.println("Status: " + task.getStatus());
-			System.out.println("Priority: " + task.getPriority());
-			System.out.println("Category: " + task.getCategory().getName());
+		for (int i = 0; i < tasks.size(); i++) {
+			if (i > 0 && i % PAGE_SIZE == 0 && !askForNextPage(tasks.size() - i)) {
+				return;
+			}
+			displayTask(tasks.get(i));
 		}
 	}
 
+	// fetches one page at a time by cursor, starting from null, so a long list is never
+	// loaded as a whole
+	private void displayPages(Function<String, Page<Task>> pages, String emptyMessage) {
+		Page<Task> page = pages.apply(null);
+		if (page.size() == 0) {
+			System.out.println(emptyMessage);
+			return;
+		}
+
+		page.getItems().forEach(this::displayTask);
+		while (page.hasNext() && askForNextPage(-1)) {
+			page = pages.apply(page.getNextCursor());
+			page.getItems().forEach(this::displayTask);
+		}
+	}
+
+	private void displayPages(Predicate<? super Task> filter) {
+		displayPages(cursor -> taskService.getTasksPage(TaskOrder.CREATED_DATE, filter, cursor, PAGE_SIZE),
+				"No tasks found.");
+	}
+
+	private boolean askForNextPage(int remaining) {
+		String more = remaining > 0 ? remaining + " more" : "more";
+		System.out.print("\n-- " + more + " -- Enter for the next page, q to stop: ");
+		return !scanner.nextLine().trim().equalsIgnoreCase("q");
+	}
+
+	private void displayTask(Task task) {
+		System.out.println("\nID: " + task.getTaskId());
+		System.out.println("Title: " + task.getTitle());
+		System.out.println("Due Date: " + (task.getDueDate() == null ? "none"
+				: task.getDueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))));
+		System.out.println("Status: " + task.getStatus());
+		System.out.println("Priority: " + task.getPriority());
+		System.out.println("Category: " + task.getCategory().getName());
+	}
+
 	private Priority getPriorityChoice() {
 		System.out.println("Priority: 1-HIGH, 2-MEDIUM, 3-LOW");
 		int choice = Integer.parseInt(scanner.nextLine());
@@ -230,21 +402,20 @@ public class App {
 
 		Task existingTask = taskService.getTaskById(taskId);
 
-		Task updatedTask = new Task(existingTask.getTitle(), existingTask.getDescription(), existingTask.getDueDate(),
-				existingTask.getPriority(), existingTask.getCategory());
+		Task.Builder updatedTask = existingTask.toBuilder();
 
 		// Get updated values
 		System.out.print("Enter new title (press Enter to keep current: " + existingTask.getTitle() + "): ");
 		String title = scanner.nextLine();
 		if (!title.trim().isEmpty()) {
-			updatedTask.setTitle(title);
+			updatedTask.title(title);
 		}
 
 		System.out
 				.print("Enter new description (press Enter to keep current: " + existingTask.getDescription() + "): ");
 		String description = scanner.nextLine();
 		if (!description.trim().isEmpty()) {
-			updatedTask.setDescription(description);
+			updatedTask.description(description);
 		}
 
 		System.out.print("Enter new due date (yyyy-MM-dd HH:mm) (press Enter to keep current: "
@@ -252,21 +423,21 @@ public class App {
 		String dateStr = scanner.nextLine();
 		if (!dateStr.trim().isEmpty()) {
 			LocalDateTime dueDate = DateValidator.convertToDate(dateStr);
-			updatedTask.setDueDate(dueDate);
+			updatedTask.dueDate(dueDate);
 		}
 
 		System.out.println("Update priority? (y/n) Current: " + existingTask.getPriority());
 		if (scanner.nextLine().equalsIgnoreCase("y")) {
-			updatedTask.setPriority(getPriorityChoice());
+			updatedTask.priority(getPriorityChoice());
 		}
 
 		System.out.println("Update status? (y/n) Current: " + existingTask.getStatus());
 		if (scanner.nextLine().equalsIgnoreCase("y")) {
-			updatedTask.setStatus(getStatusChoice());
+			updatedTask.status(getStatusChoice());
 		}
 
 		try {
-			Task updated = taskService.updateTask(taskId, updatedTask);
+			Task updated = taskService.updateTask(taskId, updatedTask.build());
 			System.out.println("Task updated successfully!");
 			List<Task> singleTaskList = new ArrayList<>();
 			singleTaskList.add(updated);
@@ -298,14 +469,7 @@ public class App {
 		try {
 
 			System.out.println("\n=== All Tasks ===");
-			List<Task> tasks = taskService.getAllTasks();
-
-			if (tasks.isEmpty()) {
-				System.out.println("No tasks found.");
-				return;
-			}
-
-			displayTasks(tasks);
+			displayPages(null);
 
 		} catch (Exception e) {
 			System.out.println("Error retrieving all tasks: " + e.getMessage());
@@ -314,12 +478,12 @@ public class App {
 	}
 
 	private Category getOrCreateDefaultCategory() {
-		List<Category> categories = categoryService.getAllCategories();
-		if (categories.isEmpty()) {
+		Optional<Category> category = categoryService.findAnyCategory();
+		if (!category.isPresent()) {
 			Category defaultCategory = new Category("Default", "Default Category");
 			return categoryService.createCategory(defaultCategory);
 		}
-		return categories.get(0);
+		return category.get();
 	}
 
 	private void viewTaskById() throws Exception {
@@ -338,22 +502,19 @@ public class App {
 	private void viewTasksByStatus() {
 		System.out.print("Enter status (PENDING, IN_PROGRESS, COMPLETED): ");
 		Status status = Status.valueOf(scanner.nextLine().toUpperCase());
-		List<Task> tasks = taskService.getTasksByStatus(status);
-		displayTasks(tasks);
+		displayPages(task -> task.getStatus() == status);
 	}
 
 	private void viewTasksByPriority() {
 		System.out.print("Enter priority (HIGH, MEDIUM, LOW): ");
 		Priority priority = Priority.valueOf(scanner.nextLine().toUpperCase());
-		List<Task> tasks = taskService.getTasksByPriority(priority);
-		displayTasks(tasks);
+		displayPages(task -> task.getPriority() == priority);
 	}
 
 	private void viewTasksByCategory() {
 		System.out.print("Enter category ID: ");
 		String categoryId = scanner.nextLine();
-		List<Task> tasks = taskService.getTasksByCategory(categoryId);
-		displayTasks(tasks);
+		displayPages(task -> task.getCategory() != null && categoryId.equals(task.getCategory().getCategoryId()));
 	}
 
 	private void updateTaskStatus() {
@@ -393,16 +554,9 @@ public class App {
 		try {
 			System.out.println("\n=== Overdue Tasks ===");
 			notificationService.checkOverdueTasks();
-			List<Task> overdueTasks = taskService.getOverdueTasks();
-
-			if (overdueTasks.isEmpty()) {
-				System.out.println("No overdue tasks found.");
-				return;
-			}
-
-			notificationService.checkOverdueTasks();
+			LocalDateTime now = LocalDateTime.now();
 			System.out.println("\nDetailed Overdue Task Information:");
-			displayTasks(overdueTasks);
+			displayPages(cursor -> taskService.getOverdueTasksPage(now, cursor, PAGE_SIZE), "No overdue tasks found.");
 
 		} catch (Exception e) {
 			System.out.println("Error retrieving overdue tasks: " + e.getMessage());
@@ -421,8 +575,59 @@ public class App {
 	}
 
 	private void listCategories() {
-		List<Category> categories = categoryService.getAllCategories();
-		categories.forEach(System.out::println);
+		categoryService.forEachCategory(System.out::println);
+	}
+
+	private void deleteCategory() throws Exception {
+		System.out.print("Enter category ID: ");
+		String categoryId = scanner.nextLine().trim();
+		System.out.println("If it still has tasks (1-Cancel, 2-Delete them, 3-Move them to another category): ");
+		String choice = scanner.nextLine().trim();
+		CategoryDeleteMode mode = CategoryDeleteMode.REJECT_IF_USED;
+		String targetCategoryId = null;
+		if (choice.equals("2")) {
+			mode = CategoryDeleteMode.CASCADE_DELETE;
+		} else if (choice.equals("3")) {
+			mode = CategoryDeleteMode.REASSIGN;
+			System.out.print("Enter ID of the category to move them to: ");
+			targetCategoryId = scanner.nextLine().trim();
+		}
+
+		long tasks = categoryService.deleteCategory(categoryId, mode, targetCategoryId,
+				(done, total) -> System.out.printf("\r%d of %d tasks done", done, total));
+		if (tasks > 0) {
+			System.out.println();
+		}
+		System.out.println("Category deleted successfully!" + (tasks > 0
+				? " " + tasks + (mode == CategoryDeleteMode.REASSIGN ? " task(s) moved." : " task(s) deleted.") : ""));
+	}
+
+	private void importTasks() throws Exception {
+		System.out.print("Enter file to import (.csv or .jsonl): ");
+		Path file = Paths.get(scanner.nextLine().trim());
+
+		ImportResult result = taskImporter.importFile(file);
+		System.out.println(result);
+		result.getErrors().forEach(error -> System.out.println("  " + error));
+		if (result.getFailedCount() > result.getErrors().size()) {
+			System.out.println("  ... " + (result.getFailedCount() - result.getErrors().size()) + " more errors");
+		}
+	}
+
+	private void exportTasks() throws Exception {
+		System.out.print("Enter file to export to (.csv or .jsonl): ");
+		Path file = Paths.get(scanner.nextLine().trim());
+
+		long count = taskExporter.exportFile(file);
+		System.out.println("Exported " + count + " tasks to " + file);
+	}
+
+	private void searchTasks() {
+		System.out.print("Search for (all words must match, OR for alternatives, word* for prefixes): ");
+		String query = scanner.nextLine();
+
+		System.out.println("\n=== Search Results ===");
+		displayTasks(taskService.searchTasks(query, 100));
 	}
 
 	private void generateReports() {
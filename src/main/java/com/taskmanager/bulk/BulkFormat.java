@@ -0,0 +1,28 @@
+package com.taskmanager.bulk;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+public enum BulkFormat {
+	CSV,
+	JSON_LINES;
+
+	// field names shared by both formats; CSV files carry them as the header row
+	public static final List<String> FIELDS = Collections.unmodifiableList(
+			Arrays.asList("taskId", "title", "description", "dueDate", "priority", "status", "category",
+					"createdDate", "lastModifiedDate", "version"));
+
+	public static BulkFormat fromPath(Path path) {
+		String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+		if (name.endsWith(".csv")) {
+			return CSV;
+		}
+		if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+			return JSON_LINES;
+		}
+		throw new IllegalArgumentException("Unknown file type, use .csv or .jsonl: " + path);
+	}
+}
@@ -0,0 +1,68 @@
+package com.taskmanager.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// RFC 4180 style fields: commas separate, double quotes wrap fields that contain commas,
+// quotes or line breaks, and a quote inside a quoted field is written twice.
+final class CsvRecords {
+
+	private CsvRecords() {
+	}
+
+	// false while a quoted field is still open, i.e. the record continues on the next line
+	static boolean isComplete(CharSequence record) {
+		boolean quoted = false;
+		for (int i = 0; i < record.length(); i++) {
+			if (record.charAt(i) == '"') {
+				quoted = !quoted;
+			}
+		}
+		return !quoted;
+	}
+
+	static List<String> parse(String record) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < record.length(); i++) {
+			char c = record.charAt(i);
+			if (quoted) {
+				if (c == '"') {
+					if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+						field.append('"');
+						i++;
+					} else {
+						quoted = false;
+					}
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	static void format(List<String> fields, StringBuilder out) {
+		for (int i = 0; i < fields.size(); i++) {
+			if (i > 0) {
+				out.append(',');
+			}
+			String value = fields.get(i) == null ? "" : fields.get(i);
+			if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+					|| value.indexOf('\r') >= 0) {
+				out.append('"').append(value.replace("\"", "\"\"")).append('"');
+			} else {
+				out.append(value);
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.taskmanager.bulk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ImportResult {
+
+	// keeps memory bounded when a whole dump is malformed; the counts stay exact
+	static final int MAX_REPORTED_ERRORS = 1000;
+
+	public static final class LineError {
+		private final long lineNumber;
+		private final String message;
+
+		LineError(long lineNumber, String message) {
+			this.lineNumber = lineNumber;
+			this.message = message;
+		}
+
+		public long getLineNumber() {
+			return lineNumber;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return "line " + lineNumber + ": " + message;
+		}
+	}
+
+	private final AtomicLong imported = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final List<LineError> errors = new ArrayList<>();
+
+	public long getImportedCount() {
+		return imported.get();
+	}
+
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	// the first MAX_REPORTED_ERRORS failures, in line order
+	public List<LineError> getErrors() {
+		synchronized (errors) {
+			List<LineError> sorted = new ArrayList<>(errors);
+			sorted.sort(Comparator.comparingLong(LineError::getLineNumber));
+			return sorted;
+		}
+	}
+
+	void addImported(long count) {
+		imported.addAndGet(count);
+	}
+
+	void addError(long lineNumber, String message) {
+		failed.incrementAndGet();
+		synchronized (errors) {
+			if (errors.size() < MAX_REPORTED_ERRORS) {
+				errors.add(new LineError(lineNumber, message));
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Imported: " + getImportedCount() + ", Failed: " + getFailedCount();
+	}
+}
@@ -0,0 +1,199 @@
+package com.taskmanager.bulk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Just enough JSON for one flat object per line: string, number, boolean and null values.
+// Values are handed back as strings (null stays null); nested objects and arrays are rejected.
+final class JsonLines {
+
+	private JsonLines() {
+	}
+
+	static Map<String, String> parse(String line) {
+		Parser parser = new Parser(line);
+		Map<String, String> fields = parser.object();
+		parser.skipWhitespace();
+		if (!parser.atEnd()) {
+			throw new IllegalArgumentException("Unexpected content after JSON object");
+		}
+		return fields;
+	}
+
+	static void format(Map<String, String> fields, StringBuilder out) {
+		out.append('{');
+		boolean first = true;
+		for (Map.Entry<String, String> field : fields.entrySet()) {
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			writeString(field.getKey(), out);
+			out.append(':');
+			if (field.getValue() == null) {
+				out.append("null");
+			} else {
+				writeString(field.getValue(), out);
+			}
+		}
+		out.append('}');
+	}
+
+	private static void writeString(String value, StringBuilder out) {
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					out.append(String.format("\\u%04x", (int) c));
+				} else {
+					out.append(c);
+				}
+			}
+		}
+		out.append('"');
+	}
+
+	private static final class Parser {
+		private final String text;
+		private int position;
+
+		private Parser(String text) {
+			this.text = text;
+		}
+
+		private Map<String, String> object() {
+			Map<String, String> fields = new LinkedHashMap<>();
+			skipWhitespace();
+			expect('{');
+			skipWhitespace();
+			if (peek() == '}') {
+				position++;
+				return fields;
+			}
+			while (true) {
+				skipWhitespace();
+				String key = string();
+				skipWhitespace();
+				expect(':');
+				skipWhitespace();
+				fields.put(key, value());
+				skipWhitespace();
+				char next = next();
+				if (next == '}') {
+					return fields;
+				}
+				if (next != ',') {
+					throw new IllegalArgumentException("Expected ',' or '}' at position " + (position - 1));
+				}
+			}
+		}
+
+		private String value() {
+			char c = peek();
+			if (c == '"') {
+				return string();
+			}
+			if (c == '{' || c == '[') {
+				throw new IllegalArgumentException("Nested values are not supported at position " + position);
+			}
+			int start = position;
+			while (!atEnd() && ",} \t\r\n".indexOf(text.charAt(position)) < 0) {
+				position++;
+			}
+			String literal = text.substring(start, position);
+			if (literal.isEmpty()) {
+				throw new IllegalArgumentException("Missing value at position " + start);
+			}
+			return literal.equals("null") ? null : literal;
+		}
+
+		private String string() {
+			expect('"');
+			StringBuilder value = new StringBuilder();
+			while (true) {
+				char c = next();
+				if (c == '"') {
+					return value.toString();
+				}
+				if (c != '\\') {
+					value.append(c);
+					continue;
+				}
+				char escaped = next();
+				switch (escaped) {
+				case 'n':
+					value.append('\n');
+					break;
+				case 'r':
+					value.append('\r');
+					break;
+				case 't':
+					value.append('\t');
+					break;
+				case 'b':
+					value.append('\b');
+					break;
+				case 'f':
+					value.append('\f');
+					break;
+				case 'u':
+					if (position + 4 > text.length()) {
+						throw new IllegalArgumentException("Truncated unicode escape");
+					}
+					value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+					position += 4;
+					break;
+				default:
+					value.append(escaped);
+				}
+			}
+		}
+
+		private void expect(char expected) {
+			char c = next();
+			if (c != expected) {
+				throw new IllegalArgumentException("Expected '" + expected + "' at position " + (position - 1));
+			}
+		}
+
+		private char peek() {
+			if (atEnd()) {
+				throw new IllegalArgumentException("Unexpected end of line");
+			}
+			return text.charAt(position);
+		}
+
+		private char next() {
+			char c = peek();
+			position++;
+			return c;
+		}
+
+		private void skipWhitespace() {
+			while (!atEnd() && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+		}
+
+		private boolean atEnd() {
+			return position >= text.length();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.taskmanager.bulk;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+
+// Writes every task as CSV or JSON Lines, one row at a time through a buffered writer.
+// Output uses the same fields TaskImporter reads, so an export can be imported again.
+// Dates are written as ISO-8601 down to the nanosecond, so they survive the round trip.
+public class TaskExporter {
+
+	private final TaskRepository taskRepository;
+
+	public TaskExporter(TaskRepository taskRepository) {
+		this.taskRepository = taskRepository;
+	}
+
+	public long exportFile(Path file) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			return exportTasks(writer, BulkFormat.fromPath(file));
+		}
+	}
+
+	public long exportTasks(Writer output, BulkFormat format) throws IOException {
+		Writer writer = output instanceof BufferedWriter ? output : new BufferedWriter(output, 1 << 16);
+		StringBuilder line = new StringBuilder(256);
+		if (format == BulkFormat.CSV) {
+			CsvRecords.format(BulkFormat.FIELDS, line);
+			writer.append(line).append('\n');
+		}
+		long count = 0;
+		// walks the live map instead of copying it; tasks changed mid-export may or may not be included
+		for (Iterator<Task> tasks = taskRepository.stream().iterator(); tasks.hasNext();) {
+			Task task = tasks.next();
+			line.setLength(0);
+			if (format == BulkFormat.CSV) {
+				CsvRecords.format(values(task), line);
+			} else {
+				Map<String, String> fields = new LinkedHashMap<>();
+				List<String> values = values(task);
+				for (int i = 0; i < BulkFormat.FIELDS.size(); i++) {
+					fields.put(BulkFormat.FIELDS.get(i), values.get(i));
+				}
+				JsonLines.format(fields, line);
+			}
+			writer.append(line).append('\n');
+			count++;
+		}
+		writer.flush();
+		return count;
+	}
+
+	private static List<String> values(Task task) {
+		return Arrays.asList(task.getTaskId(), task.getTitle(), task.getDescription(), format(task.getDueDate()),
+				task.getPriority() == null ? null : task.getPriority().name(),
+				task.getStatus() == null ? null : task.getStatus().name(),
+				task.getCategory() == null ? null : task.getCategory().getName(), format(task.getCreatedDate()),
+				format(task.getLastModifiedDate()), Long.toString(task.getVersion()));
+	}
+
+	private static String format(LocalDateTime date) {
+		return date == null ? null : date.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+	}
+}
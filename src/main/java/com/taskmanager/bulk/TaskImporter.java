@@ -0,0 +1,311 @@
+package com.taskmanager.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.taskmanager.event.CategoryCreated;
+import com.taskmanager.event.DomainEventBus;
+import com.taskmanager.event.TaskCreated;
+import com.taskmanager.exception.InvalidDateException;
+import com.taskmanager.exception.TaskValidationException;
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.CategoryRepository;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.util.DateValidator;
+import com.taskmanager.util.TaskValidator;
+
+// Streams tasks from CSV or JSON Lines into the repository. The calling thread only reads
+// lines and cuts them into batches; a worker pool parses, validates and inserts each batch.
+// At most two batches per worker are in flight, so memory stays flat however big the file.
+// Bad lines are reported in the result and never stop the import. Rows keep the id, dates
+// and version they carry, and a row whose id or content is already stored is rejected
+// rather than overwriting it. Every imported task is published on the event bus.
+public class TaskImporter {
+
+	private static final int DEFAULT_BATCH_SIZE = 1000;
+	private static final String DEFAULT_CATEGORY = "Default";
+
+	private static final class RawLine {
+		private final long lineNumber;
+		private final String text;
+
+		private RawLine(long lineNumber, String text) {
+			this.lineNumber = lineNumber;
+			this.text = text;
+		}
+	}
+
+	private final TaskRepository taskRepository;
+	private final CategoryRepository categoryRepository;
+	private final TaskValidator taskValidator;
+	private final int workers;
+	private final int batchSize;
+	private final DomainEventBus eventBus;
+	private final ConcurrentHashMap<String, Category> categoriesByName = new ConcurrentHashMap<>();
+
+	public TaskImporter(TaskRepository taskRepository, CategoryRepository categoryRepository,
+			TaskValidator taskValidator) {
+		this(taskRepository, categoryRepository, taskValidator, new DomainEventBus());
+	}
+
+	public TaskImporter(TaskRepository taskRepository, CategoryRepository categoryRepository,
+			TaskValidator taskValidator, DomainEventBus eventBus) {
+		this(taskRepository, categoryRepository, taskValidator, Runtime.getRuntime().availableProcessors(),
+				DEFAULT_BATCH_SIZE, eventBus);
+	}
+
+	public TaskImporter(TaskRepository taskRepository, CategoryRepository categoryRepository,
+			TaskValidator taskValidator, int workers, int batchSize) {
+		this(taskRepository, categoryRepository, taskValidator, workers, batchSize, new DomainEventBus());
+	}
+
+	public TaskImporter(TaskRepository taskRepository, CategoryRepository categoryRepository,
+			TaskValidator taskValidator, int workers, int batchSize, DomainEventBus eventBus) {
+		if (workers <= 0 || batchSize <= 0) {
+			throw new IllegalArgumentException("Workers and batch size must be positive");
+		}
+		this.taskRepository = taskRepository;
+		this.categoryRepository = categoryRepository;
+		this.taskValidator = taskValidator;
+		this.workers = workers;
+		this.batchSize = batchSize;
+		this.eventBus = eventBus;
+	}
+
+	public ImportResult importFile(Path file) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			return importTasks(reader, BulkFormat.fromPath(file));
+		}
+	}
+
+	public ImportResult importTasks(Reader input, BulkFormat format) throws IOException {
+		BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input
+				: new BufferedReader(input, 1 << 16);
+		categoryRepository.forEach(category -> categoriesByName.putIfAbsent(category.getName(), category));
+
+		ImportResult result = new ImportResult();
+		AtomicInteger threadNumber = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, "task-import-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		int permits = workers * 2;
+		Semaphore inFlight = new Semaphore(permits);
+		try {
+			long lineNumber = 0;
+			List<String> header = null;
+			if (format == BulkFormat.CSV) {
+				String headerLine = reader.readLine();
+				lineNumber++;
+				if (headerLine == null) {
+					return result;
+				}
+				header = CsvRecords.parse(stripBom(headerLine));
+				if (!header.contains("title")) {
+					throw new IOException("CSV header must name the columns, e.g. " + String.join(",", BulkFormat.FIELDS));
+				}
+			}
+
+			List<RawLine> batch = new ArrayList<>(batchSize);
+			StringBuilder record = new StringBuilder();
+			long recordStart = 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (record.length() == 0) {
+					if (line.trim().isEmpty()) {
+						continue;
+					}
+					recordStart = lineNumber;
+					record.append(format == BulkFormat.CSV || lineNumber > 1 ? line : stripBom(line));
+				} else {
+					// a quoted CSV field carried a line break
+					record.append('\n').append(line);
+				}
+				if (format == BulkFormat.CSV && !CsvRecords.isComplete(record)) {
+					continue;
+				}
+				batch.add(new RawLine(recordStart, record.toString()));
+				record.setLength(0);
+				if (batch.size() == batchSize) {
+					submit(pool, inFlight, batch, header, format, result);
+					batch = new ArrayList<>(batchSize);
+				}
+			}
+			if (record.length() > 0) {
+				result.addError(recordStart, "Unterminated quoted field");
+			}
+			if (!batch.isEmpty()) {
+				submit(pool, inFlight, batch, header, format, result);
+			}
+			// every batch has finished once all permits are back
+			inFlight.acquire(permits);
+			inFlight.release(permits);
+			return result;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Import interrupted");
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void submit(ExecutorService pool, Semaphore inFlight, List<RawLine> batch, List<String> header,
+			BulkFormat format, ImportResult result) throws InterruptedException {
+		inFlight.acquire();
+		try {
+			pool.execute(() -> {
+				try {
+					importBatch(batch, header, format, result);
+				} catch (RuntimeException e) {
+					batch.forEach(raw -> result.addError(raw.lineNumber, "Batch failed: " + e.getMessage()));
+				} finally {
+					inFlight.release();
+				}
+			});
+		} catch (RuntimeException e) {
+			inFlight.release();
+			throw e;
+		}
+	}
+
+	private void importBatch(List<RawLine> batch, List<String> header, BulkFormat format, ImportResult result) {
+		List<Task> valid = new ArrayList<>(batch.size());
+		Map<Task, Long> lineNumbers = new IdentityHashMap<>();
+		for (RawLine raw : batch) {
+			try {
+				Map<String, String> fields = format == BulkFormat.CSV ? toFields(header, CsvRecords.parse(raw.text))
+						: JsonLines.parse(raw.text);
+				Task task = toTask(fields);
+				taskValidator.validateTask(task);
+				valid.add(task);
+				lineNumbers.put(task, raw.lineNumber);
+			} catch (TaskValidationException | InvalidDateException | IllegalArgumentException e) {
+				result.addError(raw.lineNumber, e.getMessage());
+			}
+		}
+		List<Task> saved = taskRepository.insertAllIfUnique(valid);
+		int imported = 0;
+		for (int i = 0; i < saved.size(); i++) {
+			Task stored = saved.get(i);
+			if (stored != null) {
+				imported++;
+				eventBus.publish(new TaskCreated(stored));
+			} else {
+				Task duplicate = valid.get(i);
+				// a row that matches a stored task on content is reported as such even if its id is taken too
+				result.addError(lineNumbers.get(duplicate), taskRepository.isDuplicate(duplicate)
+						? "Duplicate task: " + duplicate.getTitle() : "Duplicate task id: " + duplicate.getTaskId());
+			}
+		}
+		result.addImported(imported);
+	}
+
+	private static Map<String, String> toFields(List<String> header, List<String> values) {
+		if (values.size() != header.size()) {
+			throw new IllegalArgumentException(
+					"Expected " + header.size() + " fields but found " + values.size());
+		}
+		Map<String, String> fields = new HashMap<>(header.size() * 2);
+		for (int i = 0; i < header.size(); i++) {
+			fields.put(header.get(i), values.get(i));
+		}
+		return fields;
+	}
+
+	// due dates are not required to be in the future: dumps carry overdue tasks too
+	private Task toTask(Map<String, String> fields) throws InvalidDateException {
+		String taskId = blankToNull(fields.get("taskId"));
+		String title = fields.get("title");
+		String description = fields.get("description");
+		LocalDateTime dueDate = parseDate(fields.get("dueDate"));
+		LocalDateTime createdDate = parseDate(fields.get("createdDate"));
+		LocalDateTime lastModifiedDate = parseDate(fields.get("lastModifiedDate"));
+		String versionValue = blankToNull(fields.get("version"));
+		String priorityValue = blankToNull(fields.get("priority"));
+		Priority priority = priorityValue == null ? Priority.MEDIUM
+				: Priority.valueOf(priorityValue.trim().toUpperCase(Locale.ROOT));
+		String statusValue = blankToNull(fields.get("status"));
+		Status status = statusValue == null ? Status.PENDING
+				: Status.valueOf(statusValue.trim().toUpperCase(Locale.ROOT));
+		Category category = resolveCategory(blankToNull(fields.get("category")));
+
+		LocalDateTime now = LocalDateTime.now();
+		Task.Builder builder = (taskId == null ? new Task(title, description, dueDate, priority, category)
+				: new Task(taskId, title, description, dueDate, priority, category, status, now, now)).toBuilder()
+				.status(status);
+		if (createdDate != null) {
+			builder.createdDate(createdDate);
+		}
+		if (lastModifiedDate != null) {
+			builder.lastModifiedDate(lastModifiedDate);
+		}
+		if (versionValue != null) {
+			builder.version(Long.parseLong(versionValue.trim()));
+		}
+		return builder.build();
+	}
+
+	// TaskExporter writes ISO-8601 dates; hand-written files may use the formats the CLI takes
+	private static LocalDateTime parseDate(String value) throws InvalidDateException {
+		if (blankToNull(value) == null) {
+			return null;
+		}
+		if (value.indexOf('T') < 0) {
+			return DateValidator.convertToDate(value);
+		}
+		try {
+			return LocalDateTime.parse(value.trim());
+		} catch (DateTimeParseException e) {
+			throw new InvalidDateException("Invalid date: " + value);
+		}
+	}
+
+	// the category column holds a category id or name; unknown names become new categories
+	private Category resolveCategory(String value) {
+		String name = value == null ? DEFAULT_CATEGORY : value;
+		if (value != null) {
+			Category byId = categoryRepository.findById(value).orElse(null);
+			if (byId != null) {
+				return byId;
+			}
+		}
+		Category[] created = new Category[1];
+		Category category = categoriesByName.computeIfAbsent(name,
+				categoryName -> created[0] = categoryRepository.save(new Category(categoryName, "Imported category")));
+		if (created[0] != null) {
+			eventBus.publish(new CategoryCreated(created[0]));
+		}
+		return category;
+	}
+
+	private static String blankToNull(String value) {
+		return value == null || value.trim().isEmpty() ? null : value;
+	}
+
+	private static String stripBom(String line) {
+		return !line.isEmpty() && line.charAt(0) == '\uFEFF' ? line.substring(1) : line;
+	}
+}
@@ -0,0 +1,42 @@
+package com.taskmanager.changefeed;
+
+import com.taskmanager.model.Task;
+
+public final class Change {
+
+	private final long offset;
+	private final ChangeType type;
+	private final String taskId;
+	private final Task task;
+
+	Change(long offset, ChangeType type, String taskId, Task task) {
+		this.offset = offset;
+		this.type = type;
+		this.taskId = taskId;
+		this.task = task;
+	}
+
+	// increases with every change; after compaction not every offset is present
+	public long getOffset() {
+		return offset;
+	}
+
+	public ChangeType getType() {
+		return type;
+	}
+
+	// null for CLEAR
+	public String getTaskId() {
+		return taskId;
+	}
+
+	// the task as saved, for PUT only
+	public Task getTask() {
+		return task;
+	}
+
+	@Override
+	public String toString() {
+		return "Change{" + offset + " " + type + (taskId == null ? "" : " " + taskId) + "}";
+	}
+}
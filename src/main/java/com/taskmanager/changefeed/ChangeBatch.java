@@ -0,0 +1,36 @@
+package com.taskmanager.changefeed;
+
+import java.util.List;
+
+public final class ChangeBatch {
+
+	private final List<Change> changes;
+	private final long offset;
+	private final boolean gap;
+
+	ChangeBatch(List<Change> changes, long offset, boolean gap) {
+		this.changes = changes;
+		this.offset = offset;
+		this.gap = gap;
+	}
+
+	public List<Change> getChanges() {
+		return changes;
+	}
+
+	// the offset to read after next time: the last change's, or the one asked for when the
+	// batch is empty
+	public long getOffset() {
+		return offset;
+	}
+
+	// true when changes after the offset asked for were dropped by retention before they were
+	// read; the consumer then has to rebuild its state from the repository
+	public boolean isGap() {
+		return gap;
+	}
+
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+}
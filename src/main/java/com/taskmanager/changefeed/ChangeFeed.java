@@ -0,0 +1,341 @@
+package com.taskmanager.changefeed;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.persistence.FsyncPolicy;
+import com.taskmanager.persistence.RecordCodec;
+import com.taskmanager.persistence.WriteAheadLog;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.TaskRepositoryListener;
+
+// Change data capture for a TaskRepository. Every save, delete and clear is appended to a
+// segmented log of its own, in the repository's RecordCodec format, under an offset that only
+// ever grows. Consumers pull batches of changes after the last offset they processed and keep
+// that offset, here with commitOffset or anywhere else, to resume after a restart.
+//
+// The repository reports changes from inside its per-task critical section, so they are only
+// queued there; a writer thread appends them to the log in the order they were queued, which
+// keeps every task's changes in the order they were applied. A change becomes readable once
+// it has been written and fsynced, within a few milliseconds, so a crash can never take back
+// a change a consumer has already seen. Attaching to a repository again
+// after a restart appends only what changed while the feed was not attached.
+//
+// The log is kept to a size limit in one of two ways. TRUNCATE drops the oldest segments, and
+// a consumer that falls further behind than the log reaches gets a batch flagged as a gap.
+// COMPACT rewrites the older segments keeping only the latest change of each task, so a
+// consumer reading from offset 0 still ends up with the repository's full contents; deletes
+// are kept as tombstones until a CLEAR supersedes them.
+public class ChangeFeed implements TaskRepositoryListener, Closeable {
+
+	public enum Retention {
+		TRUNCATE,
+		COMPACT
+	}
+
+	public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+	public static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+	private static final long FSYNC_INTERVAL_MILLIS = 20;
+	private static final Pattern CONSUMER_NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+	// the newest change of a task in the log
+	private static final class Latest {
+		private final long offset;
+		private final long version;
+		private final boolean deleted;
+
+		private Latest(long offset, long version, boolean deleted) {
+			this.offset = offset;
+			this.version = version;
+			this.deleted = deleted;
+		}
+	}
+
+	private final Retention retention;
+	private final long maxBytes;
+	private final long segmentSize;
+	private final WriteAheadLog log;
+	private final Path offsetsDirectory;
+	private final ConcurrentHashMap<String, Latest> latest = new ConcurrentHashMap<>();
+	private volatile long lastClearOffset;
+	private final AtomicLong appendedSinceMaintenance = new AtomicLong();
+	private final AtomicBoolean maintenancePending = new AtomicBoolean();
+	// a single thread, so changes reach the log in the order they were queued
+	private final ExecutorService writer;
+	private volatile IOException writeFailure;
+	private final ExecutorService maintainer;
+	private volatile TaskRepository taskRepository;
+
+	public ChangeFeed(Path directory) throws IOException {
+		this(directory, Retention.COMPACT, DEFAULT_MAX_BYTES, DEFAULT_SEGMENT_SIZE);
+	}
+
+	public ChangeFeed(Path directory, Retention retention, long maxBytes, long segmentSize) throws IOException {
+		if (maxBytes <= 0 || segmentSize <= 0) {
+			throw new IllegalArgumentException("Size limit and segment size must be positive");
+		}
+		this.retention = retention;
+		this.maxBytes = maxBytes;
+		this.segmentSize = segmentSize;
+		this.offsetsDirectory = directory.resolve("offsets");
+		Files.createDirectories(offsetsDirectory);
+		this.log = new WriteAheadLog(directory.resolve("log"), FsyncPolicy.INTERVAL, FSYNC_INTERVAL_MILLIS,
+				segmentSize);
+		log.replay(this::track);
+		this.writer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "change-feed-writer-" + directory.getFileName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.maintainer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "change-feed-" + directory.getFileName());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// opens the feed kept in directory and attaches it to the repository
+	public static ChangeFeed attach(TaskRepository taskRepository, Path directory) throws IOException {
+		ChangeFeed feed = new ChangeFeed(directory);
+		feed.attachTo(taskRepository);
+		return feed;
+	}
+
+	// Starts following the repository, first catching up on what changed since the feed last
+	// followed it: tasks saved since then are appended, tasks gone since then are deleted.
+	public synchronized void attachTo(TaskRepository taskRepository) {
+		if (this.taskRepository != null) {
+			throw new IllegalStateException("Change feed is already attached to a repository");
+		}
+		this.taskRepository = taskRepository;
+		taskRepository.addListener(this);
+		for (Map.Entry<String, Latest> entry : latest.entrySet()) {
+			if (!entry.getValue().deleted && !taskRepository.exists(entry.getKey())) {
+				onDeleted(entry.getKey());
+			}
+		}
+	}
+
+	// Up to maxChanges changes after afterOffset, oldest first; pass 0 to read from the start
+	// and the returned batch's getOffset() to continue.
+	public ChangeBatch read(long afterOffset, int maxChanges) throws IOException {
+		if (afterOffset < 0 || maxChanges <= 0) {
+			throw new IllegalArgumentException("Offset cannot be negative and batch size must be positive");
+		}
+		boolean gap = afterOffset + 1 < log.getFirstLsn();
+		List<Change> changes = new ArrayList<>(Math.min(maxChanges, 1024));
+		log.read(afterOffset, log.getDurableLsn(), maxChanges,
+				(offset, type, payload) -> changes.add(decode(offset, type, payload)));
+		long offset = changes.isEmpty() ? afterOffset : changes.get(changes.size() - 1).getOffset();
+		return new ChangeBatch(Collections.unmodifiableList(changes), offset, gap);
+	}
+
+	// writes out the queued changes and fsyncs now instead of within a few milliseconds,
+	// making every change so far readable
+	public void flush() throws IOException {
+		try {
+			writer.submit(() -> null).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing the change feed", e);
+		} catch (ExecutionException | RejectedExecutionException e) {
+			throw new IOException("Change feed is closed", e);
+		}
+		if (writeFailure != null) {
+			throw new IOException("Could not write change feed", writeFailure);
+		}
+		log.flush();
+	}
+
+	// the offset of the newest readable change
+	public long getLatestOffset() {
+		return log.getDurableLsn();
+	}
+
+	// Stores a consumer's offset in the feed's directory, replacing the file in one rename,
+	// so the consumer can pick up from it after a restart.
+	public void commitOffset(String consumer, long offset) throws IOException {
+		Path file = offsetFile(consumer);
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		Files.write(temporary, Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// 0, the start of the feed, for a consumer that never committed
+	public long getCommittedOffset(String consumer) throws IOException {
+		Path file = offsetFile(consumer);
+		if (!Files.exists(file)) {
+			return 0;
+		}
+		return Long.parseLong(new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim());
+	}
+
+	// Applies the retention policy now if the log has outgrown its size limit and returns the
+	// number of bytes freed. This also runs in the background after every segment's worth of
+	// changes.
+	public long maintain() throws IOException {
+		if (log.getSizeInBytes() <= maxBytes) {
+			return 0;
+		}
+		return retention == Retention.COMPACT ? log.compact(this::isLatest) : log.truncateToSize(maxBytes);
+	}
+
+	public long getSizeInBytes() throws IOException {
+		return log.getSizeInBytes();
+	}
+
+	public Retention getRetention() {
+		return retention;
+	}
+
+	@Override
+	public void close() throws IOException {
+		TaskRepository attached = taskRepository;
+		if (attached != null) {
+			attached.removeListener(this);
+		}
+		// the writer may still hand the maintainer work, so it stops first
+		shutdown(writer);
+		shutdown(maintainer);
+		log.close();
+	}
+
+	private static void shutdown(ExecutorService executor) {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void onSaved(Task task) {
+		Latest current = latest.get(task.getTaskId());
+		// the repository replays every stored task on attach; the unchanged ones are in the feed
+		if (current != null && !current.deleted && current.version == task.getVersion()) {
+			return;
+		}
+		writer.execute(() -> {
+			long offset = append(RecordCodec.PUT, RecordCodec.encodeTask(task));
+			if (offset > 0) {
+				latest.put(task.getTaskId(), new Latest(offset, task.getVersion(), false));
+			}
+		});
+	}
+
+	@Override
+	public void onDeleted(String taskId) {
+		writer.execute(() -> {
+			long offset = append(RecordCodec.DELETE, RecordCodec.encodeId(taskId));
+			if (offset > 0) {
+				latest.put(taskId, new Latest(offset, 0, true));
+			}
+		});
+	}
+
+	@Override
+	public void onCleared() {
+		writer.execute(() -> {
+			long offset = append(RecordCodec.CLEAR, new byte[0]);
+			if (offset > 0) {
+				lastClearOffset = offset;
+				latest.clear();
+			}
+		});
+	}
+
+	// runs on the writer thread; returns the change's offset, or 0 if it could not be written
+	private long append(byte type, byte[] record) {
+		long offset;
+		try {
+			offset = log.append(type, record);
+		} catch (IOException e) {
+			writeFailure = e;
+			System.err.println("Could not write change feed: " + e.getMessage());
+			return 0;
+		}
+		if (appendedSinceMaintenance.addAndGet(record.length) >= segmentSize
+				&& maintenancePending.compareAndSet(false, true)) {
+			appendedSinceMaintenance.set(0);
+			maintainer.execute(this::maintainQuietly);
+		}
+		return offset;
+	}
+
+	private void maintainQuietly() {
+		try {
+			maintain();
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Change feed maintenance failed: " + e.getMessage());
+		} finally {
+			maintenancePending.set(false);
+		}
+	}
+
+	// rebuilds the latest change of every task from the log
+	private void track(long offset, byte type, ByteBuffer payload) {
+		if (type == RecordCodec.PUT) {
+			Task task = RecordCodec.decodeTask(payload);
+			latest.put(task.getTaskId(), new Latest(offset, task.getVersion(), false));
+		} else if (type == RecordCodec.DELETE) {
+			latest.put(RecordCodec.decodeId(payload), new Latest(offset, 0, true));
+		} else if (type == RecordCodec.CLEAR) {
+			latest.clear();
+			lastClearOffset = offset;
+		}
+	}
+
+	// A record may only be dropped once a newer one supersedes it. The map can lag behind a
+	// record just appended, never run ahead of it, so a lagging entry only keeps a record.
+	private boolean isLatest(long offset, byte type, ByteBuffer payload) {
+		if (type == RecordCodec.CLEAR) {
+			return offset == lastClearOffset;
+		}
+		if (offset < lastClearOffset) {
+			return false;
+		}
+		String taskId = type == RecordCodec.PUT ? RecordCodec.decodeTaskId(payload) : RecordCodec.decodeId(payload);
+		Latest current = latest.get(taskId);
+		return current == null || current.offset <= offset;
+	}
+
+	private static Change decode(long offset, byte type, ByteBuffer payload) {
+		if (type == RecordCodec.PUT) {
+			Task task = RecordCodec.decodeTask(payload);
+			return new Change(offset, ChangeType.PUT, task.getTaskId(), task);
+		}
+		if (type == RecordCodec.DELETE) {
+			return new Change(offset, ChangeType.DELETE, RecordCodec.decodeId(payload), null);
+		}
+		return new Change(offset, ChangeType.CLEAR, null, null);
+	}
+
+	private Path offsetFile(String consumer) {
+		if (consumer == null || !CONSUMER_NAME.matcher(consumer).matches()) {
+			throw new IllegalArgumentException("Consumer names may only use letters, digits, '.', '_' and '-': "
+					+ consumer);
+		}
+		return offsetsDirectory.resolve(consumer + ".offset");
+	}
+}
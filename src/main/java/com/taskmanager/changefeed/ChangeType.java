@@ -0,0 +1,7 @@
+package com.taskmanager.changefeed;
+
+public enum ChangeType {
+	PUT,	// a task was created or updated
+	DELETE,	// a task was deleted
+	CLEAR	// every task was deleted
+}
@@ -0,0 +1,26 @@
+package com.taskmanager.event;
+
+import com.taskmanager.model.Category;
+
+public class CategoryCreated extends CategoryEvent {
+
+	private final Category category;
+
+	public CategoryCreated(Category category) {
+		this.category = category;
+	}
+
+	@Override
+	public String getCategoryId() {
+		return category.getCategoryId();
+	}
+
+	public Category getCategory() {
+		return category;
+	}
+
+	@Override
+	public String toString() {
+		return "CategoryCreated{" + category.getCategoryId() + "}";
+	}
+}
@@ -0,0 +1,7 @@
+package com.taskmanager.event;
+
+// Subscribing to CategoryEvent receives every category event.
+public abstract class CategoryEvent extends DomainEvent {
+
+	public abstract String getCategoryId();
+}
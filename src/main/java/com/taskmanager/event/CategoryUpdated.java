@@ -0,0 +1,32 @@
+package com.taskmanager.event;
+
+import com.taskmanager.model.Category;
+
+public class CategoryUpdated extends CategoryEvent {
+
+	private final Category oldCategory;
+	private final Category newCategory;
+
+	public CategoryUpdated(Category oldCategory, Category newCategory) {
+		this.oldCategory = oldCategory;
+		this.newCategory = newCategory;
+	}
+
+	@Override
+	public String getCategoryId() {
+		return newCategory.getCategoryId();
+	}
+
+	public Category getOldCategory() {
+		return oldCategory;
+	}
+
+	public Category getNewCategory() {
+		return newCategory;
+	}
+
+	@Override
+	public String toString() {
+		return "CategoryUpdated{" + newCategory.getCategoryId() + "}";
+	}
+}
@@ -0,0 +1,14 @@
+package com.taskmanager.event;
+
+import java.time.LocalDateTime;
+
+// A change TaskService or CategoryService has made, published on a DomainEventBus once the
+// repository holds it.
+public abstract class DomainEvent {
+
+	private final LocalDateTime occurredAt = LocalDateTime.now();
+
+	public LocalDateTime getOccurredAt() {
+		return occurredAt;
+	}
+}
@@ -0,0 +1,167 @@
+package com.taskmanager.event;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.taskmanager.util.BoundedMpscQueue;
+
+// In-process publish/subscribe for DomainEvents. A listener subscribes to an event class and
+// receives that class and its subclasses, e.g. TaskEvent for everything about tasks.
+//
+// A synchronous listener runs on the publishing thread before publish returns, so it sees
+// every event and sees the events of one thread in order. An asynchronous listener runs on
+// the bus's dispatcher thread: publish only puts the event on a lock-free bounded ring and
+// returns, and the dispatcher hands the events to the listeners in the order they were
+// queued. When the ring is full the event is dropped for the asynchronous listeners and
+// counted, so a subscriber that must not miss anything subscribes synchronously.
+//
+// An exception thrown by a listener is reported and skipped; the change it was told about
+// has already been made.
+public class DomainEventBus implements Closeable {
+
+	public static final int DEFAULT_ASYNC_CAPACITY = 8192;
+	public static final Duration DEFAULT_CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+	// a missed wake-up costs at most this long
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private static final class Subscriber {
+		private final Class<? extends DomainEvent> type;
+		private final DomainEventListener<DomainEvent> listener;
+		private final boolean async;
+
+		@SuppressWarnings("unchecked")
+		private Subscriber(Class<? extends DomainEvent> type, DomainEventListener<?> listener, boolean async) {
+			this.type = type;
+			this.listener = (DomainEventListener<DomainEvent>) listener;
+			this.async = async;
+		}
+	}
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+	private final BoundedMpscQueue<DomainEvent> asyncEvents;
+	private final LongAdder dropped = new LongAdder();
+	private Thread dispatcher;
+	private volatile boolean waiting;
+	private volatile boolean closed;
+
+	public DomainEventBus() {
+		this(DEFAULT_ASYNC_CAPACITY);
+	}
+
+	public DomainEventBus(int asyncCapacity) {
+		this.asyncEvents = new BoundedMpscQueue<>(asyncCapacity);
+	}
+
+	public <E extends DomainEvent> void subscribe(Class<E> type, DomainEventListener<? super E> listener) {
+		subscribers.add(new Subscriber(type, listener, false));
+	}
+
+	// starts the dispatcher thread on first use
+	public synchronized <E extends DomainEvent> void subscribeAsync(Class<E> type,
+			DomainEventListener<? super E> listener) {
+		if (closed) {
+			throw new IllegalStateException("Event bus is closed");
+		}
+		subscribers.add(new Subscriber(type, listener, true));
+		if (dispatcher == null) {
+			dispatcher = new Thread(this::dispatch, "domain-events");
+			dispatcher.setDaemon(true);
+			dispatcher.start();
+		}
+	}
+
+	// removes every subscription of the listener
+	public void unsubscribe(DomainEventListener<?> listener) {
+		subscribers.removeIf(subscriber -> subscriber.listener == listener);
+	}
+
+	public void publish(DomainEvent event) {
+		boolean queue = false;
+		for (Subscriber subscriber : subscribers) {
+			if (!subscriber.type.isInstance(event)) {
+				continue;
+			}
+			if (subscriber.async) {
+				queue = true;
+			} else {
+				deliver(subscriber, event);
+			}
+		}
+		if (!queue) {
+			return;
+		}
+		if (closed || !asyncEvents.offer(event)) {
+			dropped.increment();
+			return;
+		}
+		if (waiting) {
+			LockSupport.unpark(dispatcher);
+		}
+	}
+
+	// events the asynchronous listeners missed because the ring was full or the bus closed
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	@Override
+	public void close() {
+		close(DEFAULT_CLOSE_TIMEOUT);
+	}
+
+	// Stops queueing events and waits until the dispatcher has delivered the queued ones;
+	// false if that took longer than the timeout. Synchronous listeners keep receiving events.
+	public boolean close(Duration timeout) {
+		Thread thread;
+		synchronized (this) {
+			closed = true;
+			thread = dispatcher;
+		}
+		if (thread == null) {
+			return true;
+		}
+		LockSupport.unpark(thread);
+		try {
+			thread.join(Math.max(1, timeout.toMillis()));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return !thread.isAlive();
+	}
+
+	private void dispatch() {
+		while (true) {
+			DomainEvent event = asyncEvents.poll();
+			if (event != null) {
+				for (Subscriber subscriber : subscribers) {
+					if (subscriber.async && subscriber.type.isInstance(event)) {
+						deliver(subscriber, event);
+					}
+				}
+				continue;
+			}
+			if (closed && asyncEvents.isEmpty()) {
+				return;
+			}
+			waiting = true;
+			if (asyncEvents.isEmpty() && !closed) {
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+			}
+			waiting = false;
+		}
+	}
+
+	private static void deliver(Subscriber subscriber, DomainEvent event) {
+		try {
+			subscriber.listener.onEvent(event);
+		} catch (RuntimeException e) {
+			System.err.println("Event listener failed on " + event + ": " + e);
+		}
+	}
+}
@@ -0,0 +1,6 @@
+package com.taskmanager.event;
+
+public interface DomainEventListener<E extends DomainEvent> {
+
+	void onEvent(E event);
+}
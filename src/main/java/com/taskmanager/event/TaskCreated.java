@@ -0,0 +1,26 @@
+package com.taskmanager.event;
+
+import com.taskmanager.model.Task;
+
+public class TaskCreated extends TaskEvent {
+
+	private final Task task;
+
+	public TaskCreated(Task task) {
+		this.task = task;
+	}
+
+	@Override
+	public String getTaskId() {
+		return task.getTaskId();
+	}
+
+	public Task getTask() {
+		return task;
+	}
+
+	@Override
+	public String toString() {
+		return "TaskCreated{" + task.getTaskId() + "}";
+	}
+}
@@ -0,0 +1,27 @@
+package com.taskmanager.event;
+
+import com.taskmanager.model.Task;
+
+public class TaskDeleted extends TaskEvent {
+
+	private final Task task;
+
+	// the task as it was stored when it was deleted
+	public TaskDeleted(Task task) {
+		this.task = task;
+	}
+
+	@Override
+	public String getTaskId() {
+		return task.getTaskId();
+	}
+
+	public Task getTask() {
+		return task;
+	}
+
+	@Override
+	public String toString() {
+		return "TaskDeleted{" + task.getTaskId() + "}";
+	}
+}
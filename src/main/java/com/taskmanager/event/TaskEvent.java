@@ -0,0 +1,7 @@
+package com.taskmanager.event;
+
+// Subscribing to TaskEvent receives every task event.
+public abstract class TaskEvent extends DomainEvent {
+
+	public abstract String getTaskId();
+}
@@ -0,0 +1,20 @@
+package com.taskmanager.event;
+
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+
+// An update that changed the status; subscribers to TaskUpdated receive it too.
+public class TaskStatusChanged extends TaskUpdated {
+
+	public TaskStatusChanged(Task oldTask, Task newTask) {
+		super(oldTask, newTask);
+	}
+
+	public Status getOldStatus() {
+		return getOldTask().getStatus();
+	}
+
+	public Status getNewStatus() {
+		return getNewTask().getStatus();
+	}
+}
@@ -0,0 +1,42 @@
+package com.taskmanager.event;
+
+import com.taskmanager.model.Task;
+
+// Both tasks are immutable snapshots: the stored one the update was applied to and the one
+// it saved. Updates of one task can be published from several threads at once; the new
+// task's version tells which came last.
+public class TaskUpdated extends TaskEvent {
+
+	private final Task oldTask;
+	private final Task newTask;
+
+	public TaskUpdated(Task oldTask, Task newTask) {
+		this.oldTask = oldTask;
+		this.newTask = newTask;
+	}
+
+	// a TaskStatusChanged when the status differs
+	public static TaskUpdated of(Task oldTask, Task newTask) {
+		return oldTask.getStatus() == newTask.getStatus() ? new TaskUpdated(oldTask, newTask)
+				: new TaskStatusChanged(oldTask, newTask);
+	}
+
+	@Override
+	public String getTaskId() {
+		return newTask.getTaskId();
+	}
+
+	public Task getOldTask() {
+		return oldTask;
+	}
+
+	public Task getNewTask() {
+		return newTask;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{" + newTask.getTaskId() + ", version " + oldTask.getVersion() + " -> "
+				+ newTask.getVersion() + "}";
+	}
+}
@@ -0,0 +1,9 @@
+package com.taskmanager.exception;
+
+@SuppressWarnings("serial")
+public class CategoryInUseException extends Exception {
+
+	public CategoryInUseException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,9 @@
+package com.taskmanager.exception;
+
+@SuppressWarnings("serial")
+public class TaskConflictException extends Exception {
+
+	public TaskConflictException(String message) {
+		super(message);
+	}
+}
@@ -4,20 +4,26 @@ import java.time.LocalDateTime;
 
 import java.util.UUID;
 
-public class Task {
+// Immutable: a change is a new Task, made with a with* method or, for several fields at
+// once, toBuilder(). The repository swaps whole instances, so a reader never sees half of
+// an update.
+public final class Task {
  
     private final String taskId;
-    private String title;
-    private String description;
-    private LocalDateTime dueDate;
-    private Priority priority;
-    private Status status;
-    private Category category;
-    private LocalDateTime createdDate;
-    private LocalDateTime lastModifiedDate;
+    private final String title;
+    private final String description;
+    private final LocalDateTime dueDate;
+    private final Priority priority;
+    private final Status status;
+    private final Category category;
+    private final LocalDateTime createdDate;
+    private final LocalDateTime lastModifiedDate;
+    // given by the repository on every save; 0 until the task is first saved
+    private final long version;
 
     public Task(String title, String description, LocalDateTime dueDate, Priority priority, Category category) {
     	
+        LocalDateTime now = LocalDateTime.now();
         this.taskId = UUID.randomUUID().toString();
         this.title = title;
         this.description = description;
@@ -25,8 +31,38 @@ public class Task {
         this.priority = priority;
         this.category = category;
         this.status = Status.PENDING; 
-        this.createdDate = LocalDateTime.now();
-        this.lastModifiedDate = LocalDateTime.now();
+        this.createdDate = now;
+        this.lastModifiedDate = now;
+        this.version = 0;
+    }
+
+    // rebuilds a task exactly as it was stored, e.g. when loading it back from disk
+    public Task(String taskId, String title, String description, LocalDateTime dueDate, Priority priority,
+    		Category category, Status status, LocalDateTime createdDate, LocalDateTime lastModifiedDate) {
+        this(taskId, title, description, dueDate, priority, category, status, createdDate, lastModifiedDate, 0);
+    }
+
+    private Task(String taskId, String title, String description, LocalDateTime dueDate, Priority priority,
+    		Category category, Status status, LocalDateTime createdDate, LocalDateTime lastModifiedDate,
+    		long version) {
+        this.taskId = taskId;
+        this.title = title;
+        this.description = description;
+        this.dueDate = dueDate;
+        this.priority = priority;
+        this.category = category;
+        this.status = status;
+        this.createdDate = createdDate;
+        this.lastModifiedDate = lastModifiedDate;
+        this.version = version;
+    }
+
+    public static Builder builder(String taskId) {
+        return new Builder(taskId);
+    }
+
+    public Builder toBuilder() {
+        return new Builder(this);
     }
 
 
@@ -67,47 +103,42 @@ public class Task {
         return lastModifiedDate;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
   
-    //--setters---
-    public void setTitle(String title) {
-        this.title = title;
-        this.lastModifiedDate = LocalDateTime.now();
+    //--copies--
+    // each one stamps the copy's last modified date; change several fields through
+    // toBuilder() to stamp it once
+    public Task withTitle(String title) {
+        return toBuilder().title(title).lastModifiedDate(LocalDateTime.now()).build();
     }
 
-    public void setDescription(String description) {
-        this.description = description;
-        this.lastModifiedDate = LocalDateTime.now();
+    public Task withDescription(String description) {
+        return toBuilder().description(description).lastModifiedDate(LocalDateTime.now()).build();
     }
 
-    public void setDueDate(LocalDateTime localDate) {
-        this.dueDate = localDate;
-        this.lastModifiedDate = LocalDateTime.now();
+    public Task withDueDate(LocalDateTime dueDate) {
+        return toBuilder().dueDate(dueDate).lastModifiedDate(LocalDateTime.now()).build();
     }
 
-    public void setPriority(Priority priority) {
-        this.priority = priority;
-        this.lastModifiedDate = LocalDateTime.now();
+    public Task withPriority(Priority priority) {
+        return toBuilder().priority(priority).lastModifiedDate(LocalDateTime.now()).build();
     }
 
-    public void setStatus(Status status) {
-        this.status = status;
-        this.lastModifiedDate = LocalDateTime.now();
+    public Task withStatus(Status status) {
+        return toBuilder().status(status).lastModifiedDate(LocalDateTime.now()).build();
     }
 
-    public void setCategory(Category category) {
-        this.category = category;
-        this.lastModifiedDate = LocalDateTime.now();
+    public Task withCategory(Category category) {
+        return toBuilder().category(category).lastModifiedDate(LocalDateTime.now()).build();
+    }
+
+    // the same task under another version; leaves the last modified date alone
+    public Task withVersion(long version) {
+        return version == this.version ? this : toBuilder().version(version).build();
     }
-   
-    public void setcreatedDate(LocalDateTime createdDate) {
-		this.createdDate = createdDate;
-		
-	}
-    
-    public void setLastModifiedDate(LocalDateTime lastModifiedDate ) {
-		this.lastModifiedDate = lastModifiedDate;
-		
-	}
 
     @Override
     public boolean equals(Object o) {
@@ -136,6 +167,89 @@ public class Task {
                 ", status=" + status +
                 ", createdDate=" + createdDate +
                 ", lastModifiedDate=" + lastModifiedDate +
+                ", version=" + version +
                 '}';
     }
-}
\ No newline at end of file
+
+    // Sets fields as given, stamping nothing: an update sets lastModifiedDate itself, once.
+    public static final class Builder {
+
+        private final String taskId;
+        private String title;
+        private String description;
+        private LocalDateTime dueDate;
+        private Priority priority;
+        private Status status;
+        private Category category;
+        private LocalDateTime createdDate;
+        private LocalDateTime lastModifiedDate;
+        private long version;
+
+        private Builder(String taskId) {
+            this.taskId = taskId;
+        }
+
+        private Builder(Task task) {
+            this.taskId = task.taskId;
+            this.title = task.title;
+            this.description = task.description;
+            this.dueDate = task.dueDate;
+            this.priority = task.priority;
+            this.status = task.status;
+            this.category = task.category;
+            this.createdDate = task.createdDate;
+            this.lastModifiedDate = task.lastModifiedDate;
+            this.version = task.version;
+        }
+
+        public Builder title(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public Builder description(String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Builder dueDate(LocalDateTime dueDate) {
+            this.dueDate = dueDate;
+            return this;
+        }
+
+        public Builder priority(Priority priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public Builder status(Status status) {
+            this.status = status;
+            return this;
+        }
+
+        public Builder category(Category category) {
+            this.category = category;
+            return this;
+        }
+
+        public Builder createdDate(LocalDateTime createdDate) {
+            this.createdDate = createdDate;
+            return this;
+        }
+
+        public Builder lastModifiedDate(LocalDateTime lastModifiedDate) {
+            this.lastModifiedDate = lastModifiedDate;
+            return this;
+        }
+
+        public Builder version(long version) {
+            this.version = version;
+            return this;
+        }
+
+        public Task build() {
+            return new Task(taskId, title, description, dueDate, priority, category, status, createdDate,
+                    lastModifiedDate, version);
+        }
+    }
+}
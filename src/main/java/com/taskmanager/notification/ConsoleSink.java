@@ -0,0 +1,33 @@
+package com.taskmanager.notification;
+
+import java.io.PrintStream;
+import java.util.List;
+
+public class ConsoleSink implements NotificationSink {
+
+	private final PrintStream out;
+
+	public ConsoleSink() {
+		this(System.out);
+	}
+
+	public ConsoleSink(PrintStream out) {
+		this.out = out;
+	}
+
+	// one flush per batch
+	@Override
+	public void deliver(List<Notification> batch) {
+		StringBuilder text = new StringBuilder();
+		for (Notification notification : batch) {
+			text.append(notification.getMessage()).append(System.lineSeparator());
+		}
+		out.print(text);
+		out.flush();
+	}
+
+	@Override
+	public String toString() {
+		return "console";
+	}
+}
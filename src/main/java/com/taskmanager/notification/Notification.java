@@ -0,0 +1,42 @@
+package com.taskmanager.notification;
+
+import java.time.LocalDateTime;
+
+public final class Notification {
+
+	private final String key;
+	private final String message;
+	private final LocalDateTime createdAt;
+
+	public Notification(String key, String message) {
+		this(key, message, LocalDateTime.now());
+	}
+
+	// a notification published while another with the same key still waits replaces it; a
+	// null key never coalesces
+	public Notification(String key, String message, LocalDateTime createdAt) {
+		if (message == null) {
+			throw new IllegalArgumentException("Notification message cannot be null");
+		}
+		this.key = key;
+		this.message = message;
+		this.createdAt = createdAt;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	@Override
+	public String toString() {
+		return message;
+	}
+}
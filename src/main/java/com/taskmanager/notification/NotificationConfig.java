@@ -0,0 +1,83 @@
+package com.taskmanager.notification;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Which sinks the application's NotificationPipeline delivers to. The console always gets
+// notifications; a notification file and a webhook are added when their properties are set.
+public class NotificationConfig {
+
+	public static final String FILE_PROPERTY = "taskmanager.notify.file";
+	public static final String FILE_MAX_BYTES_PROPERTY = "taskmanager.notify.file.max.bytes";
+	public static final String FILE_BACKUPS_PROPERTY = "taskmanager.notify.file.backups";
+	public static final String WEBHOOK_PROPERTY = "taskmanager.notify.webhook";
+	public static final String WEBHOOK_RATE_PROPERTY = "taskmanager.notify.webhook.rate";
+
+	private static final long DEFAULT_FILE_MAX_BYTES = 10L * 1024 * 1024;
+	private static final int DEFAULT_FILE_BACKUPS = 5;
+	private static final double DEFAULT_WEBHOOK_RATE = 10;
+	private static final double CONSOLE_RATE = 100;
+	private static final int WEBHOOK_TIMEOUT_MILLIS = 5_000;
+
+	private final Path file;
+	private final long fileMaxBytes;
+	private final int fileBackups;
+	private final URL webhook;
+	private final double webhookRate;
+
+	// file and webhook may be null
+	public NotificationConfig(Path file, long fileMaxBytes, int fileBackups, URL webhook, double webhookRate) {
+		if (fileMaxBytes <= 0 || fileBackups < 0) {
+			throw new IllegalArgumentException("File size must be positive and backups not negative");
+		}
+		this.file = file;
+		this.fileMaxBytes = fileMaxBytes;
+		this.fileBackups = fileBackups;
+		this.webhook = webhook;
+		this.webhookRate = webhookRate;
+	}
+
+	public static NotificationConfig fromSystemProperties() {
+		String file = System.getProperty(FILE_PROPERTY);
+		String webhook = System.getProperty(WEBHOOK_PROPERTY);
+		long maxBytes = Long
+				.parseLong(System.getProperty(FILE_MAX_BYTES_PROPERTY, String.valueOf(DEFAULT_FILE_MAX_BYTES)).trim());
+		int backups = Integer
+				.parseInt(System.getProperty(FILE_BACKUPS_PROPERTY, String.valueOf(DEFAULT_FILE_BACKUPS)).trim());
+		double rate = Double
+				.parseDouble(System.getProperty(WEBHOOK_RATE_PROPERTY, String.valueOf(DEFAULT_WEBHOOK_RATE)).trim());
+		try {
+			return new NotificationConfig(file == null || file.trim().isEmpty() ? null : Paths.get(file.trim()),
+					maxBytes, backups, webhook == null || webhook.trim().isEmpty() ? null : new URL(webhook.trim()),
+					rate);
+		} catch (MalformedURLException e) {
+			throw new IllegalArgumentException("Invalid notification webhook: " + webhook, e);
+		}
+	}
+
+	// the pipeline is started
+	public NotificationPipeline openPipeline() throws IOException {
+		NotificationPipeline pipeline = new NotificationPipeline();
+		pipeline.addSink(new ConsoleSink(), NotificationPipeline.DEFAULT_SINK_QUEUE_CAPACITY, CONSOLE_RATE);
+		if (file != null) {
+			pipeline.addSink(new RotatingFileSink(file, fileMaxBytes, fileBackups));
+		}
+		if (webhook != null) {
+			pipeline.addSink(new WebhookSink(webhook, WEBHOOK_TIMEOUT_MILLIS),
+					NotificationPipeline.DEFAULT_SINK_QUEUE_CAPACITY, webhookRate);
+		}
+		pipeline.start();
+		return pipeline;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public URL getWebhook() {
+		return webhook;
+	}
+}
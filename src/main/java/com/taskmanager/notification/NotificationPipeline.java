@@ -0,0 +1,218 @@
+package com.taskmanager.notification;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.taskmanager.util.BoundedMpscQueue;
+
+// Delivers notifications off the caller's thread. publish never blocks: it parks the
+// notification under its key and puts the key on a bounded lock-free queue, or, when a
+// notification with that key is still waiting, just replaces it, so a task that changes ten
+// times before the dispatcher gets to it is announced once, as it is now. When the queue is
+// full the notification is dropped and counted.
+//
+// A dispatcher thread drains the queue in batches and hands every batch to each sink's
+// channel, which has its own bounded queue, thread and optional rate limit; a sink that
+// falls behind drops batches instead of slowing the others or the publishers down.
+public class NotificationPipeline implements Closeable {
+
+	public static final int DEFAULT_CAPACITY = 4096;
+	public static final int DEFAULT_BATCH_SIZE = 256;
+	public static final int DEFAULT_SINK_QUEUE_CAPACITY = 64;
+	public static final Duration DEFAULT_CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+	// a missed wake-up costs at most this long
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private final BoundedMpscQueue<Object> keys;
+	private final ConcurrentHashMap<Object, Notification> pending = new ConcurrentHashMap<>();
+	private final List<SinkChannel> channels = new CopyOnWriteArrayList<>();
+	private final int batchSize;
+	private final LongAdder published = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final Thread dispatcher;
+	private volatile boolean waiting;
+	private volatile boolean closed;
+	private boolean started;
+
+	public NotificationPipeline() {
+		this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+	}
+
+	public NotificationPipeline(int capacity, int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+		this.keys = new BoundedMpscQueue<>(capacity);
+		this.batchSize = batchSize;
+		this.dispatcher = new Thread(this::dispatch, "notification-dispatcher");
+		dispatcher.setDaemon(true);
+	}
+
+	public NotificationPipeline addSink(NotificationSink sink) {
+		return addSink(sink, DEFAULT_SINK_QUEUE_CAPACITY, 0);
+	}
+
+	// queueCapacity counts batches; maxPerSecond <= 0 means no rate limit
+	public synchronized NotificationPipeline addSink(NotificationSink sink, int queueCapacity, double maxPerSecond) {
+		if (started) {
+			throw new IllegalStateException("Sinks must be added before the pipeline starts");
+		}
+		channels.add(new SinkChannel(sink, queueCapacity, maxPerSecond));
+		return this;
+	}
+
+	public synchronized void start() {
+		if (started) {
+			return;
+		}
+		started = true;
+		for (SinkChannel channel : channels) {
+			channel.start();
+		}
+		dispatcher.start();
+	}
+
+	// false when the notification was dropped, because the queue is full or the pipeline closed
+	public boolean publish(Notification notification) {
+		if (closed) {
+			dropped.increment();
+			return false;
+		}
+		Object key = notification.getKey() != null ? notification.getKey() : new Object();
+		if (pending.put(key, notification) != null) {
+			coalesced.increment();
+			return true;
+		}
+		if (!keys.offer(key)) {
+			if (pending.remove(key, notification)) {
+				dropped.increment();
+				return false;
+			}
+			// a publish with the same key replaced this notification before the key was queued
+			// and was told it was accepted; queue the key for it, or drop and count it as well
+			if (!keys.offer(key)) {
+				dropped.add(pending.remove(key) == null ? 1 : 2);
+				return false;
+			}
+		}
+		published.increment();
+		if (waiting) {
+			LockSupport.unpark(dispatcher);
+		}
+		return true;
+	}
+
+	// accepted notifications that were not folded into an earlier one
+	public long getPublishedCount() {
+		return published.sum();
+	}
+
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	// rejected by publish, plus accepted ones lost when the queue filled before their key got in
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	public long getDeliveredCount(NotificationSink sink) {
+		return channel(sink).getDeliveredCount();
+	}
+
+	// dropped because the sink's own queue was full
+	public long getDroppedCount(NotificationSink sink) {
+		return channel(sink).getDroppedCount();
+	}
+
+	public long getFailedCount(NotificationSink sink) {
+		return channel(sink).getFailedCount();
+	}
+
+	@Override
+	public void close() {
+		close(DEFAULT_CLOSE_TIMEOUT);
+	}
+
+	// Stops accepting notifications, delivers the ones already accepted and closes the sinks.
+	// Returns false if that took longer than the timeout; whatever is left is then abandoned.
+	public boolean close(Duration timeout) {
+		synchronized (this) {
+			if (closed) {
+				return !dispatcher.isAlive();
+			}
+			closed = true;
+			if (!started) {
+				start();
+			}
+		}
+		long deadline = System.currentTimeMillis() + timeout.toMillis();
+		LockSupport.unpark(dispatcher);
+		try {
+			dispatcher.join(Math.max(1, timeout.toMillis()));
+			if (dispatcher.isAlive()) {
+				return false;
+			}
+			for (SinkChannel channel : channels) {
+				if (!channel.awaitFinished(deadline - System.currentTimeMillis())) {
+					return false;
+				}
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private SinkChannel channel(NotificationSink sink) {
+		for (SinkChannel channel : channels) {
+			if (channel.getSink() == sink) {
+				return channel;
+			}
+		}
+		throw new IllegalArgumentException("Sink is not part of this pipeline: " + sink);
+	}
+
+	private void dispatch() {
+		List<Notification> batch = new ArrayList<>(batchSize);
+		while (true) {
+			Object key;
+			while (batch.size() < batchSize && (key = keys.poll()) != null) {
+				Notification notification = pending.remove(key);
+				if (notification != null) {
+					batch.add(notification);
+				}
+			}
+			if (!batch.isEmpty()) {
+				List<Notification> ready = Collections.unmodifiableList(batch);
+				for (SinkChannel channel : channels) {
+					channel.offer(ready);
+				}
+				batch = new ArrayList<>(batchSize);
+				continue;
+			}
+			if (closed && keys.isEmpty()) {
+				break;
+			}
+			waiting = true;
+			if (keys.isEmpty() && !closed) {
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+			}
+			waiting = false;
+		}
+		for (SinkChannel channel : channels) {
+			channel.finish();
+		}
+	}
+}
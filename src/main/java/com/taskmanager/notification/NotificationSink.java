@@ -0,0 +1,17 @@
+package com.taskmanager.notification;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+// Where a NotificationPipeline delivers. Each sink is called from its own thread only, so
+// implementations need no locking; a slow sink holds up nothing but its own queue.
+public interface NotificationSink extends Closeable {
+
+	// the batch is in publish order; throwing drops it for this sink only
+	void deliver(List<Notification> batch) throws IOException;
+
+	@Override
+	default void close() throws IOException {
+	}
+}
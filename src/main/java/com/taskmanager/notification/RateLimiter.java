@@ -0,0 +1,34 @@
+package com.taskmanager.notification;
+
+import java.util.concurrent.TimeUnit;
+
+// Token bucket for a single thread: up to a second's worth of permits can be spent at once,
+// after that acquire sleeps until the bucket has refilled. A batch larger than the bucket
+// borrows against future permits instead of being split.
+final class RateLimiter {
+
+	private final double permitsPerNano;
+	private final double burst;
+	private double tokens;
+	private long refilledAt;
+
+	RateLimiter(double permitsPerSecond) {
+		if (!(permitsPerSecond > 0)) {
+			throw new IllegalArgumentException("Rate must be positive: " + permitsPerSecond);
+		}
+		this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+		this.burst = Math.max(1, permitsPerSecond);
+		this.tokens = burst;
+		this.refilledAt = System.nanoTime();
+	}
+
+	void acquire(int permits) throws InterruptedException {
+		long now = System.nanoTime();
+		tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+		refilledAt = now;
+		tokens -= permits;
+		if (tokens < 0) {
+			TimeUnit.NANOSECONDS.sleep((long) Math.ceil(-tokens / permitsPerNano));
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.taskmanager.notification;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Appends one line per notification to a file. Once the file would grow past maxBytes it
+// is renamed to file.1, an existing file.1 to file.2 and so on, keeping at most maxBackups
+// old files, and writing starts over in a new file.
+public class RotatingFileSink implements NotificationSink {
+
+	private final Path file;
+	private final long maxBytes;
+	private final int maxBackups;
+	private OutputStream out;
+	private long size;
+
+	public RotatingFileSink(Path file, long maxBytes, int maxBackups) throws IOException {
+		if (maxBytes <= 0 || maxBackups < 0) {
+			throw new IllegalArgumentException("File size must be positive and backups not negative");
+		}
+		this.file = file;
+		this.maxBytes = maxBytes;
+		this.maxBackups = maxBackups;
+		Path parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		open();
+	}
+
+	@Override
+	public void deliver(List<Notification> batch) throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (Notification notification : batch) {
+			text.append(notification.getCreatedAt()).append(' ').append(notification.getMessage()).append('\n');
+		}
+		byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+		if (size > 0 && size + bytes.length > maxBytes) {
+			rotate();
+		}
+		out.write(bytes);
+		out.flush();
+		size += bytes.length;
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	@Override
+	public String toString() {
+		return "file " + file;
+	}
+
+	private void open() throws IOException {
+		out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		size = Files.size(file);
+	}
+
+	private void rotate() throws IOException {
+		out.close();
+		if (maxBackups == 0) {
+			Files.delete(file);
+		} else {
+			Files.deleteIfExists(backup(maxBackups));
+			for (int i = maxBackups - 1; i >= 1; i--) {
+				if (Files.exists(backup(i))) {
+					Files.move(backup(i), backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+		}
+		open();
+	}
+
+	private Path backup(int number) {
+		return file.resolveSibling(file.getFileName() + "." + number);
+	}
+}
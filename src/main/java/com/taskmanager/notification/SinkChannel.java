@@ -0,0 +1,119 @@
+package com.taskmanager.notification;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.taskmanager.util.BoundedMpscQueue;
+
+// One sink with its own bounded queue of batches and its own thread, so a slow or failing
+// sink only ever drops its own notifications. The dispatcher is the queue's only producer.
+final class SinkChannel implements Runnable {
+
+	// a missed wake-up costs at most this long
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private final NotificationSink sink;
+	private final BoundedMpscQueue<List<Notification>> batches;
+	private final RateLimiter rateLimiter;
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final Thread worker;
+	private volatile boolean waiting;
+	private volatile boolean finishing;
+
+	// maxPerSecond <= 0 means unlimited
+	SinkChannel(NotificationSink sink, int queueCapacity, double maxPerSecond) {
+		this.sink = sink;
+		this.batches = new BoundedMpscQueue<>(queueCapacity);
+		this.rateLimiter = maxPerSecond > 0 ? new RateLimiter(maxPerSecond) : null;
+		this.worker = new Thread(this, "notification-sink-" + sink);
+		worker.setDaemon(true);
+	}
+
+	NotificationSink getSink() {
+		return sink;
+	}
+
+	void start() {
+		worker.start();
+	}
+
+	void offer(List<Notification> batch) {
+		if (!batches.offer(batch)) {
+			dropped.addAndGet(batch.size());
+			return;
+		}
+		if (waiting) {
+			LockSupport.unpark(worker);
+		}
+	}
+
+	// delivers what is queued, then closes the sink
+	void finish() {
+		finishing = true;
+		LockSupport.unpark(worker);
+	}
+
+	boolean awaitFinished(long timeoutMillis) throws InterruptedException {
+		worker.join(Math.max(1, timeoutMillis));
+		return !worker.isAlive();
+	}
+
+	long getDeliveredCount() {
+		return delivered.get();
+	}
+
+	long getDroppedCount() {
+		return dropped.get();
+	}
+
+	long getFailedCount() {
+		return failed.get();
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				List<Notification> batch = batches.poll();
+				if (batch == null) {
+					if (finishing && batches.isEmpty()) {
+						break;
+					}
+					waiting = true;
+					if (batches.isEmpty() && !finishing) {
+						LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+					}
+					waiting = false;
+					continue;
+				}
+				if (rateLimiter != null) {
+					rateLimiter.acquire(batch.size());
+				}
+				deliver(batch);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			try {
+				sink.close();
+			} catch (IOException e) {
+				System.err.println("Could not close notification sink " + sink + ": " + e.getMessage());
+			}
+		}
+	}
+
+	private void deliver(List<Notification> batch) {
+		try {
+			sink.deliver(batch);
+			delivered.addAndGet(batch.size());
+		} catch (IOException | RuntimeException e) {
+			failed.addAndGet(batch.size());
+			System.err.println("Notification sink " + sink + " failed: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.taskmanager.notification;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// POSTs each batch as JSON to a URL, e.g. a local relay that forwards to chat or mail:
+//   {"notifications":[{"key":"...","message":"...","createdAt":"2030-01-01T09:00"}]}
+// Any status outside 2xx fails the batch.
+public class WebhookSink implements NotificationSink {
+
+	private final URL url;
+	private final int timeoutMillis;
+
+	public WebhookSink(URL url, int timeoutMillis) {
+		if (timeoutMillis <= 0) {
+			throw new IllegalArgumentException("Webhook timeout must be positive");
+		}
+		this.url = url;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	@Override
+	public void deliver(List<Notification> batch) throws IOException {
+		byte[] body = toJson(batch).getBytes(StandardCharsets.UTF_8);
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		try {
+			connection.setRequestMethod("POST");
+			connection.setConnectTimeout(timeoutMillis);
+			connection.setReadTimeout(timeoutMillis);
+			connection.setDoOutput(true);
+			connection.setFixedLengthStreamingMode(body.length);
+			connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body);
+			}
+			int status = connection.getResponseCode();
+			if (status < 200 || status >= 300) {
+				throw new IOException("Webhook " + url + " answered " + status);
+			}
+			// read the response out so the connection can be reused
+			try (InputStream in = connection.getInputStream()) {
+				byte[] buffer = new byte[512];
+				while (in.read(buffer) >= 0) {
+					// discard
+				}
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "webhook " + url;
+	}
+
+	static String toJson(List<Notification> batch) {
+		StringBuilder json = new StringBuilder("{\"notifications\":[");
+		for (int i = 0; i < batch.size(); i++) {
+			Notification notification = batch.get(i);
+			json.append(i == 0 ? "{" : ",{");
+			json.append("\"key\":");
+			appendString(json, notification.getKey());
+			json.append(",\"message\":");
+			appendString(json, notification.getMessage());
+			json.append(",\"createdAt\":");
+			appendString(json, notification.getCreatedAt() == null ? null : notification.getCreatedAt().toString());
+			json.append('}');
+		}
+		return json.append("]}").toString();
+	}
+
+	private static void appendString(StringBuilder json, String value) {
+		if (value == null) {
+			json.append("null");
+			return;
+		}
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+}
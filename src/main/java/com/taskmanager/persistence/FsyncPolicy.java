@@ -0,0 +1,7 @@
+package com.taskmanager.persistence;
+
+public enum FsyncPolicy {
+	ALWAYS,		// every commit waits for an fsync; concurrent commits share one
+	INTERVAL,	// a background thread fsyncs every few milliseconds
+	OS			// never fsync explicitly, the OS flushes dirty pages when it likes
+}
@@ -0,0 +1,101 @@
+package com.taskmanager.persistence;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+public class PersistenceConfig {
+
+	public static final String DATA_DIR_PROPERTY = "taskmanager.data.dir";
+	public static final String FSYNC_PROPERTY = "taskmanager.fsync";
+	public static final String FSYNC_INTERVAL_PROPERTY = "taskmanager.fsync.interval.ms";
+	public static final String SNAPSHOT_INTERVAL_PROPERTY = "taskmanager.snapshot.interval.s";
+	// true to keep a change feed of the tasks next to their log
+	public static final String CHANGE_FEED_PROPERTY = "taskmanager.changefeed";
+
+	private static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 50;
+	private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+	private static final long DEFAULT_SNAPSHOT_INTERVAL_SECONDS = 300;
+
+	private final Path dataDirectory;
+	private final FsyncPolicy fsyncPolicy;
+	private final long fsyncIntervalMillis;
+	private final long segmentSize;
+	private final long snapshotIntervalSeconds;
+
+	public PersistenceConfig(Path dataDirectory, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis, long segmentSize,
+			long snapshotIntervalSeconds) {
+		if (dataDirectory == null) {
+			throw new IllegalArgumentException("Data directory cannot be null");
+		}
+		if (fsyncIntervalMillis <= 0 || segmentSize <= 0 || snapshotIntervalSeconds <= 0) {
+			throw new IllegalArgumentException("Fsync interval, segment size and snapshot interval must be positive");
+		}
+		this.dataDirectory = dataDirectory;
+		this.fsyncPolicy = fsyncPolicy == null ? FsyncPolicy.INTERVAL : fsyncPolicy;
+		this.fsyncIntervalMillis = fsyncIntervalMillis;
+		this.segmentSize = segmentSize;
+		this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+	}
+
+	public PersistenceConfig(Path dataDirectory, FsyncPolicy fsyncPolicy) {
+		this(dataDirectory, fsyncPolicy, DEFAULT_FSYNC_INTERVAL_MILLIS, DEFAULT_SEGMENT_SIZE,
+				DEFAULT_SNAPSHOT_INTERVAL_SECONDS);
+	}
+
+	// null when no data directory is configured, which keeps the repositories in memory only
+	public static PersistenceConfig fromSystemProperties() {
+		String dataDirectory = System.getProperty(DATA_DIR_PROPERTY);
+		if (dataDirectory == null || dataDirectory.trim().isEmpty()) {
+			return null;
+		}
+		FsyncPolicy policy = FsyncPolicy.valueOf(
+				System.getProperty(FSYNC_PROPERTY, FsyncPolicy.INTERVAL.name()).trim().toUpperCase(Locale.ROOT));
+		long interval = Long.parseLong(
+				System.getProperty(FSYNC_INTERVAL_PROPERTY, String.valueOf(DEFAULT_FSYNC_INTERVAL_MILLIS)).trim());
+		long snapshotInterval = Long.parseLong(System
+				.getProperty(SNAPSHOT_INTERVAL_PROPERTY, String.valueOf(DEFAULT_SNAPSHOT_INTERVAL_SECONDS)).trim());
+		return new PersistenceConfig(Paths.get(dataDirectory.trim()), policy, interval, DEFAULT_SEGMENT_SIZE,
+				snapshotInterval);
+	}
+
+	public Path getDataDirectory() {
+		return dataDirectory;
+	}
+
+	public Path getTaskLogDirectory() {
+		return dataDirectory.resolve("tasks");
+	}
+
+	public Path getCategoryLogDirectory() {
+		return dataDirectory.resolve("categories");
+	}
+
+	public Path getChangeFeedDirectory() {
+		return dataDirectory.resolve("changefeed");
+	}
+
+	public Path getTaskSnapshotFile() {
+		return getTaskLogDirectory().resolve("tasks.snapshot");
+	}
+
+	public Path getCategorySnapshotFile() {
+		return getCategoryLogDirectory().resolve("categories.snapshot");
+	}
+
+	public FsyncPolicy getFsyncPolicy() {
+		return fsyncPolicy;
+	}
+
+	public long getFsyncIntervalMillis() {
+		return fsyncIntervalMillis;
+	}
+
+	public long getSegmentSize() {
+		return segmentSize;
+	}
+
+	public long getSnapshotIntervalSeconds() {
+		return snapshotIntervalSeconds;
+	}
+}
@@ -0,0 +1,157 @@
+package com.taskmanager.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+
+// Compact binary encoding of tasks and categories for the log and snapshot files.
+// Strings are length-prefixed UTF-8 (-1 for null), dates are UTC epoch seconds plus
+// nanos, enums are their ordinal. A task record ends with the task's version.
+public final class RecordCodec {
+
+	public static final byte PUT = 1;
+	public static final byte DELETE = 2;
+	public static final byte CLEAR = 3;
+
+	private static final long NULL_DATE = Long.MIN_VALUE;
+
+	private RecordCodec() {
+	}
+
+	public static byte[] encodeTask(Task task) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+			DataOutputStream out = new DataOutputStream(bytes);
+			writeString(out, task.getTaskId());
+			writeString(out, task.getTitle());
+			writeString(out, task.getDescription());
+			writeDate(out, task.getDueDate());
+			out.writeByte(task.getPriority() == null ? -1 : task.getPriority().ordinal());
+			out.writeByte(task.getStatus() == null ? -1 : task.getStatus().ordinal());
+			writeDate(out, task.getCreatedDate());
+			writeDate(out, task.getLastModifiedDate());
+			out.writeBoolean(task.getCategory() != null);
+			if (task.getCategory() != null) {
+				writeCategory(out, task.getCategory());
+			}
+			out.writeLong(task.getVersion());
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public static Task decodeTask(ByteBuffer in) {
+		String taskId = readString(in);
+		String title = readString(in);
+		String description = readString(in);
+		LocalDateTime dueDate = readDate(in);
+		byte priority = in.get();
+		byte status = in.get();
+		LocalDateTime createdDate = readDate(in);
+		LocalDateTime lastModifiedDate = readDate(in);
+		Category category = in.get() != 0 ? readCategory(in) : null;
+		return Task.builder(taskId).title(title).description(description).dueDate(dueDate)
+				.priority(priority < 0 ? null : Priority.values()[priority]).category(category)
+				.status(status < 0 ? null : Status.values()[status]).createdDate(createdDate)
+				.lastModifiedDate(lastModifiedDate)
+				// records written before tasks had versions end after the category
+				.version(in.remaining() >= 8 ? in.getLong() : 0).build();
+	}
+
+	// overwrites the version of an encoded task, so a record can be encoded before the
+	// version it is saved under is known
+	public static void setTaskVersion(byte[] record, long version) {
+		ByteBuffer.wrap(record).putLong(record.length - 8, version);
+	}
+
+	// the id of an encoded task, without decoding the rest of it
+	public static String decodeTaskId(ByteBuffer in) {
+		return readString(in);
+	}
+
+	public static byte[] encodeCategory(Category category) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+			DataOutputStream out = new DataOutputStream(bytes);
+			writeCategory(out, category);
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public static Category decodeCategory(ByteBuffer in) {
+		return readCategory(in);
+	}
+
+	public static byte[] encodeId(String id) {
+		return id.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public static String decodeId(ByteBuffer in) {
+		byte[] bytes = new byte[in.remaining()];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeCategory(DataOutputStream out, Category category) throws IOException {
+		writeString(out, category.getCategoryId());
+		writeString(out, category.getName());
+		writeString(out, category.getDescription());
+	}
+
+	private static Category readCategory(ByteBuffer in) {
+		String categoryId = readString(in);
+		Category category = new Category(readString(in), readString(in));
+		category.setCategoryId(categoryId);
+		return category;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeDate(DataOutputStream out, LocalDateTime date) throws IOException {
+		if (date == null) {
+			out.writeLong(NULL_DATE);
+			return;
+		}
+		out.writeLong(date.toEpochSecond(ZoneOffset.UTC));
+		out.writeInt(date.getNano());
+	}
+
+	private static LocalDateTime readDate(ByteBuffer in) {
+		long seconds = in.getLong();
+		if (seconds == NULL_DATE) {
+			return null;
+		}
+		return LocalDateTime.ofEpochSecond(seconds, in.getInt(), ZoneOffset.UTC);
+	}
+}
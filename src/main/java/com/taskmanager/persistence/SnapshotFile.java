@@ -0,0 +1,122 @@
+package com.taskmanager.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+
+// Point-in-time image of a repository. Layout:
+//   int magic | int version | long lastLsn | long count | count x (int length | record) | int -1
+// lastLsn is the log position the image is guaranteed to include, so startup only has to
+// replay the log after it. Files are written beside the target and renamed into place.
+public final class SnapshotFile {
+
+	private static final int MAGIC = 0x54534E50;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+	private static final int END_MARKER = -1;
+	// largest region mapped at once; MappedByteBuffer cannot address more than 2 GB
+	private static final long WINDOW_SIZE = 1L << 30;
+
+	public interface EntryReader {
+		void read(ByteBuffer entry);
+	}
+
+	private SnapshotFile() {
+	}
+
+	public static <T> long write(Path file, long lastLsn, Iterable<T> entries, Function<T, byte[]> encoder)
+			throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		long count = 0;
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+			buffer.putInt(MAGIC).putInt(VERSION).putLong(lastLsn).putLong(0);
+			for (T entry : entries) {
+				byte[] record = encoder.apply(entry);
+				buffer = ensureRoom(channel, buffer, 4 + record.length);
+				buffer.putInt(record.length).put(record);
+				count++;
+			}
+			buffer = ensureRoom(channel, buffer, 4);
+			buffer.putInt(END_MARKER);
+			drain(channel, buffer);
+
+			ByteBuffer countField = ByteBuffer.allocate(8).putLong(0, count);
+			channel.write(countField, 16);
+			channel.force(true);
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return count;
+	}
+
+	// Streams the records of the snapshot straight out of mapped memory and returns the LSN
+	// it covers, or 0 when there is no snapshot yet. Entries are only valid during the call.
+	public static long read(Path file, EntryReader reader) throws IOException {
+		if (file == null || !Files.exists(file)) {
+			return 0;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE + 4) {
+				throw new IOException("Snapshot " + file + " is truncated");
+			}
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException("Snapshot " + file + " has an unknown format");
+			}
+			long lastLsn = header.getLong();
+			long count = header.getLong();
+
+			long position = HEADER_SIZE;
+			long read = 0;
+			while (read < count) {
+				MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(size - position, WINDOW_SIZE));
+				while (read < count && window.remaining() >= 4) {
+					int length = window.getInt(window.position());
+					if (length < 0 || window.remaining() < 4 + length) {
+						break;
+					}
+					window.position(window.position() + 4);
+					ByteBuffer entry = window.slice();
+					entry.limit(length);
+					reader.read(entry);
+					window.position(window.position() + length);
+					read++;
+				}
+				if (window.position() == 0) {
+					throw new IOException("Snapshot " + file + " is truncated");
+				}
+				position += window.position();
+			}
+			ByteBuffer end = ByteBuffer.allocate(4);
+			if (channel.read(end, position) != 4 || end.getInt(0) != END_MARKER) {
+				throw new IOException("Snapshot " + file + " is truncated");
+			}
+			return lastLsn;
+		}
+	}
+
+	private static ByteBuffer ensureRoom(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+		if (buffer.remaining() >= needed) {
+			return buffer;
+		}
+		drain(channel, buffer);
+		return buffer.capacity() >= needed ? buffer : ByteBuffer.allocate(needed);
+	}
+
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,66 @@
+package com.taskmanager.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Periodically snapshots the registered repositories on a background thread and drops
+// the log segments each snapshot makes redundant.
+public class SnapshotScheduler implements Closeable {
+
+	private static final class Target {
+		private final Snapshottable source;
+		private final Path snapshotFile;
+		private final WriteAheadLog log;
+
+		private Target(Snapshottable source, Path snapshotFile, WriteAheadLog log) {
+			this.source = source;
+			this.snapshotFile = snapshotFile;
+			this.log = log;
+		}
+	}
+
+	private final List<Target> targets = new CopyOnWriteArrayList<>();
+	private final ScheduledExecutorService executor;
+
+	public SnapshotScheduler() {
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "snapshot-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public void register(Snapshottable source, Path snapshotFile, WriteAheadLog log) {
+		targets.add(new Target(source, snapshotFile, log));
+	}
+
+	public void start(long intervalSeconds) {
+		executor.scheduleWithFixedDelay(this::snapshotQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+	}
+
+	public synchronized void snapshotNow() throws IOException {
+		for (Target target : targets) {
+			long lsn = target.source.writeSnapshot(target.snapshotFile);
+			target.log.truncateBefore(lsn);
+		}
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	private void snapshotQuietly() {
+		try {
+			snapshotNow();
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Snapshot failed: " + e.getMessage());
+		}
+	}
+}
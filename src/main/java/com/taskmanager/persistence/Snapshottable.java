@@ -0,0 +1,10 @@
+package com.taskmanager.persistence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface Snapshottable {
+
+	// writes a snapshot of the current state and returns the log LSN it covers
+	long writeSnapshot(Path snapshotFile) throws IOException;
+}
@@ -0,0 +1,598 @@
+package com.taskmanager.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+// Append-only log of repository mutations, split into segment files named after the
+// first sequence number (LSN) they hold. Record layout:
+//   int payloadLength | long lsn | byte type | payload | int crc32(lsn, type, payload)
+// Appends only copy the record into a buffer in memory, so an append made inside a caller's
+// critical section costs no system call unless the buffer fills up. commit(lsn) writes the
+// buffer out to the page cache and makes the record durable according to the fsync policy;
+// concurrent commits under ALWAYS share a single fsync.
+//
+// Besides replay at startup, an open log can be read from any LSN while it is appended to,
+// and its older segments can be compacted, which leaves gaps in the LSNs; a segment's name
+// is then only a lower bound of the LSNs in it.
+public class WriteAheadLog implements Closeable {
+
+	private static final String SEGMENT_SUFFIX = ".wal";
+	private static final String COMPACTING_SUFFIX = ".compacting";
+	private static final int HEADER_SIZE = 4 + 8 + 1;
+	private static final int TRAILER_SIZE = 4;
+	private static final int MAX_READ_HINTS = 64;
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+	public interface RecordHandler {
+		void apply(long lsn, byte type, ByteBuffer payload) throws IOException;
+	}
+
+	public interface RecordFilter {
+		boolean keep(long lsn, byte type, ByteBuffer payload);
+	}
+
+	// where the record after lsn starts, so a reader continuing where it stopped does not
+	// scan the segment from its beginning again
+	private static final class ReadHint {
+		private final Path segment;
+		private final long position;
+
+		private ReadHint(Path segment, long position) {
+			this.segment = segment;
+			this.position = position;
+		}
+	}
+
+	private final Path directory;
+	private final FsyncPolicy fsyncPolicy;
+	private final long segmentSize;
+
+	private final Object appendLock = new Object();
+	private final CRC32 crc = new CRC32();
+	// records appended but not yet written to the segment
+	private ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+	private FileChannel segment;
+	// including the buffered records
+	private long segmentBytes;
+	private long nextLsn = 1;
+	private volatile long appendedLsn;
+	private long writtenLsn;
+	private volatile boolean closed;
+
+	private final Object syncLock = new Object();
+	private long durableLsn;
+	private boolean syncing;
+
+	private ScheduledExecutorService flusher;
+
+	// readers hold the read side, compaction and truncation the write side while they
+	// replace or delete segment files
+	private final ReentrantReadWriteLock segmentLock = new ReentrantReadWriteLock();
+	private final ConcurrentHashMap<Long, ReadHint> readHints = new ConcurrentHashMap<>();
+	private final Object compactLock = new Object();
+
+	public WriteAheadLog(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis, long segmentSize)
+			throws IOException {
+		this.directory = directory;
+		this.fsyncPolicy = fsyncPolicy;
+		this.segmentSize = segmentSize;
+		Files.createDirectories(directory);
+		if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+			flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "wal-flusher-" + directory.getFileName());
+				thread.setDaemon(true);
+				return thread;
+			});
+			flusher.scheduleWithFixedDelay(this::flushQuietly, fsyncIntervalMillis, fsyncIntervalMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public WriteAheadLog(Path directory, PersistenceConfig config) throws IOException {
+		this(directory, config.getFsyncPolicy(), config.getFsyncIntervalMillis(), config.getSegmentSize());
+	}
+
+	// Feeds every intact record to the handler in LSN order and positions the log for
+	// appending. A torn record at the end of the newest segment (a crash mid-write) is
+	// cut off; damage anywhere else is reported as an error.
+	public void replay(RecordHandler handler) throws IOException {
+		replay(0, handler);
+	}
+
+	// Same as replay(handler), but only records after afterLsn (e.g. the LSN a snapshot
+	// covers) reach the handler; segments holding nothing newer are not even read.
+	public void replay(long afterLsn, RecordHandler handler) throws IOException {
+		synchronized (appendLock) {
+			if (segment != null) {
+				throw new IllegalStateException("Write-ahead log has already been opened");
+			}
+			List<Path> segments = listSegments();
+			long lastLsn = 0;
+			for (int i = 0; i < segments.size(); i++) {
+				boolean newest = i == segments.size() - 1;
+				if (!newest && firstLsn(segments.get(i + 1)) <= afterLsn + 1) {
+					continue;
+				}
+				lastLsn = replaySegment(segments.get(i), newest, lastLsn, afterLsn, handler);
+			}
+			lastLsn = Math.max(lastLsn, afterLsn);
+			nextLsn = lastLsn + 1;
+			appendedLsn = lastLsn;
+			writtenLsn = lastLsn;
+			durableLsn = lastLsn;
+			if (segments.isEmpty()) {
+				openSegment(nextLsn);
+			} else {
+				Path newest = segments.get(segments.size() - 1);
+				segment = FileChannel.open(newest, StandardOpenOption.WRITE, StandardOpenOption.READ);
+				segmentBytes = segment.size();
+				segment.position(segmentBytes);
+			}
+		}
+	}
+
+	// Buffers the record and returns its LSN. The record is not written out, let alone
+	// durable, until commit(lsn); only a full buffer or a segment roll writes it earlier.
+	public long append(byte type, byte[] payload) throws IOException {
+		synchronized (appendLock) {
+			if (segment == null || closed) {
+				throw new IllegalStateException("Write-ahead log is not open");
+			}
+			int recordSize = HEADER_SIZE + payload.length + TRAILER_SIZE;
+			if (segmentBytes > 0 && segmentBytes + recordSize > segmentSize) {
+				rollSegment();
+			}
+			if (buffer.remaining() < recordSize) {
+				writeBuffer();
+				if (buffer.capacity() < recordSize) {
+					buffer = ByteBuffer.allocate(recordSize);
+				}
+			}
+			long lsn = nextLsn;
+			int start = buffer.position();
+			buffer.putInt(payload.length).putLong(lsn).put(type).put(payload);
+			crc.reset();
+			crc.update(buffer.array(), start + 4, 8 + 1 + payload.length);
+			buffer.putInt((int) crc.getValue());
+			segmentBytes += recordSize;
+			nextLsn = lsn + 1;
+			appendedLsn = lsn;
+			return lsn;
+		}
+	}
+
+	public void commit(long lsn) throws IOException {
+		if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+			syncTo(lsn);
+			return;
+		}
+		synchronized (appendLock) {
+			if (writtenLsn < lsn && !closed) {
+				writeBuffer();
+			}
+		}
+	}
+
+	// fsyncs everything appended so far, regardless of policy
+	public void flush() throws IOException {
+		syncTo(appendedLsn);
+	}
+
+	// Deletes whole segments whose records are all at or below lsn, once a snapshot
+	// covering them is safely on disk. The segment being written is always kept.
+	public int truncateBefore(long lsn) throws IOException {
+		synchronized (appendLock) {
+			segmentLock.writeLock().lock();
+			try {
+				List<Path> segments = listSegments();
+				int deleted = 0;
+				for (int i = 0; i < segments.size() - 1; i++) {
+					if (firstLsn(segments.get(i + 1)) > lsn + 1) {
+						break;
+					}
+					Files.delete(segments.get(i));
+					deleted++;
+				}
+				if (deleted > 0) {
+					readHints.clear();
+				}
+				return deleted;
+			} finally {
+				segmentLock.writeLock().unlock();
+			}
+		}
+	}
+
+	// Deletes the oldest segments, never the one being written, until the log takes at most
+	// maxBytes, and returns the number of bytes freed.
+	public long truncateToSize(long maxBytes) throws IOException {
+		synchronized (appendLock) {
+			segmentLock.writeLock().lock();
+			try {
+				List<Path> segments = listSegments();
+				long size = 0;
+				for (Path path : segments) {
+					size += Files.size(path);
+				}
+				long freed = 0;
+				for (int i = 0; i < segments.size() - 1 && size - freed > maxBytes; i++) {
+					freed += Files.size(segments.get(i));
+					Files.delete(segments.get(i));
+				}
+				if (freed > 0) {
+					readHints.clear();
+				}
+				return freed;
+			} finally {
+				segmentLock.writeLock().unlock();
+			}
+		}
+	}
+
+	// Feeds the handler up to maxRecords records after afterLsn, in LSN order, stopping at
+	// upToLsn, and returns how many it fed. Safe to call while the log is appended to, as long
+	// as upToLsn has been committed.
+	public int read(long afterLsn, long upToLsn, int maxRecords, RecordHandler handler) throws IOException {
+		if (afterLsn >= upToLsn || maxRecords <= 0) {
+			return 0;
+		}
+		segmentLock.readLock().lock();
+		try {
+			List<Path> segments = listSegments();
+			ReadHint hint = readHints.remove(afterLsn);
+			int first = 0;
+			long position = 0;
+			if (hint != null && segments.contains(hint.segment)) {
+				first = segments.indexOf(hint.segment);
+				position = hint.position;
+			} else {
+				// the last segment that can hold afterLsn + 1
+				while (first + 1 < segments.size() && firstLsn(segments.get(first + 1)) <= afterLsn + 1) {
+					first++;
+				}
+			}
+			int count = 0;
+			CRC32 checksum = new CRC32();
+			for (int i = first; i < segments.size(); i++, position = 0) {
+				try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+					long size = channel.size();
+					if (position >= size) {
+						continue;
+					}
+					MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, size - position);
+					while (mapped.remaining() >= HEADER_SIZE + TRAILER_SIZE) {
+						int start = mapped.position();
+						int length = mapped.getInt();
+						long lsn = mapped.getLong();
+						if (lsn > upToLsn || length < 0 || mapped.remaining() < 1 + length + TRAILER_SIZE) {
+							return count;
+						}
+						byte type = mapped.get();
+						ByteBuffer payload = mapped.slice();
+						payload.limit(length);
+						mapped.position(mapped.position() + length);
+						int storedCrc = mapped.getInt();
+						if (lsn <= afterLsn) {
+							continue;
+						}
+						checksum.reset();
+						ByteBuffer covered = mapped.duplicate();
+						covered.position(start + 4).limit(start + 4 + 8 + 1 + length);
+						checksum.update(covered);
+						if ((int) checksum.getValue() != storedCrc) {
+							throw new IOException("Corrupt write-ahead log segment " + segments.get(i) + " at offset "
+									+ (position + start));
+						}
+						handler.apply(lsn, type, payload.asReadOnlyBuffer());
+						if (++count == maxRecords) {
+							if (readHints.size() >= MAX_READ_HINTS) {
+								readHints.clear();
+							}
+							readHints.put(lsn, new ReadHint(segments.get(i), position + mapped.position()));
+							return count;
+						}
+					}
+				}
+			}
+			return count;
+		} finally {
+			segmentLock.readLock().unlock();
+		}
+	}
+
+	// Rewrites every segment but the one being appended to with only the records the filter
+	// keeps, and returns the number of bytes freed. Each rewritten segment replaces the old
+	// one in a single rename, so a crash leaves either of them; a segment left empty stays
+	// as an empty file, which keeps the oldest segment's name as the log's first LSN.
+	public long compact(RecordFilter filter) throws IOException {
+		synchronized (compactLock) {
+			List<Path> sealed;
+			synchronized (appendLock) {
+				if (segment == null || closed) {
+					throw new IllegalStateException("Write-ahead log is not open");
+				}
+				sealed = listSegments();
+				sealed.remove(sealed.size() - 1);
+			}
+			long freed = 0;
+			for (Path path : sealed) {
+				freed += compactSegment(path, filter);
+			}
+			return freed;
+		}
+	}
+
+	// the lowest LSN the log can still hold; records below it were truncated
+	public long getFirstLsn() throws IOException {
+		segmentLock.readLock().lock();
+		try {
+			List<Path> segments = listSegments();
+			return segments.isEmpty() ? nextLsn : firstLsn(segments.get(0));
+		} finally {
+			segmentLock.readLock().unlock();
+		}
+	}
+
+	public long getSizeInBytes() throws IOException {
+		segmentLock.readLock().lock();
+		try {
+			long size = 0;
+			for (Path path : listSegments()) {
+				size += Files.size(path);
+			}
+			return size;
+		} finally {
+			segmentLock.readLock().unlock();
+		}
+	}
+
+	public long getLastLsn() {
+		return appendedLsn;
+	}
+
+	// the last LSN an fsync has covered
+	public long getDurableLsn() {
+		synchronized (syncLock) {
+			return durableLsn;
+		}
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (flusher != null) {
+			flusher.shutdownNow();
+		}
+		synchronized (appendLock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (segment != null) {
+				writeBuffer();
+				segment.force(false);
+				segment.close();
+			}
+		}
+	}
+
+	// Group commit: one caller becomes the leader and fsyncs everything appended so far,
+	// the others wait and return as soon as a sync has covered their LSN.
+	private void syncTo(long lsn) throws IOException {
+		synchronized (syncLock) {
+			while (durableLsn < lsn && syncing) {
+				try {
+					syncLock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for log sync");
+				}
+			}
+			if (durableLsn >= lsn) {
+				return;
+			}
+			syncing = true;
+		}
+		long target;
+		FileChannel channel;
+		synchronized (appendLock) {
+			if (!closed) {
+				writeBuffer();
+			}
+			target = appendedLsn;
+			channel = segment;
+		}
+		boolean synced = false;
+		try {
+			channel.force(false);
+			synced = true;
+		} catch (ClosedChannelException e) {
+			// the segment was rolled or the log closed, both of which fsync the file first
+			synced = true;
+		} finally {
+			synchronized (syncLock) {
+				if (synced && target > durableLsn) {
+					durableLsn = target;
+				}
+				syncing = false;
+				syncLock.notifyAll();
+			}
+		}
+	}
+
+	private long compactSegment(Path path, RecordFilter filter) throws IOException {
+		Path compacted = path.resolveSibling(path.getFileName() + COMPACTING_SUFFIX);
+		long oldSize;
+		long newSize = 0;
+		try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			oldSize = in.size();
+			MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, 0, oldSize);
+			while (mapped.remaining() >= HEADER_SIZE + TRAILER_SIZE) {
+				int start = mapped.position();
+				int length = mapped.getInt();
+				long lsn = mapped.getLong();
+				byte type = mapped.get();
+				ByteBuffer payload = mapped.slice();
+				payload.limit(length);
+				int end = mapped.position() + length + TRAILER_SIZE;
+				mapped.position(end);
+				if (filter.keep(lsn, type, payload.asReadOnlyBuffer())) {
+					ByteBuffer record = mapped.duplicate();
+					record.position(start).limit(end);
+					while (record.hasRemaining()) {
+						newSize += out.write(record);
+					}
+				}
+			}
+			if (newSize < oldSize) {
+				out.force(true);
+			}
+		}
+		// nothing to drop, so the copy is thrown away once it is closed
+		if (newSize == oldSize) {
+			Files.delete(compacted);
+			return 0;
+		}
+		segmentLock.writeLock().lock();
+		try {
+			Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			readHints.clear();
+		} finally {
+			segmentLock.writeLock().unlock();
+		}
+		return oldSize - newSize;
+	}
+
+	private void flushQuietly() {
+		try {
+			if (!closed) {
+				flush();
+			}
+		} catch (IOException e) {
+			System.err.println("Write-ahead log flush failed: " + e.getMessage());
+		}
+	}
+
+	// callers hold appendLock
+	private void writeBuffer() throws IOException {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				segment.write(buffer);
+			}
+		} finally {
+			buffer.compact();
+		}
+		writtenLsn = appendedLsn;
+	}
+
+	private void rollSegment() throws IOException {
+		writeBuffer();
+		segment.force(false);
+		segment.close();
+		openSegment(nextLsn);
+	}
+
+	private void openSegment(long firstLsn) throws IOException {
+		segment = FileChannel.open(segmentPath(firstLsn), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.READ);
+		segmentBytes = segment.size();
+		segment.position(segmentBytes);
+	}
+
+	private long replaySegment(Path path, boolean newest, long lastLsn, long afterLsn, RecordHandler handler)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long size = channel.size();
+			if (size == 0) {
+				return lastLsn;
+			}
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			CRC32 checksum = new CRC32();
+			while (mapped.hasRemaining()) {
+				int start = mapped.position();
+				if (mapped.remaining() < HEADER_SIZE + TRAILER_SIZE) {
+					return truncateTail(channel, path, start, newest, lastLsn);
+				}
+				int length = mapped.getInt();
+				if (length < 0 || mapped.remaining() < 8 + 1 + length + TRAILER_SIZE) {
+					return truncateTail(channel, path, start, newest, lastLsn);
+				}
+				long lsn = mapped.getLong();
+				byte type = mapped.get();
+				ByteBuffer payload = mapped.slice();
+				payload.limit(length);
+				mapped.position(mapped.position() + length);
+				int storedCrc = mapped.getInt();
+
+				checksum.reset();
+				ByteBuffer covered = mapped.duplicate();
+				covered.position(start + 4).limit(start + 4 + 8 + 1 + length);
+				checksum.update(covered);
+				if ((int) checksum.getValue() != storedCrc || lsn <= lastLsn) {
+					return truncateTail(channel, path, start, newest, lastLsn);
+				}
+				if (lsn > afterLsn) {
+					handler.apply(lsn, type, payload.asReadOnlyBuffer());
+				}
+				lastLsn = lsn;
+			}
+			return lastLsn;
+		}
+	}
+
+	private long truncateTail(FileChannel channel, Path path, long validBytes, boolean newest, long lastLsn)
+			throws IOException {
+		if (!newest) {
+			throw new IOException("Corrupt write-ahead log segment " + path + " at offset " + validBytes);
+		}
+		channel.truncate(validBytes);
+		channel.force(true);
+		return lastLsn;
+	}
+
+	private List<Path> listSegments() throws IOException {
+		List<Path> segments = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+			for (Path path : stream) {
+				segments.add(path);
+			}
+		}
+		// names are zero padded, so lexical order is LSN order
+		Collections.sort(segments);
+		return segments;
+	}
+
+	private static long firstLsn(Path segment) {
+		String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	private Path segmentPath(long firstLsn) {
+		return directory.resolve(String.format("%020d%s", firstLsn, SEGMENT_SUFFIX));
+	}
+}
@@ -0,0 +1,43 @@
+package com.taskmanager.reminder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import com.taskmanager.model.Task;
+
+public final class Reminder {
+
+	private final Task task;
+	private final ReminderKind kind;
+	private final Duration leadTime;
+
+	Reminder(Task task, ReminderKind kind, Duration leadTime) {
+		this.task = task;
+		this.kind = kind;
+		this.leadTime = leadTime;
+	}
+
+	// the task as it was last saved before the reminder fired
+	public Task getTask() {
+		return task;
+	}
+
+	public ReminderKind getKind() {
+		return kind;
+	}
+
+	// how long before the due date a DUE_SOON reminder was set for; zero for OVERDUE
+	public Duration getLeadTime() {
+		return leadTime;
+	}
+
+	public LocalDateTime getDueDate() {
+		return task.getDueDate();
+	}
+
+	@Override
+	public String toString() {
+		return kind + " " + task.getTaskId() + (kind == ReminderKind.DUE_SOON ? " in " + leadTime : "")
+				+ " (due " + task.getDueDate() + ")";
+	}
+}
@@ -0,0 +1,8 @@
+package com.taskmanager.reminder;
+
+public enum ReminderKind {
+	// a lead time before the due date
+	DUE_SOON,
+	// the due date itself
+	OVERDUE
+}
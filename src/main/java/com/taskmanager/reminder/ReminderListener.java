@@ -0,0 +1,7 @@
+package com.taskmanager.reminder;
+
+// Receives the reminders of a ReminderScheduler, on its thread and in the order they fall due.
+public interface ReminderListener {
+
+	void onReminder(Reminder reminder);
+}
@@ -0,0 +1,259 @@
+package com.taskmanager.reminder;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.TaskRepositoryListener;
+
+// Fires an OVERDUE reminder when a task's due date passes, and a DUE_SOON reminder at each
+// lead time before it, without ever scanning the tasks. The repository reports every save
+// and delete, and the scheduler keeps a timer per reminder in a timing wheel: a new due date
+// replaces the task's timers, a completed or deleted task loses them. Saving a task again
+// with the same due date keeps its timers, so each reminder fires once per due date.
+//
+// A background thread advances the wheel every tick and hands the reminders that fell due
+// to the listeners, outside the lock the repository's callbacks take.
+public class ReminderScheduler implements TaskRepositoryListener, Closeable {
+
+	public static final Duration DEFAULT_TICK = Duration.ofSeconds(1);
+
+	private static final class Scheduled {
+		private final LocalDateTime dueDate;
+		private final List<TimingWheel.Timer<Pending>> timers = new ArrayList<>();
+		// the latest save, so a reminder shows the task as it is when it fires
+		private Task task;
+
+		private Scheduled(Task task) {
+			this.task = task;
+			this.dueDate = task.getDueDate();
+		}
+	}
+
+	private static final class Pending {
+		private final Scheduled owner;
+		private final ReminderKind kind;
+		private final Duration leadTime;
+
+		private Pending(Scheduled owner, ReminderKind kind, Duration leadTime) {
+			this.owner = owner;
+			this.kind = kind;
+			this.leadTime = leadTime;
+		}
+	}
+
+	private final long tickMillis;
+	// longest first
+	private final List<Duration> leadTimes;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final TimingWheel<Pending> wheel;
+	private final Map<String, Scheduled> scheduled = new HashMap<>();
+	private final List<ReminderListener> listeners = new CopyOnWriteArrayList<>();
+	private ScheduledExecutorService executor;
+
+	public ReminderScheduler(Duration tick, Duration... leadTimes) {
+		this(tick, Arrays.asList(leadTimes), LocalDateTime.now());
+	}
+
+	ReminderScheduler(Duration tick, List<Duration> leadTimes, LocalDateTime start) {
+		if (tick.toMillis() <= 0) {
+			throw new IllegalArgumentException("Reminder tick must be at least a millisecond");
+		}
+		List<Duration> sorted = new ArrayList<>(leadTimes);
+		for (Duration leadTime : sorted) {
+			if (leadTime.isNegative() || leadTime.isZero()) {
+				throw new IllegalArgumentException("Lead time must be positive: " + leadTime);
+			}
+		}
+		sorted.sort(Collections.reverseOrder());
+		this.tickMillis = tick.toMillis();
+		this.leadTimes = Collections.unmodifiableList(sorted);
+		this.wheel = new TimingWheel<>(floorTick(start));
+	}
+
+	// creates a scheduler with a timer for every task of the repository and keeps it up to
+	// date; call start() to have it fire
+	public static ReminderScheduler attach(TaskRepository taskRepository, Duration... leadTimes) {
+		ReminderScheduler scheduler = new ReminderScheduler(DEFAULT_TICK, leadTimes);
+		taskRepository.addListener(scheduler);
+		return scheduler;
+	}
+
+	public void addListener(ReminderListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(ReminderListener listener) {
+		listeners.remove(listener);
+	}
+
+	public List<Duration> getLeadTimes() {
+		return leadTimes;
+	}
+
+	public synchronized void start() {
+		if (executor != null) {
+			return;
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "reminder-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleAtFixedRate(this::fireDueQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	// Fires the reminders due by now and returns how many. The background thread calls
+	// this every tick; callers driving the scheduler by hand pass their own clock.
+	public int fireDue(LocalDateTime now) {
+		List<Pending> expired = new ArrayList<>();
+		List<Reminder> due = new ArrayList<>();
+		lock.lock();
+		try {
+			wheel.advance(floorTick(now), expired);
+			for (Pending pending : expired) {
+				due.add(new Reminder(pending.owner.task, pending.kind, pending.leadTime));
+			}
+		} finally {
+			lock.unlock();
+		}
+		for (Reminder reminder : due) {
+			for (ReminderListener listener : listeners) {
+				listener.onReminder(reminder);
+			}
+		}
+		return due.size();
+	}
+
+	// reminders waiting to fire
+	public int pendingCount() {
+		lock.lock();
+		try {
+			return wheel.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void onSaved(Task task) {
+		lock.lock();
+		try {
+			Scheduled current = scheduled.get(task.getTaskId());
+			boolean remind = task.getDueDate() != null && task.getStatus() != Status.COMPLETED;
+			if (current != null && remind && current.dueDate.equals(task.getDueDate())) {
+				current.task = task;
+				return;
+			}
+			if (current != null) {
+				cancel(current);
+				scheduled.remove(task.getTaskId());
+			}
+			if (remind) {
+				scheduled.put(task.getTaskId(), schedule(task));
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void onDeleted(String taskId) {
+		lock.lock();
+		try {
+			Scheduled current = scheduled.remove(taskId);
+			if (current != null) {
+				cancel(current);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void onCleared() {
+		lock.lock();
+		try {
+			for (Scheduled current : scheduled.values()) {
+				cancel(current);
+			}
+			scheduled.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// A lead time whose moment has passed fires right away, but only the shortest such one:
+	// a task due in ten minutes gets the one-hour reminder, not also the one-day one. A task
+	// that is already overdue only gets its OVERDUE reminder.
+	private Scheduled schedule(Task task) {
+		Scheduled entry = new Scheduled(task);
+		long dueMillis = toMillis(task.getDueDate());
+		long dueTick = ceilTick(dueMillis);
+		long now = wheel.getCurrentTick();
+		if (dueTick > now) {
+			for (int i = 0; i < leadTimes.size(); i++) {
+				Duration leadTime = leadTimes.get(i);
+				boolean shorterAlsoPassed = i + 1 < leadTimes.size()
+						&& ceilTick(dueMillis - leadTimes.get(i + 1).toMillis()) <= now;
+				if (!shorterAlsoPassed) {
+					entry.timers.add(wheel.schedule(ceilTick(dueMillis - leadTime.toMillis()),
+							new Pending(entry, ReminderKind.DUE_SOON, leadTime)));
+				}
+			}
+		}
+		entry.timers.add(wheel.schedule(dueTick, new Pending(entry, ReminderKind.OVERDUE, Duration.ZERO)));
+		return entry;
+	}
+
+	private void cancel(Scheduled entry) {
+		for (TimingWheel.Timer<Pending> timer : entry.timers) {
+			wheel.cancel(timer);
+		}
+	}
+
+	private void fireDueQuietly() {
+		try {
+			fireDue(LocalDateTime.now());
+		} catch (RuntimeException e) {
+			System.err.println("Reminder delivery failed: " + e.getMessage());
+		}
+	}
+
+	// due dates are wall-clock times, so they only need to be compared with LocalDateTime.now()
+	private static long toMillis(LocalDateTime dateTime) {
+		return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+	}
+
+	private long floorTick(LocalDateTime dateTime) {
+		return Math.floorDiv(toMillis(dateTime), tickMillis);
+	}
+
+	// a reminder never fires before its moment
+	private long ceilTick(long millis) {
+		return -Math.floorDiv(-millis, tickMillis);
+	}
+}
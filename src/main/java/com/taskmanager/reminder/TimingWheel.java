@@ -0,0 +1,181 @@
+package com.taskmanager.reminder;
+
+import java.util.List;
+
+// Hierarchical timing wheel over a discrete clock of ticks. Level 0 has a slot per tick for
+// the next 64 ticks, level 1 a slot per 64 ticks for the next 4096, and so on for LEVELS
+// levels. A timer goes into the lowest level whose range covers its delay, in the slot of
+// its deadline. Each time level 0 wraps around, the next slot of level 1 is emptied and its
+// timers placed again, now one level lower; when that slot is the first one, level 2 is
+// cascaded the same way, and so on. Scheduling and cancelling are O(1), and a timer is
+// moved at most once per level before it expires.
+//
+// A timer further out than the top level reaches is parked at its far end and placed
+// again, closer, when that slot cascades. While the lowest levels are empty, advancing
+// skips straight to the next tick that cascades a level holding timers, so a long idle
+// stretch costs a few steps rather than one per tick.
+//
+// Not synchronized; the owning scheduler guards it.
+final class TimingWheel<T> {
+
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int MASK = SLOTS - 1;
+	private static final int LEVELS = 6;
+	private static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+	// a timer is a node of the circular list of its slot; each slot list has a sentinel
+	static final class Timer<T> {
+		private final long deadline;
+		private final T payload;
+		private int level;
+		private Timer<T> previous;
+		private Timer<T> next;
+
+		private Timer(long deadline, T payload) {
+			this.deadline = deadline;
+			this.payload = payload;
+		}
+
+		long getDeadline() {
+			return deadline;
+		}
+
+		T getPayload() {
+			return payload;
+		}
+
+		boolean isScheduled() {
+			return next != null;
+		}
+	}
+
+	private final Timer<T>[][] slots;
+	private final int[] levelSizes = new int[LEVELS];
+	// the next tick to expire
+	private long currentTick;
+	private int size;
+
+	@SuppressWarnings("unchecked")
+	TimingWheel(long startTick) {
+		this.currentTick = startTick;
+		this.slots = (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+		for (Timer<T>[] level : slots) {
+			for (int slot = 0; slot < SLOTS; slot++) {
+				Timer<T> sentinel = new Timer<>(-1, null);
+				sentinel.previous = sentinel;
+				sentinel.next = sentinel;
+				level[slot] = sentinel;
+			}
+		}
+	}
+
+	// a deadline that has already passed expires with the next advance
+	Timer<T> schedule(long deadline, T payload) {
+		Timer<T> timer = new Timer<>(deadline, payload);
+		place(timer);
+		size++;
+		return timer;
+	}
+
+	// does nothing for a timer that expired or was cancelled before
+	void cancel(Timer<T> timer) {
+		if (timer.isScheduled()) {
+			unlink(timer);
+			size--;
+		}
+	}
+
+	// expires every timer with a deadline up to tick, adding their payloads to expired in
+	// deadline order
+	void advance(long tick, List<? super T> expired) {
+		while (currentTick <= tick) {
+			int emptyLevels = 0;
+			while (emptyLevels < LEVELS && levelSizes[emptyLevels] == 0) {
+				emptyLevels++;
+			}
+			if (emptyLevels == LEVELS) {
+				currentTick = tick + 1;
+				return;
+			}
+			if (emptyLevels > 0) {
+				long span = 1L << (SLOT_BITS * emptyLevels);
+				if ((currentTick & (span - 1)) != 0) {
+					long next = (currentTick & -span) + span;
+					if (next > tick) {
+						currentTick = tick + 1;
+						return;
+					}
+					currentTick = next;
+				}
+			}
+			int index = (int) currentTick & MASK;
+			if (index == 0) {
+				for (int level = 1; level < LEVELS; level++) {
+					int slot = (int) (currentTick >>> (SLOT_BITS * level)) & MASK;
+					cascade(level, slot);
+					if (slot != 0) {
+						break;
+					}
+				}
+			}
+			Timer<T> sentinel = slots[0][index];
+			while (sentinel.next != sentinel) {
+				Timer<T> timer = sentinel.next;
+				unlink(timer);
+				size--;
+				expired.add(timer.payload);
+			}
+			currentTick++;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	long getCurrentTick() {
+		return currentTick;
+	}
+
+	private void place(Timer<T> timer) {
+		long expires = Math.max(timer.deadline, currentTick);
+		long delay = Math.min(expires - currentTick, MAX_DELAY);
+		expires = currentTick + delay;
+		int level = 0;
+		while (delay >= 1L << (SLOT_BITS * (level + 1))) {
+			level++;
+		}
+		timer.level = level;
+		levelSizes[level]++;
+		link(slots[level][(int) (expires >>> (SLOT_BITS * level)) & MASK], timer);
+	}
+
+	private void cascade(int level, int slot) {
+		Timer<T> sentinel = slots[level][slot];
+		Timer<T> timer = sentinel.next;
+		sentinel.previous = sentinel;
+		sentinel.next = sentinel;
+		while (timer != sentinel) {
+			Timer<T> next = timer.next;
+			levelSizes[level]--;
+			place(timer);
+			timer = next;
+		}
+	}
+
+	private static <T> void link(Timer<T> sentinel, Timer<T> timer) {
+		timer.previous = sentinel.previous;
+		timer.next = sentinel;
+		sentinel.previous.next = timer;
+		sentinel.previous = timer;
+	}
+
+	private void unlink(Timer<T> timer) {
+		levelSizes[timer.level]--;
+		timer.previous.next = timer.next;
+		timer.next.previous = timer.previous;
+		timer.previous = null;
+		timer.next = null;
+	}
+}
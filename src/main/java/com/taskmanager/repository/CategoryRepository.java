@@ -1,18 +1,75 @@
 package com.taskmanager.repository;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.taskmanager.model.Category;
+import com.taskmanager.persistence.RecordCodec;
+import com.taskmanager.persistence.SnapshotFile;
+import com.taskmanager.persistence.Snapshottable;
+import com.taskmanager.persistence.WriteAheadLog;
 
-public class CategoryRepository {
+public class CategoryRepository implements Snapshottable, Closeable {
 
-	private ConcurrentHashMap<String, Category> categories = new ConcurrentHashMap<>();
+	private final CategoryStore categories;
+
+	// null when the repository is in memory only
+	private final WriteAheadLog log;
+	private final ReentrantReadWriteLock snapshotBarrier = new ReentrantReadWriteLock();
+	// categories change rarely, so writers simply take turns; this keeps the log and the store
+	// in the same order without asking the store for an atomic compute
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	public CategoryRepository() {
+		this(new HeapCategoryStore());
+	}
+
+	public CategoryRepository(CategoryStore store) {
+		this.categories = store;
+		this.log = null;
+	}
+
+	public CategoryRepository(WriteAheadLog log) throws IOException {
+		this(log, null);
+	}
+
+	public CategoryRepository(WriteAheadLog log, Path snapshotFile) throws IOException {
+		this(log, snapshotFile, new HeapCategoryStore());
+	}
+
+	public CategoryRepository(WriteAheadLog log, Path snapshotFile, CategoryStore store) throws IOException {
+		this.categories = store;
+		long snapshotLsn = SnapshotFile.read(snapshotFile, entry -> categories.put(RecordCodec.decodeCategory(entry)));
+		log.replay(snapshotLsn, this::applyLogged);
+		this.log = log;
+	}
 
 	public Category save(Category category) {
-		categories.put(category.getCategoryId(), category);
+		byte[] record = log == null ? null : RecordCodec.encodeCategory(category);
+		long lsn;
+		Lock barrier = enterBarrier();
+		writeLock.lock();
+		try {
+			lsn = appendToLog(RecordCodec.PUT, record);
+			categories.put(category);
+		} finally {
+			writeLock.unlock();
+			exitBarrier(barrier);
+		}
+		commit(lsn);
 		return category;
 	}
 
@@ -21,15 +78,135 @@ public class CategoryRepository {
 	}
 
 	public List<Category> findAll() {
-		return categories.values().stream().collect(Collectors.toUnmodifiableList());
+		return categories.stream().collect(Collectors.toUnmodifiableList());
+	}
+
+	// live, weakly consistent views, like the ones on TaskRepository
+	public Stream<Category> stream() {
+		return categories.stream();
+	}
+
+	public void forEach(Consumer<? super Category> action) {
+		categories.forEach(action);
+	}
+
+	public List<Category> scan(Predicate<? super Category> filter, int limit) {
+		List<Category> result = new ArrayList<>();
+		if (limit <= 0) {
+			return result;
+		}
+		for (Category category : categories) {
+			if (filter.test(category)) {
+				result.add(category);
+				if (result.size() == limit) {
+					break;
+				}
+			}
+		}
+		return result;
 	}
+
+	public int count() {
+		return categories.size();
+	}
+
 	public void deleteById(String categoryId) {
-		categories.remove(categoryId);
+		long lsn = 0;
+		Lock barrier = enterBarrier();
+		writeLock.lock();
+		try {
+			if (categories.contains(categoryId)) {
+				lsn = appendToLog(RecordCodec.DELETE, RecordCodec.encodeId(categoryId));
+				categories.remove(categoryId);
+			}
+		} finally {
+			writeLock.unlock();
+			exitBarrier(barrier);
+		}
+		commit(lsn);
 	}
 	public boolean exists(String categoryId) {
-		return categories.containsKey(categoryId);
+		return categories.contains(categoryId);
 	}
 	public void clear() {
-		categories.clear();
+		long lsn;
+		Lock barrier = enterBarrier();
+		writeLock.lock();
+		try {
+			lsn = appendToLog(RecordCodec.CLEAR, new byte[0]);
+			categories.clear();
+		} finally {
+			writeLock.unlock();
+			exitBarrier(barrier);
+		}
+		commit(lsn);
+	}
+
+	@Override
+	public void close() throws IOException {
+		categories.close();
+	}
+
+	@Override
+	public long writeSnapshot(Path snapshotFile) throws IOException {
+		if (log == null) {
+			throw new IllegalStateException("Snapshots need a repository backed by a write-ahead log");
+		}
+		long lsn;
+		snapshotBarrier.writeLock().lock();
+		try {
+			lsn = log.getLastLsn();
+		} finally {
+			snapshotBarrier.writeLock().unlock();
+		}
+		SnapshotFile.write(snapshotFile, lsn, categories, RecordCodec::encodeCategory);
+		return lsn;
+	}
+
+	private void applyLogged(long lsn, byte type, ByteBuffer payload) {
+		if (type == RecordCodec.PUT) {
+			categories.put(RecordCodec.decodeCategory(payload));
+		} else if (type == RecordCodec.DELETE) {
+			categories.remove(RecordCodec.decodeId(payload));
+		} else if (type == RecordCodec.CLEAR) {
+			categories.clear();
+		}
+	}
+
+	private long appendToLog(byte type, byte[] record) {
+		if (log == null) {
+			return 0;
+		}
+		try {
+			return log.append(type, record);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write category log", e);
+		}
+	}
+
+	private Lock enterBarrier() {
+		if (log == null) {
+			return null;
+		}
+		Lock barrier = snapshotBarrier.readLock();
+		barrier.lock();
+		return barrier;
+	}
+
+	private void exitBarrier(Lock barrier) {
+		if (barrier != null) {
+			barrier.unlock();
+		}
+	}
+
+	private void commit(long lsn) {
+		if (log != null && lsn != 0) {
+			try {
+				log.commit(lsn);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not sync category log", e);
+			}
+		}
+		categories.commit();
 	}
 }
@@ -0,0 +1,36 @@
+package com.taskmanager.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import com.taskmanager.model.Category;
+
+// The storage SPI behind CategoryRepository, the category counterpart of TaskStore. The
+// repository serializes its writes, so a store only has to make reads safe alongside a
+// single writer. Iteration is weakly consistent.
+public interface CategoryStore extends Iterable<Category>, Closeable {
+
+	// null when no category has the id
+	Category get(String categoryId);
+
+	void put(Category category);
+
+	void remove(String categoryId);
+
+	boolean contains(String categoryId);
+
+	int size();
+
+	void clear();
+
+	Stream<Category> stream();
+
+	// called once a save, delete or clear is applied and logged, like TaskStore.commit
+	default void commit() {
+	}
+
+	@Override
+	default void close() throws IOException {
+	}
+}
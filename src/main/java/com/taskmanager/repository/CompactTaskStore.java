@@ -0,0 +1,359 @@
+package com.taskmanager.repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+
+// Task records in two primitive-packed arrays instead of objects. Every task gets a dense
+// slot number; its id, title and description sit next to each other in a String array, and
+// everything else in FIELDS consecutive longs: dates as epoch seconds plus nanos, status
+// and priority as ordinals, the category as a number into a table of distinct categories.
+// Apart from its strings a task costs about 70 bytes here, instead of a Task, three
+// LocalDateTimes (each with a LocalDate and a LocalTime) and a map node. Keeping each
+// record's fields together means a lookup touches three cache lines, not one per field.
+//
+// The task id leads to the slot through an open-addressing table of slot numbers with
+// linear probing. Freed slots are reused. Reads build a fresh Task from the arrays.
+//
+// Writers take the write lock. Readers read optimistically and only retry under the read
+// lock when a write overlapped; a torn read can throw before it is validated, which is why
+// the optimistic path discards runtime exceptions when its stamp turns out to be invalid.
+final class CompactTaskStore implements TaskStore {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	// per slot in strings
+	private static final int ID = 0;
+	private static final int TITLE = 1;
+	private static final int DESCRIPTION = 2;
+	private static final int STRINGS = 3;
+
+	// per slot in fields: three epoch seconds, then due and created nanos in one long, then
+	// modified nanos | category + 1 (24 bits) | status + 1 (4 bits) | priority + 1 (4 bits),
+	// then the version
+	private static final int DUE_SECONDS = 0;
+	private static final int CREATED_SECONDS = 1;
+	private static final int MODIFIED_SECONDS = 2;
+	private static final int NANOS = 3;
+	private static final int MODIFIED_NANOS_AND_CODES = 4;
+	private static final int VERSION = 5;
+	private static final int FIELDS = 6;
+	// nanos of a null date
+	private static final int NO_DATE = -1;
+	private static final int MAX_CATEGORIES = (1 << 24) - 1;
+
+	private static final Status[] STATUSES = Status.values();
+	private static final Priority[] PRIORITIES = Priority.values();
+
+	private final StampedLock lock = new StampedLock();
+
+	private String[] strings;
+	private long[] fields;
+	// slot + 1 per bucket, 0 for an empty bucket; at most half full
+	private int[] buckets;
+	private int capacity;
+	private int used;
+	private int size;
+	private int[] freeSlots;
+	private int freeCount;
+
+	// distinct categories by id; a task saved with a newer instance of a category replaces it
+	private Category[] categoryTable;
+	private int categoryCount;
+	private final Map<String, Integer> categoryNumbers = new HashMap<>();
+
+	CompactTaskStore() {
+		reset();
+	}
+
+	@Override
+	public Task get(String taskId) {
+		return taskId == null ? null : read(() -> {
+			int slot = slotOf(taskId);
+			return slot < 0 ? null : materialize(slot);
+		});
+	}
+
+	@Override
+	public boolean contains(String taskId) {
+		return taskId != null && read(() -> slotOf(taskId) >= 0);
+	}
+
+	@Override
+	public void put(Task task) {
+		long stamp = lock.writeLock();
+		try {
+			int slot = slotOf(task.getTaskId());
+			if (slot < 0) {
+				slot = allocateSlot();
+				strings[slot * STRINGS + ID] = task.getTaskId();
+				insertBucket(slot);
+				size++;
+			}
+			int at = slot * STRINGS;
+			strings[at + TITLE] = task.getTitle();
+			strings[at + DESCRIPTION] = task.getDescription();
+			at = slot * FIELDS;
+			fields[at + DUE_SECONDS] = seconds(task.getDueDate());
+			fields[at + CREATED_SECONDS] = seconds(task.getCreatedDate());
+			fields[at + MODIFIED_SECONDS] = seconds(task.getLastModifiedDate());
+			fields[at + NANOS] = (long) nanos(task.getDueDate()) << 32 | (nanos(task.getCreatedDate()) & 0xFFFFFFFFL);
+			int codes = (internCategory(task.getCategory()) + 1) << 8
+					| (task.getStatus() == null ? 0 : task.getStatus().ordinal() + 1) << 4
+					| (task.getPriority() == null ? 0 : task.getPriority().ordinal() + 1);
+			fields[at + MODIFIED_NANOS_AND_CODES] = (long) nanos(task.getLastModifiedDate()) << 32 | (codes & 0xFFFFFFFFL);
+			fields[at + VERSION] = task.getVersion();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public void remove(String taskId) {
+		long stamp = lock.writeLock();
+		try {
+			int bucket = bucketOf(taskId);
+			if (bucket < 0) {
+				return;
+			}
+			int slot = buckets[bucket] - 1;
+			deleteBucket(bucket);
+			Arrays.fill(strings, slot * STRINGS, slot * STRINGS + STRINGS, null);
+			if (freeCount == freeSlots.length) {
+				freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+			}
+			freeSlots[freeCount++] = slot;
+			size--;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public int size() {
+		long stamp = lock.tryOptimisticRead();
+		int result = size;
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				result = size;
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			reset();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	// walks the slots handed out when the stream starts; splits well for parallel streams
+	@Override
+	public Stream<Task> stream() {
+		int end = read(() -> used);
+		return IntStream.range(0, end)
+				.mapToObj(slot -> read(() -> slot < used && strings[slot * STRINGS + ID] != null
+						? materialize(slot) : null))
+				.filter(Objects::nonNull);
+	}
+
+	@Override
+	public Iterator<Task> iterator() {
+		return stream().iterator();
+	}
+
+	private <T> T read(Supplier<T> reader) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				T value = reader.get();
+				if (lock.validate(stamp)) {
+					return value;
+				}
+			} catch (RuntimeException e) {
+				if (lock.validate(stamp)) {
+					throw e;
+				}
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return reader.get();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private Task materialize(int slot) {
+		int at = slot * STRINGS;
+		String taskId = strings[at + ID];
+		String title = strings[at + TITLE];
+		String description = strings[at + DESCRIPTION];
+		at = slot * FIELDS;
+		long nanos = fields[at + NANOS];
+		long last = fields[at + MODIFIED_NANOS_AND_CODES];
+		int codes = (int) last;
+		int category = (codes >>> 8) - 1;
+		int status = (codes >>> 4 & 0xF) - 1;
+		int priority = (codes & 0xF) - 1;
+		return Task.builder(taskId).title(title).description(description)
+				.dueDate(date(fields[at + DUE_SECONDS], (int) (nanos >> 32)))
+				.priority(priority < 0 ? null : PRIORITIES[priority]).category(category < 0 ? null : categoryTable[category])
+				.status(status < 0 ? null : STATUSES[status]).createdDate(date(fields[at + CREATED_SECONDS], (int) nanos))
+				.lastModifiedDate(date(fields[at + MODIFIED_SECONDS], (int) (last >> 32)))
+				.version(fields[at + VERSION]).build();
+	}
+
+	private static LocalDateTime date(long seconds, int nanos) {
+		return nanos == NO_DATE ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+	}
+
+	private static long seconds(LocalDateTime date) {
+		return date == null ? 0 : date.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	private static int nanos(LocalDateTime date) {
+		return date == null ? NO_DATE : date.getNano();
+	}
+
+	// -1 for no category
+	private int internCategory(Category category) {
+		if (category == null) {
+			return -1;
+		}
+		Integer number = categoryNumbers.get(category.getCategoryId());
+		if (number != null) {
+			categoryTable[number] = category;
+			return number;
+		}
+		if (categoryCount == MAX_CATEGORIES) {
+			throw new IllegalStateException("Compact task store holds at most " + MAX_CATEGORIES + " categories");
+		}
+		if (categoryCount == categoryTable.length) {
+			categoryTable = Arrays.copyOf(categoryTable, categoryTable.length * 2);
+		}
+		categoryTable[categoryCount] = category;
+		categoryNumbers.put(category.getCategoryId(), categoryCount);
+		return categoryCount++;
+	}
+
+	private int allocateSlot() {
+		if (freeCount > 0) {
+			return freeSlots[--freeCount];
+		}
+		if (used == capacity) {
+			capacity *= 2;
+			strings = Arrays.copyOf(strings, capacity * STRINGS);
+			fields = Arrays.copyOf(fields, capacity * FIELDS);
+		}
+		return used++;
+	}
+
+	private int slotOf(String taskId) {
+		int bucket = bucketOf(taskId);
+		return bucket < 0 ? -1 : buckets[bucket] - 1;
+	}
+
+	// the probe count is bounded, so a read racing a rehash cannot loop forever
+	private int bucketOf(String taskId) {
+		int[] table = buckets;
+		int mask = table.length - 1;
+		int bucket = home(taskId, mask);
+		for (int probes = 0; probes < table.length; probes++) {
+			int slot = table[bucket] - 1;
+			if (slot < 0) {
+				return -1;
+			}
+			if (taskId.equals(strings[slot * STRINGS + ID])) {
+				return bucket;
+			}
+			bucket = (bucket + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void insertBucket(int slot) {
+		if ((size + 1) * 2 > buckets.length) {
+			int[] old = buckets;
+			buckets = new int[old.length * 2];
+			for (int entry : old) {
+				if (entry != 0) {
+					place(entry - 1);
+				}
+			}
+		}
+		place(slot);
+	}
+
+	private void place(int slot) {
+		int mask = buckets.length - 1;
+		int bucket = home(strings[slot * STRINGS + ID], mask);
+		while (buckets[bucket] != 0) {
+			bucket = (bucket + 1) & mask;
+		}
+		buckets[bucket] = slot + 1;
+	}
+
+	// backward-shift deletion: entries after the hole move up unless that would put them
+	// before their home bucket, so no tombstones are needed
+	private void deleteBucket(int hole) {
+		int mask = buckets.length - 1;
+		buckets[hole] = 0;
+		int bucket = hole;
+		while (true) {
+			bucket = (bucket + 1) & mask;
+			int entry = buckets[bucket];
+			if (entry == 0) {
+				return;
+			}
+			int home = home(strings[(entry - 1) * STRINGS + ID], mask);
+			boolean homeAfterHole = hole <= bucket ? home > hole && home <= bucket : home > hole || home <= bucket;
+			if (!homeAfterHole) {
+				buckets[hole] = entry;
+				buckets[bucket] = 0;
+				hole = bucket;
+			}
+		}
+	}
+
+	// ids that differ in their last characters have nearby String hashes, which linear
+	// probing would turn into long runs; the multiply spreads them over the whole table
+	private static int home(String taskId, int mask) {
+		int hash = taskId.hashCode() * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	private void reset() {
+		capacity = INITIAL_CAPACITY;
+		strings = new String[capacity * STRINGS];
+		fields = new long[capacity * FIELDS];
+		buckets = new int[capacity * 2];
+		freeSlots = new int[64];
+		used = 0;
+		size = 0;
+		freeCount = 0;
+		categoryTable = new Category[16];
+		categoryCount = 0;
+		categoryNumbers.clear();
+	}
+}
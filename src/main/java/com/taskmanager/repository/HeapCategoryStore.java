@@ -0,0 +1,59 @@
+package com.taskmanager.repository;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.taskmanager.model.Category;
+
+// The default CategoryStore: the saved Category objects in a concurrent hash map.
+final class HeapCategoryStore implements CategoryStore {
+
+	private final ConcurrentHashMap<String, Category> categories = new ConcurrentHashMap<>();
+
+	@Override
+	public Category get(String categoryId) {
+		return categories.get(categoryId);
+	}
+
+	@Override
+	public void put(Category category) {
+		categories.put(category.getCategoryId(), category);
+	}
+
+	@Override
+	public void remove(String categoryId) {
+		categories.remove(categoryId);
+	}
+
+	@Override
+	public boolean contains(String categoryId) {
+		return categories.containsKey(categoryId);
+	}
+
+	@Override
+	public int size() {
+		return categories.size();
+	}
+
+	@Override
+	public void clear() {
+		categories.clear();
+	}
+
+	@Override
+	public Stream<Category> stream() {
+		return categories.values().stream();
+	}
+
+	@Override
+	public Iterator<Category> iterator() {
+		return categories.values().iterator();
+	}
+
+	@Override
+	public void forEach(Consumer<? super Category> action) {
+		categories.values().forEach(action);
+	}
+}
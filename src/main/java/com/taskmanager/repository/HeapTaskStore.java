@@ -0,0 +1,60 @@
+package com.taskmanager.repository;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.taskmanager.model.Task;
+
+// The saved Task objects themselves in a concurrent hash map; reads hand out the stored
+// instance.
+final class HeapTaskStore implements TaskStore {
+
+	private final ConcurrentHashMap<String, Task> tasks = new ConcurrentHashMap<>();
+
+	@Override
+	public Task get(String taskId) {
+		return tasks.get(taskId);
+	}
+
+	@Override
+	public void put(Task task) {
+		tasks.put(task.getTaskId(), task);
+	}
+
+	@Override
+	public void remove(String taskId) {
+		tasks.remove(taskId);
+	}
+
+	@Override
+	public boolean contains(String taskId) {
+		return tasks.containsKey(taskId);
+	}
+
+	@Override
+	public int size() {
+		return tasks.size();
+	}
+
+	@Override
+	public void clear() {
+		tasks.clear();
+	}
+
+	@Override
+	public Stream<Task> stream() {
+		return tasks.values().stream();
+	}
+
+	@Override
+	public Iterator<Task> iterator() {
+		return tasks.values().iterator();
+	}
+
+	@Override
+	public void forEach(Consumer<? super Task> action) {
+		tasks.values().forEach(action);
+	}
+}
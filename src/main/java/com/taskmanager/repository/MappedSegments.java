@@ -0,0 +1,119 @@
+package com.taskmanager.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// A file mapped into memory in fixed-size segments, addressed by long positions. A single
+// mapping cannot exceed 2 GB, and remapping to grow would invalidate the old buffer, so the
+// file grows a segment at a time and every segment stays mapped until close. A value never
+// straddles two segments: callers keep fixed-width records aligned and start a
+// variable-length value that would not fit at the next segment.
+//
+// Not synchronized; the owning store guards it.
+final class MappedSegments implements Closeable {
+
+	private final FileChannel channel;
+	private final int segmentShift;
+	private final int segmentSize;
+	private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+	MappedSegments(Path file, int segmentShift) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.segmentShift = segmentShift;
+		this.segmentSize = 1 << segmentShift;
+		long existing = channel.size();
+		while (capacity() < existing) {
+			addSegment();
+		}
+	}
+
+	long capacity() {
+		return (long) segments.size() * segmentSize;
+	}
+
+	int segmentSize() {
+		return segmentSize;
+	}
+
+	void ensureCapacity(long bytes) throws IOException {
+		while (capacity() < bytes) {
+			addSegment();
+		}
+	}
+
+	// the first position at or after position where length bytes fit in one segment
+	long align(long position, int length) {
+		int offset = offset(position);
+		return offset + length <= segmentSize ? position : position - offset + segmentSize;
+	}
+
+	long getLong(long position) {
+		return segment(position).getLong(offset(position));
+	}
+
+	void putLong(long position, long value) {
+		segment(position).putLong(offset(position), value);
+	}
+
+	int getInt(long position) {
+		return segment(position).getInt(offset(position));
+	}
+
+	void putInt(long position, int value) {
+		segment(position).putInt(offset(position), value);
+	}
+
+	byte get(long position) {
+		return segment(position).get(offset(position));
+	}
+
+	void put(long position, byte value) {
+		segment(position).put(offset(position), value);
+	}
+
+	void read(long position, byte[] target, int length) {
+		ByteBuffer view = segment(position).duplicate();
+		view.position(offset(position));
+		view.get(target, 0, length);
+	}
+
+	void write(long position, byte[] source, int length) {
+		ByteBuffer view = segment(position).duplicate();
+		view.position(offset(position));
+		view.put(source, 0, length);
+	}
+
+	// writes dirty pages back to the file
+	void force() {
+		for (MappedByteBuffer segment : segments) {
+			segment.force();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		force();
+		segments.clear();
+		channel.close();
+	}
+
+	private void addSegment() throws IOException {
+		segments.add(channel.map(FileChannel.MapMode.READ_WRITE, capacity(), segmentSize));
+	}
+
+	private MappedByteBuffer segment(long position) {
+		return segments.get((int) (position >>> segmentShift));
+	}
+
+	private int offset(long position) {
+		return (int) position & (segmentSize - 1);
+	}
+}
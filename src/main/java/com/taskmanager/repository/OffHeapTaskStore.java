@@ -0,0 +1,536 @@
+package com.taskmanager.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+import com.taskmanager.persistence.RecordCodec;
+
+// Task records outside the Java heap, in memory-mapped files under one directory:
+//   tasks.records     a header, then one fixed-width SLOT_SIZE record per slot: dates,
+//                     status, priority, category number, the id's hash and where the
+//                     strings are
+//   tasks.strings     id, title and description of each slot as length-prefixed UTF-8,
+//                     then its version
+//   tasks.categories  the category table, appended to whenever a category is new or changed
+// The task id leads to the slot through an open-addressing table of (hash, slot) pairs in
+// a direct buffer, rebuilt from the records when the store is opened. Of the store itself
+// the heap holds only the buffers, the free slot list and the (small) category table.
+// TaskRepository on top of it still keeps its indexes on the heap: an index entry, time
+// keys, the ids in the status, priority and category sets, and a duplicate fingerprint that
+// holds a copy of the title and description. Those grow with the task count whatever the
+// engine, so this store takes the records out of GC work, not the tasks altogether.
+//
+// Reopening the directory brings the tasks back. The files are not crash-consistent on
+// their own, since a record is updated in place; run the repository with its write-ahead
+// log when a crash must not lose or tear a task.
+//
+// Reads build a fresh Task. Readers share the read lock, writers take the write lock.
+final class OffHeapTaskStore implements TaskStore {
+
+	private static final int MAGIC = 0x5453_4B31;
+	private static final int HEADER_SIZE = 64;
+	private static final int SLOT_SIZE = 64;
+	// 64 MB mappings
+	private static final int SEGMENT_SHIFT = 26;
+
+	// record layout
+	private static final int DUE_SECONDS = 0;
+	private static final int CREATED_SECONDS = 8;
+	private static final int MODIFIED_SECONDS = 16;
+	private static final int DUE_NANOS = 24;
+	private static final int CREATED_NANOS = 28;
+	private static final int MODIFIED_NANOS = 32;
+	private static final int CATEGORY = 36;
+	private static final int STATE = 40;
+	private static final int STATUS = 41;
+	private static final int PRIORITY = 42;
+	private static final int ID_HASH = 44;
+	private static final int STRINGS_OFFSET = 48;
+	private static final int STRINGS_CAPACITY = 56;
+	private static final int STRINGS_LENGTH = 60;
+
+	private static final byte FREE = 0;
+	private static final byte LIVE = 1;
+	private static final int NO_DATE = -1;
+	private static final int INITIAL_BUCKETS = 1024;
+
+	private static final Status[] STATUSES = Status.values();
+	private static final Priority[] PRIORITIES = Priority.values();
+
+	private final StampedLock lock = new StampedLock();
+	private final MappedSegments records;
+	private final MappedSegments strings;
+	private final FileChannel categoryFile;
+
+	// 8 bytes per bucket: the id's hash, then slot + 1 (0 for an empty bucket); at most half full
+	private ByteBuffer buckets;
+	private int bucketCount;
+	private int used;
+	private int size;
+	private int[] freeSlots = new int[64];
+	private int freeCount;
+	private long stringsEnd;
+
+	private Category[] categoryTable = new Category[16];
+	// what the category file holds for each number; the live instance may have been renamed since
+	private byte[][] categoryWritten = new byte[16][];
+	private int categoryCount;
+	private final Map<String, Integer> categoryNumbers = new HashMap<>();
+
+	OffHeapTaskStore(Path directory) throws IOException {
+		this(directory, SEGMENT_SHIFT);
+	}
+
+	// a directory must always be opened with the same segment size
+	OffHeapTaskStore(Path directory, int segmentShift) throws IOException {
+		Files.createDirectories(directory);
+		records = new MappedSegments(directory.resolve("tasks.records"), segmentShift);
+		strings = new MappedSegments(directory.resolve("tasks.strings"), segmentShift);
+		categoryFile = FileChannel.open(directory.resolve("tasks.categories"), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		records.ensureCapacity(HEADER_SIZE);
+		int magic = records.getInt(0);
+		if (magic == 0) {
+			records.putInt(0, MAGIC);
+		} else if (magic != MAGIC) {
+			throw new IOException("Not a task record file: " + directory.resolve("tasks.records"));
+		}
+		loadCategories();
+		loadSlots();
+	}
+
+	@Override
+	public Task get(String taskId) {
+		return taskId == null ? null : read(() -> {
+			int slot = slotOf(taskId);
+			return slot < 0 ? null : materialize(slot);
+		});
+	}
+
+	@Override
+	public boolean contains(String taskId) {
+		return taskId != null && read(() -> slotOf(taskId) >= 0);
+	}
+
+	@Override
+	public void put(Task task) {
+		byte[] encoded = encodeStrings(task);
+		long stamp = lock.writeLock();
+		try {
+			int slot = slotOf(task.getTaskId());
+			boolean added = slot < 0;
+			if (added) {
+				slot = allocateSlot();
+			}
+			long record = position(slot);
+			// strings first and the state byte last, so a scan never finds a live slot
+			// pointing at strings that were not written yet
+			long offset = records.getLong(record + STRINGS_OFFSET);
+			if (encoded.length > records.getInt(record + STRINGS_CAPACITY)) {
+				offset = appendStringSpace(encoded.length);
+				records.putLong(record + STRINGS_OFFSET, offset);
+				records.putInt(record + STRINGS_CAPACITY, encoded.length);
+			}
+			strings.write(offset, encoded, encoded.length);
+			records.putInt(record + STRINGS_LENGTH, encoded.length);
+			writeDate(record + DUE_SECONDS, record + DUE_NANOS, task.getDueDate());
+			writeDate(record + CREATED_SECONDS, record + CREATED_NANOS, task.getCreatedDate());
+			writeDate(record + MODIFIED_SECONDS, record + MODIFIED_NANOS, task.getLastModifiedDate());
+			records.putInt(record + CATEGORY, internCategory(task.getCategory()));
+			records.put(record + STATUS, task.getStatus() == null ? -1 : (byte) task.getStatus().ordinal());
+			records.put(record + PRIORITY, task.getPriority() == null ? -1 : (byte) task.getPriority().ordinal());
+			records.putInt(record + ID_HASH, task.getTaskId().hashCode());
+			records.put(record + STATE, LIVE);
+			if (added) {
+				insertBucket(task.getTaskId().hashCode(), slot);
+				size++;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not grow the off-heap task store", e);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public void remove(String taskId) {
+		long stamp = lock.writeLock();
+		try {
+			int bucket = bucketOf(taskId);
+			if (bucket < 0) {
+				return;
+			}
+			int slot = buckets.getInt(bucket * 8 + 4) - 1;
+			deleteBucket(bucket);
+			// the slot keeps its string space for the next task that takes it
+			records.put(position(slot) + STATE, FREE);
+			pushFree(slot);
+			size--;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public int size() {
+		return read(() -> size);
+	}
+
+	@Override
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			for (int slot = 0; slot < used; slot++) {
+				long record = position(slot);
+				records.put(record + STATE, FREE);
+				records.putInt(record + STRINGS_CAPACITY, 0);
+			}
+			used = 0;
+			size = 0;
+			freeCount = 0;
+			stringsEnd = 0;
+			buckets = ByteBuffer.allocateDirect(INITIAL_BUCKETS * 8);
+			bucketCount = INITIAL_BUCKETS;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Stream<Task> stream() {
+		int end = read(() -> used);
+		return IntStream.range(0, end)
+				.mapToObj(slot -> read(() -> slot < used && records.get(position(slot) + STATE) == LIVE
+						? materialize(slot) : null))
+				.filter(Objects::nonNull);
+	}
+
+	@Override
+	public Iterator<Task> iterator() {
+		return stream().iterator();
+	}
+
+	@Override
+	public void close() throws IOException {
+		long stamp = lock.writeLock();
+		try {
+			records.close();
+			strings.close();
+			categoryFile.force(true);
+			categoryFile.close();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	private <T> T read(Supplier<T> reader) {
+		long stamp = lock.readLock();
+		try {
+			return reader.get();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private static long position(int slot) {
+		return HEADER_SIZE + (long) slot * SLOT_SIZE;
+	}
+
+	private Task materialize(int slot) {
+		long record = position(slot);
+		byte[] encoded = new byte[records.getInt(record + STRINGS_LENGTH)];
+		strings.read(records.getLong(record + STRINGS_OFFSET), encoded, encoded.length);
+		ByteBuffer in = ByteBuffer.wrap(encoded);
+		String taskId = readString(in);
+		String title = readString(in);
+		String description = readString(in);
+		int category = records.getInt(record + CATEGORY);
+		byte status = records.get(record + STATUS);
+		byte priority = records.get(record + PRIORITY);
+		return Task.builder(taskId).title(title).description(description)
+				.dueDate(readDate(record + DUE_SECONDS, record + DUE_NANOS))
+				.priority(priority < 0 ? null : PRIORITIES[priority]).category(category < 0 ? null : categoryTable[category])
+				.status(status < 0 ? null : STATUSES[status])
+				.createdDate(readDate(record + CREATED_SECONDS, record + CREATED_NANOS))
+				.lastModifiedDate(readDate(record + MODIFIED_SECONDS, record + MODIFIED_NANOS))
+				// files written before tasks had versions end after the description
+				.version(in.remaining() >= 8 ? in.getLong() : 0).build();
+	}
+
+	private LocalDateTime readDate(long secondsAt, long nanosAt) {
+		int nanos = records.getInt(nanosAt);
+		return nanos == NO_DATE ? null : LocalDateTime.ofEpochSecond(records.getLong(secondsAt), nanos, ZoneOffset.UTC);
+	}
+
+	private void writeDate(long secondsAt, long nanosAt, LocalDateTime date) {
+		records.putLong(secondsAt, date == null ? 0 : date.toEpochSecond(ZoneOffset.UTC));
+		records.putInt(nanosAt, date == null ? NO_DATE : date.getNano());
+	}
+
+	private static byte[] encodeStrings(Task task) {
+		byte[] id = task.getTaskId().getBytes(StandardCharsets.UTF_8);
+		byte[] title = task.getTitle() == null ? null : task.getTitle().getBytes(StandardCharsets.UTF_8);
+		byte[] description = task.getDescription() == null ? null
+				: task.getDescription().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer out = ByteBuffer.allocate(20 + id.length + (title == null ? 0 : title.length)
+				+ (description == null ? 0 : description.length));
+		writeString(out, id);
+		writeString(out, title);
+		writeString(out, description);
+		out.putLong(task.getVersion());
+		return out.array();
+	}
+
+	private static void writeString(ByteBuffer out, byte[] bytes) {
+		if (bytes == null) {
+			out.putInt(-1);
+		} else {
+			out.putInt(bytes.length).put(bytes);
+		}
+	}
+
+	private static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+		in.position(in.position() + length);
+		return value;
+	}
+
+	private long appendStringSpace(int length) throws IOException {
+		if (length > strings.segmentSize()) {
+			throw new IllegalArgumentException("Task text too long for the off-heap store: " + length + " bytes");
+		}
+		long offset = strings.align(stringsEnd, length);
+		strings.ensureCapacity(offset + length);
+		stringsEnd = offset + length;
+		return offset;
+	}
+
+	private int allocateSlot() throws IOException {
+		if (freeCount > 0) {
+			return freeSlots[--freeCount];
+		}
+		int slot = used++;
+		records.ensureCapacity(position(slot) + SLOT_SIZE);
+		// a slot past the old end may hold leftovers from before a clear
+		records.putInt(position(slot) + STRINGS_CAPACITY, 0);
+		return slot;
+	}
+
+	private void pushFree(int slot) {
+		if (freeCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+		}
+		freeSlots[freeCount++] = slot;
+	}
+
+	private int slotOf(String taskId) {
+		int bucket = bucketOf(taskId);
+		return bucket < 0 ? -1 : buckets.getInt(bucket * 8 + 4) - 1;
+	}
+
+	private int bucketOf(String taskId) {
+		int hash = taskId.hashCode();
+		int mask = bucketCount - 1;
+		byte[] key = null;
+		for (int bucket = home(hash, mask);; bucket = (bucket + 1) & mask) {
+			int slot = buckets.getInt(bucket * 8 + 4) - 1;
+			if (slot < 0) {
+				return -1;
+			}
+			if (buckets.getInt(bucket * 8) == hash) {
+				if (key == null) {
+					key = taskId.getBytes(StandardCharsets.UTF_8);
+				}
+				if (idEquals(slot, key)) {
+					return bucket;
+				}
+			}
+		}
+	}
+
+	private boolean idEquals(int slot, byte[] key) {
+		long offset = records.getLong(position(slot) + STRINGS_OFFSET);
+		if (strings.getInt(offset) != key.length) {
+			return false;
+		}
+		for (int i = 0; i < key.length; i++) {
+			if (strings.get(offset + 4 + i) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void insertBucket(int hash, int slot) {
+		if ((size + 1) * 2 > bucketCount) {
+			ByteBuffer old = buckets;
+			int oldCount = bucketCount;
+			bucketCount *= 2;
+			buckets = ByteBuffer.allocateDirect(bucketCount * 8);
+			for (int bucket = 0; bucket < oldCount; bucket++) {
+				int entry = old.getInt(bucket * 8 + 4);
+				if (entry != 0) {
+					place(old.getInt(bucket * 8), entry);
+				}
+			}
+		}
+		place(hash, slot + 1);
+	}
+
+	private void place(int hash, int entry) {
+		int mask = bucketCount - 1;
+		int bucket = home(hash, mask);
+		while (buckets.getInt(bucket * 8 + 4) != 0) {
+			bucket = (bucket + 1) & mask;
+		}
+		buckets.putInt(bucket * 8, hash);
+		buckets.putInt(bucket * 8 + 4, entry);
+	}
+
+	// backward-shift deletion, as in CompactTaskStore
+	private void deleteBucket(int hole) {
+		int mask = bucketCount - 1;
+		buckets.putInt(hole * 8 + 4, 0);
+		int bucket = hole;
+		while (true) {
+			bucket = (bucket + 1) & mask;
+			int entry = buckets.getInt(bucket * 8 + 4);
+			if (entry == 0) {
+				return;
+			}
+			int hash = buckets.getInt(bucket * 8);
+			int home = home(hash, mask);
+			boolean homeAfterHole = hole <= bucket ? home > hole && home <= bucket : home > hole || home <= bucket;
+			if (!homeAfterHole) {
+				buckets.putInt(hole * 8, hash);
+				buckets.putInt(hole * 8 + 4, entry);
+				buckets.putInt(bucket * 8 + 4, 0);
+				hole = bucket;
+			}
+		}
+	}
+
+	private static int home(int hash, int mask) {
+		int mixed = hash * 0x9E3779B9;
+		return (mixed ^ (mixed >>> 16)) & mask;
+	}
+
+	// -1 for no category; a new or changed category is appended to the category file
+	private int internCategory(Category category) throws IOException {
+		if (category == null) {
+			return -1;
+		}
+		byte[] encoded = RecordCodec.encodeCategory(category);
+		Integer number = categoryNumbers.get(category.getCategoryId());
+		if (number != null) {
+			if (!Arrays.equals(categoryWritten[number], encoded)) {
+				appendCategory(number, encoded);
+			}
+			categoryTable[number] = category;
+			return number;
+		}
+		number = categoryCount++;
+		growCategories(number);
+		appendCategory(number, encoded);
+		categoryTable[number] = category;
+		categoryNumbers.put(category.getCategoryId(), number);
+		return number;
+	}
+
+	private void appendCategory(int number, byte[] encoded) throws IOException {
+		ByteBuffer record = ByteBuffer.allocate(8 + encoded.length);
+		record.putInt(number).putInt(encoded.length).put(encoded).flip();
+		long position = categoryFile.size();
+		while (record.hasRemaining()) {
+			position += categoryFile.write(record, position);
+		}
+		categoryWritten[number] = encoded;
+	}
+
+	private void growCategories(int number) {
+		while (number >= categoryTable.length) {
+			categoryTable = Arrays.copyOf(categoryTable, categoryTable.length * 2);
+			categoryWritten = Arrays.copyOf(categoryWritten, categoryWritten.length * 2);
+		}
+	}
+
+	private void loadCategories() throws IOException {
+		long size = categoryFile.size();
+		ByteBuffer in = ByteBuffer.allocate((int) size);
+		while (in.hasRemaining() && categoryFile.read(in, in.position()) >= 0) {
+			// keep reading
+		}
+		in.flip();
+		while (in.remaining() >= 8) {
+			int start = in.position();
+			int number = in.getInt();
+			int length = in.getInt();
+			if (length < 0 || in.remaining() < length) {
+				// a write cut short by a crash; the tasks that needed it were never marked live
+				categoryFile.truncate(start);
+				break;
+			}
+			byte[] encoded = new byte[length];
+			in.get(encoded);
+			Category category = RecordCodec.decodeCategory(ByteBuffer.wrap(encoded));
+			growCategories(number);
+			categoryTable[number] = category;
+			categoryWritten[number] = encoded;
+			categoryNumbers.put(category.getCategoryId(), number);
+			categoryCount = Math.max(categoryCount, number + 1);
+		}
+	}
+
+	// rebuilds the in-memory state from the record file
+	private void loadSlots() {
+		long slots = (records.capacity() - HEADER_SIZE) / SLOT_SIZE;
+		for (int slot = 0; slot < slots; slot++) {
+			if (records.get(position(slot) + STATE) == LIVE) {
+				used = slot + 1;
+			}
+		}
+		bucketCount = INITIAL_BUCKETS;
+		while (bucketCount < used * 2L) {
+			bucketCount *= 2;
+		}
+		buckets = ByteBuffer.allocateDirect(bucketCount * 8);
+		for (int slot = 0; slot < used; slot++) {
+			long record = position(slot);
+			int capacity = records.getInt(record + STRINGS_CAPACITY);
+			if (capacity > 0) {
+				stringsEnd = Math.max(stringsEnd, records.getLong(record + STRINGS_OFFSET) + capacity);
+			}
+			if (records.get(record + STATE) == LIVE) {
+				place(records.getInt(record + ID_HASH), slot + 1);
+				size++;
+			} else {
+				pushFree(slot);
+			}
+		}
+	}
+}
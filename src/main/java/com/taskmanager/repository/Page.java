@@ -0,0 +1,33 @@
+package com.taskmanager.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+// One page of a listing. The cursor is opaque: pass it back unchanged to get the page
+// that follows; it is null on the last page.
+public final class Page<T> {
+
+	private final List<T> items;
+	private final String nextCursor;
+
+	Page(List<T> items, String nextCursor) {
+		this.items = Collections.unmodifiableList(items);
+		this.nextCursor = nextCursor;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+
+	public int size() {
+		return items.size();
+	}
+}
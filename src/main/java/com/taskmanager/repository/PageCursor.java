@@ -0,0 +1,46 @@
+package com.taskmanager.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Encodes the index key of the last task on a page as URL-safe Base64:
+//   byte order | long millis | UTF-8 task id
+// The next page starts strictly after that key, so tasks saved or deleted in between
+// never shift it.
+final class PageCursor {
+
+	private static final int HEADER_SIZE = 1 + 8;
+
+	private PageCursor() {
+	}
+
+	static String encode(TaskOrder order, TimeKey key) {
+		byte[] taskId = key.getTaskId().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + taskId.length);
+		buffer.put((byte) order.ordinal()).putLong(key.getMillis()).put(taskId);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+	}
+
+	// null for a null cursor, i.e. the first page
+	static TimeKey decode(TaskOrder order, String cursor) {
+		if (cursor == null) {
+			return null;
+		}
+		byte[] bytes;
+		try {
+			bytes = Base64.getUrlDecoder().decode(cursor);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+		}
+		if (bytes.length <= HEADER_SIZE) {
+			throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (buffer.get() != order.ordinal()) {
+			throw new IllegalArgumentException("Page cursor belongs to a different sort order than " + order);
+		}
+		long millis = buffer.getLong();
+		return new TimeKey(millis, new String(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE, StandardCharsets.UTF_8));
+	}
+}
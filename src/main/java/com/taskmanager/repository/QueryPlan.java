@@ -0,0 +1,34 @@
+package com.taskmanager.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+// What the planner decided for a TaskQuery, step by step, with the index sizes it based
+// the decision on. The sizes are estimates taken at planning time.
+public final class QueryPlan {
+
+	private final String query;
+	private final List<String> steps;
+
+	QueryPlan(TaskQuery query, List<String> steps) {
+		this.query = query.toString();
+		this.steps = Collections.unmodifiableList(steps);
+	}
+
+	public List<String> getSteps() {
+		return steps;
+	}
+
+	public String explain() {
+		StringBuilder text = new StringBuilder("Query: ").append(query).append('\n');
+		for (int i = 0; i < steps.size(); i++) {
+			text.append("  ").append(i + 1).append(". ").append(steps.get(i)).append('\n');
+		}
+		return text.toString();
+	}
+
+	@Override
+	public String toString() {
+		return explain();
+	}
+}
@@ -0,0 +1,84 @@
+package com.taskmanager.repository;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+// Which TaskStore the application's TaskRepository runs on. The backend is a StorageEngine
+// name or the class name of any other TaskStore, which needs a public constructor taking the
+// store directory (a Path) or none at all.
+public class StorageConfig {
+
+	public static final String BACKEND_PROPERTY = "taskmanager.storage";
+	public static final String DIRECTORY_PROPERTY = "taskmanager.storage.dir";
+
+	private final String backend;
+	private final Path directory;
+
+	// directory may be null: OFF_HEAP then uses a temporary one
+	public StorageConfig(String backend, Path directory) {
+		if (backend == null || backend.trim().isEmpty()) {
+			throw new IllegalArgumentException("Storage backend cannot be empty");
+		}
+		this.backend = backend.trim();
+		this.directory = directory;
+	}
+
+	public StorageConfig(StorageEngine engine, Path directory) {
+		this(engine.name(), directory);
+	}
+
+	// HEAP unless the system properties name another backend
+	public static StorageConfig fromSystemProperties() {
+		String backend = System.getProperty(BACKEND_PROPERTY, StorageEngine.HEAP.name());
+		String directory = System.getProperty(DIRECTORY_PROPERTY);
+		return new StorageConfig(backend.trim().isEmpty() ? StorageEngine.HEAP.name() : backend,
+				directory == null || directory.trim().isEmpty() ? null : Paths.get(directory.trim()));
+	}
+
+	public TaskStore openTaskStore() throws IOException {
+		StorageEngine engine = getEngine();
+		if (engine != null) {
+			return engine.newStore(directory);
+		}
+		try {
+			Class<? extends TaskStore> type = Class.forName(backend).asSubclass(TaskStore.class);
+			if (directory != null) {
+				try {
+					return type.getConstructor(Path.class).newInstance(directory);
+				} catch (NoSuchMethodException e) {
+					// fall back to the constructor without a directory
+				}
+			}
+			return type.getConstructor().newInstance();
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalArgumentException("Could not create task store " + backend, e.getCause());
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalArgumentException("Unknown storage backend: " + backend, e);
+		}
+	}
+
+	public String getBackend() {
+		return backend;
+	}
+
+	// null when the backend is not one of the built-in engines
+	public StorageEngine getEngine() {
+		String name = backend.toUpperCase(Locale.ROOT).replace('-', '_');
+		for (StorageEngine engine : StorageEngine.values()) {
+			if (engine.name().equals(name)) {
+				return engine;
+			}
+		}
+		return null;
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+}
@@ -0,0 +1,61 @@
+package com.taskmanager.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import com.taskmanager.repository.lsm.LsmTaskStore;
+
+// How a TaskRepository keeps its task records. Indexes, logging and listeners work the
+// same with either engine.
+public enum StorageEngine {
+
+	// the saved Task objects in a concurrent hash map; reads return the saved instance
+	HEAP,
+
+	// records packed into primitive arrays, a fifth of the memory per task; every read
+	// builds a fresh Task, which makes point reads slower, and changes to it only reach the
+	// repository through save
+	COMPACT,
+
+	// records in memory-mapped files outside the Java heap, reopened with their tasks when
+	// the repository is created on the same directory again; reads build a fresh Task. The
+	// repository's per-task indexes, titles and descriptions included, stay on the heap
+	OFF_HEAP,
+
+	// a log-structured merge tree of sorted files on disk, for more task records than fit in
+	// memory (the repository's indexes stay on the heap); writes are cheap, a read may look
+	// into several files, and reopening the directory brings the tasks back. Due-date ranges
+	// are read from the tree's own index. Reads build a fresh Task
+	LSM;
+
+	// directory is only used by OFF_HEAP and LSM, which fall back to a temporary one when it
+	// is null
+	public TaskStore newStore(Path directory) throws IOException {
+		switch (this) {
+		case COMPACT:
+			return new CompactTaskStore();
+		case OFF_HEAP:
+			return new OffHeapTaskStore(directory != null ? directory : temporaryDirectory());
+		case LSM:
+			return new LsmTaskStore(directory != null ? directory : temporaryDirectory());
+		default:
+			return new HeapTaskStore();
+		}
+	}
+
+	private static Path temporaryDirectory() throws IOException {
+		Path directory = Files.createTempDirectory("task-store");
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try (Stream<Path> files = Files.walk(directory)) {
+				files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+			} catch (IOException | UncheckedIOException e) {
+				// the files stay behind in the temporary directory
+			}
+		}));
+		return directory;
+	}
+}
@@ -0,0 +1,41 @@
+package com.taskmanager.repository;
+
+import java.util.Objects;
+
+import com.taskmanager.model.Task;
+
+// Identity used for duplicate detection: two tasks with the same title and description
+// in the same category are considered the same task.
+final class TaskFingerprint {
+
+	private final String title;
+	private final String description;
+	private final String categoryId;
+	private final int hash;
+
+	private TaskFingerprint(String title, String description, String categoryId) {
+		this.title = title;
+		this.description = description;
+		this.categoryId = categoryId;
+		this.hash = Objects.hash(title, description, categoryId);
+	}
+
+	static TaskFingerprint of(Task task) {
+		return new TaskFingerprint(task.getTitle(), task.getDescription(),
+				task.getCategory() == null ? null : task.getCategory().getCategoryId());
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		TaskFingerprint other = (TaskFingerprint) o;
+		return hash == other.hash && Objects.equals(title, other.title)
+				&& Objects.equals(description, other.description) && Objects.equals(categoryId, other.categoryId);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
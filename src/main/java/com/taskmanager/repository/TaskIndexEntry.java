@@ -0,0 +1,61 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+
+// Values a task was indexed under when it was last saved. The store may hand out a fresh
+// copy on every read, so the repository keeps these to know which index buckets to leave
+// on the next save, and which version the next save follows.
+final class TaskIndexEntry {
+
+	private final Status status;
+	private final Priority priority;
+	private final String categoryId;
+	private final TimeKey dueDateKey;
+	private final TimeKey createdKey;
+	private final TaskFingerprint fingerprint;
+	private final long version;
+
+	private TaskIndexEntry(Task task) {
+		this.status = task.getStatus();
+		this.priority = task.getPriority();
+		this.categoryId = task.getCategory() == null ? null : task.getCategory().getCategoryId();
+		this.dueDateKey = TimeKey.of(task.getDueDate(), task.getTaskId());
+		this.createdKey = TimeKey.of(task.getCreatedDate(), task.getTaskId());
+		this.fingerprint = TaskFingerprint.of(task);
+		this.version = task.getVersion();
+	}
+
+	static TaskIndexEntry of(Task task) {
+		return new TaskIndexEntry(task);
+	}
+
+	Status getStatus() {
+		return status;
+	}
+
+	Priority getPriority() {
+		return priority;
+	}
+
+	String getCategoryId() {
+		return categoryId;
+	}
+
+	TimeKey getDueDateKey() {
+		return dueDateKey;
+	}
+
+	TimeKey getCreatedKey() {
+		return createdKey;
+	}
+
+	TaskFingerprint getFingerprint() {
+		return fingerprint;
+	}
+
+	long getVersion() {
+		return version;
+	}
+}
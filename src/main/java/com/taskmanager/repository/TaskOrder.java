@@ -0,0 +1,7 @@
+package com.taskmanager.repository;
+
+// Sort orders available for paged listings. Ties are broken by task id, so the order is
+// total and a page cursor always points at one exact position.
+public enum TaskOrder {
+	CREATED_DATE, DUE_DATE
+}
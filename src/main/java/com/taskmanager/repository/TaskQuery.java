@@ -0,0 +1,205 @@
+package com.taskmanager.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+
+// An immutable combination of task filters, plus an optional order and limit. Conditions
+// left unset match every task; the ones that are set must all hold.
+//   TaskQuery.builder().status(Status.PENDING).priority(Priority.HIGH).dueBefore(nextWeek)
+//           .orderBy(TaskOrder.DUE_DATE).limit(20).build()
+public final class TaskQuery {
+
+	private final Set<Status> statuses;
+	private final Set<Priority> priorities;
+	private final String categoryId;
+	private final LocalDateTime dueFrom;
+	private final LocalDateTime dueTo;
+	private final String titleText;
+	private final TaskOrder order;
+	private final int limit;
+
+	private TaskQuery(Builder builder) {
+		this.statuses = builder.statuses == null ? null : Collections.unmodifiableSet(EnumSet.copyOf(builder.statuses));
+		this.priorities = builder.priorities == null ? null
+				: Collections.unmodifiableSet(EnumSet.copyOf(builder.priorities));
+		this.categoryId = builder.categoryId;
+		this.dueFrom = builder.dueFrom;
+		this.dueTo = builder.dueTo;
+		this.titleText = builder.titleText == null ? null : builder.titleText.toLowerCase(Locale.ROOT);
+		this.order = builder.order;
+		this.limit = builder.limit;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	// null when the query does not restrict the field
+	public Set<Status> getStatuses() {
+		return statuses;
+	}
+
+	public Set<Priority> getPriorities() {
+		return priorities;
+	}
+
+	public String getCategoryId() {
+		return categoryId;
+	}
+
+	public LocalDateTime getDueFrom() {
+		return dueFrom;
+	}
+
+	public LocalDateTime getDueTo() {
+		return dueTo;
+	}
+
+	public String getTitleText() {
+		return titleText;
+	}
+
+	public TaskOrder getOrder() {
+		return order;
+	}
+
+	// 0 means no limit
+	public int getLimit() {
+		return limit;
+	}
+
+	boolean hasDueRange() {
+		return dueFrom != null || dueTo != null;
+	}
+
+	// the full predicate; the planner re-checks every candidate with it, so an index that
+	// changed under a running query can never let a non-matching task through
+	boolean matches(Task task) {
+		if (statuses != null && !statuses.contains(task.getStatus())) {
+			return false;
+		}
+		if (priorities != null && !priorities.contains(task.getPriority())) {
+			return false;
+		}
+		if (categoryId != null && (task.getCategory() == null || !categoryId.equals(task.getCategory().getCategoryId()))) {
+			return false;
+		}
+		if (hasDueRange() && !dueInRange(task.getDueDate())) {
+			return false;
+		}
+		return titleText == null
+				|| (task.getTitle() != null && task.getTitle().toLowerCase(Locale.ROOT).contains(titleText));
+	}
+
+	private boolean dueInRange(LocalDateTime dueDate) {
+		if (dueDate == null) {
+			return false;
+		}
+		return (dueFrom == null || !dueDate.isBefore(dueFrom)) && (dueTo == null || dueDate.isBefore(dueTo));
+	}
+
+	@Override
+	public String toString() {
+		List<String> conditions = new ArrayList<>();
+		if (statuses != null) {
+			conditions.add("status in " + statuses);
+		}
+		if (priorities != null) {
+			conditions.add("priority in " + priorities);
+		}
+		if (categoryId != null) {
+			conditions.add("category = " + categoryId);
+		}
+		if (hasDueRange()) {
+			conditions.add("due in [" + (dueFrom == null ? "-inf" : dueFrom) + ", " + (dueTo == null ? "+inf" : dueTo) + ")");
+		}
+		if (titleText != null) {
+			conditions.add("title contains '" + titleText + "'");
+		}
+		StringBuilder text = new StringBuilder(conditions.isEmpty() ? "all tasks" : String.join(" and ", conditions));
+		if (order != null) {
+			text.append(" order by ").append(order);
+		}
+		if (limit > 0) {
+			text.append(" limit ").append(limit);
+		}
+		return text.toString();
+	}
+
+	public static final class Builder {
+
+		private Set<Status> statuses;
+		private Set<Priority> priorities;
+		private String categoryId;
+		private LocalDateTime dueFrom;
+		private LocalDateTime dueTo;
+		private String titleText;
+		private TaskOrder order;
+		private int limit;
+
+		private Builder() {
+		}
+
+		// several statuses match any of them
+		public Builder status(Status... statuses) {
+			this.statuses = EnumSet.noneOf(Status.class);
+			this.statuses.addAll(Arrays.asList(statuses));
+			return this;
+		}
+
+		public Builder priority(Priority... priorities) {
+			this.priorities = EnumSet.noneOf(Priority.class);
+			this.priorities.addAll(Arrays.asList(priorities));
+			return this;
+		}
+
+		public Builder category(String categoryId) {
+			this.categoryId = categoryId;
+			return this;
+		}
+
+		// due in [from, to); either bound may be null for an open range
+		public Builder dueBetween(LocalDateTime from, LocalDateTime to) {
+			this.dueFrom = from;
+			this.dueTo = to;
+			return this;
+		}
+
+		public Builder dueBefore(LocalDateTime to) {
+			return dueBetween(null, to);
+		}
+
+		// case-insensitive substring of the title
+		public Builder titleContains(String text) {
+			this.titleText = text == null || text.isEmpty() ? null : text;
+			return this;
+		}
+
+		public Builder orderBy(TaskOrder order) {
+			this.order = order;
+			return this;
+		}
+
+		public Builder limit(int limit) {
+			if (limit < 0) {
+				throw new IllegalArgumentException("Query limit cannot be negative");
+			}
+			this.limit = limit;
+			return this;
+		}
+
+		public TaskQuery build() {
+			return new TaskQuery(this);
+		}
+	}
+}
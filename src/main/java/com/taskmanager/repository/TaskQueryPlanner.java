@@ -0,0 +1,306 @@
+package com.taskmanager.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+
+// Chooses how to run a TaskQuery against TaskRepository's indexes and runs it.
+//
+// Every condition with an index (status, priority, category, due-date range) is a
+// candidate source of task ids. The planner drives the query from the cheapest source and
+// intersects the other id sets by probing them per id, before any task is looked up.
+// With an order and a limit, walking the matching ordered index and stopping after limit
+// hits can beat all of them. A parallel scan of the whole store is the fallback when no
+// condition has an index. Whatever the plan, every candidate is checked against the full
+// query predicate at the end.
+final class TaskQueryPlanner {
+
+	// a due-date range is only counted this far; beyond it the exact size no longer matters
+	private static final long RANGE_COUNT_CAP = 100_000;
+
+	private enum Access {
+		ID_SET, DUE_RANGE, ORDERED_WALK, PARALLEL_SCAN
+	}
+
+	// the ids an indexed condition allows: the union of one or more index buckets
+	private static final class IdSet {
+		private final String description;
+		private final List<Set<String>> buckets;
+		private final long size;
+
+		private IdSet(String description, List<Set<String>> buckets) {
+			this.description = description;
+			this.buckets = buckets;
+			long total = 0;
+			for (Set<String> bucket : buckets) {
+				total += bucket.size();
+			}
+			this.size = total;
+		}
+
+		private boolean contains(String taskId) {
+			for (Set<String> bucket : buckets) {
+				if (bucket.contains(taskId)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static final class Plan {
+		private Access access = Access.PARALLEL_SCAN;
+		private IdSet driving;
+		private final List<IdSet> probes = new ArrayList<>();
+		private NavigableSet<TimeKey> keys;
+		private TaskOrder keyOrder;
+		private boolean sort;
+		private final List<String> steps = new ArrayList<>();
+	}
+
+	private final TaskRepository repository;
+	private final TaskStore tasks;
+	private final Map<Status, Set<String>> statusIndex;
+	private final Map<Priority, Set<String>> priorityIndex;
+	private final Map<String, Set<String>> categoryIndex;
+	private final NavigableSet<TimeKey> dueDateIndex;
+	private final NavigableSet<TimeKey> createdIndex;
+
+	TaskQueryPlanner(TaskRepository repository, TaskStore tasks, Map<Status, Set<String>> statusIndex,
+			Map<Priority, Set<String>> priorityIndex, Map<String, Set<String>> categoryIndex,
+			NavigableSet<TimeKey> dueDateIndex, NavigableSet<TimeKey> createdIndex) {
+		this.repository = repository;
+		this.tasks = tasks;
+		this.statusIndex = statusIndex;
+		this.priorityIndex = priorityIndex;
+		this.categoryIndex = categoryIndex;
+		this.dueDateIndex = dueDateIndex;
+		this.createdIndex = createdIndex;
+	}
+
+	QueryPlan explain(TaskQuery query) {
+		return new QueryPlan(query, plan(query).steps);
+	}
+
+	List<Task> execute(TaskQuery query) {
+		Plan plan = plan(query);
+		int limit = query.getLimit();
+		boolean stopEarly = limit > 0 && !plan.sort;
+		List<Task> result = new ArrayList<>();
+
+		switch (plan.access) {
+		case ID_SET:
+			// a task moving between two buckets of the same set can show up in both for a moment
+			Set<String> seen = plan.driving.buckets.size() > 1 ? new HashSet<>() : null;
+			for (Set<String> bucket : plan.driving.buckets) {
+				for (String taskId : bucket) {
+					if ((seen != null && !seen.add(taskId)) || !passesProbes(plan, taskId)) {
+						continue;
+					}
+					Task task = tasks.get(taskId);
+					if (task != null && query.matches(task)) {
+						result.add(task);
+						if (stopEarly && result.size() == limit) {
+							return result;
+						}
+					}
+				}
+			}
+			break;
+		case DUE_RANGE:
+		case ORDERED_WALK:
+			for (TimeKey key : plan.keys) {
+				if (!passesProbes(plan, key.getTaskId())) {
+					continue;
+				}
+				Task task = repository.resolveKey(plan.keyOrder, key);
+				if (task != null && query.matches(task)) {
+					result.add(task);
+					if (stopEarly && result.size() == limit) {
+						return result;
+					}
+				}
+			}
+			break;
+		default:
+			Stream<Task> matching = tasks.stream().parallel().filter(query::matches);
+			if (stopEarly) {
+				matching = matching.limit(limit);
+			}
+			result = matching.collect(Collectors.toCollection(ArrayList::new));
+			break;
+		}
+
+		if (plan.sort) {
+			result.sort(comparator(query.getOrder()));
+			if (limit > 0 && result.size() > limit) {
+				result = new ArrayList<>(result.subList(0, limit));
+			}
+		}
+		return result;
+	}
+
+	private Plan plan(TaskQuery query) {
+		Plan plan = new Plan();
+		long total = tasks.size();
+
+		List<IdSet> idSets = new ArrayList<>();
+		if (query.getStatuses() != null) {
+			List<Set<String>> buckets = new ArrayList<>();
+			query.getStatuses().forEach(status -> buckets.add(statusIndex.get(status)));
+			idSets.add(new IdSet("status " + query.getStatuses(), buckets));
+		}
+		if (query.getPriorities() != null) {
+			List<Set<String>> buckets = new ArrayList<>();
+			query.getPriorities().forEach(priority -> buckets.add(priorityIndex.get(priority)));
+			idSets.add(new IdSet("priority " + query.getPriorities(), buckets));
+		}
+		if (query.getCategoryId() != null) {
+			idSets.add(new IdSet("category " + query.getCategoryId(),
+					Collections.singletonList(categoryIndex.getOrDefault(query.getCategoryId(), Collections.emptySet()))));
+		}
+		idSets.sort(Comparator.comparingLong(idSet -> idSet.size));
+		IdSet smallest = idSets.isEmpty() ? null : idSets.get(0);
+
+		NavigableSet<TimeKey> range = query.hasDueRange() ? dueRange(query) : null;
+		long rangeCap = smallest == null ? RANGE_COUNT_CAP : Math.min(smallest.size, RANGE_COUNT_CAP);
+		long rangeSize = range == null ? -1 : countUpTo(range, rangeCap);
+		String rangeEstimate = rangeSize >= rangeCap && rangeCap > 0 ? ">=" + rangeSize : String.valueOf(rangeSize);
+
+		long bestCost = Long.MAX_VALUE;
+		if (smallest != null) {
+			plan.access = Access.ID_SET;
+			plan.driving = smallest;
+			bestCost = smallest.size;
+		}
+		if (range != null && rangeSize < bestCost) {
+			plan.access = Access.DUE_RANGE;
+			plan.driving = null;
+			plan.keys = range;
+			plan.keyOrder = TaskOrder.DUE_DATE;
+			bestCost = rangeSize;
+		}
+		if (query.getOrder() != null && query.getLimit() > 0) {
+			boolean walkRange = query.getOrder() == TaskOrder.DUE_DATE && range != null;
+			NavigableSet<TimeKey> walk = walkRange ? range : query.getOrder() == TaskOrder.DUE_DATE ? dueDateIndex
+					: createdIndex;
+			long walkSize = walkRange ? rangeSize : total;
+			// expected matches, treating the conditions as independent
+			double selectivity = 1.0;
+			for (IdSet idSet : idSets) {
+				selectivity *= total == 0 ? 0 : (double) idSet.size / total;
+			}
+			if (range != null && !walkRange) {
+				selectivity *= total == 0 ? 0 : Math.min(1.0, (double) rangeSize / total);
+			}
+			long matching = (long) Math.ceil(walkSize * selectivity);
+			// keys walked before limit matches turn up, if the matches are spread evenly
+			long walkCost = matching == 0 ? 0
+					: Math.min(walkSize, (long) Math.ceil((double) query.getLimit() * walkSize / matching));
+			if (walkCost < bestCost) {
+				plan.access = Access.ORDERED_WALK;
+				plan.driving = null;
+				plan.keys = walk;
+				plan.keyOrder = query.getOrder();
+				bestCost = walkCost;
+			}
+		}
+
+		for (IdSet idSet : idSets) {
+			if (idSet != plan.driving) {
+				plan.probes.add(idSet);
+			}
+		}
+		plan.sort = query.getOrder() != null && !(plan.access == Access.ORDERED_WALK
+				|| (plan.access == Access.DUE_RANGE && query.getOrder() == TaskOrder.DUE_DATE));
+
+		switch (plan.access) {
+		case ID_SET:
+			plan.steps.add("index scan " + plan.driving.description + " (" + plan.driving.size + " ids)");
+			break;
+		case DUE_RANGE:
+			plan.steps.add("range scan due-date index (" + rangeEstimate + " keys)");
+			break;
+		case ORDERED_WALK:
+			plan.steps.add("ordered walk of " + (plan.keys == range ? "due-date range" : plan.keyOrder + " index")
+					+ ", stopping after " + query.getLimit() + " matches (~" + bestCost + " keys)");
+			break;
+		default:
+			plan.steps.add("parallel scan of all " + total + " tasks (no index applies)");
+			break;
+		}
+		for (IdSet probe : plan.probes) {
+			plan.steps.add("intersect with " + probe.description + " (" + probe.size + " ids)");
+		}
+		if (range != null && plan.keys != range) {
+			plan.steps.add("filter due-date range (" + rangeEstimate + " keys in index)");
+		}
+		if (query.getTitleText() != null) {
+			plan.steps.add("filter title contains '" + query.getTitleText() + "'");
+		}
+		if (plan.sort) {
+			plan.steps.add("sort by " + query.getOrder());
+		}
+		if (query.getLimit() > 0) {
+			plan.steps.add("limit " + query.getLimit());
+		}
+		return plan;
+	}
+
+	private static boolean passesProbes(Plan plan, String taskId) {
+		for (IdSet probe : plan.probes) {
+			if (!probe.contains(taskId)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private NavigableSet<TimeKey> dueRange(TaskQuery query) {
+		// the index is millisecond grained; the edge millis are settled by TaskQuery.matches
+		if (query.getDueFrom() == null) {
+			return dueDateIndex.headSet(TimeKey.lowerBound(TimeKey.toMillis(query.getDueTo()) + 1), false);
+		}
+		TimeKey from = TimeKey.lowerBound(TimeKey.toMillis(query.getDueFrom()));
+		if (query.getDueTo() == null) {
+			return dueDateIndex.tailSet(from, true);
+		}
+		if (!query.getDueFrom().isBefore(query.getDueTo())) {
+			return Collections.emptyNavigableSet();
+		}
+		return dueDateIndex.subSet(from, true, TimeKey.lowerBound(TimeKey.toMillis(query.getDueTo()) + 1), false);
+	}
+
+	private static long countUpTo(NavigableSet<TimeKey> keys, long cap) {
+		long count = 0;
+		for (TimeKey ignored : keys) {
+			if (count >= cap) {
+				break;
+			}
+			count++;
+		}
+		return count;
+	}
+
+	// same order as the TimeKey indexes, so every plan returns ties in the same order
+	private static Comparator<Task> comparator(TaskOrder order) {
+		Function<Task, LocalDateTime> date = order == TaskOrder.DUE_DATE ? Task::getDueDate : Task::getCreatedDate;
+		return Comparator.<Task>comparingLong(task -> {
+			LocalDateTime value = date.apply(task);
+			return value == null ? Long.MAX_VALUE : TimeKey.toMillis(value);
+		}).thenComparing(Task::getTaskId);
+	}
+}
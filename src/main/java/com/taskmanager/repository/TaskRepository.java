@@ -1,18 +1,262 @@
 package com.taskmanager.repository;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
 import com.taskmanager.model.Task;
+import com.taskmanager.persistence.RecordCodec;
+import com.taskmanager.persistence.SnapshotFile;
+import com.taskmanager.persistence.Snapshottable;
+import com.taskmanager.persistence.WriteAheadLog;
+
+public class TaskRepository implements Snapshottable, Closeable {
+
+	// expected version of a save that does not compare
+	private static final long ANY_VERSION = -1;
+	private static final int CATEGORY_LOCK_STRIPES = 64;
+
+	private final TaskStore tasks;
+
+	// secondary indexes, kept in step with the tasks map on save and delete
+	private final ConcurrentHashMap<String, TaskIndexEntry> indexed = new ConcurrentHashMap<>();
+	private final EnumMap<Status, Set<String>> statusIndex = new EnumMap<>(Status.class);
+	private final EnumMap<Priority, Set<String>> priorityIndex = new EnumMap<>(Priority.class);
+	private final ConcurrentHashMap<String, Set<String>> categoryIndex = new ConcurrentHashMap<>();
+	private final ConcurrentSkipListSet<TimeKey> dueDateIndex = new ConcurrentSkipListSet<>();
+	// due keys of the tasks that are not completed, so overdue queries skip past-due history
+	private final ConcurrentSkipListSet<TimeKey> openDueDateIndex = new ConcurrentSkipListSet<>();
+	private final ConcurrentSkipListSet<TimeKey> createdIndex = new ConcurrentSkipListSet<>();
+	private final ConcurrentHashMap<TaskFingerprint, Set<String>> fingerprintIndex = new ConcurrentHashMap<>();
+	private final TaskStatistics statistics = new TaskStatistics();
+	private final List<TaskRepositoryListener> listeners = new CopyOnWriteArrayList<>();
+	private final TaskQueryPlanner planner;
+
+	// null when the repository is in memory only
+	private final WriteAheadLog log;
+	// writers hold the read side while logging and applying a change, so a snapshot only
+	// needs the write side for the instant it reads the log position
+	private final ReentrantReadWriteLock snapshotBarrier = new ReentrantReadWriteLock();
+	// Saves into a category hold the read side of its stripe, so retiring a category waits
+	// for the saves in flight and every later save into it is refused.
+	private final ReentrantReadWriteLock[] categoryLocks = new ReentrantReadWriteLock[CATEGORY_LOCK_STRIPES];
+	private final Set<String> retiredCategories = ConcurrentHashMap.newKeySet();
+
+	public TaskRepository() {
+		this(StorageEngine.HEAP);
+	}
+
+	public TaskRepository(StorageEngine engine) {
+		this(engine, null);
+	}
 
-public class TaskRepository {
+	// storeDirectory holds the files of an OFF_HEAP store; tasks already stored there are
+	// indexed again and available right away
+	public TaskRepository(StorageEngine engine, Path storeDirectory) {
+		this(openStore(engine, storeDirectory));
+	}
+
+	// any TaskStore implementation; tasks it already holds are indexed right away
+	public TaskRepository(TaskStore store) {
+		this.log = null;
+		this.tasks = store;
+		this.planner = newPlanner();
+		initIndexes();
+		indexStoredTasks();
+	}
+
+	// rebuilds the repository from the log, then records every further mutation in it
+	public TaskRepository(WriteAheadLog log) throws IOException {
+		this(log, null);
+	}
 
-	private ConcurrentHashMap<String, Task> tasks = new ConcurrentHashMap<>();
+	// loads the snapshot first, so only the log written after it has to be replayed
+	public TaskRepository(WriteAheadLog log, Path snapshotFile) throws IOException {
+		this(log, snapshotFile, StorageEngine.HEAP, null);
+	}
+
+	public TaskRepository(WriteAheadLog log, Path snapshotFile, StorageEngine engine, Path storeDirectory)
+			throws IOException {
+		this(log, snapshotFile, openStore(engine, storeDirectory));
+	}
+
+	public TaskRepository(WriteAheadLog log, Path snapshotFile, TaskStore store) throws IOException {
+		this.tasks = store;
+		this.planner = newPlanner();
+		initIndexes();
+		indexStoredTasks();
+		long snapshotLsn = SnapshotFile.read(snapshotFile, entry -> restore(RecordCodec.decodeTask(entry)));
+		log.replay(snapshotLsn, this::applyLogged);
+		this.log = log;
+	}
 
+	private static TaskStore openStore(StorageEngine engine, Path storeDirectory) {
+		try {
+			return engine.newStore(storeDirectory);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open " + engine + " task store", e);
+		}
+	}
+
+	private void indexStoredTasks() {
+		for (Task task : tasks) {
+			indexed.compute(task.getTaskId(), (taskId, previous) -> reindex(taskId, previous, task));
+		}
+	}
+
+	private TaskQueryPlanner newPlanner() {
+		return new TaskQueryPlanner(this, tasks, statusIndex, priorityIndex, categoryIndex, dueDateIndex, createdIndex);
+	}
+
+	private void initIndexes() {
+		for (int i = 0; i < categoryLocks.length; i++) {
+			categoryLocks[i] = new ReentrantReadWriteLock();
+		}
+		// enum buckets are created up front so the EnumMaps are never structurally modified
+		for (Status status : Status.values()) {
+			statusIndex.put(status, ConcurrentHashMap.newKeySet());
+		}
+		for (Priority priority : Priority.values()) {
+			priorityIndex.put(priority, ConcurrentHashMap.newKeySet());
+		}
+	}
+
+	// returns the task as stored, under its new version
 	public Task save(Task task) {			 			//creating task or updating task
-		tasks.put(task.getTaskId(), task);
-		return task;
+		long[] lsn = new long[1];
+		Task saved = store(task, lsn);
+		commit(lsn[0]);
+		return saved;
+	}
+
+	// Saves the task only if the stored one still has expectedVersion (0 when it must not be
+	// stored yet) and returns it as stored, or empty when it was not saved. The check and the
+	// save are one step in the task's critical section, so of two updates made from the same
+	// version only one wins; the other can read the task again and retry.
+	public Optional<Task> compareAndSave(long expectedVersion, Task task) {
+		if (expectedVersion < 0) {
+			throw new IllegalArgumentException("Expected version cannot be negative");
+		}
+		long[] lsn = new long[1];
+		Task saved = store(task, expectedVersion, false, lsn);
+		if (saved != null) {
+			commit(lsn[0]);
+		}
+		return Optional.ofNullable(saved);
+	}
+
+	// batch form of compareAndSave with a single log commit, expecting each task at the
+	// version it carries, i.e. the one it was read at; returns the tasks as stored in batch
+	// order, with null for each task that was not saved because another save got in first
+	public List<Task> compareAndSaveAll(Collection<Task> batch) {
+		List<Task> saved = new ArrayList<>(batch.size());
+		long[] lsn = new long[1];
+		for (Task task : batch) {
+			saved.add(store(task, task.getVersion(), false, lsn));
+		}
+		commit(lsn[0]);
+		return saved;
+	}
+
+	// saves every task with a single log commit, so a batch pays for one fsync at most
+	public void saveAll(Collection<Task> batch) {
+		long[] lsn = new long[1];
+		for (Task task : batch) {
+			store(task, lsn);
+		}
+		commit(lsn[0]);
+	}
+
+	// saves the task unless a task with the same title, description and category is stored;
+	// the fingerprint is claimed atomically, so of two racing equal tasks only one is saved
+	public Optional<Task> saveIfUnique(Task task) {
+		if (!claimFingerprint(task)) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(save(task));
+		} catch (RuntimeException e) {
+			releaseFingerprint(task);
+			throw e;
+		}
+	}
+
+	// batch form of saveIfUnique, also rejecting repeats inside the batch; returns the
+	// stored copies in batch order, with null for each task not saved as a duplicate
+	public List<Task> saveAllIfUnique(Collection<Task> batch) {
+		List<Task> saved = new ArrayList<>(batch.size());
+		long[] lsn = new long[1];
+		for (Task task : batch) {
+			if (!claimFingerprint(task)) {
+				saved.add(null);
+				continue;
+			}
+			try {
+				saved.add(store(task, lsn));
+			} catch (RuntimeException e) {
+				releaseFingerprint(task);
+				commit(lsn[0]);
+				throw e;
+			}
+		}
+		commit(lsn[0]);
+		return saved;
+	}
+
+	// Form of saveAllIfUnique for tasks loaded from elsewhere, such as an import: a task is
+	// only inserted when no task with its id is stored either, and it keeps the version it
+	// carries. Returns the stored copies in batch order, with null for each task not saved.
+	public List<Task> insertAllIfUnique(Collection<Task> batch) {
+		List<Task> saved = new ArrayList<>(batch.size());
+		long[] lsn = new long[1];
+		for (Task task : batch) {
+			if (!claimFingerprint(task)) {
+				saved.add(null);
+				continue;
+			}
+			Task stored;
+			try {
+				stored = store(task, 0, true, lsn);
+			} catch (RuntimeException e) {
+				releaseFingerprint(task);
+				commit(lsn[0]);
+				throw e;
+			}
+			if (stored == null) {
+				releaseFingerprint(task);
+			}
+			saved.add(stored);
+		}
+		commit(lsn[0]);
+		return saved;
+	}
+
+	public boolean isDuplicate(Task task) {
+		return fingerprintIndex.containsKey(TaskFingerprint.of(task));
 	}
 
 	public Optional<Task> findById(String taskId) {		//finding task
@@ -20,15 +264,664 @@ public class TaskRepository {
 	}
 
 	public List<Task> findAll() {						//find all the task
-		return tasks.values().stream().collect(Collectors.toUnmodifiableList());
+		return tasks.stream().collect(Collectors.toUnmodifiableList());
+	}
+
+	// Views over the live map, for callers that do not need a copy. Iteration is weakly
+	// consistent: it may or may not see changes made while it runs, and never fails on them.
+	public Stream<Task> stream() {
+		return tasks.stream();
+	}
+
+	public void forEach(Consumer<? super Task> action) {
+		tasks.forEach(action);
+	}
+
+	// up to limit matching tasks in no particular order; stops scanning once it has them
+	public List<Task> scan(Predicate<? super Task> filter, int limit) {
+		List<Task> result = new ArrayList<>();
+		if (limit <= 0) {
+			return result;
+		}
+		for (Task task : tasks) {
+			if (filter.test(task)) {
+				result.add(task);
+				if (result.size() == limit) {
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	public int count() {
+		return tasks.size();
+	}
+
+	public List<Task> findByStatus(Status status) {
+		return status == null ? new ArrayList<>() : resolve(statusIndex.get(status));
+	}
+
+	public List<Task> findByPriority(Priority priority) {
+		return priority == null ? new ArrayList<>() : resolve(priorityIndex.get(priority));
+	}
+
+	public List<Task> findByCategoryId(String categoryId) {
+		return categoryId == null ? new ArrayList<>() : resolve(categoryIndex.getOrDefault(categoryId, Collections.emptySet()));
+	}
+
+	// ids of up to limit tasks of the category, straight from the category index
+	public List<String> findIdsByCategoryId(String categoryId, int limit) {
+		List<String> ids = new ArrayList<>();
+		Set<String> bucket = categoryId == null ? null : categoryIndex.get(categoryId);
+		if (bucket != null) {
+			for (String taskId : bucket) {
+				if (ids.size() == limit) {
+					break;
+				}
+				ids.add(taskId);
+			}
+		}
+		return ids;
 	}
+
+	public int countByCategoryId(String categoryId) {
+		Set<String> bucket = categoryId == null ? null : categoryIndex.get(categoryId);
+		return bucket == null ? 0 : bucket.size();
+	}
+
+	// whether the category index files the task under the category, whatever its Category
+	// object says now
+	public boolean isInCategory(String taskId, String categoryId) {
+		TaskIndexEntry entry = indexed.get(taskId);
+		return entry != null && Objects.equals(entry.getCategoryId(), categoryId);
+	}
+
+	// Refuses every later save into the category with an IllegalStateException, once the
+	// saves already under way have finished. Tasks stored in it can still be moved out of it
+	// or deleted.
+	public void retireCategory(String categoryId) {
+		Lock lock = categoryLock(categoryId).writeLock();
+		lock.lock();
+		try {
+			retiredCategories.add(categoryId);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// retireCategory, but only if no task is stored in the category; checking and retiring
+	// are one step, so no save can slip in between
+	public boolean retireCategoryIfUnused(String categoryId) {
+		Lock lock = categoryLock(categoryId).writeLock();
+		lock.lock();
+		try {
+			if (countByCategoryId(categoryId) > 0) {
+				return false;
+			}
+			retiredCategories.add(categoryId);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// undoes retireCategory, e.g. when deleting the category failed
+	public void reinstateCategory(String categoryId) {
+		retiredCategories.remove(categoryId);
+	}
+
+	// tasks due in [from, to), earliest first; a store that keeps its own due-date order
+	// answers from that instead of the heap index
+	public List<Task> findDueBetween(LocalDateTime from, LocalDateTime to) {
+		List<Task> result = new ArrayList<>();
+		if (!from.isBefore(to)) {
+			return result;
+		}
+		if (tasks.keepsDueDateOrder()) {
+			return dueFromStore(from, to);
+		}
+		Set<TimeKey> range = dueDateIndex.subSet(TimeKey.lowerBound(TimeKey.toMillis(from)),
+				TimeKey.lowerBound(TimeKey.toMillis(to) + 1));
+		for (TimeKey key : range) {
+			Task task = tasks.get(key.getTaskId());
+			// the index is millisecond grained, so the edge millis are checked against the real dates
+			if (task != null && !task.getDueDate().isBefore(from) && task.getDueDate().isBefore(to)) {
+				result.add(task);
+			}
+		}
+		return result;
+	}
+
+	// tasks due strictly before asOf, whatever their status, earliest first
+	public List<Task> findDueBefore(LocalDateTime asOf) {
+		if (tasks.keepsDueDateOrder()) {
+			return dueFromStore(null, asOf);
+		}
+		List<Task> result = new ArrayList<>();
+		for (TimeKey key : dueDateIndex.headSet(TimeKey.lowerBound(TimeKey.toMillis(asOf) + 1))) {
+			Task task = tasks.get(key.getTaskId());
+			if (task != null && task.getDueDate().isBefore(asOf)) {
+				result.add(task);
+			}
+		}
+		return result;
+	}
+
+	private List<Task> dueFromStore(LocalDateTime from, LocalDateTime to) {
+		try (Stream<Task> due = tasks.streamDueBetween(from, to)) {
+			return due.collect(Collectors.toList());
+		}
+	}
+
+	// tasks due before asOf that are not completed yet
+	public List<Task> findOverdue(LocalDateTime asOf) {
+		List<Task> result = new ArrayList<>();
+		for (TimeKey key : openDueDateIndex.headSet(TimeKey.lowerBound(TimeKey.toMillis(asOf) + 1))) {
+			Task task = tasks.get(key.getTaskId());
+			if (isOverdue(task, asOf)) {
+				result.add(task);
+			}
+		}
+		return result;
+	}
+
+	public long countOverdue(LocalDateTime asOf) {
+		long count = 0;
+		for (TimeKey key : openDueDateIndex.headSet(TimeKey.lowerBound(TimeKey.toMillis(asOf) + 1))) {
+			if (isOverdue(tasks.get(key.getTaskId()), asOf)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	// the task may have changed since its key was read from the index
+	private static boolean isOverdue(Task task, LocalDateTime asOf) {
+		return task != null && task.getDueDate().isBefore(asOf) && task.getStatus() != Status.COMPLETED;
+	}
+
+	// runs the query through the planner, which picks the index to drive it from
+	public List<Task> query(TaskQuery query) {
+		return planner.execute(query);
+	}
+
+	public QueryPlan explain(TaskQuery query) {
+		return planner.explain(query);
+	}
+
+	// One page in the given order, starting after cursor (null for the first page). It walks
+	// the ordered index from the cursor position, so a page costs O(limit) index steps no
+	// matter how deep into the listing it is.
+	public Page<Task> findPage(TaskOrder order, String cursor, int limit) {
+		return findPage(order, null, cursor, limit);
+	}
+
+	// Same, keeping only tasks that match filter; a selective filter walks further per page.
+	// Tasks without the date the pages are ordered by come last, as in query results.
+	public Page<Task> findPage(TaskOrder order, Predicate<? super Task> filter, String cursor, int limit) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("Page limit must be positive");
+		}
+		return page(order == TaskOrder.DUE_DATE ? dueDateIndex : createdIndex, order, filter, cursor, limit);
+	}
+
+	// overdue tasks as of asOf a page at a time, earliest due first, read from the index of
+	// open due dates; keep asOf the same for every page of one listing
+	public Page<Task> findOverduePage(LocalDateTime asOf, String cursor, int limit) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("Page limit must be positive");
+		}
+		return page(openDueDateIndex.headSet(TimeKey.lowerBound(TimeKey.toMillis(asOf) + 1), false),
+				TaskOrder.DUE_DATE, task -> isOverdue(task, asOf), cursor, limit);
+	}
+
+	private Page<Task> page(NavigableSet<TimeKey> index, TaskOrder order, Predicate<? super Task> filter,
+			String cursor, int limit) {
+		TimeKey after = PageCursor.decode(order, cursor);
+		List<Task> items = new ArrayList<>(limit);
+		TimeKey last = null;
+		for (TimeKey key : after == null ? index : index.tailSet(after, false)) {
+			Task task = resolveKey(order, key);
+			if (task == null || (filter != null && !filter.test(task))) {
+				continue;
+			}
+			if (items.size() == limit) {
+				return new Page<>(items, PageCursor.encode(order, last));
+			}
+			items.add(task);
+			last = key;
+		}
+		return new Page<>(items, null);
+	}
+
+	// Registers the listener and feeds it every task already stored. Each task is replayed
+	// inside its own critical section, so a concurrent save or delete of it is reported
+	// either before or after the replay, never lost.
+	public void addListener(TaskRepositoryListener listener) {
+		listeners.add(listener);
+		for (String taskId : indexed.keySet()) {
+			indexed.computeIfPresent(taskId, (id, entry) -> {
+				Task task = tasks.get(id);
+				if (task != null) {
+					listener.onSaved(task);
+				}
+				return entry;
+			});
+		}
+	}
+
+	public void removeListener(TaskRepositoryListener listener) {
+		listeners.remove(listener);
+	}
+
+	public TaskStatistics getStatistics() {
+		return statistics;
+	}
+
 	public void deleteById(String taskId) {					//delete the task
-		tasks.remove(taskId);
+		long[] lsn = new long[1];
+		remove(taskId, lsn, null);
+		commit(lsn[0]);
+	}
+
+	// deletes the task and returns it as it was stored, or empty when it was not
+	public Optional<Task> delete(String taskId) {
+		List<Task> removed = new ArrayList<>(1);
+		long[] lsn = new long[1];
+		remove(taskId, lsn, removed);
+		commit(lsn[0]);
+		return removed.isEmpty() ? Optional.empty() : Optional.of(removed.get(0));
+	}
+
+	// deletes with a single log commit and returns the ids that were actually stored
+	public List<String> deleteAll(Collection<String> taskIds) {
+		List<String> deleted = new ArrayList<>();
+		long[] lsn = new long[1];
+		for (String taskId : taskIds) {
+			if (remove(taskId, lsn, null)) {
+				deleted.add(taskId);
+			}
+		}
+		commit(lsn[0]);
+		return deleted;
+	}
+
+	// same, returning the deleted tasks as they were stored
+	public List<Task> deleteAllAndGet(Collection<String> taskIds) {
+		List<Task> deleted = new ArrayList<>();
+		long[] lsn = new long[1];
+		for (String taskId : taskIds) {
+			remove(taskId, lsn, deleted);
+		}
+		commit(lsn[0]);
+		return deleted;
 	}
 	public boolean exists(String taskId) {				//check the task is already task
-		return tasks.containsKey(taskId);
+		return tasks.contains(taskId);
 	}
 	public void clear() {
+		long lsn;
+		Lock barrier = enterBarrier();
+		try {
+			lsn = appendToLog(RecordCodec.CLEAR, new byte[0]);
+			clearAll();
+		} finally {
+			exitBarrier(barrier);
+		}
+		commit(lsn);
+	}
+
+	// closes the store, which releases the files of an OFF_HEAP one
+	@Override
+	public void close() throws IOException {
+		tasks.close();
+	}
+
+	// Tasks saved while the snapshot is written may or may not be in it; both are fine
+	// because replaying the log after the returned LSN re-applies them.
+	@Override
+	public long writeSnapshot(Path snapshotFile) throws IOException {
+		if (log == null) {
+			throw new IllegalStateException("Snapshots need a repository backed by a write-ahead log");
+		}
+		long lsn;
+		snapshotBarrier.writeLock().lock();
+		try {
+			lsn = log.getLastLsn();
+		} finally {
+			snapshotBarrier.writeLock().unlock();
+		}
+		SnapshotFile.write(snapshotFile, lsn, tasks, RecordCodec::encodeTask);
+		return lsn;
+	}
+
+	private void clearAll() {
 		tasks.clear();
+		indexed.clear();
+		statusIndex.values().forEach(Set::clear);
+		priorityIndex.values().forEach(Set::clear);
+		categoryIndex.clear();
+		dueDateIndex.clear();
+		openDueDateIndex.clear();
+		createdIndex.clear();
+		fingerprintIndex.clear();
+		statistics.clear();
+		for (TaskRepositoryListener listener : listeners) {
+			listener.onCleared();
+		}
+	}
+
+	private void applyLogged(long lsn, byte type, ByteBuffer payload) {
+		if (type == RecordCodec.PUT) {
+			restore(RecordCodec.decodeTask(payload));
+		} else if (type == RecordCodec.DELETE) {
+			deleteById(RecordCodec.decodeId(payload));
+		} else if (type == RecordCodec.CLEAR) {
+			clearAll();
+		}
+	}
+
+	// log is still null while replaying, so replayed records are not written back
+	private long appendToLog(byte type, byte[] record) {
+		if (log == null) {
+			return 0;
+		}
+		try {
+			return log.append(type, record);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write task log", e);
+		}
+	}
+
+	// saves a task read back from the snapshot or log under the version it was saved with
+	private void restore(Task task) {
+		long[] lsn = new long[1];
+		store(task, ANY_VERSION, true, lsn);
+		commit(lsn[0]);
+	}
+
+	private Task store(Task task, long[] lsn) {
+		return store(task, ANY_VERSION, false, lsn);
+	}
+
+	// Swaps in a copy of the task under the next version and logs it, leaving the log commit
+	// to the caller; the store is put back if the record cannot be logged. lsn[0] is raised to the record's LSN when one is written.
+	// Returns the stored copy, or null, changing nothing, when expectedVersion is not
+	// ANY_VERSION and the stored task has another version. A restored task keeps its own
+	// version, unless it comes from a file written before tasks had versions.
+	private Task store(Task task, long expectedVersion, boolean restoring, long[] lsn) {
+		byte[] record = log == null ? null : RecordCodec.encodeTask(task);
+		Task[] saved = new Task[1];
+		Lock category = enterCategory(task);
+		Lock barrier = enterBarrier();
+		try {
+			indexed.compute(task.getTaskId(), (taskId, previous) -> {
+				long version = previous == null ? 0 : previous.getVersion();
+				if (expectedVersion != ANY_VERSION && version != expectedVersion) {
+					return previous;
+				}
+				Task stored = task.withVersion(restoring && task.getVersion() > 0 ? task.getVersion() : version + 1);
+				Task replaced = record != null && previous != null ? tasks.get(taskId) : null;
+				tasks.put(stored);
+				if (record != null) {
+					RecordCodec.setTaskVersion(record, stored.getVersion());
+					try {
+						lsn[0] = Math.max(lsn[0], appendToLog(RecordCodec.PUT, record));
+					} catch (RuntimeException e) {
+						if (replaced != null) {
+							tasks.put(replaced);
+						} else {
+							tasks.remove(taskId);
+						}
+						throw e;
+					}
+				}
+				TaskIndexEntry current = reindex(taskId, previous, stored);
+				for (TaskRepositoryListener listener : listeners) {
+					listener.onSaved(stored);
+				}
+				saved[0] = stored;
+				return current;
+			});
+		} finally {
+			exitBarrier(barrier);
+			exitBarrier(category);
+		}
+		return saved[0];
+	}
+
+	private TaskIndexEntry reindex(String taskId, TaskIndexEntry previous, Task task) {
+		TaskIndexEntry current = TaskIndexEntry.of(task);
+		unindex(taskId, previous, current);
+		index(taskId, previous, current);
+		statistics.onIndexed(previous, current, task);
+		return current;
+	}
+
+	// removes the task, leaving the log commit to the caller; lsn[0] is raised to the
+	// delete record's LSN when one is written
+	// removedTasks, when not null, gets the task as it was stored
+	private boolean remove(String taskId, long[] lsn, List<Task> removedTasks) {
+		boolean[] removed = new boolean[1];
+		Lock barrier = enterBarrier();
+		try {
+			indexed.compute(taskId, (id, previous) -> {
+				if (previous == null) {
+					tasks.remove(id);
+					return null;
+				}
+				Task task = removedTasks != null || log != null ? tasks.get(id) : null;
+				tasks.remove(id);
+				try {
+					lsn[0] = Math.max(lsn[0], appendToLog(RecordCodec.DELETE, RecordCodec.encodeId(id)));
+				} catch (RuntimeException e) {
+					tasks.put(task);
+					throw e;
+				}
+				if (removedTasks != null) {
+					removedTasks.add(task);
+				}
+				unindex(id, previous, null);
+				statistics.onIndexed(previous, null, null);
+				for (TaskRepositoryListener listener : listeners) {
+					listener.onDeleted(id);
+				}
+				removed[0] = true;
+				return null;
+			});
+		} finally {
+			exitBarrier(barrier);
+		}
+		return removed[0];
+	}
+
+	private boolean claimFingerprint(Task task) {
+		boolean[] claimed = new boolean[1];
+		fingerprintIndex.compute(TaskFingerprint.of(task), (fingerprint, owners) -> {
+			if (owners != null) {
+				return owners;
+			}
+			claimed[0] = true;
+			return Collections.singleton(task.getTaskId());
+		});
+		return claimed[0];
+	}
+
+	// undoes claimFingerprint after the task failed to save, unless the stored task owns it
+	private void releaseFingerprint(Task task) {
+		fingerprintIndex.computeIfPresent(TaskFingerprint.of(task), (fingerprint, owners) -> {
+			TaskIndexEntry entry = indexed.get(task.getTaskId());
+			return entry != null && entry.getFingerprint().equals(fingerprint) ? owners
+					: withoutOwner(owners, task.getTaskId());
+		});
+	}
+
+	// Fingerprint owner sets are only ever replaced, inside compute, never changed in place.
+	// Nearly every fingerprint has one owner, and a singleton set is a fraction of the size
+	// of a concurrent one.
+	private static Set<String> withOwner(Set<String> owners, String taskId) {
+		if (owners == null) {
+			return Collections.singleton(taskId);
+		}
+		if (owners.contains(taskId)) {
+			return owners;
+		}
+		Set<String> grown = new HashSet<>(owners);
+		grown.add(taskId);
+		return Collections.unmodifiableSet(grown);
+	}
+
+	// null once the last owner is gone
+	private static Set<String> withoutOwner(Set<String> owners, String taskId) {
+		if (!owners.contains(taskId)) {
+			return owners;
+		}
+		if (owners.size() == 1) {
+			return null;
+		}
+		Set<String> shrunk = new HashSet<>(owners);
+		shrunk.remove(taskId);
+		return shrunk.size() == 1 ? Collections.singleton(shrunk.iterator().next()) : Collections.unmodifiableSet(shrunk);
+	}
+
+	private ReentrantReadWriteLock categoryLock(String categoryId) {
+		return categoryLocks[Math.floorMod(categoryId.hashCode(), categoryLocks.length)];
+	}
+
+	private Lock enterCategory(Task task) {
+		String categoryId = task.getCategory() == null ? null : task.getCategory().getCategoryId();
+		if (categoryId == null) {
+			return null;
+		}
+		Lock lock = categoryLock(categoryId).readLock();
+		lock.lock();
+		if (retiredCategories.contains(categoryId)) {
+			lock.unlock();
+			throw new IllegalStateException("Category " + categoryId + " has been deleted");
+		}
+		return lock;
+	}
+
+	private Lock enterBarrier() {
+		if (log == null) {
+			return null;
+		}
+		Lock barrier = snapshotBarrier.readLock();
+		barrier.lock();
+		return barrier;
+	}
+
+	private void exitBarrier(Lock barrier) {
+		if (barrier != null) {
+			barrier.unlock();
+		}
+	}
+
+	// ends a change: makes it durable in the log, then marks the store's transaction boundary
+	private void commit(long lsn) {
+		if (log != null && lsn != 0) {
+			try {
+				log.commit(lsn);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not sync task log", e);
+			}
+		}
+		tasks.commit();
+	}
+
+	private List<Task> resolve(Collection<String> taskIds) {
+		List<Task> result = new ArrayList<>(taskIds.size());
+		for (String taskId : taskIds) {
+			Task task = tasks.get(taskId);
+			if (task != null) {
+				result.add(task);
+			}
+		}
+		return result;
+	}
+
+	// the task behind an ordered-index key, or null if the key is stale because the task was
+	// deleted or re-indexed under another key while the index was being walked
+	Task resolveKey(TaskOrder order, TimeKey key) {
+		TaskIndexEntry entry = indexed.get(key.getTaskId());
+		if (entry == null) {
+			return null;
+		}
+		TimeKey current = order == TaskOrder.DUE_DATE ? entry.getDueDateKey() : entry.getCreatedKey();
+		return key.equals(current) ? tasks.get(key.getTaskId()) : null;
+	}
+
+	// drops the task from the buckets of 'previous' that 'current' no longer shares
+	private void unindex(String taskId, TaskIndexEntry previous, TaskIndexEntry current) {
+		if (previous == null) {
+			return;
+		}
+		if (previous.getStatus() != null && (current == null || previous.getStatus() != current.getStatus())) {
+			statusIndex.get(previous.getStatus()).remove(taskId);
+		}
+		if (previous.getPriority() != null && (current == null || previous.getPriority() != current.getPriority())) {
+			priorityIndex.get(previous.getPriority()).remove(taskId);
+		}
+		if (previous.getCategoryId() != null
+				&& (current == null || !previous.getCategoryId().equals(current.getCategoryId()))) {
+			categoryIndex.computeIfPresent(previous.getCategoryId(), (categoryId, ids) -> {
+				ids.remove(taskId);
+				return ids.isEmpty() ? null : ids;
+			});
+		}
+		if (previous.getDueDateKey() != null
+				&& (current == null || !previous.getDueDateKey().equals(current.getDueDateKey()))) {
+			dueDateIndex.remove(previous.getDueDateKey());
+		}
+		TimeKey openDueKey = openDueKey(previous);
+		if (openDueKey != null && !openDueKey.equals(openDueKey(current))) {
+			openDueDateIndex.remove(openDueKey);
+		}
+		if (previous.getCreatedKey() != null
+				&& (current == null || !previous.getCreatedKey().equals(current.getCreatedKey()))) {
+			createdIndex.remove(previous.getCreatedKey());
+		}
+		if (current == null || !previous.getFingerprint().equals(current.getFingerprint())) {
+			fingerprintIndex.computeIfPresent(previous.getFingerprint(), (fingerprint, ids) -> withoutOwner(ids, taskId));
+		}
+	}
+
+	// the entry's key in the open due-date index, or null if it does not belong there
+	private static TimeKey openDueKey(TaskIndexEntry entry) {
+		return entry == null || entry.getStatus() == Status.COMPLETED
+				|| entry.getDueDateKey().getMillis() == TimeKey.UNDATED ? null : entry.getDueDateKey();
+	}
+
+	private void index(String taskId, TaskIndexEntry previous, TaskIndexEntry current) {
+		if (current.getStatus() != null && (previous == null || previous.getStatus() != current.getStatus())) {
+			statusIndex.get(current.getStatus()).add(taskId);
+		}
+		if (current.getPriority() != null && (previous == null || previous.getPriority() != current.getPriority())) {
+			priorityIndex.get(current.getPriority()).add(taskId);
+		}
+		if (current.getCategoryId() != null
+				&& (previous == null || !Objects.equals(previous.getCategoryId(), current.getCategoryId()))) {
+			categoryIndex.compute(current.getCategoryId(), (categoryId, ids) -> {
+				Set<String> bucket = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+				bucket.add(taskId);
+				return bucket;
+			});
+		}
+		if (current.getDueDateKey() != null
+				&& (previous == null || !current.getDueDateKey().equals(previous.getDueDateKey()))) {
+			dueDateIndex.add(current.getDueDateKey());
+		}
+		TimeKey openDueKey = openDueKey(current);
+		if (openDueKey != null && !openDueKey.equals(openDueKey(previous))) {
+			openDueDateIndex.add(openDueKey);
+		}
+		if (current.getCreatedKey() != null
+				&& (previous == null || !current.getCreatedKey().equals(previous.getCreatedKey()))) {
+			createdIndex.add(current.getCreatedKey());
+		}
+		if (previous == null || !current.getFingerprint().equals(previous.getFingerprint())) {
+			fingerprintIndex.compute(current.getFingerprint(), (fingerprint, ids) -> withOwner(ids, taskId));
+		}
 	}
 }
@@ -0,0 +1,17 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+
+// Hook for structures kept in step with TaskRepository outside the repository itself.
+// Calls are made inside the repository's per-task critical section, so the calls for one
+// task arrive in the order its changes were applied. Implementations must be quick and
+// must not call back into the repository.
+public interface TaskRepositoryListener {
+
+	// a task was created or updated
+	void onSaved(Task task);
+
+	void onDeleted(String taskId);
+
+	void onCleared();
+}
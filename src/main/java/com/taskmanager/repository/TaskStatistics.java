@@ -0,0 +1,133 @@
+package com.taskmanager.repository;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+
+// Live task counters, updated by TaskRepository on every save and delete so reports
+// never have to scan the store. Reads are snapshots and may trail a concurrent write.
+public class TaskStatistics {
+
+	private final LongAdder total = new LongAdder();
+	private final EnumMap<Status, LongAdder> byStatus = new EnumMap<>(Status.class);
+	private final EnumMap<Priority, LongAdder> byPriority = new EnumMap<>(Priority.class);
+	// a category's entries go once its last task leaves, so deleted categories do not linger;
+	// names are added and removed under the byCategory entry's lock
+	private final ConcurrentHashMap<String, Long> byCategory = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, String> categoryNames = new ConcurrentHashMap<>();
+
+	TaskStatistics() {
+		for (Status status : Status.values()) {
+			byStatus.put(status, new LongAdder());
+		}
+		for (Priority priority : Priority.values()) {
+			byPriority.put(priority, new LongAdder());
+		}
+	}
+
+	public long total() {
+		return total.sum();
+	}
+
+	public long countByStatus(Status status) {
+		return status == null ? 0 : byStatus.get(status).sum();
+	}
+
+	public long countByPriority(Priority priority) {
+		return priority == null ? 0 : byPriority.get(priority).sum();
+	}
+
+	// only statuses that currently have tasks, like a groupingBy over the store would return
+	public Map<Status, Long> statusCounts() {
+		Map<Status, Long> counts = new EnumMap<>(Status.class);
+		byStatus.forEach((status, count) -> putIfPositive(counts, status, count.sum()));
+		return counts;
+	}
+
+	public Map<Priority, Long> priorityCounts() {
+		Map<Priority, Long> counts = new EnumMap<>(Priority.class);
+		byPriority.forEach((priority, count) -> putIfPositive(counts, priority, count.sum()));
+		return counts;
+	}
+
+	public Map<String, Long> categoryCountsById() {
+		Map<String, Long> counts = new HashMap<>();
+		byCategory.forEach((categoryId, count) -> putIfPositive(counts, categoryId, count));
+		return counts;
+	}
+
+	// categories sharing a name are reported together
+	public Map<String, Long> categoryCountsByName() {
+		Map<String, Long> counts = new HashMap<>();
+		byCategory.forEach((categoryId, count) -> counts.merge(categoryNames.getOrDefault(categoryId, categoryId),
+				count, Long::sum));
+		return counts;
+	}
+
+	void onIndexed(TaskIndexEntry previous, TaskIndexEntry current, Task task) {
+		if (previous == null && current != null) {
+			total.increment();
+		} else if (previous != null && current == null) {
+			total.decrement();
+		}
+		if (previous != null) {
+			if (previous.getStatus() != null && (current == null || previous.getStatus() != current.getStatus())) {
+				byStatus.get(previous.getStatus()).decrement();
+			}
+			if (previous.getPriority() != null && (current == null || previous.getPriority() != current.getPriority())) {
+				byPriority.get(previous.getPriority()).decrement();
+			}
+			if (previous.getCategoryId() != null
+					&& (current == null || !previous.getCategoryId().equals(current.getCategoryId()))) {
+				byCategory.computeIfPresent(previous.getCategoryId(), (categoryId, count) -> {
+					if (count > 1) {
+						return count - 1;
+					}
+					categoryNames.remove(categoryId);
+					return null;
+				});
+			}
+		}
+		if (current != null) {
+			if (current.getStatus() != null && (previous == null || previous.getStatus() != current.getStatus())) {
+				byStatus.get(current.getStatus()).increment();
+			}
+			if (current.getPriority() != null && (previous == null || previous.getPriority() != current.getPriority())) {
+				byPriority.get(current.getPriority()).increment();
+			}
+			if (current.getCategoryId() != null) {
+				String name = task.getCategory().getName();
+				if (previous == null || !Objects.equals(previous.getCategoryId(), current.getCategoryId())) {
+					byCategory.compute(current.getCategoryId(), (categoryId, count) -> {
+						categoryNames.put(categoryId, name);
+						return count == null ? 1 : count + 1;
+					});
+				} else {
+					// the task keeps the entry alive, so the name can be refreshed outside the lock
+					categoryNames.put(current.getCategoryId(), name);
+				}
+			}
+		}
+	}
+
+	void clear() {
+		total.reset();
+		byStatus.values().forEach(LongAdder::reset);
+		byPriority.values().forEach(LongAdder::reset);
+		byCategory.clear();
+		categoryNames.clear();
+	}
+
+	private static <K> void putIfPositive(Map<K, Long> counts, K key, long count) {
+		if (count > 0) {
+			counts.put(key, count);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.taskmanager.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import com.taskmanager.model.Task;
+
+// The storage SPI behind TaskRepository: where the task records themselves live, by task
+// id. StorageEngine opens the built-in stores; any other implementation can be handed to
+// TaskRepository(TaskStore) or named in StorageConfig. The repository serializes writes per
+// task id and keeps its own secondary indexes, telling TaskRepositoryListeners about every
+// change, so a store only has to make single operations safe to call from many threads.
+// Iteration is weakly consistent.
+public interface TaskStore extends Iterable<Task>, Closeable {
+
+	// null when no task has the id
+	Task get(String taskId);
+
+	void put(Task task);
+
+	void remove(String taskId);
+
+	boolean contains(String taskId);
+
+	int size();
+
+	void clear();
+
+	Stream<Task> stream();
+
+	// tasks due in [from, to), earliest first and then by id; either bound may be null, and
+	// tasks without a due date are left out. The default sorts a full scan; a store that
+	// keeps its tasks in due-date order should override it.
+	default Stream<Task> streamDueBetween(LocalDateTime from, LocalDateTime to) {
+		return stream()
+				.filter(task -> task.getDueDate() != null && (from == null || !task.getDueDate().isBefore(from))
+						&& (to == null || task.getDueDate().isBefore(to)))
+				.sorted(Comparator.comparing(Task::getDueDate).thenComparing(Task::getTaskId));
+	}
+
+	// whether streamDueBetween reads an order the store keeps itself instead of sorting a full
+	// scan; TaskRepository then leaves its due-date range queries to the store
+	default boolean keepsDueDateOrder() {
+		return false;
+	}
+
+	// The transaction boundary. The repository calls it on the writing thread once a save,
+	// delete, clear or whole batch (saveAll, deleteAll) is applied and logged, so the puts and
+	// removes that thread made since its last commit belong together. A store that buffers
+	// writes makes them durable here; the others ignore it.
+	default void commit() {
+	}
+
+	// releases files and buffers; stores kept on the heap have none
+	@Override
+	default void close() throws IOException {
+	}
+}
@@ -0,0 +1,61 @@
+package com.taskmanager.repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Sort key of the time-ordered indexes (due date, creation date): epoch millis first,
+// task id to keep equal timestamps apart.
+final class TimeKey implements Comparable<TimeKey> {
+
+	static final long UNDATED = Long.MAX_VALUE;
+
+	private final long millis;
+	private final String taskId;
+
+	TimeKey(long millis, String taskId) {
+		this.millis = millis;
+		this.taskId = taskId;
+	}
+
+	// a task without the date sorts after every dated one, as TaskQueryPlanner.comparator
+	// orders it
+	static TimeKey of(LocalDateTime dateTime, String taskId) {
+		return new TimeKey(dateTime == null ? UNDATED : toMillis(dateTime), taskId);
+	}
+
+	// sorts before every key of the same millisecond, so it works as a range bound
+	static TimeKey lowerBound(long millis) {
+		return new TimeKey(millis, "");
+	}
+
+	static long toMillis(LocalDateTime dateTime) {
+		return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+	}
+
+	long getMillis() {
+		return millis;
+	}
+
+	String getTaskId() {
+		return taskId;
+	}
+
+	@Override
+	public int compareTo(TimeKey other) {
+		int byDate = Long.compare(millis, other.millis);
+		return byDate != 0 ? byDate : taskId.compareTo(other.taskId);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		TimeKey key = (TimeKey) o;
+		return millis == key.millis && taskId.equals(key.taskId);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Long.hashCode(millis) + taskId.hashCode();
+	}
+}
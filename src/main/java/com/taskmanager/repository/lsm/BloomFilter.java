@@ -0,0 +1,80 @@
+package com.taskmanager.repository.lsm;
+
+import java.nio.ByteBuffer;
+
+// Answers "definitely not in this table" for most absent keys, so a point read only opens
+// the tables that may hold the task. Ten bits and seven probes per key give about a 1%
+// false-positive rate. The probes come from two halves of one 64-bit hash.
+final class BloomFilter {
+
+	private static final int BITS_PER_KEY = 10;
+	private static final int PROBES = 7;
+
+	private final long[] bits;
+
+	private BloomFilter(long[] bits) {
+		this.bits = bits;
+	}
+
+	static BloomFilter create(long expectedKeys) {
+		long wanted = Math.max(64, expectedKeys * BITS_PER_KEY);
+		return new BloomFilter(new long[(int) Math.min(Integer.MAX_VALUE / 64, (wanted + 63) / 64)]);
+	}
+
+	void add(byte[] key) {
+		long hash = hash(key);
+		int first = (int) hash;
+		int second = (int) (hash >>> 32);
+		long size = (long) bits.length * 64;
+		for (int i = 0; i < PROBES; i++) {
+			long bit = ((first + i * second) & 0xFFFFFFFFL) % size;
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	boolean mightContain(byte[] key) {
+		long hash = hash(key);
+		int first = (int) hash;
+		int second = (int) (hash >>> 32);
+		long size = (long) bits.length * 64;
+		for (int i = 0; i < PROBES; i++) {
+			long bit = ((first + i * second) & 0xFFFFFFFFL) % size;
+			if ((bits[(int) (bit >>> 6)] & 1L << bit) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	int serializedSize() {
+		return 4 + bits.length * 8;
+	}
+
+	void writeTo(ByteBuffer out) {
+		out.putInt(bits.length);
+		for (long word : bits) {
+			out.putLong(word);
+		}
+	}
+
+	static BloomFilter readFrom(ByteBuffer in) {
+		long[] bits = new long[in.getInt()];
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] = in.getLong();
+		}
+		return new BloomFilter(bits);
+	}
+
+	// FNV-1a, then the MurmurHash3 finalizer to spread it over all 64 bits
+	private static long hash(byte[] key) {
+		long hash = 0xCBF29CE484222325L;
+		for (byte b : key) {
+			hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		return hash ^ hash >>> 33;
+	}
+}
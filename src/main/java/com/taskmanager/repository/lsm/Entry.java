@@ -0,0 +1,18 @@
+package com.taskmanager.repository.lsm;
+
+// One key and its newest value in a memtable or table; a null value records a deletion,
+// which has to shadow older values of the key until compaction reaches the last level.
+final class Entry {
+
+	final byte[] key;
+	final byte[] value;
+
+	Entry(byte[] key, byte[] value) {
+		this.key = key;
+		this.value = value;
+	}
+
+	boolean isDeletion() {
+		return value == null;
+	}
+}
@@ -0,0 +1,80 @@
+package com.taskmanager.repository.lsm;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+
+// The store's single sorted key space, compared as unsigned bytes:
+//   'T' taskId                          -> the task, encoded by RecordCodec
+//   'D' due seconds, due nanos, taskId  -> nothing; the due-date index
+// Seconds are written big-endian with the sign bit flipped, so byte order is time order and
+// a range of 'D' keys is a due-date range.
+final class Keys {
+
+	static final byte TASK = 'T';
+	static final byte DUE = 'D';
+	static final byte[] NO_VALUE = new byte[0];
+	static final Comparator<byte[]> ORDER = Keys::compare;
+
+	private static final int DUE_PREFIX = 1 + 8 + 4;
+
+	private Keys() {
+	}
+
+	static byte[] task(String taskId) {
+		byte[] id = taskId.getBytes(StandardCharsets.UTF_8);
+		byte[] key = new byte[1 + id.length];
+		key[0] = TASK;
+		System.arraycopy(id, 0, key, 1, id.length);
+		return key;
+	}
+
+	static byte[] due(LocalDateTime dueDate, String taskId) {
+		byte[] id = taskId.getBytes(StandardCharsets.UTF_8);
+		return ByteBuffer.allocate(DUE_PREFIX + id.length).put(dueBound(dueDate)).put(id).array();
+	}
+
+	// sorts before every due key of the same instant
+	static byte[] dueBound(LocalDateTime dueDate) {
+		return ByteBuffer.allocate(DUE_PREFIX).put(DUE).putLong(dueDate.toEpochSecond(ZoneOffset.UTC) ^ Long.MIN_VALUE)
+				.putInt(dueDate.getNano()).array();
+	}
+
+	// first and last-plus-one key of every entry of a kind
+	static byte[] first(byte kind) {
+		return new byte[] { kind };
+	}
+
+	static byte[] end(byte kind) {
+		return new byte[] { (byte) (kind + 1) };
+	}
+
+	static String taskIdOfDue(byte[] key) {
+		return new String(key, DUE_PREFIX, key.length - DUE_PREFIX, StandardCharsets.UTF_8);
+	}
+
+	static int compare(byte[] a, byte[] b) {
+		int length = Math.min(a.length, b.length);
+		for (int i = 0; i < length; i++) {
+			int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return a.length - b.length;
+	}
+
+	// a key against one stored at offset in a buffer, without copying it out
+	static int compare(byte[] a, ByteBuffer buffer, int offset, int length) {
+		int common = Math.min(a.length, length);
+		for (int i = 0; i < common; i++) {
+			int difference = (a[i] & 0xFF) - (buffer.get(offset + i) & 0xFF);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return a.length - length;
+	}
+}
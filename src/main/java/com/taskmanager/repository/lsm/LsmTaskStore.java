@@ -0,0 +1,755 @@
+package com.taskmanager.repository.lsm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.persistence.RecordCodec;
+import com.taskmanager.repository.TaskStore;
+
+// A log-structured merge tree of task records on local disk, for more task records than fit in
+// memory. TaskRepository still keeps its indexes of every task on the heap, so the repository
+// as a whole is bounded by those, not by the records.
+//
+// Writes land in a skip-list memtable. A full memtable is frozen and a background thread
+// flushes it into an immutable level-0 SSTable. Level-0 tables may overlap each other; once
+// level0Tables of them pile up they are merged with the overlapping level-1 tables. From
+// level 1 down every level is a single sorted run cut into tables of about tableBytes, each
+// level LEVEL_GROWTH times the size of the one above, and a level over its budget pushes one
+// table at a time into the next, round robin over its key range.
+//
+// A point read checks the memtable, the frozen memtables, level 0 newest first and then the
+// one table per deeper level that covers the key, skipping every table whose Bloom filter
+// rules the task out. Scans merge all of them. Next to the tasks the tree keeps a due-date
+// index (see Keys), so a due-date range is a merged scan as well.
+//
+// The manifest names the live tables; reopening the directory brings them back and close
+// flushes the memtable. Writes still in a memtable are lost in a crash, so run the repository
+// with its write-ahead log when they matter.
+public final class LsmTaskStore implements TaskStore {
+
+	private static final long MEMTABLE_BYTES = 4L << 20;
+	private static final long TABLE_BYTES = 2L << 20;
+	private static final int LEVEL0_TABLES = 4;
+	private static final long LEVEL1_BYTES = 10L << 20;
+	private static final int LEVEL_GROWTH = 10;
+	private static final int LEVELS = 7;
+	// frozen memtables waiting for the flusher before writers have to flush them themselves
+	private static final int MAX_FROZEN = 2;
+	private static final int ID_LOCKS = 64;
+	private static final byte[] FIRST_KEY = new byte[0];
+	private static final String MANIFEST = "MANIFEST";
+	private static final String TABLE_SUFFIX = ".sst";
+
+	// everything a reader needs, replaced as a whole
+	private static final class Version {
+		private final Memtable active;
+		// newest first
+		private final List<Memtable> frozen;
+		// level 0 newest first, deeper levels in key order
+		private final List<List<SSTable>> levels;
+
+		private Version(Memtable active, List<Memtable> frozen, List<List<SSTable>> levels) {
+			this.active = active;
+			this.frozen = frozen;
+			this.levels = levels;
+		}
+	}
+
+	private final Path directory;
+	private final long memtableBytes;
+	private final long tableBytes;
+	private final int level0Tables;
+	private final long level1Bytes;
+
+	private volatile Version version;
+	// writers into the active memtable share the read side; replacing the version takes the
+	// write side, so no write lands in a memtable that is already being flushed
+	private final ReentrantReadWriteLock versionLock = new ReentrantReadWriteLock();
+	// flushes, compactions and clear take turns; only they change the levels and the manifest
+	private final ReentrantLock maintenanceLock = new ReentrantLock();
+	// a put reads the task's previous due date, so writes to one task must not interleave
+	private final ReentrantLock[] idLocks = new ReentrantLock[ID_LOCKS];
+	private final ExecutorService maintainer;
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicLong nextTableNumber = new AtomicLong(1);
+	private final byte[][] compactionPointers = new byte[LEVELS][];
+	private volatile IOException maintenanceFailure;
+
+	public LsmTaskStore(Path directory) throws IOException {
+		this(directory, MEMTABLE_BYTES, TABLE_BYTES, LEVEL0_TABLES, LEVEL1_BYTES);
+	}
+
+	LsmTaskStore(Path directory, long memtableBytes, long tableBytes, int level0Tables, long level1Bytes)
+			throws IOException {
+		this.directory = directory;
+		this.memtableBytes = memtableBytes;
+		this.tableBytes = tableBytes;
+		this.level0Tables = level0Tables;
+		this.level1Bytes = level1Bytes;
+		for (int i = 0; i < ID_LOCKS; i++) {
+			idLocks[i] = new ReentrantLock();
+		}
+		Files.createDirectories(directory);
+		version = new Version(new Memtable(), Collections.emptyList(), openManifest());
+		int tasks = 0;
+		for (Iterator<Entry> entries = liveOnly(scan(Keys.first(Keys.TASK), Keys.end(Keys.TASK))); entries.hasNext();) {
+			entries.next();
+			tasks++;
+		}
+		size.set(tasks);
+		maintainer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "lsm-maintenance-" + directory.getFileName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		// level 0 may have been left over its limit by the last run
+		maintainer.execute(this::maintain);
+	}
+
+	@Override
+	public Task get(String taskId) {
+		return taskId == null ? null : decode(find(Keys.task(taskId)));
+	}
+
+	@Override
+	public boolean contains(String taskId) {
+		if (taskId == null) {
+			return false;
+		}
+		Entry entry = find(Keys.task(taskId));
+		return entry != null && !entry.isDeletion();
+	}
+
+	@Override
+	public void put(Task task) {
+		String taskId = task.getTaskId();
+		byte[] key = Keys.task(taskId);
+		byte[] record = RecordCodec.encodeTask(task);
+		ReentrantLock idLock = idLock(taskId);
+		idLock.lock();
+		try {
+			Task previous = decode(find(key));
+			LocalDateTime previousDue = previous == null ? null : previous.getDueDate();
+			LocalDateTime due = task.getDueDate();
+			Lock writing = versionLock.readLock();
+			writing.lock();
+			try {
+				Memtable memtable = version.active;
+				if (previousDue != null && !previousDue.equals(due)) {
+					memtable.put(Keys.due(previousDue, taskId), null);
+				}
+				if (due != null && !due.equals(previousDue)) {
+					memtable.put(Keys.due(due, taskId), Keys.NO_VALUE);
+				}
+				memtable.put(key, record);
+			} finally {
+				writing.unlock();
+			}
+			if (previous == null) {
+				size.incrementAndGet();
+			}
+		} finally {
+			idLock.unlock();
+		}
+		afterWrite();
+	}
+
+	@Override
+	public void remove(String taskId) {
+		byte[] key = Keys.task(taskId);
+		ReentrantLock idLock = idLock(taskId);
+		idLock.lock();
+		try {
+			Task previous = decode(find(key));
+			if (previous == null) {
+				return;
+			}
+			Lock writing = versionLock.readLock();
+			writing.lock();
+			try {
+				Memtable memtable = version.active;
+				if (previous.getDueDate() != null) {
+					memtable.put(Keys.due(previous.getDueDate(), taskId), null);
+				}
+				memtable.put(key, null);
+			} finally {
+				writing.unlock();
+			}
+			size.decrementAndGet();
+		} finally {
+			idLock.unlock();
+		}
+		afterWrite();
+	}
+
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public void clear() {
+		maintenanceLock.lock();
+		try {
+			List<SSTable> dropped = new ArrayList<>();
+			versionLock.writeLock().lock();
+			try {
+				version.levels.forEach(dropped::addAll);
+				version = new Version(new Memtable(), Collections.emptyList(), emptyLevels());
+				size.set(0);
+			} finally {
+				versionLock.writeLock().unlock();
+			}
+			writeManifest(version.levels);
+			for (SSTable table : dropped) {
+				table.delete();
+			}
+			Arrays.fill(compactionPointers, null);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not clear task store in " + directory, e);
+		} finally {
+			maintenanceLock.unlock();
+		}
+	}
+
+	// in task id order, over the tables of the moment the stream starts
+	@Override
+	public Stream<Task> stream() {
+		return stream(liveOnly(scan(Keys.first(Keys.TASK), Keys.end(Keys.TASK)))).map(LsmTaskStore::decode);
+	}
+
+	@Override
+	public Iterator<Task> iterator() {
+		return stream().iterator();
+	}
+
+	// a merged scan of the due-date index; each task is read again, which also skips one
+	// that was saved with another due date since the scan started
+	@Override
+	public Stream<Task> streamDueBetween(LocalDateTime from, LocalDateTime to) {
+		if (from != null && to != null && !from.isBefore(to)) {
+			return Stream.empty();
+		}
+		byte[] start = from == null ? Keys.first(Keys.DUE) : Keys.dueBound(from);
+		byte[] end = to == null ? Keys.end(Keys.DUE) : Keys.dueBound(to);
+		return stream(liveOnly(scan(start, end))).map(entry -> get(Keys.taskIdOfDue(entry.key)))
+				.filter(task -> task != null && task.getDueDate() != null
+						&& (from == null || !task.getDueDate().isBefore(from))
+						&& (to == null || task.getDueDate().isBefore(to)));
+	}
+
+	@Override
+	public boolean keepsDueDateOrder() {
+		return true;
+	}
+
+	// nothing is buffered beyond the memtable; a failed background flush or compaction
+	// surfaces here
+	@Override
+	public void commit() {
+		checkMaintenance();
+	}
+
+	// flushes the memtable, so the next open finds every task in the tables
+	@Override
+	public void close() throws IOException {
+		maintainer.shutdown();
+		try {
+			maintainer.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		freezeActive(true);
+		maintenanceLock.lock();
+		try {
+			flushFrozen();
+		} finally {
+			maintenanceLock.unlock();
+		}
+		checkMaintenance();
+	}
+
+	// for tests: pushes the memtable to level 0 and waits until flushing and compacting are done
+	void flush() throws IOException {
+		freezeActive(true);
+		try {
+			maintainer.submit(this::maintain).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+		checkMaintenance();
+	}
+
+	int tableCount(int level) {
+		return version.levels.get(level).size();
+	}
+
+	private Entry find(byte[] key) {
+		Version current = version;
+		Entry entry = current.active.get(key);
+		if (entry != null) {
+			return entry;
+		}
+		for (Memtable memtable : current.frozen) {
+			entry = memtable.get(key);
+			if (entry != null) {
+				return entry;
+			}
+		}
+		for (SSTable table : current.levels.get(0)) {
+			entry = table.get(key);
+			if (entry != null) {
+				return entry;
+			}
+		}
+		for (int level = 1; level < LEVELS; level++) {
+			SSTable table = tableFor(current.levels.get(level), key);
+			entry = table == null ? null : table.get(key);
+			if (entry != null) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	// the table of a sorted level whose key range holds key
+	private static SSTable tableFor(List<SSTable> tables, byte[] key) {
+		int low = 0;
+		int high = tables.size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			SSTable table = tables.get(middle);
+			if (Keys.compare(table.lastKey, key) < 0) {
+				low = middle + 1;
+			} else if (Keys.compare(table.firstKey, key) > 0) {
+				high = middle - 1;
+			} else {
+				return table;
+			}
+		}
+		return null;
+	}
+
+	// every entry with from <= key < to, newest version per key
+	private Iterator<Entry> scan(byte[] from, byte[] to) {
+		Version current = version;
+		List<Iterator<Entry>> sources = new ArrayList<>();
+		sources.add(current.active.iterator(from, to));
+		for (Memtable memtable : current.frozen) {
+			sources.add(memtable.iterator(from, to));
+		}
+		for (SSTable table : current.levels.get(0)) {
+			if (table.overlaps(from, to)) {
+				sources.add(table.iterator(from, to));
+			}
+		}
+		for (int level = 1; level < LEVELS; level++) {
+			List<SSTable> overlapping = new ArrayList<>();
+			for (SSTable table : current.levels.get(level)) {
+				if (table.overlaps(from, to)) {
+					overlapping.add(table);
+				}
+			}
+			if (!overlapping.isEmpty()) {
+				sources.add(concat(overlapping, from, to));
+			}
+		}
+		return new MergingIterator(sources);
+	}
+
+	private void afterWrite() {
+		checkMaintenance();
+		if (version.active.bytes() < memtableBytes) {
+			return;
+		}
+		if (freezeActive(false) > MAX_FROZEN) {
+			// the flusher is falling behind; flushing here holds this writer back until it catches up
+			maintenanceLock.lock();
+			try {
+				flushFrozen();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not flush task store in " + directory, e);
+			} finally {
+				maintenanceLock.unlock();
+			}
+		}
+		maintainer.execute(this::maintain);
+	}
+
+	// moves the active memtable to the frozen ones when it is full (or has anything at all,
+	// when forced) and returns how many are frozen now
+	private int freezeActive(boolean force) {
+		versionLock.writeLock().lock();
+		try {
+			Version current = version;
+			if (current.active.isEmpty() || (!force && current.active.bytes() < memtableBytes)) {
+				return current.frozen.size();
+			}
+			List<Memtable> frozen = new ArrayList<>(current.frozen.size() + 1);
+			frozen.add(current.active);
+			frozen.addAll(current.frozen);
+			version = new Version(new Memtable(), Collections.unmodifiableList(frozen), current.levels);
+			return frozen.size();
+		} finally {
+			versionLock.writeLock().unlock();
+		}
+	}
+
+	private void maintain() {
+		maintenanceLock.lock();
+		try {
+			flushFrozen();
+			while (compactOnce()) {
+				// until every level is within its budget
+			}
+		} catch (IOException | RuntimeException e) {
+			maintenanceFailure = e instanceof IOException ? (IOException) e : new IOException(e);
+		} finally {
+			maintenanceLock.unlock();
+		}
+	}
+
+	// oldest first, each one becoming the newest level-0 table
+	private void flushFrozen() throws IOException {
+		while (true) {
+			List<Memtable> waiting = version.frozen;
+			if (waiting.isEmpty()) {
+				return;
+			}
+			Memtable oldest = waiting.get(waiting.size() - 1);
+			List<SSTable> written = writeTables(oldest.iterator(), oldest.size(), false, Long.MAX_VALUE);
+			List<List<SSTable>> levels;
+			versionLock.writeLock().lock();
+			try {
+				Version current = version;
+				List<Memtable> frozen = new ArrayList<>(current.frozen);
+				frozen.remove(oldest);
+				levels = replace(current.levels, 0, Collections.emptyList(), written);
+				version = new Version(current.active, Collections.unmodifiableList(frozen), levels);
+			} finally {
+				versionLock.writeLock().unlock();
+			}
+			writeManifest(levels);
+		}
+	}
+
+	// merges one overfull level into the next; false when every level is within budget
+	private boolean compactOnce() throws IOException {
+		List<List<SSTable>> levels = version.levels;
+		int level = -1;
+		if (levels.get(0).size() >= level0Tables) {
+			level = 0;
+		} else {
+			long budget = level1Bytes;
+			for (int candidate = 1; candidate < LEVELS - 1 && level < 0; candidate++, budget *= LEVEL_GROWTH) {
+				long bytes = 0;
+				for (SSTable table : levels.get(candidate)) {
+					bytes += table.sizeInBytes;
+				}
+				if (bytes > budget) {
+					level = candidate;
+				}
+			}
+		}
+		if (level < 0) {
+			return false;
+		}
+
+		List<SSTable> upper = level == 0 ? levels.get(0) : Collections.singletonList(nextToCompact(levels.get(level), level));
+		byte[] from = upper.get(0).firstKey;
+		byte[] to = upper.get(0).lastKey;
+		for (SSTable table : upper) {
+			from = Keys.compare(table.firstKey, from) < 0 ? table.firstKey : from;
+			to = Keys.compare(table.lastKey, to) > 0 ? table.lastKey : to;
+		}
+		List<SSTable> lower = new ArrayList<>();
+		for (SSTable table : levels.get(level + 1)) {
+			if (Keys.compare(table.firstKey, to) <= 0 && Keys.compare(table.lastKey, from) >= 0) {
+				lower.add(table);
+			}
+		}
+		// a deletion only has to shadow older entries, and those live in deeper levels
+		boolean bottom = true;
+		for (int deeper = level + 2; deeper < LEVELS; deeper++) {
+			bottom &= levels.get(deeper).isEmpty();
+		}
+
+		List<Iterator<Entry>> sources = new ArrayList<>();
+		long entries = 0;
+		for (SSTable table : upper) {
+			sources.add(table.iterator(FIRST_KEY, null));
+			entries += table.entryCount;
+		}
+		if (!lower.isEmpty()) {
+			sources.add(concat(lower, FIRST_KEY, null));
+			for (SSTable table : lower) {
+				entries += table.entryCount;
+			}
+		}
+		List<SSTable> written = writeTables(new MergingIterator(sources), entries, bottom, tableBytes);
+
+		List<List<SSTable>> compacted;
+		versionLock.writeLock().lock();
+		try {
+			Version current = version;
+			compacted = replace(replace(current.levels, level, upper, Collections.emptyList()), level + 1, lower,
+					written);
+			version = new Version(current.active, current.frozen, compacted);
+		} finally {
+			versionLock.writeLock().unlock();
+		}
+		writeManifest(compacted);
+		for (SSTable table : upper) {
+			table.delete();
+		}
+		for (SSTable table : lower) {
+			table.delete();
+		}
+		if (level > 0) {
+			compactionPointers[level] = to;
+		}
+		return true;
+	}
+
+	// the first table after the last one pushed down from this level, wrapping around
+	private SSTable nextToCompact(List<SSTable> tables, int level) {
+		byte[] pointer = compactionPointers[level];
+		if (pointer != null) {
+			for (SSTable table : tables) {
+				if (Keys.compare(table.firstKey, pointer) > 0) {
+					return table;
+				}
+			}
+		}
+		return tables.get(0);
+	}
+
+	// writes the sorted entries into tables of about maxBytes each
+	private List<SSTable> writeTables(Iterator<Entry> entries, long expectedKeys, boolean dropDeletions, long maxBytes)
+			throws IOException {
+		List<SSTable> tables = new ArrayList<>();
+		SSTable.Writer writer = null;
+		try {
+			while (entries.hasNext()) {
+				Entry entry = entries.next();
+				if (dropDeletions && entry.isDeletion()) {
+					continue;
+				}
+				if (writer == null) {
+					long number = nextTableNumber.getAndIncrement();
+					// a table holds at least one key per 32 bytes
+					writer = new SSTable.Writer(number, tableFile(number), Math.min(expectedKeys, maxBytes / 32 + 1));
+				}
+				writer.add(entry);
+				if (writer.size() >= maxBytes) {
+					tables.add(writer.finish());
+					writer = null;
+				}
+			}
+			if (writer != null) {
+				tables.add(writer.finish());
+				writer = null;
+			}
+			return tables;
+		} catch (IOException | RuntimeException e) {
+			if (writer != null) {
+				writer.abandon();
+			}
+			for (SSTable table : tables) {
+				table.delete();
+			}
+			throw e;
+		}
+	}
+
+	private static List<List<SSTable>> replace(List<List<SSTable>> levels, int level, List<SSTable> removed,
+			List<SSTable> added) {
+		List<List<SSTable>> result = new ArrayList<>(levels);
+		List<SSTable> tables = new ArrayList<>(levels.get(level));
+		tables.removeAll(removed);
+		if (level == 0) {
+			tables.addAll(0, added);
+		} else {
+			tables.addAll(added);
+			tables.sort((a, b) -> Keys.compare(a.firstKey, b.firstKey));
+		}
+		result.set(level, Collections.unmodifiableList(tables));
+		return Collections.unmodifiableList(result);
+	}
+
+	private static List<List<SSTable>> emptyLevels() {
+		List<List<SSTable>> levels = new ArrayList<>(LEVELS);
+		for (int level = 0; level < LEVELS; level++) {
+			levels.add(Collections.emptyList());
+		}
+		return Collections.unmodifiableList(levels);
+	}
+
+	// Text lines: "next <table number>", then "<level> <table number>" per table in level
+	// order. Rewritten beside the old one and renamed over it, so it is always complete.
+	private void writeManifest(List<List<SSTable>> levels) throws IOException {
+		StringBuilder text = new StringBuilder("next ").append(nextTableNumber.get()).append('\n');
+		for (int level = 0; level < levels.size(); level++) {
+			for (SSTable table : levels.get(level)) {
+				text.append(level).append(' ').append(table.number).append('\n');
+			}
+		}
+		Path temp = directory.resolve(MANIFEST + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			channel.force(true);
+		}
+		Files.move(temp, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private List<List<SSTable>> openManifest() throws IOException {
+		List<List<SSTable>> levels = new ArrayList<>(emptyLevels());
+		Set<Path> live = new HashSet<>();
+		Path manifest = directory.resolve(MANIFEST);
+		if (Files.exists(manifest)) {
+			for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+				String[] fields = line.trim().split(" ");
+				if (fields.length != 2) {
+					continue;
+				}
+				if (fields[0].equals("next")) {
+					nextTableNumber.set(Long.parseLong(fields[1]));
+					continue;
+				}
+				int level = Integer.parseInt(fields[0]);
+				long number = Long.parseLong(fields[1]);
+				List<SSTable> tables = new ArrayList<>(levels.get(level));
+				tables.add(SSTable.open(number, tableFile(number)));
+				levels.set(level, Collections.unmodifiableList(tables));
+				live.add(tableFile(number));
+			}
+		}
+		// tables of a flush or compaction that never made it into the manifest
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TABLE_SUFFIX)) {
+			for (Path file : files) {
+				if (!live.contains(file)) {
+					Files.delete(file);
+				}
+			}
+		}
+		return Collections.unmodifiableList(levels);
+	}
+
+	private Path tableFile(long number) {
+		return directory.resolve(String.format("%010d%s", number, TABLE_SUFFIX));
+	}
+
+	private ReentrantLock idLock(String taskId) {
+		int hash = taskId.hashCode() * 0x9E3779B9;
+		return idLocks[(hash ^ (hash >>> 16)) & (ID_LOCKS - 1)];
+	}
+
+	private void checkMaintenance() {
+		IOException failure = maintenanceFailure;
+		if (failure != null) {
+			throw new UncheckedIOException("Background flush or compaction failed in " + directory, failure);
+		}
+	}
+
+	private static Task decode(Entry entry) {
+		return entry == null || entry.isDeletion() ? null : RecordCodec.decodeTask(ByteBuffer.wrap(entry.value));
+	}
+
+	private static <T> Stream<T> stream(Iterator<T> iterator) {
+		return StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	private static Iterator<Entry> liveOnly(Iterator<Entry> entries) {
+		return new Iterator<Entry>() {
+			private Entry next = advance();
+
+			private Entry advance() {
+				while (entries.hasNext()) {
+					Entry entry = entries.next();
+					if (!entry.isDeletion()) {
+						return entry;
+					}
+				}
+				return null;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public Entry next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				Entry current = next;
+				next = advance();
+				return current;
+			}
+		};
+	}
+
+	// the tables of one sorted level, one after the other
+	private static Iterator<Entry> concat(List<SSTable> tables, byte[] from, byte[] to) {
+		return new Iterator<Entry>() {
+			private int table;
+			private Iterator<Entry> current = Collections.emptyIterator();
+
+			@Override
+			public boolean hasNext() {
+				while (!current.hasNext() && table < tables.size()) {
+					current = tables.get(table++).iterator(from, to);
+				}
+				return current.hasNext();
+			}
+
+			@Override
+			public Entry next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return current.next();
+			}
+		};
+	}
+}
@@ -0,0 +1,70 @@
+package com.taskmanager.repository.lsm;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The newest writes, sorted in a skip list until the memtable is full and gets flushed to a
+// level-0 table. Deletions are kept as entries of their own, since they must shadow the
+// tables below.
+final class Memtable {
+
+	// what a deletion is stored as; compared by identity, never handed out
+	private static final byte[] DELETED = new byte[0];
+	// rough cost of a skip list node and its entry beyond the key and value bytes
+	private static final int ENTRY_OVERHEAD = 64;
+
+	private final ConcurrentSkipListMap<byte[], byte[]> entries = new ConcurrentSkipListMap<>(Keys.ORDER);
+	private final AtomicLong bytes = new AtomicLong();
+
+	// a null value deletes the key
+	void put(byte[] key, byte[] value) {
+		byte[] previous = entries.put(key, value == null ? DELETED : value);
+		long added = key.length + (value == null ? 0 : value.length) + ENTRY_OVERHEAD;
+		bytes.addAndGet(previous == null ? added : added - key.length - previous.length - ENTRY_OVERHEAD);
+	}
+
+	// null when the memtable knows nothing about the key
+	Entry get(byte[] key) {
+		byte[] value = entries.get(key);
+		return value == null ? null : new Entry(key, value == DELETED ? null : value);
+	}
+
+	Iterator<Entry> iterator() {
+		return entries(entries);
+	}
+
+	// weakly consistent: writes that happen meanwhile may or may not show up
+	Iterator<Entry> iterator(byte[] from, byte[] to) {
+		return entries(entries.subMap(from, true, to, false));
+	}
+
+	private static Iterator<Entry> entries(Map<byte[], byte[]> range) {
+		Iterator<Map.Entry<byte[], byte[]>> iterator = range.entrySet().iterator();
+		return new Iterator<Entry>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public Entry next() {
+				Map.Entry<byte[], byte[]> next = iterator.next();
+				return new Entry(next.getKey(), next.getValue() == DELETED ? null : next.getValue());
+			}
+		};
+	}
+
+	long bytes() {
+		return bytes.get();
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	boolean isEmpty() {
+		return entries.isEmpty();
+	}
+}
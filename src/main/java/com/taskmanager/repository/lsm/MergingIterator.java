@@ -0,0 +1,64 @@
+package com.taskmanager.repository.lsm;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+// Merges sorted entry sources into one sorted sequence. Sources come newest first; when
+// several hold the same key only the newest entry comes out, deletions included, so the
+// caller decides whether a deletion still matters.
+final class MergingIterator implements Iterator<Entry> {
+
+	private static final class Head {
+		private final Iterator<Entry> source;
+		private final int age;
+		private Entry entry;
+
+		private Head(Iterator<Entry> source, int age) {
+			this.source = source;
+			this.age = age;
+		}
+	}
+
+	private final PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> {
+		int comparison = Keys.compare(a.entry.key, b.entry.key);
+		return comparison != 0 ? comparison : Integer.compare(a.age, b.age);
+	});
+
+	MergingIterator(List<Iterator<Entry>> newestFirst) {
+		for (int age = 0; age < newestFirst.size(); age++) {
+			Head head = new Head(newestFirst.get(age), age);
+			if (head.source.hasNext()) {
+				head.entry = head.source.next();
+				heads.add(head);
+			}
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return !heads.isEmpty();
+	}
+
+	@Override
+	public Entry next() {
+		Head newest = heads.poll();
+		if (newest == null) {
+			throw new NoSuchElementException();
+		}
+		Entry result = newest.entry;
+		advance(newest);
+		while (!heads.isEmpty() && Keys.compare(heads.peek().entry.key, result.key) == 0) {
+			advance(heads.poll());
+		}
+		return result;
+	}
+
+	private void advance(Head head) {
+		if (head.source.hasNext()) {
+			head.entry = head.source.next();
+			heads.add(head);
+		}
+	}
+}
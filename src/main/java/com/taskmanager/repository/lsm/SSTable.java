@@ -0,0 +1,294 @@
+package com.taskmanager.repository.lsm;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// An immutable sorted run of entries in one file:
+//   data blocks   entries of [int key length][key][int value length, -1 for a deletion][value],
+//                 cut into blocks of about BLOCK_SIZE bytes
+//   block index   [int block count], then per block [int key length][first key][int offset][int length]
+//   bloom filter  over the task keys, see BloomFilter
+//   footer        [int index offset][int index length][int bloom offset][int bloom length]
+//                 [long entry count][int MAGIC]
+// The file is mapped read-only while the table is in use; the block index and the filter
+// live on the heap. A point read binary-searches the index and scans a single block.
+final class SSTable {
+
+	static final int BLOCK_SIZE = 4096;
+
+	private static final int MAGIC = 0x4C534D31;
+	private static final int FOOTER_SIZE = 4 * 4 + 8 + 4;
+
+	final long number;
+	final Path file;
+	final byte[] firstKey;
+	final byte[] lastKey;
+	final long entryCount;
+	final long sizeInBytes;
+
+	private final MappedByteBuffer data;
+	private final int dataEnd;
+	private final byte[][] blockKeys;
+	private final int[] blockOffsets;
+	private final BloomFilter bloom;
+
+	private SSTable(long number, Path file, MappedByteBuffer data) throws IOException {
+		this.number = number;
+		this.file = file;
+		this.data = data;
+		this.sizeInBytes = data.capacity();
+		int footer = data.capacity() - FOOTER_SIZE;
+		if (footer < 0 || data.getInt(footer + 24) != MAGIC) {
+			throw new IOException("Not a complete table file: " + file);
+		}
+		int indexOffset = data.getInt(footer);
+		int bloomOffset = data.getInt(footer + 8);
+		int bloomLength = data.getInt(footer + 12);
+		this.entryCount = data.getLong(footer + 16);
+		this.dataEnd = indexOffset;
+
+		ByteBuffer index = data.duplicate();
+		index.position(indexOffset);
+		int blocks = index.getInt();
+		blockKeys = new byte[blocks][];
+		blockOffsets = new int[blocks];
+		for (int i = 0; i < blocks; i++) {
+			blockKeys[i] = new byte[index.getInt()];
+			index.get(blockKeys[i]);
+			blockOffsets[i] = index.getInt();
+			index.getInt();
+		}
+		ByteBuffer filter = data.duplicate();
+		filter.position(bloomOffset).limit(bloomOffset + bloomLength);
+		bloom = BloomFilter.readFrom(filter);
+
+		firstKey = blocks == 0 ? new byte[0] : blockKeys[0];
+		byte[] last = firstKey;
+		for (Iterator<Entry> tail = iterator(blocks == 0 ? 0 : blockOffsets[blocks - 1], null); tail.hasNext();) {
+			last = tail.next().key;
+		}
+		lastKey = last;
+	}
+
+	static SSTable open(long number, Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new SSTable(number, file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	// null when the table holds nothing for the key
+	Entry get(byte[] key) {
+		if (key[0] == Keys.TASK && !bloom.mightContain(key)) {
+			return null;
+		}
+		int block = blockFor(key);
+		if (block < 0) {
+			return null;
+		}
+		int at = blockOffsets[block];
+		int end = block + 1 < blockOffsets.length ? blockOffsets[block + 1] : dataEnd;
+		while (at < end) {
+			int keyLength = data.getInt(at);
+			int comparison = Keys.compare(key, data, at + 4, keyLength);
+			int valueAt = at + 4 + keyLength;
+			int valueLength = data.getInt(valueAt);
+			if (comparison == 0) {
+				return new Entry(key, valueLength < 0 ? null : bytes(valueAt + 4, valueLength));
+			}
+			if (comparison < 0) {
+				return null;
+			}
+			at = valueAt + 4 + Math.max(valueLength, 0);
+		}
+		return null;
+	}
+
+	// entries with from <= key < to in key order; to may be null for the end of the table
+	Iterator<Entry> iterator(byte[] from, byte[] to) {
+		int block = blockFor(from);
+		Iterator<Entry> entries = iterator(block < 0 ? 0 : blockOffsets[block], to);
+		return new Iterator<Entry>() {
+			private Entry next = advance();
+
+			private Entry advance() {
+				while (entries.hasNext()) {
+					Entry entry = entries.next();
+					if (Keys.compare(entry.key, from) >= 0) {
+						return entry;
+					}
+				}
+				return null;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public Entry next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				Entry current = next;
+				next = entries.hasNext() ? entries.next() : null;
+				return current;
+			}
+		};
+	}
+
+	boolean overlaps(byte[] from, byte[] to) {
+		return Keys.compare(firstKey, to) < 0 && Keys.compare(lastKey, from) >= 0;
+	}
+
+	void delete() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	private Iterator<Entry> iterator(int start, byte[] to) {
+		return new Iterator<Entry>() {
+			private int at = start;
+
+			@Override
+			public boolean hasNext() {
+				return at < dataEnd && (to == null || Keys.compare(to, data, at + 4, data.getInt(at)) > 0);
+			}
+
+			@Override
+			public Entry next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				int keyLength = data.getInt(at);
+				byte[] key = bytes(at + 4, keyLength);
+				int valueAt = at + 4 + keyLength;
+				int valueLength = data.getInt(valueAt);
+				at = valueAt + 4 + Math.max(valueLength, 0);
+				return new Entry(key, valueLength < 0 ? null : bytes(valueAt + 4, valueLength));
+			}
+		};
+	}
+
+	// the last block whose first key is at or before key, -1 when key precedes the table
+	private int blockFor(byte[] key) {
+		int low = 0;
+		int high = blockKeys.length - 1;
+		int found = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (Keys.compare(blockKeys[middle], key) <= 0) {
+				found = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return found;
+	}
+
+	private byte[] bytes(int offset, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer view = data.duplicate();
+		view.position(offset);
+		view.get(bytes);
+		return bytes;
+	}
+
+	// Streams sorted entries into a new table file. Nothing refers to the file until the
+	// store lists it in its manifest, so a write cut short only leaves a file to sweep up.
+	static final class Writer {
+
+		private final long number;
+		private final Path file;
+		private final FileOutputStream stream;
+		private final DataOutputStream out;
+		private final BloomFilter bloom;
+		private final List<byte[]> blockKeys = new ArrayList<>();
+		private int[] blockOffsets = new int[64];
+		private int position;
+		private int blockStart = -1;
+		private long entryCount;
+
+		Writer(long number, Path file, long expectedKeys) throws IOException {
+			this.number = number;
+			this.file = file;
+			this.stream = new FileOutputStream(file.toFile());
+			this.out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+			this.bloom = BloomFilter.create(expectedKeys);
+		}
+
+		void add(Entry entry) throws IOException {
+			if (blockStart < 0 || position - blockStart >= BLOCK_SIZE) {
+				if (blockKeys.size() == blockOffsets.length) {
+					blockOffsets = Arrays.copyOf(blockOffsets, blockOffsets.length * 2);
+				}
+				blockOffsets[blockKeys.size()] = position;
+				blockKeys.add(entry.key);
+				blockStart = position;
+			}
+			out.writeInt(entry.key.length);
+			out.write(entry.key);
+			if (entry.isDeletion()) {
+				out.writeInt(-1);
+			} else {
+				out.writeInt(entry.value.length);
+				out.write(entry.value);
+			}
+			position += 8 + entry.key.length + (entry.isDeletion() ? 0 : entry.value.length);
+			if (entry.key[0] == Keys.TASK) {
+				bloom.add(entry.key);
+			}
+			entryCount++;
+		}
+
+		long size() {
+			return position;
+		}
+
+		SSTable finish() throws IOException {
+			int indexOffset = position;
+			out.writeInt(blockKeys.size());
+			int indexLength = 4;
+			for (int i = 0; i < blockKeys.size(); i++) {
+				byte[] key = blockKeys.get(i);
+				int end = i + 1 < blockKeys.size() ? blockOffsets[i + 1] : indexOffset;
+				out.writeInt(key.length);
+				out.write(key);
+				out.writeInt(blockOffsets[i]);
+				out.writeInt(end - blockOffsets[i]);
+				indexLength += 12 + key.length;
+			}
+			ByteBuffer filter = ByteBuffer.allocate(bloom.serializedSize());
+			bloom.writeTo(filter);
+			out.write(filter.array());
+			out.writeInt(indexOffset);
+			out.writeInt(indexLength);
+			out.writeInt(indexOffset + indexLength);
+			out.writeInt(filter.capacity());
+			out.writeLong(entryCount);
+			out.writeInt(MAGIC);
+			out.flush();
+			stream.getFD().sync();
+			out.close();
+			return open(number, file);
+		}
+
+		void abandon() throws IOException {
+			out.close();
+			Files.deleteIfExists(file);
+		}
+	}
+}
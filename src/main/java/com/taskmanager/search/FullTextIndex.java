@@ -0,0 +1,424 @@
+package com.taskmanager.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.TaskRepositoryListener;
+
+// Inverted index over task titles and descriptions, kept current by TaskRepository.
+//
+// Repository callbacks only record the latest change of each task; the next search, or
+// size and termCount, applies the recorded changes under the index's write lock. Saving a
+// task therefore never waits for tokenizing or for a search in progress, and a search sees
+// every change made before it started.
+//
+// Every indexed version of a task is a document with a dense doc number. Updating a task
+// retires its old doc number and appends a new one, so posting lists only ever grow at the
+// end; once retired numbers outnumber live ones, all lists are rewritten without them.
+// Document frequencies count live documents only, so ranking does not depend on how many
+// updates happened since the last rewrite.
+//
+// Queries are whitespace-separated terms that must all match; OR between terms starts an
+// alternative, and a trailing * matches every term with that prefix:
+//   "invoice march"   "invoice OR receipt"   "quart* report"
+// Hits are ranked with BM25; title words count twice.
+public class FullTextIndex implements TaskRepositoryListener {
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+	private static final int TITLE_WEIGHT = 2;
+	// a short prefix can match thousands of terms; beyond this many the rest are ignored
+	private static final int MAX_PREFIX_TERMS = 512;
+	private static final int MIN_RETIRED_DOCS_TO_COMPACT = 1024;
+
+	private static final class IndexedDoc {
+		private final int doc;
+		private final String title;
+		private final String description;
+
+		private IndexedDoc(int doc, String title, String description) {
+			this.doc = doc;
+			this.title = title;
+			this.description = description;
+		}
+	}
+
+	private static final class QueryTerm {
+		private final String text;
+		private final boolean prefix;
+
+		private QueryTerm(String text, boolean prefix) {
+			this.text = text;
+			this.prefix = prefix;
+		}
+	}
+
+	// marks a deleted task in pending
+	private static final Object DELETED = new Object();
+
+	// task id -> the task as last saved, or DELETED; not applied to the index yet
+	private final ConcurrentHashMap<String, Object> pending = new ConcurrentHashMap<>();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final TreeMap<String, PostingList> terms = new TreeMap<>();
+	private final Map<String, IndexedDoc> docsByTask = new HashMap<>();
+	// indexed by doc number; a null task id marks a retired document
+	private String[] docTaskIds = new String[1024];
+	private int[] docLengths = new int[1024];
+	private int nextDoc;
+	private int liveDocs;
+	private long liveLength;
+
+	// creates an index holding every task of the repository and keeps it up to date
+	public static FullTextIndex attach(TaskRepository taskRepository) {
+		FullTextIndex index = new FullTextIndex();
+		taskRepository.addListener(index);
+		return index;
+	}
+
+	@Override
+	public void onSaved(Task task) {
+		pending.put(task.getTaskId(), task);
+	}
+
+	@Override
+	public void onDeleted(String taskId) {
+		pending.put(taskId, DELETED);
+	}
+
+	@Override
+	public void onCleared() {
+		lock.writeLock().lock();
+		try {
+			pending.clear();
+			terms.clear();
+			docsByTask.clear();
+			docTaskIds = new String[1024];
+			docLengths = new int[1024];
+			nextDoc = 0;
+			liveDocs = 0;
+			liveLength = 0;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// ids of the best matching tasks, best first; limit 0 returns every match
+	public List<SearchHit> search(String query, int limit) {
+		List<List<QueryTerm>> alternatives = parse(query);
+		List<SearchHit> hits = new ArrayList<>();
+		if (alternatives.isEmpty()) {
+			return hits;
+		}
+		applyPending();
+		lock.readLock().lock();
+		try {
+			if (liveDocs == 0) {
+				return hits;
+			}
+			double averageLength = (double) liveLength / liveDocs;
+			ScoredDocs matches = ScoredDocs.EMPTY;
+			for (List<QueryTerm> alternative : alternatives) {
+				matches = ScoredDocs.union(matches, matchAll(alternative, averageLength));
+			}
+			return topHits(matches, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		applyPending();
+		lock.readLock().lock();
+		try {
+			return liveDocs;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int termCount() {
+		applyPending();
+		lock.readLock().lock();
+		try {
+			return terms.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Each change is taken out of pending before it is applied, so a change recorded
+	// meanwhile stays for the next call.
+	private void applyPending() {
+		if (pending.isEmpty()) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			for (String taskId : pending.keySet()) {
+				Object change = pending.remove(taskId);
+				if (change == DELETED) {
+					IndexedDoc existing = docsByTask.remove(taskId);
+					if (existing != null) {
+						retire(existing);
+					}
+				} else if (change != null) {
+					index((Task) change);
+				}
+			}
+			compactIfMostlyRetired();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void index(Task task) {
+		IndexedDoc existing = docsByTask.get(task.getTaskId());
+		if (existing != null && Objects.equals(existing.title, task.getTitle())
+				&& Objects.equals(existing.description, task.getDescription())) {
+			return;
+		}
+		if (existing != null) {
+			retire(existing);
+		}
+		addDocument(task.getTaskId(), task.getTitle(), task.getDescription());
+	}
+
+	private ScoredDocs matchAll(List<QueryTerm> queryTerms, double averageLength) {
+		List<PostingList> exact = new ArrayList<>(queryTerms.size());
+		List<ScoredDocs> expanded = new ArrayList<>();
+		for (QueryTerm term : queryTerms) {
+			if (term.prefix) {
+				ScoredDocs docs = match(term, averageLength);
+				if (docs.size == 0) {
+					return ScoredDocs.EMPTY;
+				}
+				expanded.add(docs);
+			} else {
+				PostingList postings = terms.get(term.text);
+				if (postings == null) {
+					return ScoredDocs.EMPTY;
+				}
+				exact.add(postings);
+			}
+		}
+		// rarest first keeps every intermediate result as small as possible; the other exact
+		// terms are only scored for the docs still in the running
+		exact.sort(Comparator.comparingInt(PostingList::liveCount));
+		expanded.sort(Comparator.comparingInt(docs -> docs.size));
+		ScoredDocs result = null;
+		for (PostingList postings : exact) {
+			result = result == null ? score(postings, averageLength) : scoreWithin(postings, result, averageLength);
+		}
+		for (ScoredDocs docs : expanded) {
+			result = result == null ? docs : ScoredDocs.intersect(result, docs);
+		}
+		return result;
+	}
+
+	private ScoredDocs match(QueryTerm term, double averageLength) {
+		if (!term.prefix) {
+			PostingList postings = terms.get(term.text);
+			return postings == null ? ScoredDocs.EMPTY : score(postings, averageLength);
+		}
+		ScoredDocs result = ScoredDocs.EMPTY;
+		Iterator<PostingList> expansions = terms.subMap(term.text, true, term.text + Character.MAX_VALUE, false)
+				.values().iterator();
+		for (int i = 0; i < MAX_PREFIX_TERMS && expansions.hasNext(); i++) {
+			result = ScoredDocs.union(result, score(expansions.next(), averageLength));
+		}
+		return result;
+	}
+
+	// BM25 contribution of one term for every live document holding it
+	private ScoredDocs score(PostingList postings, double averageLength) {
+		double idf = idf(postings.liveCount());
+		int[] docs = new int[postings.count()];
+		double[] scores = new double[postings.count()];
+		int[] size = new int[1];
+		postings.forEach((doc, frequency) -> {
+			if (docTaskIds[doc] != null) {
+				docs[size[0]] = doc;
+				scores[size[0]] = termScore(idf, doc, frequency, averageLength);
+				size[0]++;
+			}
+		});
+		return new ScoredDocs(docs, scores, size[0]);
+	}
+
+	// the candidates that also hold the term, with its contribution added to their score
+	private ScoredDocs scoreWithin(PostingList postings, ScoredDocs candidates, double averageLength) {
+		double idf = idf(postings.liveCount());
+		int[] docs = new int[candidates.size];
+		double[] scores = new double[candidates.size];
+		int[] cursor = new int[2];
+		postings.forEach((doc, frequency) -> {
+			while (cursor[0] < candidates.size && candidates.docs[cursor[0]] < doc) {
+				cursor[0]++;
+			}
+			if (cursor[0] < candidates.size && candidates.docs[cursor[0]] == doc) {
+				docs[cursor[1]] = doc;
+				scores[cursor[1]] = candidates.scores[cursor[0]] + termScore(idf, doc, frequency, averageLength);
+				cursor[1]++;
+			}
+		});
+		return new ScoredDocs(docs, scores, cursor[1]);
+	}
+
+	private double idf(int documentFrequency) {
+		return Math.max(0.01, Math.log(1 + (liveDocs - documentFrequency + 0.5) / (documentFrequency + 0.5)));
+	}
+
+	private double termScore(double idf, int doc, int frequency, double averageLength) {
+		double norm = K1 * (1 - B + B * docLengths[doc] / averageLength);
+		return idf * frequency * (K1 + 1) / (frequency + norm);
+	}
+
+	private List<SearchHit> topHits(ScoredDocs matches, int limit) {
+		int keep = limit <= 0 ? matches.size : Math.min(limit, matches.size);
+		List<SearchHit> hits = new ArrayList<>(keep);
+		if (keep == 0) {
+			return hits;
+		}
+		// min-heap of the best 'keep' positions seen so far
+		PriorityQueue<Integer> best = new PriorityQueue<>(keep,
+				Comparator.<Integer>comparingDouble(i -> matches.scores[i]).thenComparing(i -> -i));
+		for (int i = 0; i < matches.size; i++) {
+			if (best.size() < keep) {
+				best.add(i);
+			} else if (matches.scores[i] > matches.scores[best.peek()]) {
+				best.poll();
+				best.add(i);
+			}
+		}
+		while (!best.isEmpty()) {
+			int i = best.poll();
+			hits.add(new SearchHit(docTaskIds[matches.docs[i]], matches.scores[i]));
+		}
+		// the heap hands out the weakest first
+		Collections.reverse(hits);
+		return hits;
+	}
+
+	private void addDocument(String taskId, String title, String description) {
+		Map<String, Integer> frequencies = new HashMap<>();
+		int length = 0;
+		for (String token : Tokenizer.tokenize(title)) {
+			frequencies.merge(token, TITLE_WEIGHT, Integer::sum);
+			length += TITLE_WEIGHT;
+		}
+		for (String token : Tokenizer.tokenize(description)) {
+			frequencies.merge(token, 1, Integer::sum);
+			length++;
+		}
+		int doc = nextDoc++;
+		if (doc == docTaskIds.length) {
+			docTaskIds = Arrays.copyOf(docTaskIds, doc * 2);
+			docLengths = Arrays.copyOf(docLengths, doc * 2);
+		}
+		docTaskIds[doc] = taskId;
+		docLengths[doc] = length;
+		liveDocs++;
+		liveLength += length;
+		for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+			terms.computeIfAbsent(entry.getKey(), term -> new PostingList()).add(doc, entry.getValue());
+		}
+		docsByTask.put(taskId, new IndexedDoc(doc, title, description));
+	}
+
+	// the document's terms are found again from the text it was indexed with
+	private void retire(IndexedDoc indexed) {
+		Set<String> docTerms = new HashSet<>(Tokenizer.tokenize(indexed.title));
+		docTerms.addAll(Tokenizer.tokenize(indexed.description));
+		for (String term : docTerms) {
+			terms.get(term).retire();
+		}
+		docTaskIds[indexed.doc] = null;
+		liveDocs--;
+		liveLength -= docLengths[indexed.doc];
+	}
+
+	// renumbers the live documents densely and rewrites every posting list without the
+	// retired ones; amortized over the updates that retired them
+	private void compactIfMostlyRetired() {
+		int retired = nextDoc - liveDocs;
+		if (retired < MIN_RETIRED_DOCS_TO_COMPACT || retired <= liveDocs) {
+			return;
+		}
+		int[] remap = new int[nextDoc];
+		int capacity = Math.max(1024, Integer.highestOneBit(Math.max(1, liveDocs)) * 2);
+		String[] compactedTaskIds = new String[capacity];
+		int[] compactedLengths = new int[capacity];
+		int next = 0;
+		for (int doc = 0; doc < nextDoc; doc++) {
+			if (docTaskIds[doc] == null) {
+				remap[doc] = -1;
+			} else {
+				remap[doc] = next;
+				compactedTaskIds[next] = docTaskIds[doc];
+				compactedLengths[next] = docLengths[doc];
+				next++;
+			}
+		}
+		for (Iterator<Map.Entry<String, PostingList>> it = terms.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, PostingList> entry = it.next();
+			PostingList compacted = entry.getValue().remap(remap);
+			if (compacted.count() == 0) {
+				it.remove();
+			} else {
+				entry.setValue(compacted);
+			}
+		}
+		for (Map.Entry<String, IndexedDoc> entry : docsByTask.entrySet()) {
+			IndexedDoc doc = entry.getValue();
+			entry.setValue(new IndexedDoc(remap[doc.doc], doc.title, doc.description));
+		}
+		docTaskIds = compactedTaskIds;
+		docLengths = compactedLengths;
+		nextDoc = next;
+	}
+
+	// "a b OR c*" -> [[a, b], [c*]]; AND is accepted and ignored, it is the default
+	private static List<List<QueryTerm>> parse(String query) {
+		List<List<QueryTerm>> alternatives = new ArrayList<>();
+		if (query == null) {
+			return alternatives;
+		}
+		List<QueryTerm> current = new ArrayList<>();
+		for (String word : query.trim().split("\\s+")) {
+			if (word.equals("OR")) {
+				if (!current.isEmpty()) {
+					alternatives.add(current);
+				}
+				current = new ArrayList<>();
+				continue;
+			}
+			if (word.equals("AND")) {
+				continue;
+			}
+			boolean prefix = word.endsWith("*");
+			List<String> tokens = Tokenizer.tokenize(prefix ? word.replaceAll("\\*+$", "") : word);
+			for (int i = 0; i < tokens.size(); i++) {
+				current.add(new QueryTerm(tokens.get(i), prefix && i == tokens.size() - 1));
+			}
+		}
+		if (!current.isEmpty()) {
+			alternatives.add(current);
+		}
+		return alternatives;
+	}
+}
@@ -0,0 +1,93 @@
+package com.taskmanager.search;
+
+import java.util.Arrays;
+
+// The documents containing one term, in ascending doc number order, each with the term's
+// weighted frequency. Stored as varint-encoded gaps, so a posting usually takes 2 bytes:
+//   varint(doc - previousDoc) varint(frequency) ...
+// Doc numbers only ever grow, so adding a document is an append.
+final class PostingList {
+
+	interface Visitor {
+		void visit(int doc, int frequency);
+	}
+
+	private byte[] data = new byte[8];
+	private int length;
+	private int count;
+	private int liveCount;
+	private int lastDoc = -1;
+
+	void add(int doc, int frequency) {
+		if (doc <= lastDoc) {
+			throw new IllegalArgumentException("Doc numbers must be added in ascending order");
+		}
+		if (data.length - length < 10) {
+			data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+		}
+		writeVarint(doc - lastDoc);
+		writeVarint(frequency);
+		lastDoc = doc;
+		count++;
+		liveCount++;
+	}
+
+	// postings ever added, including ones of documents deleted since
+	int count() {
+		return count;
+	}
+
+	// postings of documents not retired yet, i.e. the term's document frequency
+	int liveCount() {
+		return liveCount;
+	}
+
+	// one of the documents holding the term was retired; its posting stays until remap
+	void retire() {
+		liveCount--;
+	}
+
+	void forEach(Visitor visitor) {
+		int position = 0;
+		int doc = -1;
+		while (position < length) {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = data[position++];
+				value |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			doc += value;
+			int frequency = 0;
+			shift = 0;
+			do {
+				b = data[position++];
+				frequency |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			visitor.visit(doc, frequency);
+		}
+	}
+
+	// rewrites the list under new doc numbers; remap[doc] < 0 drops the posting, and every
+	// retired document is expected to be dropped
+	PostingList remap(int[] remap) {
+		PostingList compacted = new PostingList();
+		forEach((doc, frequency) -> {
+			if (remap[doc] >= 0) {
+				compacted.add(remap[doc], frequency);
+			}
+		});
+		return compacted;
+	}
+
+	private void writeVarint(int value) {
+		while ((value & ~0x7f) != 0) {
+			data[length++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		data[length++] = (byte) value;
+	}
+}
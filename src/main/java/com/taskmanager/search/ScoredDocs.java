@@ -0,0 +1,73 @@
+package com.taskmanager.search;
+
+import java.util.Arrays;
+
+// Doc numbers in ascending order with a score each: the intermediate result of a search.
+final class ScoredDocs {
+
+	static final ScoredDocs EMPTY = new ScoredDocs(new int[0], new double[0], 0);
+
+	final int[] docs;
+	final double[] scores;
+	final int size;
+
+	ScoredDocs(int[] docs, double[] scores, int size) {
+		this.docs = docs;
+		this.scores = scores;
+		this.size = size;
+	}
+
+	// docs in both, scores added; binary searches the larger list from the last hit onwards,
+	// so a rare term intersected with a common one costs O(rare * log common)
+	static ScoredDocs intersect(ScoredDocs a, ScoredDocs b) {
+		if (a.size > b.size) {
+			ScoredDocs swap = a;
+			a = b;
+			b = swap;
+		}
+		int[] docs = new int[a.size];
+		double[] scores = new double[a.size];
+		int count = 0;
+		int from = 0;
+		for (int i = 0; i < a.size && from < b.size; i++) {
+			int j = Arrays.binarySearch(b.docs, from, b.size, a.docs[i]);
+			if (j >= 0) {
+				docs[count] = a.docs[i];
+				scores[count] = a.scores[i] + b.scores[j];
+				count++;
+				from = j + 1;
+			} else {
+				from = -j - 1;
+			}
+		}
+		return new ScoredDocs(docs, scores, count);
+	}
+
+	// docs in either, scores of docs in both added
+	static ScoredDocs union(ScoredDocs a, ScoredDocs b) {
+		if (a.size == 0) {
+			return b;
+		}
+		if (b.size == 0) {
+			return a;
+		}
+		int[] docs = new int[a.size + b.size];
+		double[] scores = new double[a.size + b.size];
+		int i = 0;
+		int j = 0;
+		int count = 0;
+		while (i < a.size || j < b.size) {
+			if (j == b.size || (i < a.size && a.docs[i] < b.docs[j])) {
+				docs[count] = a.docs[i];
+				scores[count++] = a.scores[i++];
+			} else if (i == a.size || b.docs[j] < a.docs[i]) {
+				docs[count] = b.docs[j];
+				scores[count++] = b.scores[j++];
+			} else {
+				docs[count] = a.docs[i];
+				scores[count++] = a.scores[i++] + b.scores[j++];
+			}
+		}
+		return new ScoredDocs(docs, scores, count);
+	}
+}
@@ -0,0 +1,26 @@
+package com.taskmanager.search;
+
+// A matching task and its relevance score; higher scores rank first.
+public final class SearchHit {
+
+	private final String taskId;
+	private final double score;
+
+	SearchHit(String taskId, double score) {
+		this.taskId = taskId;
+		this.score = score;
+	}
+
+	public String getTaskId() {
+		return taskId;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	@Override
+	public String toString() {
+		return taskId + " (" + String.format("%.3f", score) + ")";
+	}
+}
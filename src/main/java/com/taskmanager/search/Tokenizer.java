@@ -0,0 +1,36 @@
+package com.taskmanager.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Splits text into lower-case runs of letters and digits. Single characters are dropped:
+// their posting lists would cover most of the store and match nothing useful.
+final class Tokenizer {
+
+	static final int MIN_TOKEN_LENGTH = 2;
+	static final int MAX_TOKEN_LENGTH = 64;
+
+	private Tokenizer() {
+	}
+
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (wordChar && start < 0) {
+				start = i;
+			} else if (!wordChar && start >= 0) {
+				if (i - start >= MIN_TOKEN_LENGTH) {
+					tokens.add(text.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)).toLowerCase(Locale.ROOT));
+				}
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+}
@@ -0,0 +1,75 @@
+package com.taskmanager.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.taskmanager.model.Task;
+
+// Outcome of a batch call on TaskService, one item per input in input order.
+public class BatchResult {
+
+	public static final class Item {
+		private final String taskId;
+		private final Task task;
+		private final Exception error;
+
+		private Item(String taskId, Task task, Exception error) {
+			this.taskId = taskId;
+			this.task = task;
+			this.error = error;
+		}
+
+		public String getTaskId() {
+			return taskId;
+		}
+
+		// the created or updated task; null for deletes and failures
+		public Task getTask() {
+			return task;
+		}
+
+		public Exception getError() {
+			return error;
+		}
+
+		public boolean isSuccess() {
+			return error == null;
+		}
+
+		@Override
+		public String toString() {
+			return taskId + (isSuccess() ? ": OK" : ": " + error.getMessage());
+		}
+	}
+
+	private final List<Item> items;
+
+	BatchResult(int expectedSize) {
+		this.items = new ArrayList<>(expectedSize);
+	}
+
+	void succeeded(String taskId, Task task) {
+		items.add(new Item(taskId, task, null));
+	}
+
+	void failed(String taskId, Exception error) {
+		items.add(new Item(taskId, null, error));
+	}
+
+	public List<Item> getItems() {
+		return Collections.unmodifiableList(items);
+	}
+
+	public long getSuccessCount() {
+		return items.stream().filter(Item::isSuccess).count();
+	}
+
+	public long getFailureCount() {
+		return items.size() - getSuccessCount();
+	}
+
+	public boolean isAllSuccessful() {
+		return getFailureCount() == 0;
+	}
+}
@@ -0,0 +1,8 @@
+package com.taskmanager.service;
+
+// What deleting a category does to the tasks still in it.
+public enum CategoryDeleteMode {
+	REJECT_IF_USED,	// refuse to delete a category that still has tasks
+	CASCADE_DELETE,	// delete its tasks along with it
+	REASSIGN		// move its tasks to another category first
+}
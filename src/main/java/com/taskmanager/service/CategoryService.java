@@ -1,39 +1,176 @@
 package com.taskmanager.service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.taskmanager.event.CategoryCreated;
+import com.taskmanager.event.CategoryDeleted;
+import com.taskmanager.event.CategoryUpdated;
+import com.taskmanager.event.DomainEventBus;
+import com.taskmanager.event.TaskDeleted;
+import com.taskmanager.event.TaskUpdated;
+import com.taskmanager.exception.CategoryInUseException;
 import com.taskmanager.exception.CategoryNotFoundException;
 import com.taskmanager.model.Category;
+import com.taskmanager.model.Task;
 import com.taskmanager.repository.CategoryRepository;
+import com.taskmanager.repository.TaskRepository;
 
 public class CategoryService {
+    // tasks per repository call when a delete moves or deletes a category's tasks
+    static final int DELETE_BATCH_SIZE = 1000;
+
     private final CategoryRepository categoryRepository;
+    // null when the service does not know the tasks, which leaves them out of deletes
+    private final TaskRepository taskRepository;
+    private final DomainEventBus eventBus;
 
     public CategoryService(CategoryRepository categoryRepository) {
+        this(categoryRepository, null, new DomainEventBus());
+    }
+
+    public CategoryService(CategoryRepository categoryRepository, DomainEventBus eventBus) {
+        this(categoryRepository, null, eventBus);
+    }
+
+    public CategoryService(CategoryRepository categoryRepository, TaskRepository taskRepository) {
+        this(categoryRepository, taskRepository, new DomainEventBus());
+    }
+
+    public CategoryService(CategoryRepository categoryRepository, TaskRepository taskRepository,
+            DomainEventBus eventBus) {
         this.categoryRepository = categoryRepository;
+        this.taskRepository = taskRepository;
+        this.eventBus = eventBus;
+    }
+
+    public DomainEventBus getEventBus() {
+        return eventBus;
     }
 
     public Category createCategory(Category category) {
     	if(category==null) {
     		throw new IllegalArgumentException("Category cannot be null");
     	}
-    	return categoryRepository.save(category);
+    	Category created = categoryRepository.save(category);
+    	eventBus.publish(new CategoryCreated(created));
+    	return created;
     }
 
 
     public Category updateCategory(String categoryId, Category updatedCategory) throws CategoryNotFoundException {
-        if (!categoryRepository.exists(categoryId)) {
-            throw new CategoryNotFoundException("Category not found with ID: " + categoryId);
-        }
+        Category existingCategory = getCategoryById(categoryId);
         updatedCategory.setCategoryId(categoryId);
-        return categoryRepository.save(updatedCategory);
+        Category updated = categoryRepository.save(updatedCategory);
+        eventBus.publish(new CategoryUpdated(existingCategory, updated));
+        return updated;
     }
 
+    // deletes the category alone, leaving any tasks in it as they are; the overload taking a
+    // CategoryDeleteMode decides what happens to them
     public void deleteCategory(String categoryId) throws CategoryNotFoundException {
-        if (!categoryRepository.exists(categoryId)) {
-            throw new CategoryNotFoundException("Category not found with ID: " + categoryId);
-        }
+        Category existingCategory = getCategoryById(categoryId);
         categoryRepository.deleteById(categoryId);
+        eventBus.publish(new CategoryDeleted(existingCategory));
+    }
+
+    // Deletes the category and, depending on mode, deletes its tasks or moves them to the
+    // category targetCategoryId (only used by REASSIGN). The tasks are found through the
+    // repository's category index and handled DELETE_BATCH_SIZE at a time, each batch with a
+    // single log commit, so the work grows with the category, not with the whole repository.
+    // The category is retired in the task repository first, so saving a task into it fails
+    // from then on and no task is left pointing at the deleted category; for REJECT_IF_USED
+    // the check for tasks and the retirement are one step. progress may be null. Returns the
+    // number of tasks deleted or moved.
+    public long deleteCategory(String categoryId, CategoryDeleteMode mode, String targetCategoryId,
+            ProgressListener progress) throws CategoryNotFoundException, CategoryInUseException {
+        if (taskRepository == null) {
+            throw new IllegalStateException("Deleting a category with its tasks needs the task repository");
+        }
+        Category existingCategory = getCategoryById(categoryId);
+        Category target = null;
+        if (mode == CategoryDeleteMode.REASSIGN) {
+            if (categoryId.equals(targetCategoryId)) {
+                throw new IllegalArgumentException("Cannot reassign tasks to the category being deleted");
+            }
+            target = getCategoryById(targetCategoryId);
+        }
+        if (mode == CategoryDeleteMode.REJECT_IF_USED) {
+            if (!taskRepository.retireCategoryIfUnused(categoryId)) {
+                throw new CategoryInUseException("Category " + existingCategory.getName() + " still has "
+                        + taskRepository.countByCategoryId(categoryId) + " task(s)");
+            }
+        } else {
+            taskRepository.retireCategory(categoryId);
+        }
+
+        long done = 0;
+        try {
+            long total = taskRepository.countByCategoryId(categoryId);
+            List<String> batch = taskRepository.findIdsByCategoryId(categoryId, DELETE_BATCH_SIZE);
+            while (!batch.isEmpty()) {
+                int handled = mode == CategoryDeleteMode.CASCADE_DELETE ? deleteTasks(batch)
+                        : reassignTasks(batch, categoryId, target);
+                done += handled;
+                total = Math.max(total, done);
+                if (progress != null) {
+                    progress.onProgress(done, total);
+                }
+                List<String> next = taskRepository.findIdsByCategoryId(categoryId, DELETE_BATCH_SIZE);
+                if (handled == 0 && next.equals(batch)) {
+                    throw new IllegalStateException("Tasks of category " + categoryId + " could not be moved");
+                }
+                batch = next;
+            }
+            categoryRepository.deleteById(categoryId);
+        } catch (RuntimeException e) {
+            taskRepository.reinstateCategory(categoryId);
+            throw e;
+        }
+        eventBus.publish(new CategoryDeleted(existingCategory));
+        return done;
+    }
+
+    private int deleteTasks(List<String> taskIds) {
+        List<Task> deleted = taskRepository.deleteAllAndGet(taskIds);
+        for (Task task : deleted) {
+            eventBus.publish(new TaskDeleted(task));
+        }
+        return deleted.size();
+    }
+
+    // One compare-and-save call per round; a task another update got to first is read again,
+    // and left alone if that update already moved it out of the category. Membership comes
+    // from the category index, the same one the batches are read from, rather than from the
+    // task's Category, which is mutable and may be shared.
+    private int reassignTasks(List<String> taskIds, String categoryId, Category target) {
+        int moved = 0;
+        List<String> pending = taskIds;
+        while (!pending.isEmpty()) {
+            List<Task> read = new ArrayList<>(pending.size());
+            List<Task> changed = new ArrayList<>(pending.size());
+            for (String taskId : pending) {
+                Optional<Task> task = taskRepository.findById(taskId);
+                if (!task.isPresent() || !taskRepository.isInCategory(taskId, categoryId)) {
+                    continue;
+                }
+                read.add(task.get());
+                changed.add(task.get().withCategory(target));
+            }
+            List<Task> results = taskRepository.compareAndSaveAll(changed);
+            pending = new ArrayList<>();
+            for (int i = 0; i < changed.size(); i++) {
+                if (results.get(i) == null) {
+                    pending.add(changed.get(i).getTaskId());
+                } else {
+                    moved++;
+                    eventBus.publish(TaskUpdated.of(read.get(i), results.get(i)));
+                }
+            }
+        }
+        return moved;
     }
 
     public Category getCategoryById(String categoryId) throws CategoryNotFoundException {
@@ -44,6 +181,14 @@ public class CategoryService {
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
+
+    public void forEachCategory(Consumer<? super Category> action) {
+        categoryRepository.forEach(action);
+    }
+
+    public Optional<Category> findAnyCategory() {
+        return categoryRepository.stream().findAny();
+    }
 }
 
 
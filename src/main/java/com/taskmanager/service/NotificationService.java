@@ -5,27 +5,69 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import com.taskmanager.model.Task;
+import com.taskmanager.notification.Notification;
+import com.taskmanager.notification.NotificationPipeline;
+import com.taskmanager.reminder.Reminder;
+import com.taskmanager.reminder.ReminderKind;
+import com.taskmanager.reminder.ReminderListener;
+import com.taskmanager.reminder.ReminderScheduler;
 
-public class NotificationService {
+public class NotificationService implements ReminderListener {
 	private final TaskService taskService;
+	private final NotificationPipeline notificationPipeline;
 
 	public NotificationService(TaskService taskService) {
 		this.taskService = taskService;
+		this.notificationPipeline = null;
+	}
+
+	// also prints every reminder the scheduler fires, as it fires
+	public NotificationService(TaskService taskService, ReminderScheduler reminderScheduler) {
+		this(taskService);
+		reminderScheduler.addListener(this);
+	}
+
+	// hands reminders to the pipeline instead, so the scheduler thread never waits on a sink
+	public NotificationService(TaskService taskService, ReminderScheduler reminderScheduler,
+			NotificationPipeline notificationPipeline) {
+		this.taskService = taskService;
+		this.notificationPipeline = notificationPipeline;
+		reminderScheduler.addListener(this);
+	}
+
+	@Override
+	public void onReminder(Reminder reminder) {
+		Task task = reminder.getTask();
+		String message;
+		if (reminder.getKind() == ReminderKind.OVERDUE) {
+			message = "ALERT: Task '" + task.getTitle() + "' is overdue! (Due: " + task.getDueDate() + ")";
+		} else {
+			message = String.format("Reminder! Task '%s' is due on %s.", task.getTitle(),
+					task.getDueDate().format(DateTimeFormatter.ISO_LOCAL_DATE));
+		}
+		if (notificationPipeline == null) {
+			System.out.println(message);
+		} else {
+			notificationPipeline.publish(new Notification(task.getTaskId(), message));
+		}
 	}
 
 	public void checkAndNotify() {
-		List<Task> allTasks = taskService.getAllTasks();
+		List<Task> dueTasks = taskService.getTasksDueBefore(LocalDateTime.now());
 		System.out.println("Checking for overdue tasks...");
 
-		for (Task task : allTasks) {
-			if (task.getDueDate().isBefore(LocalDateTime.now())) {
-				System.out.printf("Reminder! Task '%s' is overdue since %s.%n", task.getTitle(),
-						task.getDueDate().format(DateTimeFormatter.ISO_LOCAL_DATE));
-
-			}
+		for (Task task : dueTasks) {
+			System.out.printf("Reminder! Task '%s' is overdue since %s.%n", task.getTitle(),
+					task.getDueDate().format(DateTimeFormatter.ISO_LOCAL_DATE));
 		}
 	}
 
+	public void checkUpcomingTasks(long withinHours) {
+		List<Task> upcomingTasks = taskService.getUpcomingTasks(withinHours);
+		upcomingTasks.forEach(task -> System.out.printf("Reminder! Task '%s' is due on %s.%n", task.getTitle(),
+				task.getDueDate().format(DateTimeFormatter.ISO_LOCAL_DATE)));
+	}
+
 	public void checkOverdueTasks() {
 		List<Task> overdueTasks = taskService.getOverdueTasks();
 		overdueTasks.forEach(task -> System.out
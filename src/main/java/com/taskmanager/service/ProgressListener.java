@@ -0,0 +1,8 @@
+package com.taskmanager.service;
+
+public interface ProgressListener {
+
+	// called after each batch; total is an estimate made at the start and grows if more
+	// work turns up
+	void onProgress(long done, long total);
+}
@@ -3,55 +3,53 @@ package com.taskmanager.service;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 
 import com.taskmanager.model.Priority;
 import com.taskmanager.model.Status;
 import com.taskmanager.model.Task;
 import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.TaskStatistics;
 
 public class ReportService {
 	private final TaskRepository taskRepository;
+	private final TaskStatistics statistics;
 
 	public ReportService(TaskRepository taskRepository) {
 		this.taskRepository = taskRepository;
+		this.statistics = taskRepository.getStatistics();
 	}
 
 	public long tasksCountByStatus(Status status) {
-		return taskRepository.findAll().stream().filter(task -> task.getStatus() == status).count();
+		return statistics.countByStatus(status);
 	}
 
 	public long tasksCountByPriority(Priority priority) {
-		return taskRepository.findAll().stream().filter(task -> task.getPriority() == priority).count();
+		return statistics.countByPriority(priority);
 	}
 
 	public Map<Status, Long> taskStatusReport() {
-		return taskRepository.findAll().stream().collect(Collectors.groupingBy(Task::getStatus, Collectors.counting()));
+		return statistics.statusCounts();
 	}
 
 	public Map<Priority, Long> taskPriorityReport() {
-		return taskRepository.findAll().stream()
-				.collect(Collectors.groupingBy(Task::getPriority, Collectors.counting()));
+		return statistics.priorityCounts();
 	}
 
 	public Map<String, Long> categoryReport() {
-		return taskRepository.findAll().stream()
-				.collect(Collectors.groupingBy(task -> task.getCategory().getName(), Collectors.counting()));
+		return statistics.categoryCountsByName();
 	}
 
 	public long overdueTasksCount() {
-		return taskRepository.findAll().stream()
-				.filter(task -> task.getDueDate().isBefore(LocalDateTime.now()) && task.getStatus() != Status.COMPLETED)
-				.count();
+		return taskRepository.countOverdue(LocalDateTime.now());
 	}
 
 	public String generateReport() {
 		StringBuilder report = new StringBuilder();
-		List<Task> allTasks = taskRepository.findAll();
 
 		report.append("Task Management Report\n\n");
 
-		report.append("Total Tasks: ").append(allTasks.size()).append("\n\n");
+		report.append("Total Tasks: ").append(statistics.total()).append("\n\n");
 
 		report.append("Status Count:\n");
 		taskStatusReport().forEach((status, count) -> report.append(status).append(": ").append(count).append("\n"));
@@ -72,4 +70,9 @@ public class ReportService {
 	public List<Task> getAllTasks() {
 		return taskRepository.findAll();
 	}
-}
\ No newline at end of file
+
+	// counts matching tasks straight off the repository, without collecting them
+	public long countTasks(Predicate<? super Task> filter) {
+		return taskRepository.stream().filter(filter).count();
+	}
+}
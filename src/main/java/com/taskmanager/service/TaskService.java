@@ -1,17 +1,38 @@
 package com.taskmanager.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
+import com.taskmanager.event.DomainEventBus;
+import com.taskmanager.event.TaskCreated;
+import com.taskmanager.event.TaskDeleted;
+import com.taskmanager.event.TaskUpdated;
 import com.taskmanager.exception.DuplicateTaskException;
 import com.taskmanager.exception.InvalidDateException;
+import com.taskmanager.exception.TaskConflictException;
 import com.taskmanager.exception.TaskNotFoundException;
 import com.taskmanager.exception.TaskValidationException;
 import com.taskmanager.model.Priority;
 import com.taskmanager.model.Task;
 import com.taskmanager.model.Status;
+import com.taskmanager.repository.Page;
+import com.taskmanager.repository.QueryPlan;
+import com.taskmanager.repository.TaskOrder;
+import com.taskmanager.repository.TaskQuery;
 import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.search.FullTextIndex;
+import com.taskmanager.search.SearchHit;
 import com.taskmanager.util.DateValidator;
 import com.taskmanager.util.TaskValidator;
 
@@ -19,92 +40,293 @@ public class TaskService {
 	private final TaskRepository taskRepository;
     private final TaskValidator taskValidator;
     private final DateValidator dateValidator;
+    private final DomainEventBus eventBus;
+
+    // built on the first search, then kept current by the repository
+    private volatile FullTextIndex searchIndex;
 
     public TaskService(TaskRepository taskRepository, TaskValidator taskValidator, DateValidator dateValidator) {
+        this(taskRepository, taskValidator, dateValidator, new DomainEventBus());
+    }
+
+    // every change made through the service is published on eventBus once it is saved
+    public TaskService(TaskRepository taskRepository, TaskValidator taskValidator, DateValidator dateValidator,
+            DomainEventBus eventBus) {
         this.taskRepository = taskRepository;
         this.taskValidator = taskValidator;
         this.dateValidator = dateValidator;
+        this.eventBus = eventBus;
+    }
+
+    public DomainEventBus getEventBus() {
+        return eventBus;
     }
 
     public Task createTask(Task task) throws DuplicateTaskException, InvalidDateException, TaskValidationException {
         taskValidator.validateTask(task);
         dateValidator.validateFutureDate(task.getDueDate());
        
-        if (isDuplicateTask(task)) {
-            throw new DuplicateTaskException("This is duplicate task. Task is already available.");
+        Task created = taskRepository.saveIfUnique(task)
+            .orElseThrow(() -> new DuplicateTaskException("This is duplicate task. Task is already available."));
+        eventBus.publish(new TaskCreated(created));
+        return created;
+    }
+
+    // Validates every task in one pass, then saves the valid ones with a single repository
+    // call. Duplicates of stored tasks and repeats within the batch fail individually.
+    public BatchResult createTasks(Collection<Task> tasks) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Task, Exception> errors = new IdentityHashMap<>();
+        Map<Task, Boolean> seen = new IdentityHashMap<>();
+        List<Task> valid = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (task == null || seen.put(task, Boolean.TRUE) != null) {
+                continue;
+            }
+            try {
+                taskValidator.validateTask(task);
+                dateValidator.validateFutureDate(task.getDueDate(), now);
+                valid.add(task);
+            } catch (TaskValidationException | InvalidDateException e) {
+                errors.put(task, e);
+            }
+        }
+        Map<Task, Task> created = new IdentityHashMap<>();
+        List<Task> saved = taskRepository.saveAllIfUnique(valid);
+        for (int i = 0; i < saved.size(); i++) {
+            if (saved.get(i) != null) {
+                created.put(valid.get(i), saved.get(i));
+            } else {
+                errors.put(valid.get(i), new DuplicateTaskException("This is duplicate task. Task is already available."));
+            }
+        }
+
+        BatchResult result = new BatchResult(tasks.size());
+        Set<Task> reported = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Task task : tasks) {
+            if (task == null) {
+                result.failed(null, new TaskValidationException("Task cannot be null"));
+            } else if (!reported.add(task)) {
+                result.failed(task.getTaskId(), new DuplicateTaskException("Task appears more than once in the batch."));
+            } else if (errors.containsKey(task)) {
+                result.failed(task.getTaskId(), errors.get(task));
+            } else {
+                Task stored = created.get(task);
+                result.succeeded(stored.getTaskId(), stored);
+                eventBus.publish(new TaskCreated(stored));
+            }
+        }
+        return result;
+    }
+
+    // Saves the changed tasks with one compare-and-save call per round; tasks another
+    // update got to first are read again and go into the next round.
+    public BatchResult updateTaskStatuses(Map<String, Status> newStatuses) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Exception> errors = new HashMap<>();
+        Map<String, Task> saved = new HashMap<>();
+        Map<String, Task> previous = new HashMap<>();
+        Collection<String> pending = new ArrayList<>(newStatuses.size());
+        for (Map.Entry<String, Status> update : newStatuses.entrySet()) {
+            if (update.getValue() == null) {
+                errors.put(update.getKey(), new TaskValidationException("Task status cannot be null"));
+            } else {
+                pending.add(update.getKey());
+            }
+        }
+        while (!pending.isEmpty()) {
+            List<Task> read = new ArrayList<>(pending.size());
+            List<Task> changed = new ArrayList<>(pending.size());
+            for (String taskId : pending) {
+                Optional<Task> existingTask = taskRepository.findById(taskId);
+                if (!existingTask.isPresent()) {
+                    errors.put(taskId, new TaskNotFoundException("Task not found with ID: " + taskId));
+                    continue;
+                }
+                read.add(existingTask.get());
+                changed.add(existingTask.get().toBuilder().status(newStatuses.get(taskId)).lastModifiedDate(now).build());
+            }
+            List<Task> results = taskRepository.compareAndSaveAll(changed);
+            pending = new ArrayList<>();
+            for (int i = 0; i < changed.size(); i++) {
+                if (results.get(i) == null) {
+                    pending.add(changed.get(i).getTaskId());
+                } else {
+                    saved.put(changed.get(i).getTaskId(), results.get(i));
+                    previous.put(changed.get(i).getTaskId(), read.get(i));
+                }
+            }
+        }
+
+        BatchResult result = new BatchResult(newStatuses.size());
+        for (String taskId : newStatuses.keySet()) {
+            if (errors.containsKey(taskId)) {
+                result.failed(taskId, errors.get(taskId));
+            } else {
+                result.succeeded(taskId, saved.get(taskId));
+                eventBus.publish(TaskUpdated.of(previous.get(taskId), saved.get(taskId)));
+            }
+        }
+        return result;
+    }
+
+    public BatchResult deleteTasks(Collection<String> taskIds) {
+        Map<String, Task> deleted = new HashMap<>();
+        for (Task task : taskRepository.deleteAllAndGet(taskIds)) {
+            deleted.put(task.getTaskId(), task);
         }
-        return taskRepository.save(task);
+        BatchResult result = new BatchResult(taskIds.size());
+        for (String taskId : taskIds) {
+            Task task = deleted.remove(taskId);
+            if (task != null) {
+                result.succeeded(taskId, null);
+                eventBus.publish(new TaskDeleted(task));
+            } else {
+                result.failed(taskId, new TaskNotFoundException("Task not found with ID: " + taskId));
+            }
+        }
+        return result;
     }
 
     public Task updateTask(String taskId, Task updatedTask) throws TaskNotFoundException {
+        return updateWithRetry(taskId, existingTask -> existingTask.toBuilder()
+                .title(updatedTask.getTitle())
+                .description(updatedTask.getDescription())
+                .dueDate(updatedTask.getDueDate())
+                .priority(updatedTask.getPriority())
+                .category(updatedTask.getCategory())
+                .status(updatedTask.getStatus())
+                .lastModifiedDate(LocalDateTime.now())
+                .build());
+    }
+
+    // Saves the task change makes of the stored one, unless another update was saved since
+    // the task was read; then it reads the task again and reapplies change, until it wins.
+    public Task updateWithRetry(String taskId, UnaryOperator<Task> change) throws TaskNotFoundException {
+        while (true) {
+            Task existingTask = getTaskById(taskId);
+            Optional<Task> saved = taskRepository.compareAndSave(existingTask.getVersion(), change.apply(existingTask));
+            if (saved.isPresent()) {
+                eventBus.publish(TaskUpdated.of(existingTask, saved.get()));
+                return saved.get();
+            }
+        }
+    }
+
+    // Same, but with a single attempt that only succeeds if the task is still at
+    // expectedVersion, e.g. the version a user was shown before editing it.
+    public Task updateIfVersion(String taskId, long expectedVersion, UnaryOperator<Task> change)
+            throws TaskNotFoundException, TaskConflictException {
         Task existingTask = getTaskById(taskId);
-       
-        existingTask.setTitle(updatedTask.getTitle());
-        existingTask.setDescription(updatedTask.getDescription());
-        existingTask.setDueDate(updatedTask.getDueDate());
-        existingTask.setPriority(updatedTask.getPriority());
-        existingTask.setCategory(updatedTask.getCategory());
-        existingTask.setStatus(updatedTask.getStatus());
-        existingTask.setLastModifiedDate(LocalDateTime.now());
-       
-        return taskRepository.save(existingTask);
+        Optional<Task> saved = existingTask.getVersion() == expectedVersion
+                ? taskRepository.compareAndSave(expectedVersion, change.apply(existingTask)) : Optional.empty();
+        Task updated = saved.orElseThrow(
+                () -> new TaskConflictException("Task " + taskId + " was changed since version " + expectedVersion));
+        eventBus.publish(TaskUpdated.of(existingTask, updated));
+        return updated;
     }
-    
+
     public Task getTaskById(String taskId) throws TaskNotFoundException {
         return taskRepository.findById(taskId)
             .orElseThrow(() -> new TaskNotFoundException("Task not found with ID: " + taskId));
     }
     
     public List<Task> getTasksByStatus(Status status) {
-        return taskRepository.findAll().stream()
-            .filter(task -> task.getStatus() == status)
-            .collect(Collectors.toList());
+        return taskRepository.findByStatus(status);
     }
 
     public void deleteTask(String taskId) throws TaskNotFoundException {
-        if (!taskRepository.exists(taskId)) {
-            throw new TaskNotFoundException("Task not found with ID: " + taskId);
-        }
-        taskRepository.deleteById(taskId);
+        Task deleted = taskRepository.delete(taskId)
+            .orElseThrow(() -> new TaskNotFoundException("Task not found with ID: " + taskId));
+        eventBus.publish(new TaskDeleted(deleted));
     }
 
     public List<Task> getTasksByCategory(String categoryId) {
-        return taskRepository.findAll().stream()
-            .filter(task -> task.getCategory().getCategoryId().equals(categoryId))
-            .collect(Collectors.toList());
+        return taskRepository.findByCategoryId(categoryId);
     }
 
     public List<Task> getOverdueTasks() {
-        return taskRepository.findAll().stream()
-            .filter(task -> task.getDueDate().isBefore(LocalDateTime.now())
-                && task.getStatus() != Status.COMPLETED)
-            .collect(Collectors.toList());
+        return taskRepository.findOverdue(LocalDateTime.now());
     }
-    
-    public List<Task> getTasksByPriority(Priority priority) {
-        return taskRepository.findAll().stream()
-            .filter(task -> task.getPriority() == priority)
-            .collect(Collectors.toList());
+
+    // pass the same asOf for every page of one listing
+    public Page<Task> getOverdueTasksPage(LocalDateTime asOf, String cursor, int limit) {
+        return taskRepository.findOverduePage(asOf, cursor, limit);
     }
 
-    private boolean isDuplicateTask(Task task) {
-        return taskRepository.findAll().stream()
-            .anyMatch(existingTask ->
-                existingTask.getTitle().equals(task.getTitle()) &&
-                existingTask.getDescription().equals(task.getDescription()) &&
-                existingTask.getCategory().getCategoryId().equals(task.getCategory().getCategoryId())
-            );
+    public List<Task> getTasksDueBefore(LocalDateTime asOf) {
+        return taskRepository.findDueBefore(asOf);
+    }
+
+    public List<Task> getUpcomingTasks(long withinHours) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> upcomingTasks = taskRepository.findDueBetween(now, now.plusHours(withinHours));
+        upcomingTasks.removeIf(task -> task.getStatus() == Status.COMPLETED);
+        return upcomingTasks;
     }
     
+    public List<Task> getTasksByPriority(Priority priority) {
+        return taskRepository.findByPriority(priority);
+    }
+
     public Task updateTaskStatus(String taskId, Status newStatus) throws TaskNotFoundException {
-        Task existingTask = getTaskById(taskId);
-        
-        existingTask.setStatus(newStatus);
-        existingTask.setLastModifiedDate(LocalDateTime.now());
-        
-        return taskRepository.save(existingTask);
+        return updateWithRetry(taskId, task -> task.withStatus(newStatus));
     }
+    // copies every task; prefer forEachTask or findTasks when the list is not kept
     public List<Task> getAllTasks() {
     	return taskRepository.findAll();
     }
+
+    // Full-text search over titles and descriptions, best match first. Words must all
+    // match, OR separates alternatives and a trailing * matches a prefix.
+    public List<Task> searchTasks(String query, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (SearchHit hit : searchIndex().search(query, limit)) {
+            taskRepository.findById(hit.getTaskId()).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    private FullTextIndex searchIndex() {
+        FullTextIndex index = searchIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = searchIndex;
+                if (index == null) {
+                    index = FullTextIndex.attach(taskRepository);
+                    searchIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    public List<Task> findTasks(TaskQuery query) {
+        return taskRepository.query(query);
+    }
+
+    public QueryPlan explainQuery(TaskQuery query) {
+        return taskRepository.explain(query);
+    }
+
+    // pass null as the cursor for the first page, then each page's getNextCursor()
+    public Page<Task> getTasksPage(TaskOrder order, String cursor, int limit) {
+        return taskRepository.findPage(order, cursor, limit);
+    }
+
+    public Page<Task> getTasksPage(TaskOrder order, Predicate<? super Task> filter, String cursor, int limit) {
+        return taskRepository.findPage(order, filter, cursor, limit);
+    }
+
+    public void forEachTask(Consumer<? super Task> action) {
+        taskRepository.forEach(action);
+    }
+
+    public List<Task> findTasks(Predicate<? super Task> filter, int limit) {
+        return taskRepository.scan(filter, limit);
+    }
+
+    public int countTasks() {
+        return taskRepository.count();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.taskmanager.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Lock-free bounded queue for many producers and a single consumer: a ring of slots, each
+// with a sequence number that says whose turn it is. A producer claims a position with one
+// CAS on the tail, fills the slot and publishes it by advancing the slot's sequence; the
+// consumer takes a slot once its sequence shows it was published, then hands it to the
+// producer one lap later. offer never blocks and never waits for another producer to
+// finish, except that the consumer cannot pass a slot whose producer is still filling it.
+//
+// Only one thread at a time may call poll.
+public final class BoundedMpscQueue<T> {
+
+	private final int mask;
+	private final AtomicReferenceArray<T> elements;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head;
+
+	// capacity is rounded up to a power of two
+	public BoundedMpscQueue(int capacity) {
+		if (capacity <= 0 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Queue capacity must be between 1 and 2^30: " + capacity);
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.mask = size - 1;
+		this.elements = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	// false, leaving the queue as it was, when it is full
+	public boolean offer(T element) {
+		if (element == null) {
+			throw new NullPointerException("Queue elements cannot be null");
+		}
+		long position = tail.get();
+		while (true) {
+			int index = (int) position & mask;
+			long turn = sequences.get(index) - position;
+			if (turn == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					elements.lazySet(index, element);
+					sequences.lazySet(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (turn < 0) {
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	// null when the queue is empty
+	public T poll() {
+		long position = head;
+		int index = (int) position & mask;
+		if (sequences.get(index) != position + 1) {
+			return null;
+		}
+		T element = elements.get(index);
+		elements.lazySet(index, null);
+		sequences.lazySet(index, position + mask + 1);
+		head = position + 1;
+		return element;
+	}
+
+	public boolean isEmpty() {
+		long position = head;
+		return sequences.get((int) position & mask) != position + 1;
+	}
+
+	// a snapshot; concurrent offers and polls may change it at any moment
+	public int size() {
+		long size = tail.get() - head;
+		return (int) Math.max(0, Math.min(size, mask + 1));
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+}
@@ -7,42 +7,78 @@ import java.time.Year;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
-import java.util.Arrays;
-import java.util.List;
-
 import com.taskmanager.exception.InvalidDateException;
 
 public class DateValidator {
 
-	private static final List<String> DATE_FORMATS = Arrays.asList("yyyy-MM-dd HH:mm", "yyyy-MM-dd", "yyyy/MM/dd HH:mm",
-			"yyyy/MM/dd", "dd/MM/yyyy HH:mm", "dd/MM/yyyy", "dd-MM-yyyy HH:mm", "dd-MM-yyyy");
+	private static final String INVALID_FORMAT_MESSAGE = "Invalid date format. Supported formats: yyyy-MM-dd, dd/MM/yyyy, dd-MM-yyyy, yyyy-MM-dd HH:mm";
+
+	private static final int DATE_LENGTH = "yyyy-MM-dd".length();
+	private static final int DATE_TIME_LENGTH = "yyyy-MM-dd HH:mm".length();
+
+	// Built once; DateTimeFormatter is immutable and thread-safe. Indexed by
+	// [year first ? 0 : 1][separator == '/' ? 0 : 1][has time ? 0 : 1].
+	private static final DateTimeFormatter[][][] FORMATTERS = {
+			{ { formatter("yyyy/MM/dd HH:mm"), formatter("yyyy/MM/dd") },
+					{ formatter("yyyy-MM-dd HH:mm"), formatter("yyyy-MM-dd") } },
+			{ { formatter("dd/MM/yyyy HH:mm"), formatter("dd/MM/yyyy") },
+					{ formatter("dd-MM-yyyy HH:mm"), formatter("dd-MM-yyyy") } } };
 
+	// The supported patterns differ only in length and separator positions, so the
+	// shape of the input picks the one formatter that can match instead of trying
+	// each pattern in turn and catching the failures.
 	public static LocalDateTime convertToDate(String dateString) throws InvalidDateException {
 		if (dateString == null || dateString.trim().isEmpty()) {
 			throw new InvalidDateException("Please provide a date");
 		}
 
-		for (String format : DATE_FORMATS) {
-			try {
-				DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-				LocalDateTime dateTime;
+		DateTimeFormatter formatter = selectFormatter(dateString);
+		if (formatter == null) {
+			throw new InvalidDateException(INVALID_FORMAT_MESSAGE);
+		}
 
-				if (format.contains("HH")) {
-					dateTime = LocalDateTime.parse(dateString, formatter);
-				} else {
-					LocalDate date = LocalDate.parse(dateString, formatter);
-					dateTime = date.atStartOfDay();
-				}
+		LocalDateTime dateTime;
+		try {
+			if (dateString.length() == DATE_TIME_LENGTH) {
+				dateTime = LocalDateTime.parse(dateString, formatter);
+			} else {
+				dateTime = LocalDate.parse(dateString, formatter).atStartOfDay();
+			}
+		} catch (DateTimeParseException e) {
+			throw new InvalidDateException(INVALID_FORMAT_MESSAGE);
+		}
 
-				validateFebruary(dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth());
-				return dateTime;
+		validateFebruary(dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth());
+		return dateTime;
+	}
 
-			} catch (DateTimeParseException e) {
-				continue;
-			}
+	private static DateTimeFormatter selectFormatter(String dateString) {
+		int length = dateString.length();
+		if (length != DATE_LENGTH && length != DATE_TIME_LENGTH) {
+			return null;
+		}
+		int timeIndex = length == DATE_TIME_LENGTH ? 0 : 1;
+		if (length == DATE_TIME_LENGTH && (dateString.charAt(10) != ' ' || dateString.charAt(13) != ':')) {
+			return null;
 		}
-		throw new InvalidDateException(
-				"Invalid date format. Supported formats: yyyy-MM-dd, dd/MM/yyyy, dd-MM-yyyy, yyyy-MM-dd HH:mm");
+
+		char yearFirst = dateString.charAt(4);
+		if (isSeparator(yearFirst) && dateString.charAt(7) == yearFirst) {
+			return FORMATTERS[0][yearFirst == '/' ? 0 : 1][timeIndex];
+		}
+		char dayFirst = dateString.charAt(2);
+		if (isSeparator(dayFirst) && dateString.charAt(5) == dayFirst) {
+			return FORMATTERS[1][dayFirst == '/' ? 0 : 1][timeIndex];
+		}
+		return null;
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == '-' || c == '/';
+	}
+
+	private static DateTimeFormatter formatter(String pattern) {
+		return DateTimeFormatter.ofPattern(pattern);
 	}
 
 	private static void validateFebruary(int year, int month, int day) throws InvalidDateException {
@@ -61,11 +97,15 @@ public class DateValidator {
 	}
 
 	public void validateFutureDate(LocalDateTime date) throws InvalidDateException {
+		validateFutureDate(date, LocalDateTime.now());
+	}
+
+	// lets a batch check many dates against one clock reading
+	public void validateFutureDate(LocalDateTime date, LocalDateTime now) throws InvalidDateException {
 		if (date == null) {
 			throw new InvalidDateException("Date cannot be null");
 		}
 
-		LocalDateTime now = LocalDateTime.now();
 		if (date.isBefore(now)) {
 			throw new InvalidDateException("Due date must be in the future");
 		}
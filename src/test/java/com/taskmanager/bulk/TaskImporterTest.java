@@ -0,0 +1,147 @@
+package com.taskmanager.bulk;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.taskmanager.event.DomainEventBus;
+import com.taskmanager.event.TaskCreated;
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.CategoryRepository;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.util.TaskValidator;
+
+public class TaskImporterTest {
+	private TaskRepository taskRepository;
+	private CategoryRepository categoryRepository;
+	private TaskImporter taskImporter;
+	private TaskExporter taskExporter;
+
+	@BeforeMethod
+	public void setUp() {
+		taskRepository = new TaskRepository();
+		categoryRepository = new CategoryRepository();
+		taskImporter = new TaskImporter(taskRepository, categoryRepository, new TaskValidator(), 4, 2);
+		taskExporter = new TaskExporter(taskRepository);
+	}
+
+	@Test
+	public void testImportCsvReportsBadLines() throws Exception {
+		// the duplicate has to be of a stored task: two equal lines in different batches
+		// race each other, and either one may be the line that gets rejected
+		Category home = categoryRepository.save(new Category("Home", "Household"));
+		taskRepository.save(new Task("Water plants", "Balcony", LocalDateTime.of(2030, 1, 10, 0, 0), Priority.MEDIUM, home));
+		String csv = "title,description,dueDate,priority,status,category\n"
+				+ "Pay bills,\"Electricity, water and gas\",2030-01-15,HIGH,PENDING,Home\n"
+				+ "Plan trip,\"Book the \"\"good\"\" hotel\nand the train\",15/02/2030,low,,Travel\n"
+				+ ",Missing title,2030-01-15,HIGH,PENDING,Home\n"
+				+ "Bad date,Date is wrong,2030-13-45,HIGH,PENDING,Home\n"
+				+ "Water plants,Balcony,2030-01-15,HIGH,PENDING,Home\n";
+
+		ImportResult result = taskImporter.importTasks(new StringReader(csv), BulkFormat.CSV);
+
+		Assert.assertEquals(result.getImportedCount(), 2);
+		Assert.assertEquals(result.getFailedCount(), 3);
+		Assert.assertEquals(result.getErrors().get(0).getLineNumber(), 5);
+		Assert.assertEquals(result.getErrors().get(1).getLineNumber(), 6);
+		Assert.assertEquals(result.getErrors().get(2).getLineNumber(), 7);
+		Assert.assertEquals(taskRepository.findByPriority(Priority.LOW).get(0).getDescription(),
+				"Book the \"good\" hotel\nand the train");
+		Assert.assertEquals(categoryRepository.findAll().size(), 2);
+	}
+
+	@Test
+	public void testImportJsonLines() throws Exception {
+		String jsonLines = "{\"title\":\"Gym\",\"description\":\"Leg day\",\"dueDate\":\"2030-03-01 18:30\",\"priority\":\"MEDIUM\",\"status\":\"IN_PROGRESS\",\"category\":\"Health\"}\n"
+				+ "\n"
+				+ "{\"title\":\"Broken\"\n";
+
+		ImportResult result = taskImporter.importTasks(new StringReader(jsonLines), BulkFormat.JSON_LINES);
+
+		Assert.assertEquals(result.getImportedCount(), 1);
+		Assert.assertEquals(result.getFailedCount(), 1);
+		Assert.assertEquals(result.getErrors().get(0).getLineNumber(), 3);
+		Assert.assertEquals(taskRepository.findByStatus(Status.IN_PROGRESS).get(0).getDueDate(),
+				LocalDateTime.of(2030, 3, 1, 18, 30));
+	}
+
+	@DataProvider(name = "formats")
+	public Object[][] formats() {
+		return new Object[][] { { BulkFormat.CSV }, { BulkFormat.JSON_LINES } };
+	}
+
+	@Test(dataProvider = "formats")
+	public void testExportThenImport(BulkFormat format) throws Exception {
+		Category category = categoryRepository.save(new Category("Work", "Office tasks"));
+		LocalDateTime created = LocalDateTime.of(2029, 11, 3, 8, 15, 42, 123456789);
+		for (int i = 0; i < 25; i++) {
+			Task task = Task.builder("task-" + i).title("Report " + i).description("Quarterly \"numbers\", part " + i)
+					.dueDate(i % 5 == 0 ? null : LocalDateTime.of(2030, 6, 1, 9, 0, i, i * 1000))
+					.priority(Priority.values()[i % Priority.values().length])
+					.status(Status.values()[i % Status.values().length]).category(category)
+					.createdDate(created.plusMinutes(i)).lastModifiedDate(created.plusHours(i).plusNanos(i)).build();
+			taskRepository.save(task);
+			if (i % 3 == 0) {
+				taskRepository.save(task);
+			}
+		}
+		StringWriter exported = new StringWriter();
+		Assert.assertEquals(taskExporter.exportTasks(exported, format), 25);
+
+		TaskRepository target = new TaskRepository();
+		DomainEventBus eventBus = new DomainEventBus();
+		List<String> published = Collections.synchronizedList(new ArrayList<>());
+		eventBus.subscribe(TaskCreated.class, event -> published.add(event.getTaskId()));
+		TaskImporter importer = new TaskImporter(target, categoryRepository, new TaskValidator(), 3, 4, eventBus);
+		ImportResult result = importer.importTasks(new StringReader(exported.toString()), format);
+
+		Assert.assertEquals(result.getImportedCount(), 25);
+		Assert.assertEquals(result.getFailedCount(), 0);
+		Assert.assertEquals(published.size(), 25);
+		for (Task expected : taskRepository.findAll()) {
+			Task actual = target.findById(expected.getTaskId()).get();
+			Assert.assertEquals(actual.getTitle(), expected.getTitle());
+			Assert.assertEquals(actual.getDescription(), expected.getDescription());
+			Assert.assertEquals(actual.getDueDate(), expected.getDueDate());
+			Assert.assertEquals(actual.getPriority(), expected.getPriority());
+			Assert.assertEquals(actual.getStatus(), expected.getStatus());
+			Assert.assertEquals(actual.getCategory(), expected.getCategory());
+			Assert.assertEquals(actual.getCreatedDate(), expected.getCreatedDate());
+			Assert.assertEquals(actual.getLastModifiedDate(), expected.getLastModifiedDate());
+			Assert.assertEquals(actual.getVersion(), expected.getVersion());
+		}
+		Assert.assertEquals(target.findById("task-3").get().getVersion(), 2);
+	}
+
+	@Test
+	public void testImportRejectsTakenIds() throws Exception {
+		Category home = categoryRepository.save(new Category("Home", "Household"));
+		Task stored = taskRepository.save(new Task("task-1", "Water plants", "Balcony", null, Priority.MEDIUM, home,
+				Status.PENDING, LocalDateTime.now(), LocalDateTime.now()));
+		String jsonLines = "{\"taskId\":\"task-1\",\"title\":\"Paint fence\",\"category\":\"Home\"}\n"
+				+ "{\"taskId\":\"task-2\",\"title\":\"Water plants\",\"description\":\"Balcony\",\"category\":\"Home\"}\n"
+				+ "{\"taskId\":\"task-3\",\"title\":\"Sweep porch\",\"category\":\"Home\"}\n";
+
+		ImportResult result = taskImporter.importTasks(new StringReader(jsonLines), BulkFormat.JSON_LINES);
+
+		Assert.assertEquals(result.getImportedCount(), 1);
+		Assert.assertEquals(result.getFailedCount(), 2);
+		Assert.assertTrue(result.getErrors().get(0).getMessage().startsWith("Duplicate task id"));
+		Assert.assertTrue(result.getErrors().get(1).getMessage().startsWith("Duplicate task:"));
+		Assert.assertEquals(taskRepository.findById("task-1").get(), stored);
+		Assert.assertEquals(taskRepository.findById("task-1").get().getTitle(), "Water plants");
+		Assert.assertEquals(taskRepository.findById("task-3").get().getTitle(), "Sweep porch");
+		Assert.assertFalse(taskRepository.isDuplicate(new Task("Paint fence", null, null, Priority.MEDIUM, home)));
+	}
+}
@@ -0,0 +1,204 @@
+package com.taskmanager.changefeed;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+
+public class ChangeFeedTest {
+
+    private Path directory;
+    private TaskRepository taskRepository;
+    private Category category;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("change-feed");
+        taskRepository = new TaskRepository();
+        category = new Category("Work", "Office");
+    }
+
+    private Task save(String title) {
+        return taskRepository.save(new Task(title, "Change feed test", LocalDateTime.now().plusDays(3),
+                Priority.MEDIUM, category));
+    }
+
+    // replays the feed from the start into what the repository should hold
+    private static Map<String, Task> replay(ChangeFeed feed) throws IOException {
+        Map<String, Task> state = new HashMap<>();
+        long offset = 0;
+        while (true) {
+            ChangeBatch batch = feed.read(offset, 7);
+            if (batch.isEmpty()) {
+                return state;
+            }
+            for (Change change : batch.getChanges()) {
+                Assert.assertTrue(change.getOffset() > offset);
+                offset = change.getOffset();
+                if (change.getType() == ChangeType.PUT) {
+                    state.put(change.getTaskId(), change.getTask());
+                } else if (change.getType() == ChangeType.DELETE) {
+                    state.remove(change.getTaskId());
+                } else {
+                    state.clear();
+                }
+            }
+        }
+    }
+
+    private Map<String, Task> stored() {
+        Map<String, Task> stored = new HashMap<>();
+        for (Task task : taskRepository.findAll()) {
+            stored.put(task.getTaskId(), task);
+        }
+        return stored;
+    }
+
+    @Test
+    public void testConsumerResumesFromCommittedOffset() throws IOException {
+        ChangeFeed feed = ChangeFeed.attach(taskRepository, directory);
+        Task first = save("First");
+        Task second = save("Second");
+        taskRepository.save(first.withTitle("First, renamed"));
+        taskRepository.deleteById(second.getTaskId());
+        feed.flush();
+
+        ChangeBatch batch = feed.read(0, 3);
+        Assert.assertEquals(batch.getChanges().size(), 3);
+        Assert.assertEquals(batch.getChanges().get(2).getTask().getTitle(), "First, renamed");
+        Assert.assertEquals(batch.getChanges().get(2).getTask().getVersion(), 2);
+        feed.commitOffset("search", batch.getOffset());
+        feed.close();
+
+        // changes made while the feed is not attached are caught up, nothing else repeats
+        Task third = save("Third");
+        taskRepository.deleteById(first.getTaskId());
+        feed = ChangeFeed.attach(taskRepository, directory);
+        feed.flush();
+        long offset = feed.getCommittedOffset("search");
+        Assert.assertEquals(offset, batch.getOffset());
+        List<Change> missed = new ArrayList<>();
+        for (ChangeBatch next = feed.read(offset, 10); !next.isEmpty(); next = feed.read(next.getOffset(), 10)) {
+            Assert.assertFalse(next.isGap());
+            missed.addAll(next.getChanges());
+        }
+        Assert.assertEquals(missed.size(), 3);
+        Assert.assertEquals(missed.get(0).getType(), ChangeType.DELETE);
+        Assert.assertEquals(missed.get(0).getTaskId(), second.getTaskId());
+        Assert.assertEquals(missed.get(1).getTaskId(), third.getTaskId());
+        Assert.assertEquals(missed.get(2).getType(), ChangeType.DELETE);
+        Assert.assertEquals(missed.get(2).getTaskId(), first.getTaskId());
+        Assert.assertEquals(feed.getCommittedOffset("analytics"), 0);
+        Assert.assertEquals(replay(feed), stored());
+        feed.close();
+    }
+
+    @Test
+    public void testConcurrentSavesKeepEachTasksOrder() throws Exception {
+        ChangeFeed feed = ChangeFeed.attach(taskRepository, directory);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tasks.add(save("Shared " + i));
+        }
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 8; w++) {
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    Task task = tasks.get(i % tasks.size());
+                    taskRepository.save(task.withPriority(Priority.values()[i % 3]));
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        feed.flush();
+
+        // the last change of each task in the feed is the version the repository ended up with
+        Map<String, Task> state = replay(feed);
+        Assert.assertEquals(state, stored());
+        for (Task task : tasks) {
+            Assert.assertEquals(state.get(task.getTaskId()).getVersion(), 401);
+        }
+        feed.close();
+    }
+
+    @Test
+    public void testCompactionKeepsTheLatestChangeOfEachTask() throws IOException {
+        ChangeFeed feed = new ChangeFeed(directory, ChangeFeed.Retention.COMPACT, 1, 1024);
+        feed.attachTo(taskRepository);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tasks.add(save("Task " + i));
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.set(i, taskRepository.save(tasks.get(i).withPriority(Priority.values()[round % 3])));
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            taskRepository.deleteById(tasks.get(i).getTaskId());
+        }
+        feed.flush();
+        long appended = feed.getLatestOffset();
+        feed.maintain();
+
+        Map<String, Task> state = replay(feed);
+        Assert.assertEquals(state, stored());
+        Assert.assertEquals(state.get(tasks.get(19).getTaskId()).getVersion(), 11);
+        int retained = 0;
+        for (ChangeBatch batch = feed.read(0, 1000); !batch.isEmpty(); batch = feed.read(batch.getOffset(), 1000)) {
+            retained += batch.getChanges().size();
+        }
+        Assert.assertTrue(retained < appended / 2, retained + " of " + appended);
+
+        taskRepository.clear();
+        save("After clear");
+        feed.flush();
+        feed.maintain();
+        Assert.assertEquals(replay(feed), stored());
+        feed.close();
+
+        // the rewritten log opens again
+        feed = new ChangeFeed(directory, ChangeFeed.Retention.COMPACT, 1, 1024);
+        Assert.assertEquals(replay(feed), stored());
+        feed.close();
+    }
+
+    @Test
+    public void testTruncationReportsAGapToConsumersLeftBehind() throws IOException {
+        ChangeFeed feed = new ChangeFeed(directory, ChangeFeed.Retention.TRUNCATE, 2048, 512);
+        feed.attachTo(taskRepository);
+        for (int i = 0; i < 100; i++) {
+            save("Task " + i);
+        }
+        feed.flush();
+        feed.maintain();
+        Assert.assertTrue(feed.getSizeInBytes() <= 2048);
+
+        ChangeBatch behind = feed.read(0, 2);
+        Assert.assertTrue(behind.isGap());
+        Assert.assertTrue(behind.getChanges().get(0).getOffset() > 1);
+        ChangeBatch current = feed.read(behind.getOffset(), 10);
+        Assert.assertFalse(current.isGap());
+        Assert.assertEquals(current.getChanges().get(0).getOffset(), behind.getOffset() + 1);
+        Assert.assertEquals(feed.read(feed.getLatestOffset(), 10).getChanges().size(), 0);
+        feed.close();
+    }
+}
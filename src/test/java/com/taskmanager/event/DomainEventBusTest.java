@@ -0,0 +1,158 @@
+package com.taskmanager.event;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.CategoryRepository;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.service.CategoryService;
+import com.taskmanager.service.TaskService;
+import com.taskmanager.util.DateValidator;
+import com.taskmanager.util.TaskValidator;
+
+public class DomainEventBusTest {
+
+    private static class Numbered extends DomainEvent {
+        private final int producer;
+        private final int sequence;
+
+        private Numbered(int producer, int sequence) {
+            this.producer = producer;
+            this.sequence = sequence;
+        }
+    }
+
+    private DomainEventBus eventBus;
+    private TaskService taskService;
+    private CategoryService categoryService;
+
+    @BeforeMethod
+    public void setUp() {
+        eventBus = new DomainEventBus();
+        taskService = new TaskService(new TaskRepository(), new TaskValidator(), new DateValidator(), eventBus);
+        categoryService = new CategoryService(new CategoryRepository(), eventBus);
+    }
+
+    @Test
+    public void testServicesPublishTypedEvents() throws Exception {
+        List<DomainEvent> taskEvents = new ArrayList<>();
+        List<TaskUpdated> updates = new ArrayList<>();
+        List<TaskStatusChanged> statusChanges = new ArrayList<>();
+        List<DomainEvent> categoryEvents = new ArrayList<>();
+        eventBus.subscribe(TaskEvent.class, event -> {
+            throw new IllegalStateException("a failing listener does not stop the others");
+        });
+        eventBus.subscribe(TaskEvent.class, taskEvents::add);
+        eventBus.subscribe(TaskUpdated.class, updates::add);
+        eventBus.subscribe(TaskStatusChanged.class, statusChanges::add);
+        eventBus.subscribe(CategoryEvent.class, categoryEvents::add);
+
+        Category category = categoryService.createCategory(new Category("Home", "Chores"));
+        Task task = taskService.createTask(
+                new Task("Fix sink", "Kitchen", LocalDateTime.now().plusDays(1), Priority.HIGH, category));
+        Task renamed = taskService.updateWithRetry(task.getTaskId(), current -> current.withTitle("Fix the sink"));
+        Task completed = taskService.updateTaskStatus(task.getTaskId(), Status.COMPLETED);
+        taskService.deleteTask(task.getTaskId());
+        categoryService.updateCategory(category.getCategoryId(), new Category("House", "Chores"));
+        categoryService.deleteCategory(category.getCategoryId());
+
+        Assert.assertEquals(taskEvents.size(), 4);
+        Assert.assertEquals(((TaskCreated) taskEvents.get(0)).getTask(), task);
+        Assert.assertEquals(updates.size(), 2);
+        Assert.assertEquals(updates.get(0).getClass(), TaskUpdated.class);
+        Assert.assertEquals(updates.get(0).getOldTask().getTitle(), "Fix sink");
+        Assert.assertEquals(updates.get(0).getNewTask().getTitle(), "Fix the sink");
+        Assert.assertEquals(statusChanges.size(), 1);
+        Assert.assertTrue(statusChanges.get(0) == updates.get(1));
+        Assert.assertEquals(statusChanges.get(0).getOldStatus(), Status.PENDING);
+        Assert.assertEquals(statusChanges.get(0).getNewStatus(), Status.COMPLETED);
+        Assert.assertEquals(statusChanges.get(0).getOldTask().getVersion(), renamed.getVersion());
+        TaskDeleted deleted = (TaskDeleted) taskEvents.get(3);
+        Assert.assertEquals(deleted.getTask().getVersion(), completed.getVersion());
+
+        Assert.assertEquals(categoryEvents.size(), 3);
+        Assert.assertTrue(categoryEvents.get(0) instanceof CategoryCreated);
+        Assert.assertEquals(((CategoryUpdated) categoryEvents.get(1)).getNewCategory().getName(), "House");
+        Assert.assertEquals(((CategoryDeleted) categoryEvents.get(2)).getCategoryId(), category.getCategoryId());
+    }
+
+    @Test
+    public void testBatchCreatePublishesStoredTasks() {
+        List<TaskCreated> created = new ArrayList<>();
+        eventBus.subscribe(TaskCreated.class, created::add);
+        Category category = new Category("Home", "Chores");
+
+        taskService.createTasks(Collections.singletonList(
+                new Task("Fix sink", "Kitchen", LocalDateTime.now().plusDays(1), Priority.HIGH, category)));
+
+        Assert.assertEquals(created.size(), 1);
+        Assert.assertEquals(created.get(0).getTask().getVersion(), 1);
+    }
+
+    @Test
+    public void testAsyncListenersSeeEachPublisherInOrder() throws InterruptedException {
+        List<Numbered> received = Collections.synchronizedList(new ArrayList<>());
+        eventBus.subscribeAsync(Numbered.class, received::add);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    eventBus.publish(new Numbered(producer, i));
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        Assert.assertTrue(eventBus.close(DomainEventBus.DEFAULT_CLOSE_TIMEOUT));
+
+        Assert.assertEquals(received.size(), 4_000);
+        int[] next = new int[4];
+        for (Numbered event : received) {
+            Assert.assertEquals(event.sequence, next[event.producer]++);
+        }
+        Assert.assertEquals(eventBus.getDroppedCount(), 0);
+    }
+
+    @Test
+    public void testFullRingDropsOnlyForAsyncListeners() throws InterruptedException {
+        DomainEventBus small = new DomainEventBus(4);
+        CountDownLatch release = new CountDownLatch(1);
+        List<DomainEvent> async = Collections.synchronizedList(new ArrayList<>());
+        List<DomainEvent> sync = new ArrayList<>();
+        small.subscribeAsync(DomainEvent.class, event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            async.add(event);
+        });
+        small.subscribe(DomainEvent.class, sync::add);
+        for (int i = 0; i < 20; i++) {
+            small.publish(new Numbered(0, i));
+        }
+        Assert.assertEquals(sync.size(), 20);
+        Assert.assertTrue(small.getDroppedCount() > 0);
+        release.countDown();
+
+        Assert.assertTrue(small.close(DomainEventBus.DEFAULT_CLOSE_TIMEOUT));
+        Assert.assertEquals(async.size() + small.getDroppedCount(), 20);
+        Assert.assertTrue(async.get(0) == sync.get(0));
+    }
+}
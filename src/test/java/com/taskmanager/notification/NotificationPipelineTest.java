@@ -0,0 +1,238 @@
+package com.taskmanager.notification;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class NotificationPipelineTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2030, 3, 1, 9, 0);
+
+    private static class CollectingSink implements NotificationSink {
+        private final List<Notification> received = Collections.synchronizedList(new ArrayList<>());
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean closed;
+
+        @Override
+        public void deliver(List<Notification> batch) {
+            received.addAll(batch);
+            batchSizes.add(batch.size());
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static List<String> messages(List<Notification> notifications) {
+        List<String> messages = new ArrayList<>();
+        for (Notification notification : notifications) {
+            messages.add(notification.getMessage());
+        }
+        return messages;
+    }
+
+    @Test
+    public void testPendingNotificationsCoalescePerKey() {
+        CollectingSink sink = new CollectingSink();
+        NotificationPipeline pipeline = new NotificationPipeline(16, 3).addSink(sink);
+        pipeline.publish(new Notification("task-1", "first"));
+        pipeline.publish(new Notification("task-2", "other"));
+        pipeline.publish(new Notification("task-1", "second"));
+        pipeline.publish(new Notification(null, "no key"));
+        pipeline.publish(new Notification(null, "no key"));
+        pipeline.publish(new Notification("task-1", "third"));
+
+        Assert.assertTrue(pipeline.close(NotificationPipeline.DEFAULT_CLOSE_TIMEOUT));
+        // the latest message takes the place of the first
+        Assert.assertEquals(messages(sink.received), Arrays.asList("third", "other", "no key", "no key"));
+        Assert.assertEquals(sink.batchSizes, Arrays.asList(3, 1));
+        Assert.assertEquals(pipeline.getPublishedCount(), 4);
+        Assert.assertEquals(pipeline.getCoalescedCount(), 2);
+        Assert.assertEquals(pipeline.getDeliveredCount(sink), 4);
+        Assert.assertTrue(sink.closed);
+        Assert.assertFalse(pipeline.publish(new Notification("task-3", "after close")));
+    }
+
+    @Test
+    public void testPublishDropsInsteadOfBlockingWhenFull() {
+        NotificationPipeline pipeline = new NotificationPipeline(4, 16);
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (pipeline.publish(new Notification("task-" + i, "message " + i))) {
+                accepted++;
+            }
+        }
+        Assert.assertEquals(accepted, 4);
+        Assert.assertEquals(pipeline.getDroppedCount(), 6);
+        // a dropped key can be published again once there is room
+        Assert.assertTrue(pipeline.publish(new Notification("task-0", "replaced")));
+        Assert.assertEquals(pipeline.getCoalescedCount(), 1);
+        pipeline.close();
+    }
+
+    @Test
+    public void testContendedPublishOnFullQueueNeverLosesAcceptedSilently() throws Exception {
+        CollectingSink sink = new CollectingSink();
+        NotificationPipeline pipeline = new NotificationPipeline(2, 16).addSink(sink);
+        Assert.assertTrue(pipeline.publish(new Notification("filler-1", "filler")));
+        Assert.assertTrue(pipeline.publish(new Notification("filler-2", "filler")));
+
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 8; p++) {
+            producers.add(new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 5_000; i++) {
+                    if (pipeline.publish(new Notification("hot", "message " + i))) {
+                        accepted.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        go.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // nothing is dequeued, so every accepted "hot" notification coalesced onto an entry whose
+        // key never got queued and has to show up in the dropped count
+        Assert.assertEquals(pipeline.getCoalescedCount(), accepted.get());
+        Assert.assertTrue(pipeline.getDroppedCount() >= rejected.get());
+        if (accepted.get() > 0) {
+            Assert.assertTrue(pipeline.getDroppedCount() > rejected.get());
+        }
+        Assert.assertTrue(pipeline.close(NotificationPipeline.DEFAULT_CLOSE_TIMEOUT));
+        Assert.assertEquals(messages(sink.received), Arrays.asList("filler", "filler"));
+    }
+
+    @Test
+    public void testSlowAndFailingSinksDoNotHoldUpOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        NotificationSink slow = batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        NotificationSink failing = batch -> {
+            throw new IOException("unreachable");
+        };
+        CollectingSink fast = new CollectingSink();
+        NotificationPipeline pipeline = new NotificationPipeline(1024, 4).addSink(slow, 2, 0).addSink(failing, 1024, 0)
+                .addSink(fast, 1024, 0);
+        pipeline.start();
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    Assert.assertTrue(pipeline.publish(new Notification(producer + "-" + i, "message", TIME)));
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (fast.received.size() < 400 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(fast.received.size(), 400);
+        Assert.assertTrue(pipeline.getDroppedCount(slow) > 0);
+        release.countDown();
+
+        Assert.assertTrue(pipeline.close(NotificationPipeline.DEFAULT_CLOSE_TIMEOUT));
+        Assert.assertEquals(pipeline.getDeliveredCount(slow) + pipeline.getDroppedCount(slow), 400);
+        Assert.assertEquals(pipeline.getFailedCount(failing), 400);
+        Assert.assertEquals(pipeline.getDeliveredCount(failing), 0);
+    }
+
+    @Test
+    public void testRotatingFileSinkKeepsBoundedBackups() throws IOException {
+        Path directory = Files.createTempDirectory("notifications");
+        Path file = directory.resolve("notifications.log");
+        try (RotatingFileSink sink = new RotatingFileSink(file, 100, 2)) {
+            for (int i = 0; i < 10; i++) {
+                sink.deliver(Collections.singletonList(new Notification("task", "notification number " + i, TIME)));
+            }
+        }
+        Assert.assertTrue(Files.exists(directory.resolve("notifications.log.1")));
+        Assert.assertTrue(Files.exists(directory.resolve("notifications.log.2")));
+        Assert.assertFalse(Files.exists(directory.resolve("notifications.log.3")));
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertTrue(Files.size(file) <= 100);
+        Assert.assertEquals(lines.get(lines.size() - 1), TIME + " notification number 9");
+    }
+
+    @Test
+    public void testWebhookSinkPostsJsonAndFailsOnErrorStatus() throws IOException {
+        List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] body = new byte[4096];
+                int length = 0;
+                for (int n; (n = in.read(body, length, body.length - length)) > 0;) {
+                    length += n;
+                }
+                bodies.add(new String(body, 0, length, StandardCharsets.UTF_8));
+            }
+            int status = exchange.getRequestURI().getPath().equals("/broken") ? 500 : 204;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.getResponseBody().close();
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            new WebhookSink(new URL(base + "/hook"), 2_000)
+                    .deliver(Collections.singletonList(new Notification("task-1", "Pay \"rent\"", TIME)));
+            Assert.assertEquals(bodies.get(0), "{\"notifications\":[{\"key\":\"task-1\",\"message\":\"Pay \\\"rent\\\"\","
+                    + "\"createdAt\":\"2030-03-01T09:00\"}]}");
+            try {
+                new WebhookSink(new URL(base + "/broken"), 2_000)
+                        .deliver(Collections.singletonList(new Notification(null, "lost", TIME)));
+                Assert.fail("Expected the error status to fail the batch");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage().contains("500"));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+}
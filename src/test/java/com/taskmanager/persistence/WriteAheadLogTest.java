@@ -0,0 +1,269 @@
+package com.taskmanager.persistence;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.CategoryRepository;
+import com.taskmanager.repository.StorageEngine;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.TaskStore;
+
+public class WriteAheadLogTest {
+	private Path dataDirectory;
+	private Category testCategory;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		dataDirectory = Files.createTempDirectory("task-wal");
+		testCategory = new Category("Errands", "Things to pick up in town");
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(dataDirectory)) {
+			for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+
+	private WriteAheadLog openLog(FsyncPolicy policy, long segmentSize) throws IOException {
+		return new WriteAheadLog(dataDirectory.resolve("tasks"), policy, 10, segmentSize);
+	}
+
+	@Test
+	public void testReplayRestoresTasks() throws IOException {
+		WriteAheadLog log = openLog(FsyncPolicy.ALWAYS, 1024 * 1024);
+		TaskRepository taskRepository = new TaskRepository(log);
+		Task kept = new Task("Buy stamps", "Post office on the corner", LocalDateTime.now().plusDays(1), Priority.LOW,
+				testCategory);
+		Task removed = new Task("Return books", "Library closes at six", LocalDateTime.now().plusDays(2),
+				Priority.HIGH, testCategory);
+		taskRepository.save(kept);
+		taskRepository.save(removed);
+		taskRepository.save(kept.withStatus(Status.IN_PROGRESS));
+		taskRepository.deleteById(removed.getTaskId());
+		log.close();
+
+		WriteAheadLog reopened = openLog(FsyncPolicy.ALWAYS, 1024 * 1024);
+		TaskRepository restored = new TaskRepository(reopened);
+		Assert.assertEquals(restored.findAll().size(), 1);
+		Task restoredTask = restored.findById(kept.getTaskId()).get();
+		Assert.assertEquals(restoredTask.getStatus(), Status.IN_PROGRESS);
+		Assert.assertEquals(restoredTask.getVersion(), 2);
+		Assert.assertEquals(restoredTask.getDueDate(), kept.getDueDate());
+		Assert.assertEquals(restoredTask.getCategory().getName(), "Errands");
+		Assert.assertEquals(restored.findByStatus(Status.IN_PROGRESS).size(), 1);
+		Assert.assertEquals(reopened.getLastLsn(), 4);
+		reopened.close();
+	}
+
+	@Test
+	public void testReplayAcrossSegments() throws IOException {
+		WriteAheadLog log = openLog(FsyncPolicy.OS, 512);
+		CategoryRepository categoryRepository = new CategoryRepository(log);
+		for (int i = 0; i < 50; i++) {
+			categoryRepository.save(new Category("Category " + i, "Rolled over segment " + i));
+		}
+		log.close();
+
+		try (Stream<Path> segments = Files.list(dataDirectory.resolve("tasks"))) {
+			Assert.assertTrue(segments.count() > 1);
+		}
+		WriteAheadLog reopened = openLog(FsyncPolicy.OS, 512);
+		Assert.assertEquals(new CategoryRepository(reopened).findAll().size(), 50);
+		reopened.close();
+	}
+
+	@Test
+	public void testTornTailIsDropped() throws IOException {
+		WriteAheadLog log = openLog(FsyncPolicy.INTERVAL, 1024 * 1024);
+		CategoryRepository categoryRepository = new CategoryRepository(log);
+		categoryRepository.save(testCategory);
+		categoryRepository.save(new Category("Garden", "Weekend garden work"));
+		log.close();
+
+		Path segment;
+		try (Stream<Path> segments = Files.list(dataDirectory.resolve("tasks"))) {
+			segment = segments.findFirst().get();
+		}
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+
+		WriteAheadLog reopened = openLog(FsyncPolicy.INTERVAL, 1024 * 1024);
+		CategoryRepository restored = new CategoryRepository(reopened);
+		Assert.assertEquals(restored.findAll().size(), 1);
+		Assert.assertTrue(restored.exists(testCategory.getCategoryId()));
+		restored.save(new Category("Garden", "Weekend garden work"));
+		Assert.assertEquals(reopened.getLastLsn(), 2);
+		reopened.close();
+	}
+
+	@Test
+	public void testFailedAppendLeavesRepositoryUnchanged() throws IOException {
+		WriteAheadLog log = openLog(FsyncPolicy.OS, 1024 * 1024);
+		TaskRepository taskRepository = new TaskRepository(log);
+		Task kept = new Task("Buy stamps", "Post office on the corner", LocalDateTime.now().plusDays(1), Priority.LOW,
+				testCategory);
+		taskRepository.save(kept);
+		log.close();
+
+		Task added = new Task("Return books", "Library closes at six", LocalDateTime.now().plusDays(2),
+				Priority.HIGH, testCategory);
+		Assert.assertThrows(IllegalStateException.class, () -> taskRepository.save(added));
+		Assert.assertThrows(IllegalStateException.class,
+				() -> taskRepository.save(kept.withStatus(Status.IN_PROGRESS)));
+		Assert.assertThrows(IllegalStateException.class, () -> taskRepository.deleteById(kept.getTaskId()));
+
+		Assert.assertFalse(taskRepository.exists(added.getTaskId()));
+		Assert.assertEquals(taskRepository.count(), 1);
+		Task stored = taskRepository.findById(kept.getTaskId()).get();
+		Assert.assertEquals(stored.getStatus(), Status.PENDING);
+		Assert.assertEquals(stored.getVersion(), 1);
+		Assert.assertEquals(taskRepository.findByStatus(Status.PENDING).size(), 1);
+		Assert.assertTrue(taskRepository.findByStatus(Status.IN_PROGRESS).isEmpty());
+	}
+
+	@Test
+	public void testRejectedPutIsNotLogged() throws IOException {
+		WriteAheadLog log = openLog(FsyncPolicy.OS, 1024 * 1024);
+		boolean[] failing = new boolean[1];
+		TaskStore heap = StorageEngine.HEAP.newStore(null);
+		TaskStore store = new TaskStore() {
+			@Override
+			public Task get(String taskId) {
+				return heap.get(taskId);
+			}
+
+			@Override
+			public void put(Task task) {
+				if (failing[0]) {
+					throw new IllegalStateException("Store is full");
+				}
+				heap.put(task);
+			}
+
+			@Override
+			public void remove(String taskId) {
+				heap.remove(taskId);
+			}
+
+			@Override
+			public boolean contains(String taskId) {
+				return heap.contains(taskId);
+			}
+
+			@Override
+			public int size() {
+				return heap.size();
+			}
+
+			@Override
+			public void clear() {
+				heap.clear();
+			}
+
+			@Override
+			public Stream<Task> stream() {
+				return heap.stream();
+			}
+
+			@Override
+			public Iterator<Task> iterator() {
+				return heap.iterator();
+			}
+		};
+		TaskRepository taskRepository = new TaskRepository(log, null, store);
+		Task kept = new Task("Buy stamps", "Post office on the corner", LocalDateTime.now().plusDays(1), Priority.LOW,
+				testCategory);
+		taskRepository.save(kept);
+		failing[0] = true;
+		Assert.assertThrows(IllegalStateException.class,
+				() -> taskRepository.save(kept.withStatus(Status.IN_PROGRESS)));
+		log.close();
+
+		WriteAheadLog reopened = openLog(FsyncPolicy.OS, 1024 * 1024);
+		Task restored = new TaskRepository(reopened).findById(kept.getTaskId()).get();
+		Assert.assertEquals(restored.getStatus(), Status.PENDING);
+		Assert.assertEquals(reopened.getLastLsn(), 1);
+		reopened.close();
+	}
+
+	@Test
+	public void testConcurrentWritersShareFsync() throws Exception {
+		WriteAheadLog log = openLog(FsyncPolicy.ALWAYS, 1024 * 1024);
+		TaskRepository taskRepository = new TaskRepository(log);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 400; i++) {
+			int number = i;
+			executor.execute(() -> taskRepository.save(new Task("Task " + number, "Concurrent write",
+					LocalDateTime.now().plusDays(1), Priority.MEDIUM, testCategory)));
+		}
+		executor.shutdown();
+		Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+		log.close();
+
+		WriteAheadLog reopened = openLog(FsyncPolicy.ALWAYS, 1024 * 1024);
+		List<Task> restored = new TaskRepository(reopened).findAll();
+		Assert.assertEquals(restored.size(), 400);
+		reopened.close();
+	}
+
+	@Test
+	public void testSnapshotTruncatesLogAndRestores() throws IOException {
+		Path snapshotFile = dataDirectory.resolve("tasks.snapshot");
+		WriteAheadLog log = openLog(FsyncPolicy.OS, 1024);
+		TaskRepository taskRepository = new TaskRepository(log, snapshotFile);
+		for (int i = 0; i < 40; i++) {
+			taskRepository.save(new Task("Before snapshot " + i, "Covered by the snapshot",
+					LocalDateTime.now().plusDays(1), Priority.HIGH, testCategory));
+		}
+		long segmentsBefore = countSegments();
+		SnapshotScheduler scheduler = new SnapshotScheduler();
+		scheduler.register(taskRepository, snapshotFile, log);
+		scheduler.snapshotNow();
+		scheduler.close();
+		Assert.assertEquals(countSegments(), 1);
+		Assert.assertTrue(segmentsBefore > 1);
+
+		Task afterSnapshot = new Task("After snapshot", "Only in the log tail", LocalDateTime.now().plusDays(1),
+				Priority.LOW, testCategory);
+		taskRepository.save(afterSnapshot);
+		log.close();
+
+		WriteAheadLog reopened = openLog(FsyncPolicy.OS, 1024);
+		TaskRepository restored = new TaskRepository(reopened, snapshotFile);
+		Assert.assertEquals(restored.findAll().size(), 41);
+		Assert.assertEquals(restored.findByPriority(Priority.LOW).size(), 1);
+		Assert.assertEquals(reopened.getLastLsn(), 41);
+		reopened.close();
+	}
+
+	private long countSegments() throws IOException {
+		try (Stream<Path> segments = Files.list(dataDirectory.resolve("tasks"))) {
+			return segments.filter(path -> path.toString().endsWith(".wal")).count();
+		}
+	}
+}
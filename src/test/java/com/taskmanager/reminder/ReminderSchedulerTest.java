@@ -0,0 +1,135 @@
+package com.taskmanager.reminder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+
+public class ReminderSchedulerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 3, 1, 9, 0);
+
+    private TaskRepository taskRepository;
+    private ReminderScheduler scheduler;
+    private List<Reminder> fired;
+    private Category category;
+
+    @BeforeMethod
+    public void setUp() {
+        taskRepository = new TaskRepository();
+        scheduler = new ReminderScheduler(Duration.ofSeconds(1), Arrays.asList(Duration.ofHours(1), Duration.ofDays(1)),
+                START);
+        taskRepository.addListener(scheduler);
+        fired = new ArrayList<>();
+        scheduler.addListener(fired::add);
+        category = new Category("Home", "Chores");
+    }
+
+    private Task save(String title, LocalDateTime dueDate) {
+        return taskRepository.save(new Task(title, "Reminder test", dueDate, Priority.MEDIUM, category));
+    }
+
+    @Test
+    public void testEachReminderFiresOnceAtItsTime() {
+        Task task = save("Pay rent", START.plusDays(2));
+
+        Assert.assertEquals(scheduler.fireDue(START.plusDays(1).minusSeconds(1)), 0);
+        Assert.assertEquals(scheduler.fireDue(START.plusDays(1)), 1);
+        Assert.assertEquals(fired.get(0).getKind(), ReminderKind.DUE_SOON);
+        Assert.assertEquals(fired.get(0).getLeadTime(), Duration.ofDays(1));
+
+        // a save that keeps the due date keeps the timers, and the reminder shows the new title
+        taskRepository.save(task.withTitle("Pay the rent"));
+        Assert.assertEquals(scheduler.fireDue(START.plusDays(2).minusHours(1)), 1);
+        Assert.assertEquals(fired.get(1).getTask().getTitle(), "Pay the rent");
+        Assert.assertEquals(scheduler.fireDue(START.plusDays(2)), 1);
+        Assert.assertEquals(fired.get(2).getKind(), ReminderKind.OVERDUE);
+
+        taskRepository.save(taskRepository.findById(task.getTaskId()).get().withPriority(Priority.HIGH));
+        Assert.assertEquals(scheduler.fireDue(START.plusDays(30)), 0);
+        Assert.assertEquals(scheduler.pendingCount(), 0);
+    }
+
+    @Test
+    public void testDueDateChangesRescheduleAndDeletesCancel() {
+        Task moved = save("Dentist", START.plusHours(5));
+        Task deleted = save("Call plumber", START.plusHours(5));
+        Task completed = save("Water plants", START.plusHours(5));
+        Task overdue = save("Renew passport", START.minusDays(3));
+        // the one-day reminders are late and due at once; the overdue task only gets OVERDUE
+        Assert.assertEquals(scheduler.pendingCount(), 3 * 3 + 1);
+
+        taskRepository.save(moved.withDueDate(START.plusDays(10)));
+        taskRepository.deleteById(deleted.getTaskId());
+        taskRepository.save(completed.withStatus(Status.COMPLETED));
+
+        Assert.assertEquals(scheduler.fireDue(START), 1);
+        Assert.assertEquals(fired.get(0).getTask().getTaskId(), overdue.getTaskId());
+        Assert.assertEquals(fired.get(0).getKind(), ReminderKind.OVERDUE);
+        Assert.assertEquals(scheduler.fireDue(START.plusDays(9)), 1);
+        Assert.assertEquals(fired.get(1).getLeadTime(), Duration.ofDays(1));
+        Assert.assertEquals(scheduler.fireDue(START.plusDays(11)), 2);
+        Assert.assertEquals(scheduler.pendingCount(), 0);
+
+        taskRepository.clear();
+        save("After clear", START.plusDays(20));
+        Assert.assertEquals(scheduler.pendingCount(), 3);
+        taskRepository.clear();
+        Assert.assertEquals(scheduler.pendingCount(), 0);
+    }
+
+    @Test
+    public void testTimingWheelExpiresInDeadlineOrder() {
+        Random random = new Random(11);
+        TimingWheel<Long> wheel = new TimingWheel<>(1_000);
+        TreeMap<Long, List<Long>> expected = new TreeMap<>();
+        List<TimingWheel.Timer<Long>> timers = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            // mostly near deadlines, some past ones and some beyond what the top level covers
+            long deadline = i % 100 == 0 ? random.nextInt(1_000) : 1_000 + (long) Math.pow(random.nextDouble(), 4) * (1L << 40);
+            // a past deadline expires on the first tick
+            timers.add(wheel.schedule(deadline, Math.max(deadline, 1_000)));
+        }
+        for (TimingWheel.Timer<Long> timer : timers) {
+            if (random.nextInt(4) == 0) {
+                wheel.cancel(timer);
+            } else {
+                expected.computeIfAbsent(timer.getPayload(), key -> new ArrayList<>())
+                        .add(timer.getPayload());
+            }
+        }
+
+        long now = 1_000;
+        List<Long> expired = new ArrayList<>();
+        while (wheel.size() > 0) {
+            now += 1 + (long) Math.pow(random.nextDouble(), 8) * (1L << 38);
+            expired.clear();
+            wheel.advance(now, expired);
+            List<Long> due = new ArrayList<>();
+            for (List<Long> deadlines : expected.headMap(now, true).values()) {
+                due.addAll(deadlines);
+            }
+            expected.headMap(now, true).clear();
+            List<Long> sorted = new ArrayList<>(expired);
+            Collections.sort(sorted);
+            Assert.assertEquals(expired, sorted);
+            Collections.sort(due);
+            Assert.assertEquals(expired, due);
+        }
+        Assert.assertTrue(expected.isEmpty());
+    }
+}
@@ -0,0 +1,107 @@
+package com.taskmanager.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+
+public class CompactTaskStoreTest {
+    private TaskRepository taskRepository;
+    private Category category;
+
+    @BeforeMethod
+    public void setUp() {
+        taskRepository = new TaskRepository(StorageEngine.COMPACT);
+        category = new Category("Work", "Work tasks");
+    }
+
+    @Test
+    public void testRoundTripKeepsEveryField() {
+        Task task = new Task("task-1", "Write report", "Quarterly numbers",
+                LocalDateTime.of(2031, 3, 14, 15, 9, 26, 535897932), Priority.HIGH, category, Status.IN_PROGRESS,
+                LocalDateTime.of(1969, 7, 20, 20, 17, 40, 1), LocalDateTime.of(2024, 2, 29, 0, 0));
+        task = taskRepository.save(task);
+
+        Task stored = taskRepository.findById("task-1").get();
+        Assert.assertFalse(stored == task);
+        Assert.assertEquals(stored.toString(), task.toString());
+        Assert.assertSame(stored.getCategory(), category);
+
+        Task sparse = new Task("task-2", null, null, null, null, null, null, null, null);
+        sparse = taskRepository.save(sparse);
+        Assert.assertEquals(taskRepository.findById("task-2").get().toString(), sparse.toString());
+    }
+
+    @Test
+    public void testChangesNeedSave() {
+        Task task = taskRepository.save(new Task("Call plumber", "Kitchen sink", LocalDateTime.now().plusDays(2),
+                Priority.MEDIUM, category));
+
+        Task copy = taskRepository.findById(task.getTaskId()).get().withStatus(Status.COMPLETED);
+        Assert.assertEquals(taskRepository.findById(task.getTaskId()).get().getStatus(), Status.PENDING);
+
+        taskRepository.save(copy);
+        Assert.assertEquals(taskRepository.findById(task.getTaskId()).get().getStatus(), Status.COMPLETED);
+        Assert.assertEquals(taskRepository.findByStatus(Status.COMPLETED).size(), 1);
+    }
+
+    @Test
+    public void testManyTasksSurviveGrowthDeletesAndSlotReuse() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            ids.add(taskRepository.save(new Task("Task " + i, "Description " + i, LocalDateTime.now().plusHours(i),
+                    Priority.values()[i % 3], category)).getTaskId());
+        }
+        // every third task goes, then new ones take over the freed slots
+        Set<String> live = new HashSet<>(ids);
+        for (int i = 0; i < ids.size(); i += 3) {
+            taskRepository.deleteById(ids.get(i));
+            live.remove(ids.get(i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            live.add(taskRepository.save(new Task("Extra " + i, "Added later", null, Priority.LOW, null)).getTaskId());
+        }
+
+        Assert.assertEquals(taskRepository.count(), live.size());
+        Assert.assertEquals(taskRepository.stream().map(Task::getTaskId).collect(Collectors.toSet()), live);
+        for (String id : ids) {
+            Optional<Task> found = taskRepository.findById(id);
+            Assert.assertEquals(found.isPresent(), live.contains(id), id);
+            if (found.isPresent()) {
+                Assert.assertEquals(found.get().getTitle(), "Task " + ids.indexOf(id));
+            }
+        }
+        long highLeft = taskRepository.stream().filter(task -> task.getPriority() == Priority.HIGH).count();
+        Assert.assertEquals(taskRepository.findByPriority(Priority.HIGH).size(), highLeft);
+    }
+
+    @Test
+    public void testQueriesAndClear() {
+        for (int i = 0; i < 50; i++) {
+            taskRepository.save(new Task("Task " + i, "Description", LocalDateTime.now().plusDays(i),
+                    i % 2 == 0 ? Priority.HIGH : Priority.LOW, category));
+        }
+        List<Task> firstHigh = taskRepository.query(TaskQuery.builder().priority(Priority.HIGH)
+                .orderBy(TaskOrder.DUE_DATE).limit(3).build());
+        Assert.assertEquals(firstHigh.stream().map(Task::getTitle).collect(Collectors.toList()),
+                Arrays.asList("Task 0", "Task 2", "Task 4"));
+        Assert.assertEquals(taskRepository.findPage(TaskOrder.CREATED_DATE, null, 20).size(), 20);
+
+        taskRepository.clear();
+        Assert.assertEquals(taskRepository.count(), 0);
+        Assert.assertFalse(taskRepository.stream().findAny().isPresent());
+    }
+}
@@ -0,0 +1,126 @@
+package com.taskmanager.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+
+public class OffHeapTaskStoreTest {
+	private Path storeDirectory;
+	private Category category;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		storeDirectory = Files.createTempDirectory("task-offheap");
+		category = new Category("Garden", "Outdoor jobs");
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(storeDirectory)) {
+			for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+
+	@Test
+	public void testTasksAndIndexesSurviveReopening() throws IOException {
+		TaskRepository taskRepository = new TaskRepository(StorageEngine.OFF_HEAP, storeDirectory);
+		Task kept = new Task("kept", "Prune the roses", "Before the frost, \u00e0 la main",
+				LocalDateTime.of(2030, 11, 2, 8, 30, 0, 123456789), Priority.HIGH, category, Status.IN_PROGRESS,
+				LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+		Task removed = new Task("Mow the lawn", "Front and back", LocalDateTime.now().plusDays(1), Priority.LOW,
+				category);
+		taskRepository.save(kept);
+		taskRepository.save(removed);
+		taskRepository.save(new Task("no-category", null, null, null, null, null, null, null, null));
+		taskRepository.deleteById(removed.getTaskId());
+		category.setName("Garden and yard");
+		kept = taskRepository.save(kept.withTitle("Prune the roses and the hedge"));
+		taskRepository.close();
+
+		TaskRepository reopened = new TaskRepository(StorageEngine.OFF_HEAP, storeDirectory);
+		Assert.assertEquals(reopened.count(), 2);
+		Assert.assertFalse(reopened.exists(removed.getTaskId()));
+		Task restored = reopened.findById("kept").get();
+		Assert.assertEquals(restored.toString(), kept.toString());
+		Assert.assertEquals(restored.getCategory().getName(), "Garden and yard");
+		Assert.assertEquals(reopened.findByStatus(Status.IN_PROGRESS).size(), 1);
+		Assert.assertEquals(reopened.findByCategoryId(category.getCategoryId()).size(), 1);
+		Assert.assertTrue(reopened.isDuplicate(kept));
+		reopened.close();
+	}
+
+	@Test
+	public void testSmallSegmentsWithGrowingTextDeletesAndReuse() throws IOException {
+		// 4 KB segments: 63 records per record segment, strings keep moving to a new segment
+		OffHeapTaskStore store = new OffHeapTaskStore(storeDirectory, 12);
+		Map<String, Task> expected = new HashMap<>();
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			Task task = new Task("Task " + i, "Description " + i, LocalDateTime.now(), Priority.MEDIUM, category);
+			store.put(task);
+			expected.put(task.getTaskId(), task);
+			ids.add(task.getTaskId());
+		}
+		StringBuilder longText = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			longText.append("more words ");
+		}
+		for (int i = 0; i < ids.size(); i++) {
+			Task task = expected.get(ids.get(i));
+			if (i % 4 == 0) {
+				store.remove(task.getTaskId());
+				expected.remove(task.getTaskId());
+			} else if (i % 4 == 1) {
+				task = task.withDescription(longText.toString());
+				store.put(task);
+				expected.put(task.getTaskId(), task);
+			} else if (i % 4 == 2) {
+				task = task.withTitle("T");
+				store.put(task);
+				expected.put(task.getTaskId(), task);
+			}
+		}
+		for (int i = 0; i < 200; i++) {
+			Task task = new Task("Late " + i, "Takes a free slot", null, Priority.LOW, null);
+			store.put(task);
+			expected.put(task.getTaskId(), task);
+		}
+
+		Assert.assertEquals(store.size(), expected.size());
+		for (Task task : expected.values()) {
+			Assert.assertEquals(store.get(task.getTaskId()).toString(), task.toString());
+		}
+		store.close();
+
+		OffHeapTaskStore reopened = new OffHeapTaskStore(storeDirectory, 12);
+		Assert.assertEquals(reopened.stream().collect(Collectors.toMap(Task::getTaskId, Task::toString)),
+				expected.values().stream().collect(Collectors.toMap(Task::getTaskId, Task::toString)));
+		Assert.assertNull(reopened.get(ids.get(0)));
+
+		reopened.clear();
+		Assert.assertEquals(reopened.size(), 0);
+		reopened.put(new Task("After clear", "Only one left", null, null, null));
+		reopened.close();
+		Assert.assertEquals(new OffHeapTaskStore(storeDirectory, 12).size(), 1);
+	}
+}
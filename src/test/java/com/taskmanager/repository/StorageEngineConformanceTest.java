@@ -0,0 +1,37 @@
+package com.taskmanager.repository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Factory;
+
+// The conformance suite once per built-in engine.
+public class StorageEngineConformanceTest extends TaskStoreConformanceTest {
+    private final StorageEngine engine;
+
+    @Factory(dataProvider = "engines")
+    public StorageEngineConformanceTest(StorageEngine engine) {
+        this.engine = engine;
+    }
+
+    @DataProvider
+    public static Object[][] engines() {
+        StorageEngine[] engines = StorageEngine.values();
+        Object[][] data = new Object[engines.length][];
+        for (int i = 0; i < engines.length; i++) {
+            data[i] = new Object[] { engines[i] };
+        }
+        return data;
+    }
+
+    @Override
+    protected TaskStore openStore(Path directory) throws IOException {
+        return engine.newStore(directory);
+    }
+
+    @Override
+    public String toString() {
+        return "StorageEngineConformanceTest[" + engine + "]";
+    }
+}
@@ -1,9 +1,16 @@
 package com.taskmanager.repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
@@ -11,6 +18,7 @@ import org.testng.annotations.Test;
 
 import com.taskmanager.model.Category;
 import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
 import com.taskmanager.model.Task;
 
 
@@ -91,4 +99,333 @@ public class TaskRepositoryTest {
         Assert.assertEquals(taskRepository.findAll().size(), 0);
     }
 
+    @Test(priority =8)
+    public void testIndexedLookups() {
+        taskRepository.save(testTask);
+
+        Assert.assertEquals(taskRepository.findByStatus(Status.PENDING).size(), 1);
+        Assert.assertEquals(taskRepository.findByPriority(Priority.HIGH).size(), 1);
+        Assert.assertEquals(taskRepository.findByCategoryId(testCategory.getCategoryId()).size(), 1);
+        Assert.assertTrue(taskRepository.findByStatus(Status.COMPLETED).isEmpty());
+        Assert.assertTrue(taskRepository.findByCategoryId("non-existent-id").isEmpty());
+    }
+
+    @Test(priority =9)
+    public void testIndexesFollowUpdates() {
+        taskRepository.save(testTask);
+        Category otherCategory = new Category("Home", "Household chores");
+
+        taskRepository.save(testTask.toBuilder().status(Status.COMPLETED).priority(Priority.LOW)
+                .category(otherCategory).build());
+
+        Assert.assertTrue(taskRepository.findByStatus(Status.PENDING).isEmpty());
+        Assert.assertEquals(taskRepository.findByStatus(Status.COMPLETED).size(), 1);
+        Assert.assertTrue(taskRepository.findByPriority(Priority.HIGH).isEmpty());
+        Assert.assertEquals(taskRepository.findByPriority(Priority.LOW).size(), 1);
+        Assert.assertTrue(taskRepository.findByCategoryId(testCategory.getCategoryId()).isEmpty());
+        Assert.assertEquals(taskRepository.findByCategoryId(otherCategory.getCategoryId()).size(), 1);
+    }
+
+    @Test(priority =10)
+    public void testIndexesFollowDelete() {
+        taskRepository.save(testTask);
+        taskRepository.deleteById(testTask.getTaskId());
+
+        Assert.assertTrue(taskRepository.findByStatus(Status.PENDING).isEmpty());
+        Assert.assertTrue(taskRepository.findByPriority(Priority.HIGH).isEmpty());
+        Assert.assertTrue(taskRepository.findByCategoryId(testCategory.getCategoryId()).isEmpty());
+    }
+
+    @Test(priority =11)
+    public void testFindDueBetween() {
+        LocalDateTime now = LocalDateTime.now();
+        Task laterTask = new Task("Book flights", "Book flights for the conference", now.plusDays(5), Priority.MEDIUM,
+        					testCategory);
+        taskRepository.save(testTask);
+        taskRepository.save(laterTask);
+
+        List<Task> dueSoon = taskRepository.findDueBetween(now, now.plusDays(2));
+        Assert.assertEquals(dueSoon.size(), 1);
+        Assert.assertEquals(dueSoon.get(0).getTaskId(), testTask.getTaskId());
+        Assert.assertEquals(taskRepository.findDueBetween(now, now.plusDays(6)).get(1).getTaskId(), laterTask.getTaskId());
+    }
+
+    @Test(priority =12)
+    public void testFindOverdue() {
+        LocalDateTime now = LocalDateTime.now();
+        Task overdueTask = new Task("Renew passport", "Passport renewal appointment", now.minusDays(1), Priority.HIGH,
+        					testCategory);
+        Task completedTask = new Task("Pay rent", "Monthly rent transfer", now.minusDays(2), Priority.HIGH,
+        					testCategory).withStatus(Status.COMPLETED);
+        taskRepository.save(testTask);
+        taskRepository.save(overdueTask);
+        taskRepository.save(completedTask);
+
+        Assert.assertEquals(taskRepository.findDueBefore(now).size(), 2);
+        Assert.assertEquals(taskRepository.findOverdue(now).size(), 1);
+        Assert.assertEquals(taskRepository.countOverdue(now), 1);
+
+        taskRepository.save(overdueTask.withDueDate(now.plusDays(3)));
+        Assert.assertEquals(taskRepository.countOverdue(now), 0);
+
+        // status changes move tasks in and out of the open due-date index
+        taskRepository.save(completedTask.withStatus(Status.IN_PROGRESS));
+        Assert.assertEquals(taskRepository.findOverdue(now).get(0).getTaskId(), completedTask.getTaskId());
+        taskRepository.save(completedTask.withStatus(Status.COMPLETED));
+        Assert.assertEquals(taskRepository.countOverdue(now), 0);
+        taskRepository.save(completedTask.withStatus(Status.PENDING));
+        taskRepository.delete(completedTask.getTaskId());
+        Assert.assertTrue(taskRepository.findOverdue(now).isEmpty());
+        Assert.assertEquals(taskRepository.findDueBefore(now).size(), 0);
+    }
+
+    @Test(priority =13)
+    public void testStreamForEachAndScan() {
+        for (int i = 0; i < 10; i++) {
+            taskRepository.save(new Task("Task " + i, "Scan test", LocalDateTime.now().plusDays(1),
+                    i % 2 == 0 ? Priority.HIGH : Priority.LOW, testCategory));
+        }
+
+        Assert.assertEquals(taskRepository.count(), 10);
+        Assert.assertEquals(taskRepository.stream().filter(task -> task.getPriority() == Priority.HIGH).count(), 5);
+        int[] visited = new int[1];
+        taskRepository.forEach(task -> visited[0]++);
+        Assert.assertEquals(visited[0], 10);
+
+        List<Task> scanned = taskRepository.scan(task -> task.getPriority() == Priority.LOW, 3);
+        Assert.assertEquals(scanned.size(), 3);
+        Assert.assertTrue(scanned.stream().allMatch(task -> task.getPriority() == Priority.LOW));
+        Assert.assertEquals(taskRepository.scan(task -> true, 0).size(), 0);
+    }
+
+    @Test(priority =14)
+    public void testPagesFollowCreatedDateOrder() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 9, 0);
+        for (int i = 24; i >= 0; i--) {
+            taskRepository.save(new Task(String.format("task-%02d", i), "Task " + i, "Paging test", start.plusDays(25 - i),
+                    Priority.MEDIUM, testCategory, Status.PENDING, start.plusMinutes(i), start.plusMinutes(i)));
+        }
+
+        List<String> seen = new ArrayList<>();
+        Page<Task> page = taskRepository.findPage(TaskOrder.CREATED_DATE, null, 10);
+        Assert.assertEquals(page.size(), 10);
+        page.getItems().forEach(task -> seen.add(task.getTaskId()));
+
+        // deleting the task the cursor points at must not lose or repeat anything
+        taskRepository.deleteById(seen.get(seen.size() - 1));
+        while (page.hasNext()) {
+            page = taskRepository.findPage(TaskOrder.CREATED_DATE, page.getNextCursor(), 10);
+            page.getItems().forEach(task -> seen.add(task.getTaskId()));
+        }
+
+        Assert.assertEquals(seen.size(), 25);
+        for (int i = 0; i < 25; i++) {
+            Assert.assertEquals(seen.get(i), String.format("task-%02d", i));
+        }
+
+        Page<Task> byDueDate = taskRepository.findPage(TaskOrder.DUE_DATE, null, 3);
+        Assert.assertEquals(byDueDate.getItems().get(0).getTaskId(), "task-24");
+        Assert.assertTrue(byDueDate.hasNext());
+
+        // tasks without a due date come last, and are never due or overdue
+        taskRepository.save(new Task("undated", "No due date", "Paging test", null, Priority.MEDIUM, testCategory,
+                Status.PENDING, start, start));
+        List<String> dueOrder = new ArrayList<>();
+        for (String cursor = null;;) {
+            Page<Task> duePage = taskRepository.findPage(TaskOrder.DUE_DATE, task -> task.getStatus() == Status.PENDING,
+                    cursor, 7);
+            duePage.getItems().forEach(task -> dueOrder.add(task.getTaskId()));
+            if (!duePage.hasNext()) {
+                break;
+            }
+            cursor = duePage.getNextCursor();
+        }
+        Assert.assertEquals(dueOrder.size(), 25);
+        Assert.assertEquals(dueOrder.get(24), "undated");
+        Assert.assertEquals(taskRepository.findOverdue(start.plusYears(100)).size(), 24);
+        taskRepository.save(taskRepository.findById("task-20").get().withStatus(Status.COMPLETED));
+        List<String> overdue = new ArrayList<>();
+        for (String cursor = null;;) {
+            Page<Task> overduePage = taskRepository.findOverduePage(start.plusDays(20), cursor, 4);
+            overduePage.getItems().forEach(task -> overdue.add(task.getTaskId()));
+            if (!overduePage.hasNext()) {
+                break;
+            }
+            cursor = overduePage.getNextCursor();
+        }
+        Assert.assertEquals(overdue, Arrays.asList("task-24", "task-23", "task-22", "task-21", "task-19", "task-18",
+                "task-17", "task-16", "task-15", "task-14", "task-13", "task-12", "task-11", "task-10",
+                "task-08", "task-07", "task-06"));
+        Assert.assertEquals(taskRepository.findDueBefore(start.plusYears(100)).size(), 24);
+        Assert.assertEquals(taskRepository.query(TaskQuery.builder().orderBy(TaskOrder.DUE_DATE).limit(30).build())
+                .get(24).getTaskId(), "undated");
+    }
+
+    @Test(priority =15, expectedExceptions = IllegalArgumentException.class)
+    public void testCursorOfAnotherOrderIsRejected() {
+        taskRepository.save(testTask);
+        taskRepository.save(new Task("Second", "Paging test", LocalDateTime.now().plusDays(2), Priority.LOW, testCategory));
+        String cursor = taskRepository.findPage(TaskOrder.CREATED_DATE, null, 1).getNextCursor();
+        taskRepository.findPage(TaskOrder.DUE_DATE, cursor, 1);
+    }
+
+    @Test(priority =16)
+    public void testQueriesMatchBruteForce() {
+        Category home = new Category("Home", "Chores");
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 9, 0);
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            taskRepository.save(new Task("task-" + i, (i % 10 == 0 ? "Report " : "Chore ") + i, "Query test",
+                    start.plusHours(random.nextInt(24 * 60)), Priority.values()[random.nextInt(3)],
+                    random.nextInt(5) == 0 ? home : testCategory, Status.values()[random.nextInt(Status.values().length)],
+                    start.plusMinutes(i), start.plusMinutes(i)));
+        }
+
+        List<TaskQuery> queries = new ArrayList<>();
+        queries.add(TaskQuery.builder().status(Status.PENDING).priority(Priority.HIGH).build());
+        queries.add(TaskQuery.builder().category(home.getCategoryId()).priority(Priority.LOW, Priority.MEDIUM)
+                .orderBy(TaskOrder.DUE_DATE).build());
+        queries.add(TaskQuery.builder().dueBetween(start.plusDays(10), start.plusDays(12)).status(Status.COMPLETED)
+                .orderBy(TaskOrder.CREATED_DATE).build());
+        queries.add(TaskQuery.builder().dueBefore(start.plusDays(30)).orderBy(TaskOrder.DUE_DATE).limit(7).build());
+        queries.add(TaskQuery.builder().titleContains("REPORT").orderBy(TaskOrder.CREATED_DATE).limit(5).build());
+        queries.add(TaskQuery.builder().titleContains("report").build());
+        queries.add(TaskQuery.builder().category("no-such-category").build());
+
+        for (TaskQuery query : queries) {
+            List<Task> expected = new ArrayList<>();
+            for (Task task : taskRepository.findAll()) {
+                if (query.getStatuses() != null && !query.getStatuses().contains(task.getStatus())) continue;
+                if (query.getPriorities() != null && !query.getPriorities().contains(task.getPriority())) continue;
+                if (query.getCategoryId() != null && !query.getCategoryId().equals(task.getCategory().getCategoryId())) continue;
+                if (query.getDueFrom() != null && task.getDueDate().isBefore(query.getDueFrom())) continue;
+                if (query.getDueTo() != null && !task.getDueDate().isBefore(query.getDueTo())) continue;
+                if (query.getTitleText() != null && !task.getTitle().toLowerCase().contains(query.getTitleText())) continue;
+                expected.add(task);
+            }
+            if (query.getOrder() != null) {
+                expected.sort(Comparator.comparing(query.getOrder() == TaskOrder.DUE_DATE ? Task::getDueDate : Task::getCreatedDate)
+                        .thenComparing(Task::getTaskId));
+            }
+            if (query.getLimit() > 0 && expected.size() > query.getLimit()) {
+                expected = expected.subList(0, query.getLimit());
+            }
+
+            List<Task> actual = taskRepository.query(query);
+            if (query.getOrder() == null) {
+                Assert.assertEquals(new HashSet<>(actual), new HashSet<>(expected), query.toString());
+                Assert.assertEquals(actual.size(), expected.size(), query.toString());
+            } else {
+                Assert.assertEquals(actual, expected, query.toString());
+            }
+        }
+    }
+
+    @Test(priority =17)
+    public void testPlannerPicksMostSelectiveIndex() {
+        Category rare = new Category("Rare", "Only a few tasks");
+        for (int i = 0; i < 200; i++) {
+            taskRepository.save(new Task("Task " + i, "Plan test", LocalDateTime.now().plusDays(1 + i % 30),
+                    Priority.HIGH, i < 3 ? rare : testCategory));
+        }
+
+        QueryPlan byCategory = taskRepository.explain(
+                TaskQuery.builder().priority(Priority.HIGH).status(Status.PENDING).category(rare.getCategoryId()).build());
+        Assert.assertTrue(byCategory.getSteps().get(0).startsWith("index scan category"), byCategory.explain());
+        Assert.assertEquals(byCategory.getSteps().size(), 3, byCategory.explain());
+
+        QueryPlan topByDueDate = taskRepository.explain(
+                TaskQuery.builder().priority(Priority.HIGH).orderBy(TaskOrder.DUE_DATE).limit(5).build());
+        Assert.assertTrue(topByDueDate.getSteps().get(0).startsWith("ordered walk"), topByDueDate.explain());
+
+        QueryPlan titleOnly = taskRepository.explain(TaskQuery.builder().titleContains("task 1").build());
+        Assert.assertTrue(titleOnly.getSteps().get(0).startsWith("parallel scan"), titleOnly.explain());
+        Assert.assertEquals(taskRepository.query(TaskQuery.builder().titleContains("task 1").build()).size(), 111);
+    }
+
+    @Test(priority =18)
+    public void testCompareAndSaveRejectsStaleVersions() {
+        Assert.assertEquals(taskRepository.compareAndSave(0, testTask).get().getVersion(), 1);
+        Assert.assertEquals(testTask.getVersion(), 0);
+        Assert.assertFalse(taskRepository.compareAndSave(0, testTask).isPresent());
+
+        Task first = new Task(testTask.getTaskId(), "First", null, null, Priority.LOW, null, Status.PENDING,
+                testTask.getCreatedDate(), LocalDateTime.now());
+        Task second = new Task(testTask.getTaskId(), "Second", null, null, Priority.LOW, null, Status.COMPLETED,
+                testTask.getCreatedDate(), LocalDateTime.now());
+        Assert.assertTrue(taskRepository.compareAndSave(1, first).isPresent());
+        Assert.assertFalse(taskRepository.compareAndSave(1, second).isPresent());
+        Assert.assertEquals(taskRepository.findById(testTask.getTaskId()).get().getTitle(), "First");
+        Assert.assertEquals(taskRepository.findByStatus(Status.COMPLETED).size(), 0);
+
+        Assert.assertEquals(taskRepository.compareAndSaveAll(Arrays.asList(second, second.withVersion(2))),
+                Arrays.asList(null, second));
+        Assert.assertEquals(taskRepository.findById(testTask.getTaskId()).get().getVersion(), 3);
+        Assert.assertEquals(taskRepository.findByStatus(Status.COMPLETED).size(), 1);
+    }
+
+    @Test(priority =19)
+    public void testFailedUniqueSaveReleasesFingerprint() {
+        boolean[] failing = { true };
+        HeapTaskStore heap = new HeapTaskStore();
+        TaskRepository repository = new TaskRepository(new TaskStore() {
+            @Override
+            public Task get(String taskId) {
+                return heap.get(taskId);
+            }
+
+            @Override
+            public void put(Task task) {
+                if (failing[0]) {
+                    throw new IllegalStateException("Store cannot grow");
+                }
+                heap.put(task);
+            }
+
+            @Override
+            public void remove(String taskId) {
+                heap.remove(taskId);
+            }
+
+            @Override
+            public boolean contains(String taskId) {
+                return heap.contains(taskId);
+            }
+
+            @Override
+            public int size() {
+                return heap.size();
+            }
+
+            @Override
+            public void clear() {
+                heap.clear();
+            }
+
+            @Override
+            public Stream<Task> stream() {
+                return heap.stream();
+            }
+
+            @Override
+            public Iterator<Task> iterator() {
+                return heap.iterator();
+            }
+        });
+        Task other = new Task("Write report", "Quarterly numbers", null, Priority.LOW, testCategory);
+
+        Assert.assertThrows(IllegalStateException.class, () -> repository.saveIfUnique(testTask));
+        Assert.assertFalse(repository.isDuplicate(testTask));
+        Assert.assertThrows(IllegalStateException.class,
+                () -> repository.saveAllIfUnique(Arrays.asList(other, testTask)));
+        Assert.assertFalse(repository.isDuplicate(other));
+        Assert.assertFalse(repository.isDuplicate(testTask));
+
+        failing[0] = false;
+        Assert.assertTrue(repository.saveIfUnique(testTask).isPresent());
+        Assert.assertEquals(repository.saveAllIfUnique(Arrays.asList(other, testTask)).get(1), null);
+        Assert.assertEquals(repository.count(), 2);
+        Assert.assertTrue(repository.isDuplicate(other));
+    }
+
 }
@@ -0,0 +1,220 @@
+package com.taskmanager.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Status;
+import com.taskmanager.model.Task;
+
+// What every TaskStore has to do. A backend passes by extending this class and opening a
+// fresh store in openStore; StorageEngineConformanceTest runs it for the built-in engines.
+public abstract class TaskStoreConformanceTest {
+    private Path storeDirectory;
+    private TaskStore store;
+    private Category category;
+
+    // an empty store keeping any files it needs in directory
+    protected abstract TaskStore openStore(Path directory) throws IOException;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        storeDirectory = Files.createTempDirectory("task-store-conformance");
+        store = openStore(storeDirectory);
+        category = new Category("Errands", "Things to pick up");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> paths = Files.walk(storeDirectory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void testPutGetContainsRemove() {
+        Task task = new Task("Buy stamps", "Post office", LocalDateTime.now().plusDays(1), Priority.LOW, category);
+        Assert.assertNull(store.get(task.getTaskId()));
+        Assert.assertFalse(store.contains(task.getTaskId()));
+
+        store.put(task);
+        store.commit();
+        Assert.assertTrue(store.contains(task.getTaskId()));
+        Assert.assertEquals(store.get(task.getTaskId()).toString(), task.toString());
+        Assert.assertEquals(store.size(), 1);
+
+        store.remove(task.getTaskId());
+        store.remove("never-stored");
+        store.commit();
+        Assert.assertNull(store.get(task.getTaskId()));
+        Assert.assertFalse(store.contains(task.getTaskId()));
+        Assert.assertEquals(store.size(), 0);
+    }
+
+    @Test
+    public void testPutReplacesAndKeepsEveryField() {
+        Task task = new Task("task-1", "Renew passport", "Photos first",
+                LocalDateTime.of(2032, 5, 6, 7, 8, 9, 987654321), Priority.HIGH, category, Status.PENDING,
+                LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.of(2025, 12, 31, 23, 59, 59, 999999999));
+        store.put(task);
+
+        Task changed = new Task("task-1", "Renew passport and ID", null, null, Priority.MEDIUM,
+                new Category("Paperwork", null), Status.COMPLETED, task.getCreatedDate(), LocalDateTime.now());
+        changed = changed.withVersion(7);
+        store.put(changed);
+        Assert.assertEquals(store.size(), 1);
+        Assert.assertEquals(store.get("task-1").toString(), changed.toString());
+
+        Task empty = new Task("task-2", null, null, null, null, null, null, null, null);
+        store.put(empty);
+        Assert.assertEquals(store.get("task-2").toString(), empty.toString());
+    }
+
+    @Test
+    public void testRenamedCategoryIsStoredWithTheNextPut() {
+        Task task = new Task("Collect parcel", "Depot", null, Priority.LOW, category);
+        store.put(task);
+        category.setName("Errands and pickups");
+        store.put(task);
+        Assert.assertEquals(store.get(task.getTaskId()).getCategory().getName(), "Errands and pickups");
+    }
+
+    @Test
+    public void testScansSeeEveryTaskAndClearEmptiesTheStore() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            Task task = new Task("Task " + i, "Scan me", null, Priority.MEDIUM, i % 2 == 0 ? category : null);
+            store.put(task);
+            ids.add(task.getTaskId());
+        }
+        Set<String> iterated = new HashSet<>();
+        for (Task task : store) {
+            iterated.add(task.getTaskId());
+        }
+        Assert.assertEquals(iterated, ids);
+        Assert.assertEquals(store.stream().map(Task::getTaskId).collect(Collectors.toSet()), ids);
+        Assert.assertEquals(store.stream().parallel().count(), 300);
+
+        store.clear();
+        Assert.assertEquals(store.size(), 0);
+        Assert.assertEquals(store.stream().count(), 0);
+        Assert.assertFalse(store.iterator().hasNext());
+        store.put(new Task("After clear", null, null, null, null));
+        Assert.assertEquals(store.size(), 1);
+    }
+
+    @Test
+    public void testDueDateRangeIsOrderedAndFollowsUpdates() {
+        LocalDateTime base = LocalDateTime.of(2030, 6, 1, 12, 0);
+        for (int i = 0; i < 50; i++) {
+            store.put(new Task("due-" + (char) ('a' + i % 26) + i, "Due task", null, base.plusHours(50 - i),
+                    Priority.LOW, category, Status.PENDING, base, base));
+        }
+        store.put(new Task("undated", "No due date", null, null, Priority.LOW, null, null, null, null));
+        store.put(store.get("due-a0").withDueDate(base.minusDays(1)));
+        store.remove("due-b1");
+
+        List<Task> due = store.streamDueBetween(base.plusHours(10), base.plusHours(20)).collect(Collectors.toList());
+        Assert.assertEquals(due.size(), 10);
+        for (int i = 1; i < due.size(); i++) {
+            Assert.assertTrue(due.get(i - 1).getDueDate().isBefore(due.get(i).getDueDate()));
+        }
+        Assert.assertEquals(due.get(0).getDueDate(), base.plusHours(10));
+        Assert.assertEquals(store.streamDueBetween(null, base).map(Task::getTaskId).collect(Collectors.toList()),
+                Arrays.asList("due-a0"));
+        Assert.assertEquals(store.streamDueBetween(base.plusHours(49), null).count(), 0);
+        Assert.assertEquals(store.streamDueBetween(null, null).count(), 49);
+        Assert.assertEquals(store.streamDueBetween(base.plusHours(20), base.plusHours(10)).count(), 0);
+    }
+
+    // the repository answers from the store when it keeps its own due-date order
+    @Test
+    public void testRepositoryDueQueriesOverTheStore() {
+        TaskRepository repository = new TaskRepository(store);
+        LocalDateTime base = LocalDateTime.of(2030, 6, 1, 12, 0);
+        for (int i = 0; i < 20; i++) {
+            repository.save(new Task("due-" + i, "Due task", null, base.plusHours(20 - i), Priority.LOW, category,
+                    Status.PENDING, base, base));
+        }
+        repository.save(repository.findById("due-0").get().withDueDate(base.minusHours(1)));
+        repository.deleteById("due-19");
+
+        Assert.assertEquals(repository.findDueBetween(base.plusHours(1), base.plusHours(4)).stream()
+                .map(Task::getTaskId).collect(Collectors.toList()), Arrays.asList("due-18", "due-17"));
+        Assert.assertEquals(repository.findDueBefore(base.plusHours(3)).stream().map(Task::getTaskId)
+                .collect(Collectors.toList()), Arrays.asList("due-0", "due-18"));
+        Assert.assertEquals(repository.findDueBetween(base.plusHours(4), base.plusHours(1)).size(), 0);
+    }
+
+    @Test
+    public void testConcurrentWritersAndReaders() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            int offset = writer * 1_000;
+            futures.add(executor.submit(() -> {
+                for (int i = offset; i < offset + 1_000; i++) {
+                    Task task = new Task("task-" + i, "Written concurrently", null, null, Priority.LOW, category,
+                            Status.PENDING, null, null);
+                    store.put(task);
+                    Assert.assertEquals(store.get(task.getTaskId()).getTitle(), "Written concurrently");
+                    if (i % 3 == 0) {
+                        store.remove(task.getTaskId());
+                    }
+                    store.commit();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Assert.assertEquals(store.size(), 4_000 - 1_334);
+        Assert.assertEquals(store.stream().count(), 4_000 - 1_334);
+        Assert.assertFalse(store.contains("task-3"));
+        Assert.assertTrue(store.contains("task-3998"));
+    }
+
+    @Test
+    public void testRepositoryRunsOnTheStore() {
+        TaskRepository taskRepository = new TaskRepository(store);
+        Task urgent = new Task("Pay rent", "Before the 1st", LocalDateTime.now().minusDays(1), Priority.HIGH, category);
+        Task later = new Task("Sort receipts", "Shoebox", LocalDateTime.now().plusDays(30), Priority.LOW, category);
+        Task gone = new Task("Return library book", "Overdue", LocalDateTime.now().minusDays(3), Priority.MEDIUM, null);
+        taskRepository.saveAll(Arrays.asList(urgent, later, gone));
+        Assert.assertEquals(taskRepository.deleteAll(Arrays.asList(gone.getTaskId(), "never-stored")),
+                Arrays.asList(gone.getTaskId()));
+
+        taskRepository.save(later.withStatus(Status.IN_PROGRESS));
+
+        Assert.assertEquals(taskRepository.count(), 2);
+        Assert.assertEquals(taskRepository.findOverdue(LocalDateTime.now()).get(0).getTaskId(), urgent.getTaskId());
+        Assert.assertEquals(taskRepository.findByStatus(Status.IN_PROGRESS).get(0).getTaskId(), later.getTaskId());
+        Assert.assertEquals(taskRepository.findByCategoryId(category.getCategoryId()).size(), 2);
+        Assert.assertEquals(taskRepository.query(TaskQuery.builder().priority(Priority.HIGH).build()).size(), 1);
+    }
+}
@@ -0,0 +1,150 @@
+package com.taskmanager.repository.lsm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Task;
+
+public class LsmTaskStoreTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 9, 0);
+
+    private Path storeDirectory;
+    private Category category;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        storeDirectory = Files.createTempDirectory("task-lsm");
+        category = new Category("Home", "Chores");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(storeDirectory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // small enough that a few thousand tasks go through several flushes and compactions
+    private LsmTaskStore openSmallStore() throws IOException {
+        return new LsmTaskStore(storeDirectory, 16 * 1024, 8 * 1024, 2, 32 * 1024);
+    }
+
+    private Task task(int i, LocalDateTime dueDate) {
+        return new Task(String.format("task-%05d", i), "Task " + i, "Description of task " + i, dueDate,
+                Priority.MEDIUM, category, null, BASE, BASE);
+    }
+
+    @Test
+    public void testReadsSeeTheNewestVersionAcrossLevels() throws IOException {
+        LsmTaskStore store = openSmallStore();
+        Map<String, Task> expected = new TreeMap<>();
+        for (int i = 0; i < 3_000; i++) {
+            Task task = task(i, BASE.plusHours(i));
+            store.put(task);
+            expected.put(task.getTaskId(), task);
+        }
+        for (int i = 0; i < 3_000; i += 3) {
+            Task task = task(i, BASE.minusHours(i)).toBuilder().title("Updated " + i).build();
+            store.put(task);
+            expected.put(task.getTaskId(), task);
+        }
+        for (int i = 1; i < 3_000; i += 5) {
+            store.remove(String.format("task-%05d", i));
+            expected.remove(String.format("task-%05d", i));
+        }
+        store.flush();
+
+        Assert.assertTrue(store.tableCount(0) < 2);
+        Assert.assertTrue(store.tableCount(1) + store.tableCount(2) > 1);
+        Assert.assertEquals(store.size(), expected.size());
+        for (int i = 0; i < 3_000; i++) {
+            String taskId = String.format("task-%05d", i);
+            Task stored = store.get(taskId);
+            Assert.assertEquals(stored == null ? null : stored.toString(),
+                    expected.containsKey(taskId) ? expected.get(taskId).toString() : null, taskId);
+        }
+        Assert.assertNull(store.get("task-99999"));
+        Assert.assertEquals(store.stream().map(Task::getTaskId).collect(Collectors.toList()),
+                new ArrayList<>(expected.keySet()));
+        store.close();
+    }
+
+    @Test
+    public void testDueDateRangeMergesMemtableAndTables() throws IOException {
+        LsmTaskStore store = openSmallStore();
+        for (int i = 0; i < 1_000; i++) {
+            store.put(task(i, BASE.plusMinutes(i)));
+        }
+        store.flush();
+        // moved out of the range, into it, and deleted, all while the old keys sit in the tables
+        store.put(task(10, BASE.plusYears(1)));
+        store.put(task(900, BASE.plusMinutes(15).plusSeconds(30)));
+        store.remove("task-00012");
+        store.put(task(2_000, null));
+
+        List<String> due = store.streamDueBetween(BASE.plusMinutes(5), BASE.plusMinutes(20)).map(Task::getTaskId)
+                .collect(Collectors.toList());
+        List<String> expected = new ArrayList<>();
+        for (int i = 5; i < 20; i++) {
+            if (i != 10 && i != 12) {
+                expected.add(String.format("task-%05d", i));
+            }
+            if (i == 15) {
+                expected.add("task-00900");
+            }
+        }
+        Assert.assertEquals(due, expected);
+        Assert.assertEquals(store.streamDueBetween(null, BASE.plusMinutes(2)).count(), 2);
+        Assert.assertEquals(store.streamDueBetween(BASE.plusMinutes(999), null).map(Task::getTaskId)
+                .collect(Collectors.toList()), Arrays.asList("task-00999", "task-00010"));
+        store.close();
+    }
+
+    @Test
+    public void testReopenBringsTasksBackAndSweepsStrayTables() throws IOException {
+        LsmTaskStore store = openSmallStore();
+        for (int i = 0; i < 1_500; i++) {
+            store.put(task(i, BASE.plusDays(i)));
+        }
+        store.flush();
+        store.put(task(1_500, null));
+        store.remove("task-00000");
+        store.close();
+        Path stray = storeDirectory.resolve("9999999999.sst");
+        Files.write(stray, new byte[] { 1, 2, 3 });
+
+        LsmTaskStore reopened = openSmallStore();
+        Assert.assertFalse(Files.exists(stray));
+        Assert.assertEquals(reopened.size(), 1_500);
+        Assert.assertNull(reopened.get("task-00000"));
+        Assert.assertEquals(reopened.get("task-01500").toString(), task(1_500, null).toString());
+        Assert.assertEquals(reopened.get("task-00700").toString(), task(700, BASE.plusDays(700)).toString());
+        Assert.assertEquals(reopened.streamDueBetween(BASE, BASE.plusDays(3)).count(), 2);
+
+        reopened.clear();
+        reopened.close();
+        LsmTaskStore cleared = openSmallStore();
+        Assert.assertEquals(cleared.size(), 0);
+        Assert.assertFalse(cleared.iterator().hasNext());
+        cleared.close();
+    }
+}
@@ -0,0 +1,153 @@
+package com.taskmanager.search;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+
+public class FullTextIndexTest {
+    private TaskRepository taskRepository;
+    private FullTextIndex index;
+    private Category category;
+
+    @BeforeMethod
+    public void setUp() {
+        taskRepository = new TaskRepository();
+        category = new Category("Work", "Work tasks");
+        index = FullTextIndex.attach(taskRepository);
+    }
+
+    private Task save(String title, String description) {
+        return taskRepository.save(new Task(title, description, LocalDateTime.now().plusDays(1), Priority.MEDIUM, category));
+    }
+
+    private static List<String> ids(List<SearchHit> hits) {
+        List<String> ids = new ArrayList<>();
+        hits.forEach(hit -> ids.add(hit.getTaskId()));
+        return ids;
+    }
+
+    private static Map<String, Double> scores(List<SearchHit> hits) {
+        Map<String, Double> scores = new HashMap<>();
+        hits.forEach(hit -> scores.put(hit.getTaskId(), hit.getScore()));
+        return scores;
+    }
+
+    @Test
+    public void testTermsPrefixesAndAlternatives() {
+        Task invoice = save("Send March invoice", "Email the invoice to accounting");
+        Task receipt = save("File receipts", "Scan every receipt from the March trip");
+        Task report = save("Quarterly report", "Draft the quarterly numbers");
+
+        Assert.assertEquals(ids(index.search("march", 0)).size(), 2);
+        Assert.assertEquals(ids(index.search("MARCH invoice", 0)), Arrays.asList(invoice.getTaskId()));
+        Assert.assertEquals(ids(index.search("quart*", 0)), Arrays.asList(report.getTaskId()));
+        Assert.assertEquals(new HashSet<>(ids(index.search("invoice OR receipts", 0))),
+                new HashSet<>(Arrays.asList(invoice.getTaskId(), receipt.getTaskId())));
+        Assert.assertTrue(index.search("invoice holiday", 0).isEmpty());
+        Assert.assertTrue(index.search("   ", 0).isEmpty());
+    }
+
+    @Test
+    public void testRankingPrefersTitleAndFrequentTerms() {
+        Task mentioned = save("Clean desk", "Throw away the old budget notes");
+        Task titled = save("Budget review", "Go through next year's numbers");
+        save("Water plants", "Kitchen and office");
+
+        List<SearchHit> hits = index.search("budget", 0);
+        Assert.assertEquals(ids(hits), Arrays.asList(titled.getTaskId(), mentioned.getTaskId()));
+        Assert.assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+        Assert.assertEquals(index.search("budget", 1).size(), 1);
+    }
+
+    @Test
+    public void testUpdatesAndDeletesAreFollowed() {
+        Task task = save("Book flights", "Lisbon conference");
+        taskRepository.save(task.withTitle("Book hotel"));
+
+        Assert.assertTrue(index.search("flights", 0).isEmpty());
+        Assert.assertEquals(ids(index.search("hotel lisbon", 0)), Arrays.asList(task.getTaskId()));
+
+        taskRepository.deleteById(task.getTaskId());
+        Assert.assertTrue(index.search("hotel", 0).isEmpty());
+        Assert.assertEquals(index.size(), 0);
+    }
+
+    @Test
+    public void testCompactionKeepsResults() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            tasks.add(save("Task number" + i, i % 2 == 0 ? "even" : "odd"));
+        }
+        // three indexed versions of every task retire twice as many documents as there are live
+        // ones; size() applies each round's saves before the next round replaces them
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.set(i, taskRepository.save(tasks.get(i).withTitle(tasks.get(i).getTitle() + " v" + round)));
+            }
+            Assert.assertEquals(index.size(), 1500);
+        }
+
+        Assert.assertEquals(index.size(), 1500);
+        Assert.assertEquals(index.search("even", 0).size(), 750);
+        Assert.assertEquals(ids(index.search("number42", 0)), Arrays.asList(tasks.get(42).getTaskId()));
+        Assert.assertEquals(index.search("v1", 0).size(), 1500);
+    }
+
+    @Test
+    public void testScoresDoNotDependOnUpdateHistory() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tasks.add(save("Order " + i + " alpha", "Supplier notes"));
+        }
+        Assert.assertEquals(index.search("alpha", 0).size(), 200);
+        // retired documents stay in the posting lists, too few of them to be compacted away
+        for (int i = 0; i < 100; i++) {
+            taskRepository.save(tasks.get(i).withTitle("Order " + i + " gamma"));
+        }
+        Assert.assertEquals(index.size(), 200);
+
+        // equal scores may come back in any order, so scores are compared per task
+        Map<String, Double> scores = scores(index.search("alpha supplier", 0));
+        Map<String, Double> fresh = scores(FullTextIndex.attach(taskRepository).search("alpha supplier", 0));
+        Assert.assertEquals(scores.size(), 100);
+        Assert.assertEquals(scores.keySet(), fresh.keySet());
+        for (String taskId : scores.keySet()) {
+            Assert.assertEquals(scores.get(taskId), fresh.get(taskId), 1e-9);
+        }
+    }
+
+    @Test
+    public void testSavesAreIndexedByTheNextSearch() {
+        Task task = save("Pack boxes", "Moving day");
+        taskRepository.save(task.withTitle("Label boxes"));
+        taskRepository.save(task.withTitle("Tape boxes"));
+        save("Return keys", "Moving day");
+
+        Assert.assertEquals(ids(index.search("tape", 0)), Arrays.asList(task.getTaskId()));
+        Assert.assertTrue(index.search("label", 0).isEmpty());
+        Assert.assertEquals(index.search("moving", 0).size(), 2);
+        taskRepository.clear();
+        Assert.assertTrue(index.search("moving", 0).isEmpty());
+    }
+
+    @Test
+    public void testIndexFillsFromExistingTasks() {
+        save("Renew passport", "Before the summer");
+        FullTextIndex late = FullTextIndex.attach(taskRepository);
+        Assert.assertEquals(late.search("passport", 0).size(), 1);
+        Assert.assertTrue(late.termCount() > 0);
+    }
+}
@@ -4,21 +4,29 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.taskmanager.exception.CategoryInUseException;
 import com.taskmanager.exception.CategoryNotFoundException;
 import com.taskmanager.model.Category;
+import com.taskmanager.model.Priority;
+import com.taskmanager.model.Task;
 import com.taskmanager.repository.CategoryRepository;
+import com.taskmanager.repository.TaskRepository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class CategoryServiceTest {
 	private CategoryService categoryService;
 	private CategoryRepository categoryRepository;
+	private TaskRepository taskRepository;
 	private Category testCategory;
 
 	@BeforeMethod
 	public void setUp() {
 		categoryRepository = new CategoryRepository();
-		categoryService = new CategoryService(categoryRepository);
+		taskRepository = new TaskRepository();
+		categoryService = new CategoryService(categoryRepository, taskRepository);
 
 		testCategory = new Category("Code Review", "Code review and test review");
 		testCategory.setName("Code Review");
@@ -74,6 +82,116 @@ public class CategoryServiceTest {
 		});
 	}
 
+	private void addTasks(Category category, int count) {
+		List<Task> tasks = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			tasks.add(new Task(category.getName() + " task " + i, "Category delete test",
+					LocalDateTime.now().plusDays(1), Priority.LOW, category));
+		}
+		taskRepository.saveAll(tasks);
+	}
+
+	@Test
+	public void testDeleteRejectsCategoryInUse() throws CategoryNotFoundException {
+		Category used = categoryService.createCategory(testCategory);
+		addTasks(used, 3);
+
+		Assert.assertThrows(CategoryInUseException.class, () -> categoryService.deleteCategory(used.getCategoryId(),
+				CategoryDeleteMode.REJECT_IF_USED, null, null));
+		Assert.assertEquals(categoryService.getCategoryById(used.getCategoryId()), used);
+		Assert.assertEquals(taskRepository.count(), 3);
+		addTasks(used, 1);
+		Assert.assertEquals(taskRepository.countByCategoryId(used.getCategoryId()), 4);
+	}
+
+	@Test
+	public void testRejectingDeleteRacesNoTaskIntoTheCategory() throws Exception {
+		for (int round = 0; round < 50; round++) {
+			Category category = categoryService.createCategory(new Category("Race " + round, "Delete while adding"));
+			Thread adder = new Thread(() -> {
+				try {
+					taskRepository.save(new Task("Late task", "Added during the delete", null, Priority.LOW, category));
+				} catch (IllegalStateException e) {
+					// the category was deleted first
+				}
+			});
+			adder.start();
+			boolean deleted;
+			try {
+				categoryService.deleteCategory(category.getCategoryId(), CategoryDeleteMode.REJECT_IF_USED, null, null);
+				deleted = true;
+			} catch (CategoryInUseException e) {
+				deleted = false;
+			}
+			adder.join();
+			Assert.assertEquals(categoryRepository.exists(category.getCategoryId()), !deleted);
+			Assert.assertEquals(taskRepository.countByCategoryId(category.getCategoryId()), deleted ? 0 : 1);
+			if (deleted) {
+				Assert.assertThrows(IllegalStateException.class, () -> addTasks(category, 1));
+			}
+		}
+	}
+
+	@Test(timeOut = 10_000)
+	public void testReassignFollowsTheIndexNotTheSharedCategory() throws Exception {
+		Category deleted = categoryService.createCategory(testCategory);
+		Category target = categoryService.createCategory(new Category("Travel", "Trips"));
+		Category alias = new Category(deleted.getName(), deleted.getDescription());
+		alias.setCategoryId(deleted.getCategoryId());
+		addTasks(alias, 3);
+		// a shared Category changed under the stored tasks
+		alias.setCategoryId("renamed-elsewhere");
+
+		long moved = categoryService.deleteCategory(deleted.getCategoryId(), CategoryDeleteMode.REASSIGN,
+				target.getCategoryId(), null);
+
+		Assert.assertEquals(moved, 3);
+		Assert.assertEquals(taskRepository.countByCategoryId(target.getCategoryId()), 3);
+		Assert.assertFalse(categoryRepository.exists(deleted.getCategoryId()));
+	}
+
+	@Test
+	public void testCascadeDeleteRemovesOnlyTheCategorysTasks() throws Exception {
+		Category deleted = categoryService.createCategory(testCategory);
+		Category kept = categoryService.createCategory(new Category("Travel", "Trips"));
+		addTasks(deleted, 2 * CategoryService.DELETE_BATCH_SIZE + 500);
+		addTasks(kept, 10);
+		List<long[]> progress = new ArrayList<>();
+
+		long count = categoryService.deleteCategory(deleted.getCategoryId(), CategoryDeleteMode.CASCADE_DELETE, null,
+				(done, total) -> progress.add(new long[] { done, total }));
+
+		Assert.assertEquals(count, 2500);
+		Assert.assertEquals(progress.size(), 3);
+		Assert.assertEquals(progress.get(0), new long[] { 1000, 2500 });
+		Assert.assertEquals(progress.get(2), new long[] { 2500, 2500 });
+		Assert.assertEquals(taskRepository.count(), 10);
+		Assert.assertEquals(taskRepository.countByCategoryId(kept.getCategoryId()), 10);
+		Assert.assertFalse(categoryRepository.exists(deleted.getCategoryId()));
+	}
+
+	@Test
+	public void testReassignMovesTasksToTheTargetCategory() throws Exception {
+		Category deleted = categoryService.createCategory(testCategory);
+		Category target = categoryService.createCategory(new Category("Travel", "Trips"));
+		addTasks(deleted, CategoryService.DELETE_BATCH_SIZE + 1);
+		addTasks(target, 5);
+
+		Assert.assertThrows(CategoryNotFoundException.class, () -> categoryService
+				.deleteCategory(deleted.getCategoryId(), CategoryDeleteMode.REASSIGN, "no-such-category", null));
+		long moved = categoryService.deleteCategory(deleted.getCategoryId(), CategoryDeleteMode.REASSIGN,
+				target.getCategoryId(), null);
+
+		Assert.assertEquals(moved, 1001);
+		Assert.assertEquals(taskRepository.count(), 1006);
+		Assert.assertEquals(taskRepository.countByCategoryId(deleted.getCategoryId()), 0);
+		Assert.assertEquals(taskRepository.findByCategoryId(target.getCategoryId()).size(), 1006);
+		for (Task task : taskRepository.findByCategoryId(target.getCategoryId())) {
+			Assert.assertEquals(task.getCategory(), target);
+		}
+		Assert.assertFalse(categoryRepository.exists(deleted.getCategoryId()));
+	}
+
 	@Test
 	public void testGetAllCategories() {
 		categoryService.createCategory(testCategory);
@@ -30,12 +30,10 @@ public class ReportServiceTest {
 	public void testTasksCountByStatus() {
 		// Create tasks with different statuses
 		Task pendingTask = new Task("Learn Java", "Learn some besics in Java", LocalDateTime.now().plusDays(1),
-				Priority.HIGH, testCategory);
-		pendingTask.setStatus(Status.PENDING);
+				Priority.HIGH, testCategory).withStatus(Status.PENDING);
 
 		Task completedTask = new Task("Water plants", "Have to water plants", LocalDateTime.now().plusDays(1),
-				Priority.HIGH, testCategory);
-		completedTask.setStatus(Status.COMPLETED);
+				Priority.HIGH, testCategory).withStatus(Status.COMPLETED);
 
 		taskRepository.save(pendingTask);
 		taskRepository.save(completedTask);
@@ -116,4 +114,23 @@ public class ReportServiceTest {
 		System.out.println(report);
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testCountsFollowUpdatesAndDeletes() {
+		Task task = new Task("Renew insurance", "Car insurance renewal", LocalDateTime.now().plusDays(3),
+				Priority.MEDIUM, testCategory);
+		taskRepository.save(task);
+
+		taskRepository.save(task.toBuilder().status(Status.IN_PROGRESS).priority(Priority.LOW).build());
+
+		Assert.assertEquals(reportService.tasksCountByStatus(Status.PENDING), 0);
+		Assert.assertEquals(reportService.tasksCountByStatus(Status.IN_PROGRESS), 1);
+		Assert.assertEquals(reportService.tasksCountByPriority(Priority.MEDIUM), 0);
+		Assert.assertEquals(reportService.tasksCountByPriority(Priority.LOW), 1);
+
+		taskRepository.deleteById(task.getTaskId());
+		Assert.assertTrue(reportService.taskStatusReport().isEmpty());
+		Assert.assertTrue(reportService.categoryReport().isEmpty());
+		Assert.assertTrue(reportService.generateReport().contains("Total Tasks: 0"));
+	}
+
+}
@@ -1,8 +1,16 @@
 package com.taskmanager.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
@@ -11,6 +19,7 @@ import org.testng.annotations.Test;
 
 import com.taskmanager.exception.DuplicateTaskException;
 import com.taskmanager.exception.InvalidDateException;
+import com.taskmanager.exception.TaskConflictException;
 import com.taskmanager.exception.TaskNotFoundException;
 import com.taskmanager.exception.TaskValidationException;
 import com.taskmanager.model.Category;
@@ -59,8 +68,7 @@ public class TaskServiceTest {
 
 	@Test(expectedExceptions = InvalidDateException.class)
 	public void testCreateTaskUsingPastDate() throws Exception {
-		testTask.setDueDate(LocalDateTime.now().minusDays(1));
-		taskService.createTask(testTask);
+		taskService.createTask(testTask.withDueDate(LocalDateTime.now().minusDays(1)));
 	}
 
 	@DataProvider(name = "taskPriorities")
@@ -70,8 +78,7 @@ public class TaskServiceTest {
 
 	@Test(dataProvider = "taskPriorities")
 	public void testCreateTaskUsingPriorities(Priority priority) throws Exception {
-		testTask.setPriority(priority);
-		Task createdTask = taskService.createTask(testTask);
+		Task createdTask = taskService.createTask(testTask.withPriority(priority));
 		Assert.assertEquals(createdTask.getPriority(), priority);
 	}
 
@@ -88,6 +95,21 @@ public class TaskServiceTest {
 		Assert.assertEquals(result.getDescription(), "Understand Project before coding starts");
 	}
 
+	@Test
+	public void testUpdateLeavesEarlierReadsUnchanged() throws Exception {
+		Task before = taskService.createTask(testTask);
+		Task updatedTask = new Task("Read Project", "Understand Project before coding starts",
+				LocalDateTime.now().plusDays(2), Priority.MEDIUM, testCategory);
+
+		Task after = taskService.updateTask(before.getTaskId(), updatedTask);
+		Assert.assertEquals(before.getTitle(), "Water Garden Plants");
+		Assert.assertEquals(before.getPriority(), Priority.HIGH);
+		Assert.assertEquals(after.getTitle(), "Read Project");
+		Assert.assertEquals(after.getCreatedDate(), before.getCreatedDate());
+		Assert.assertEquals(after.getVersion(), before.getVersion() + 1);
+		Assert.assertEquals(taskService.getTaskById(before.getTaskId()).toString(), after.toString());
+	}
+
 	@Test
 	public void testTaskById() throws Exception {
 		Task createdTask = taskService.createTask(testTask);
@@ -102,8 +124,7 @@ public class TaskServiceTest {
 
 	@Test
 	public void testTasksByStatus() throws Exception {
-		testTask.setStatus(Status.PENDING);
-		taskService.createTask(testTask);
+		taskService.createTask(testTask.withStatus(Status.PENDING));
 
 		List<Task> pendingTasks = taskService.getTasksByStatus(Status.PENDING);
 		Assert.assertEquals(pendingTasks.size(), 1);
@@ -112,8 +133,7 @@ public class TaskServiceTest {
 
 	@Test
 	public void testTasksByPriority() throws Exception {
-		testTask.setPriority(Priority.HIGH);
-		taskService.createTask(testTask);
+		taskService.createTask(testTask.withPriority(Priority.HIGH));
 
 		List<Task> highPriorityTasks = taskService.getTasksByPriority(Priority.HIGH);
 		Assert.assertEquals(highPriorityTasks.size(), 1);
@@ -160,7 +180,147 @@ public class TaskServiceTest {
 
 	@Test(expectedExceptions = TaskValidationException.class)
 	public void testCreateTaskWithoutTitle() throws Exception {
-		testTask.setTitle("");
+		taskService.createTask(testTask.withTitle(""));
+	}
+
+	@Test
+	public void testDuplicateAllowedAfterDelete() throws Exception {
+		taskService.createTask(testTask);
+		taskService.deleteTask(testTask.getTaskId());
+
+		Task sameTask = new Task(testTask.getTitle(), testTask.getDescription(), LocalDateTime.now().plusDays(1),
+				Priority.HIGH, testCategory);
+		Assert.assertNotNull(taskService.createTask(sameTask));
+	}
+
+	@Test
+	public void testDuplicateCheckFollowsUpdate() throws Exception {
+		taskService.createTask(testTask);
+		Task renamed = new Task("Water Indoor Plants", testTask.getDescription(), LocalDateTime.now().plusDays(1),
+				Priority.HIGH, testCategory);
+		taskService.updateTask(testTask.getTaskId(), renamed);
+
+		Task original = new Task("Water Garden Plants", "Essential evening care for vegetables",
+				LocalDateTime.now().plusDays(1), Priority.HIGH, testCategory);
+		Assert.assertNotNull(taskService.createTask(original));
+
+		Task clash = new Task("Water Indoor Plants", testTask.getDescription(), LocalDateTime.now().plusDays(1),
+				Priority.LOW, testCategory);
+		Assert.assertThrows(DuplicateTaskException.class, () -> taskService.createTask(clash));
+	}
+
+	@Test
+	public void testConcurrentDuplicateCreate() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Callable<Boolean>> attempts = new ArrayList<>();
+		for (int i = 0; i < 32; i++) {
+			attempts.add(() -> {
+				Task task = new Task("Same title", "Same description", LocalDateTime.now().plusDays(1), Priority.LOW,
+						testCategory);
+				try {
+					taskService.createTask(task);
+					return true;
+				} catch (DuplicateTaskException e) {
+					return false;
+				}
+			});
+		}
+		int created = 0;
+		for (Future<Boolean> attempt : executor.invokeAll(attempts)) {
+			if (attempt.get()) {
+				created++;
+			}
+		}
+		executor.shutdown();
+		Assert.assertEquals(created, 1);
+		Assert.assertEquals(taskService.getAllTasks().size(), 1);
+	}
+
+	@Test
+	public void testCreateTasksBatch() throws Exception {
+		taskService.createTask(testTask);
+		Task fresh = new Task("Fix bike", "Replace the chain", LocalDateTime.now().plusDays(3), Priority.LOW,
+				testCategory);
+		Task repeat = new Task("Fix bike", "Replace the chain", LocalDateTime.now().plusDays(4), Priority.HIGH,
+				testCategory);
+		Task storedDuplicate = new Task(testTask.getTitle(), testTask.getDescription(),
+				LocalDateTime.now().plusDays(1), Priority.HIGH, testCategory);
+		Task pastDue = new Task("Old task", "Already late", LocalDateTime.now().minusDays(1), Priority.LOW,
+				testCategory);
+
+		BatchResult result = taskService.createTasks(Arrays.asList(fresh, repeat, storedDuplicate, pastDue));
+
+		Assert.assertEquals(result.getSuccessCount(), 1);
+		Assert.assertTrue(result.getItems().get(0).isSuccess());
+		Assert.assertTrue(result.getItems().get(1).getError() instanceof DuplicateTaskException);
+		Assert.assertTrue(result.getItems().get(2).getError() instanceof DuplicateTaskException);
+		Assert.assertTrue(result.getItems().get(3).getError() instanceof InvalidDateException);
+		Assert.assertEquals(taskService.getAllTasks().size(), 2);
+	}
+
+	@Test
+	public void testCreateTasksBatchReturnsStoredVersions() throws Exception {
+		BatchResult result = taskService.createTasks(Arrays.asList(testTask));
+
+		Task created = result.getItems().get(0).getTask();
+		Assert.assertEquals(created.getVersion(), 1);
+		Task updated = taskService.updateIfVersion(created.getTaskId(), created.getVersion(),
+				task -> task.withStatus(Status.IN_PROGRESS));
+		Assert.assertEquals(updated.getVersion(), 2);
+	}
+
+	@Test
+	public void testUpdateTaskStatusesBatch() throws Exception {
 		taskService.createTask(testTask);
+		Map<String, Status> updates = new LinkedHashMap<>();
+		updates.put(testTask.getTaskId(), Status.COMPLETED);
+		updates.put("non-existent-id", Status.IN_PROGRESS);
+
+		BatchResult result = taskService.updateTaskStatuses(updates);
+
+		Assert.assertTrue(result.getItems().get(0).isSuccess());
+		Assert.assertTrue(result.getItems().get(1).getError() instanceof TaskNotFoundException);
+		Assert.assertEquals(taskService.getTasksByStatus(Status.COMPLETED).size(), 1);
+		Assert.assertTrue(taskService.getTasksByStatus(Status.PENDING).isEmpty());
+	}
+
+	@Test
+	public void testConcurrentUpdatesAreNotLost() throws Exception {
+		taskService.createTask(testTask);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Callable<Task>> updates = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			updates.add(() -> taskService.updateWithRetry(testTask.getTaskId(),
+					task -> task.withDescription(task.getDescription() + "+")));
+		}
+		for (Future<Task> update : executor.invokeAll(updates)) {
+			update.get();
+		}
+		executor.shutdown();
+		Task stored = taskService.getTaskById(testTask.getTaskId());
+		Assert.assertEquals(stored.getDescription().length(), testTask.getDescription().length() + 200);
+		Assert.assertEquals(stored.getVersion(), 201);
+	}
+
+	@Test
+	public void testUpdateIfVersionRejectsStaleVersion() throws Exception {
+		taskService.createTask(testTask);
+		long version = taskService.getTaskById(testTask.getTaskId()).getVersion();
+		taskService.updateTaskStatus(testTask.getTaskId(), Status.IN_PROGRESS);
+
+		Assert.assertThrows(TaskConflictException.class, () -> taskService.updateIfVersion(testTask.getTaskId(),
+				version, task -> task.withStatus(Status.COMPLETED)));
+		Assert.assertEquals(taskService.getTaskById(testTask.getTaskId()).getStatus(), Status.IN_PROGRESS);
+	}
+
+	@Test
+	public void testDeleteTasksBatch() throws Exception {
+		taskService.createTask(testTask);
+
+		BatchResult result = taskService.deleteTasks(Arrays.asList(testTask.getTaskId(), "non-existent-id"));
+
+		Assert.assertEquals(result.getSuccessCount(), 1);
+		Assert.assertTrue(result.getItems().get(1).getError() instanceof TaskNotFoundException);
+		Assert.assertTrue(taskService.getAllTasks().isEmpty());
 	}
 }
@@ -43,7 +43,8 @@ public class DateValidatorTest {
 
 	@DataProvider(name = "invalidDates")
 	public Object[][] invalidDates() {
-		return new Object[][] { { "2024-12-32" }, { "in-valid-date" } };
+		return new Object[][] { { "2024-12-32" }, { "in-valid-date" }, { "2024-01/05" }, { "2024-1-05" },
+				{ "2024-01-05T10:30" }, { "2024-01-05 10:60" } };
 	}
 
 	@Test(dataProvider = "invalidDates", expectedExceptions = InvalidDateException.class)
@@ -107,4 +108,17 @@ public class DateValidatorTest {
 
 		Assert.assertEquals(isValid, shouldBeValid, "Date validity mismatch for: " + dateString);
 	}
+
+	@Test
+	public void testEachFormatParsesToSameDateTime() throws InvalidDateException {
+		LocalDateTime expected = LocalDateTime.of(2024, 5, 10, 8, 15);
+		for (String dateString : new String[] { "2024-05-10 08:15", "2024/05/10 08:15", "10/05/2024 08:15",
+				"10-05-2024 08:15" }) {
+			Assert.assertEquals(DateValidator.convertToDate(dateString), expected, dateString);
+		}
+		for (String dateString : new String[] { "2024-05-10", "2024/05/10", "10/05/2024", "10-05-2024" }) {
+			Assert.assertEquals(DateValidator.convertToDate(dateString), expected.toLocalDate().atStartOfDay(),
+					dateString);
+		}
+	}
 }